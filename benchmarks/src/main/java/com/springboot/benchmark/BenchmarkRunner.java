@@ -0,0 +1,43 @@
+package com.springboot.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 基准测试入口
+ * <p>
+ * 参数与JMH命令行一致，未指定-rf/-rff时结果以JSON写入jmh-result.json，便于不同版本间对比
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-28 10:10
+ **/
+public class BenchmarkRunner {
+
+    /**
+     * 配置常量
+     */
+    interface Constants {
+        String RESULT_FILE = "jmh-result.json";
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result(Constants.RESULT_FILE);
+        }
+        new Runner(builder.build()).run();
+    }
+}
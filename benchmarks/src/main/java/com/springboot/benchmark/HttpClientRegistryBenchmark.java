@@ -0,0 +1,83 @@
+package com.springboot.benchmark;
+
+import com.springboot.httpclient.HttpClientConfig;
+import com.springboot.httpclient.HttpClientRegistry;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端获取基准测试，对比注册中心无锁获取与类级别锁获取在不同线程数下的吞吐
+ * <p>
+ * 运行：java -jar benchmarks/target/benchmarks.jar HttpClientRegistryBenchmark -t 16
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-10 15:20
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HttpClientRegistryBenchmark {
+
+    private static final String NAME = "benchmark";
+
+    private final Map<String, CloseableHttpClient> locked = new HashMap<String, CloseableHttpClient>();
+
+    @Setup
+    public void setup() throws Exception {
+        HttpClientRegistry.register(NAME, HttpClientConfig.custom().setMaxRoute(50).build());
+        locked.put(NAME, HttpClientRegistry.getClient(NAME));
+    }
+
+    /**
+     * 注册中心按名称获取
+     *
+     * @return
+     * @throws Exception
+     */
+    @Benchmark
+    public CloseableHttpClient registry() throws Exception {
+        return HttpClientRegistry.getClient(NAME);
+    }
+
+    /**
+     * 原createClient的类级别锁获取方式，锁内只做map读取
+     *
+     * @return
+     */
+    @Benchmark
+    public CloseableHttpClient synchronizedLookup() {
+        synchronized (HttpClientRegistryBenchmark.class) {
+            return locked.get(NAME);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : new int[]{1, 4, 16, 64}) {
+            Options options = new OptionsBuilder()
+                    .include(HttpClientRegistryBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.springboot.benchmark;
+
+import com.springboot.httpclient.HttpClientUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HttpClientUtil往返基准测试，对进程内服务发起GET/POST，覆盖连接池租借、请求执行和响应读取
+ * <p>
+ * 运行：java -jar benchmarks/target/benchmarks.jar HttpRoundTripBenchmark -t 8
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-28 11:00
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HttpRoundTripBenchmark {
+
+    @Param({"128", "16384"})
+    private int bodySize;
+
+    private LocalHttpServer server;
+
+    private String getUrl;
+
+    private String postUrl;
+
+    private String postBody;
+
+    @Setup
+    public void setup() throws Exception {
+        server = new LocalHttpServer();
+        getUrl = server.getBaseUrl() + "/get";
+        postUrl = server.getBaseUrl() + "/post";
+        StringBuilder builder = new StringBuilder(bodySize);
+        for (int i = 0; i < bodySize; i++) {
+            builder.append('a');
+        }
+        postBody = builder.toString();
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.close();
+    }
+
+    @Benchmark
+    public String get() {
+        HashMap<String, Object> params = new HashMap<String, Object>();
+        params.put("size", bodySize);
+        return HttpClientUtil.get(getUrl, params);
+    }
+
+    @Benchmark
+    public String post() {
+        return HttpClientUtil.post(postUrl, null, postBody);
+    }
+}
@@ -0,0 +1,95 @@
+package com.springboot.benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 进程内HTTP服务，监听回环地址的随机端口，排除网络抖动对基准测试的影响
+ * <p>
+ * GET /get?size=n 返回n字节的响应体；POST /post 读完请求体后返回其长度
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-28 10:30
+ **/
+public class LocalHttpServer implements AutoCloseable {
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    public LocalHttpServer() throws IOException {
+        // 默认开启Nagle算法，与客户端的延迟确认叠加后每个小响应都会多等待约40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 1024);
+        executor = Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors()));
+        server.setExecutor(executor);
+        server.createContext("/get", new GetHandler());
+        server.createContext("/post", new PostHandler());
+        server.start();
+    }
+
+    /**
+     * 服务地址，如 http://127.0.0.1:8080
+     *
+     * @return
+     */
+    public String getBaseUrl() {
+        InetSocketAddress address = server.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static class GetHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getQuery();
+            int size = 0;
+            if (query != null && query.startsWith("size=")) {
+                size = Integer.parseInt(query.substring("size=".length()));
+            }
+            byte[] body = new byte[size];
+            Arrays.fill(body, (byte) 'a');
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(200, size == 0 ? -1 : size);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static class PostHandler implements HttpHandler {
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            long length = 0;
+            byte[] buffer = new byte[8192];
+            try (InputStream in = exchange.getRequestBody()) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    length += read;
+                }
+            }
+            byte[] body = Long.toString(length).getBytes("UTF-8");
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
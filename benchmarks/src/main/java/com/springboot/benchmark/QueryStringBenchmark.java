@@ -0,0 +1,59 @@
+package com.springboot.benchmark;
+
+import com.springboot.httpclient.FormEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 查询串拼接基准测试，覆盖FormEncoder生成查询串和拼接到url两种用法
+ * <p>
+ * 运行：java -jar benchmarks/target/benchmarks.jar QueryStringBenchmark -prof gc
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-28 11:20
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryStringBenchmark {
+
+    @Param({"1", "8", "32"})
+    private int paramCount;
+
+    private HashMap<String, Object> params;
+
+    @Setup
+    public void setup() {
+        params = new HashMap<String, Object>();
+        for (int i = 0; i < paramCount; i++) {
+            params.put("key" + i, i % 2 == 0 ? "value " + i + "&中文" : i);
+        }
+    }
+
+    @Benchmark
+    public String toQuery() {
+        return FormEncoder.toQuery(params, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String appendQuery() {
+        return FormEncoder.appendQuery("http://127.0.0.1/api?v=1", params, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,98 @@
+package com.springboot.benchmark;
+
+import com.springboot.signature.JdkRsaUtil;
+import com.springboot.signature.RsaBatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 批量验签基准测试，对比单线程逐条验签与不同并行度下verifyAll的耗时，观察随核数的扩展性
+ * <p>
+ * 运行：java -jar benchmarks/target/benchmarks.jar RsaBatchBenchmark
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-26 17:40
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RsaBatchBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    @Param({"10000"})
+    private int size;
+
+    private KeyPair keyPair;
+
+    private List<byte[]> contents;
+
+    private List<String> signs;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        contents = new ArrayList<byte[]>(size);
+        for (int i = 0; i < size; i++) {
+            contents.add(("webhook-" + i).getBytes());
+        }
+        signs = Arrays.asList(RsaBatch.signAll(contents, keyPair.getPrivate()));
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public boolean[] verifySequential() throws Exception {
+        boolean[] results = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            results[i] = JdkRsaUtil.verify(contents.get(i), keyPair.getPublic(), signs.get(i));
+        }
+        return results;
+    }
+
+    @Benchmark
+    public boolean[] verifyAll() {
+        return RsaBatch.verifyAll(contents, keyPair.getPublic(), signs, pool);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(RsaBatchBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,82 @@
+package com.springboot.benchmark;
+
+import com.springboot.signature.JdkRsaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JdkRsaUtil签名、验签、加解密基准测试，覆盖不同密钥长度和数据大小
+ * <p>
+ * 运行：java -jar benchmarks/target/benchmarks.jar RsaBenchmark -p keySize=2048
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-28 11:40
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RsaBenchmark {
+
+    @Param({"1024", "2048", "4096"})
+    private int keySize;
+
+    @Param({"32", "1024", "16384"})
+    private int payloadSize;
+
+    private KeyPair keyPair;
+
+    private byte[] payload;
+
+    private String sign;
+
+    private byte[] encrypted;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(keySize);
+        keyPair = generator.generateKeyPair();
+        payload = new byte[payloadSize];
+        new Random(payloadSize).nextBytes(payload);
+        sign = JdkRsaUtil.sign(payload, keyPair.getPrivate());
+        encrypted = JdkRsaUtil.encryptByPublicKey(payload, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public String sign() throws Exception {
+        return JdkRsaUtil.sign(payload, keyPair.getPrivate());
+    }
+
+    @Benchmark
+    public boolean verify() throws Exception {
+        return JdkRsaUtil.verify(payload, keyPair.getPublic(), sign);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws Exception {
+        return JdkRsaUtil.encryptByPublicKey(payload, keyPair.getPublic());
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws Exception {
+        return JdkRsaUtil.decryptByPrivateKey(encrypted, keyPair.getPrivate());
+    }
+}
@@ -0,0 +1,100 @@
+package com.springboot.benchmark;
+
+import com.springboot.signature.Base64Codec;
+import com.springboot.signature.JdkRsaUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Signature/Cipher复用基准测试，对比每次getInstance与JdkRsaUtil线程内复用在1、8、32线程下的吞吐，
+ * 两边都包含签名的Base64解码
+ * <p>
+ * 运行：java -jar benchmarks/target/benchmarks.jar RsaEngineBenchmark -t 8
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-24 11:20
+ **/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RsaEngineBenchmark {
+
+    /**
+     * 与JdkRsaUtil使用的签名算法一致
+     */
+    private static final String SIGNATURE_ALGORITHM = "MD5withRSA";
+
+    private KeyPair keyPair;
+
+    private byte[] payload;
+
+    private String sign;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        payload = new byte[64];
+        sign = JdkRsaUtil.sign(payload, keyPair.getPrivate());
+    }
+
+    @Benchmark
+    public boolean verifyPerCall() throws Exception {
+        Signature verifier = Signature.getInstance(SIGNATURE_ALGORITHM);
+        verifier.initVerify(keyPair.getPublic());
+        verifier.update(payload);
+        return verifier.verify(Base64Codec.BASIC.decode(sign));
+    }
+
+    @Benchmark
+    public boolean verifyReused() throws Exception {
+        return JdkRsaUtil.verify(payload, keyPair.getPublic(), sign);
+    }
+
+    @Benchmark
+    public byte[] encryptPerCall() throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+        return cipher.doFinal(payload);
+    }
+
+    /**
+     * 载荷小于一个分块，与encryptPerCall同样只做一次RSA运算
+     */
+    @Benchmark
+    public byte[] encryptReused() throws Exception {
+        return JdkRsaUtil.encryptByPublicKey(payload, keyPair.getPublic());
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : new int[]{1, 8, 32}) {
+            Options options = new OptionsBuilder()
+                    .include(RsaEngineBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.springboot.httpclient;
+
+/**
+ * 批量请求策略
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-03 09:20
+ **/
+public class BatchPolicy {
+
+    /**
+     * 默认策略
+     */
+    public static final BatchPolicy DEFAULT = custom().build();
+
+    private final int concurrency;
+
+    private final int maxPerRoute;
+
+    private final int maxQueued;
+
+    BatchPolicy(Builder builder) {
+        this.concurrency = builder.concurrency;
+        this.maxPerRoute = builder.maxPerRoute;
+        this.maxQueued = builder.maxQueued;
+    }
+
+    /**
+     * 构建策略
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchPolicy{" +
+                "concurrency=" + concurrency +
+                ", maxPerRoute=" + maxPerRoute +
+                ", maxQueued=" + maxQueued +
+                '}';
+    }
+
+    /**
+     * 策略构建器
+     */
+    public static class Builder {
+
+        private int concurrency = 16;
+
+        private int maxPerRoute = 0;
+
+        private int maxQueued = 0;
+
+        Builder() {
+        }
+
+        /**
+         * 同时执行的请求数，即工作线程数
+         *
+         * @param concurrency
+         * @return
+         */
+        public Builder setConcurrency(int concurrency) {
+            if (concurrency <= 0) {
+                throw new IllegalArgumentException("concurrency must be positive");
+            }
+            this.concurrency = concurrency;
+            return this;
+        }
+
+        /**
+         * 单个路由同时执行的请求数，小于等于0时取并发数与客户端maxRoute中较小的一个
+         *
+         * @param maxPerRoute
+         * @return
+         */
+        public Builder setMaxPerRoute(int maxPerRoute) {
+            this.maxPerRoute = maxPerRoute;
+            return this;
+        }
+
+        /**
+         * 已从输入中取出但未执行的请求数上限，同时也是未被消费的结果数上限，
+         * 输入是无界的流时内存占用由它约束。小于等于0时取并发数的4倍
+         *
+         * @param maxQueued
+         * @return
+         */
+        public Builder setMaxQueued(int maxQueued) {
+            this.maxQueued = maxQueued;
+            return this;
+        }
+
+        public BatchPolicy build() {
+            return new BatchPolicy(this);
+        }
+    }
+}
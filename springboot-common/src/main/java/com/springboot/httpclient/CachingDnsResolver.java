@@ -0,0 +1,78 @@
+package com.springboot.httpclient;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 带过期时间的域名解析缓存
+ * <p>
+ * 解析成功的结果缓存ttl时间，过期后下一次使用时重新解析；解析失败不缓存。
+ * 同步、异步连接池和HTTP/2传输共用，预热时提前解析的结果在建立连接时直接命中
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-07 10:00
+ **/
+public class CachingDnsResolver implements DnsResolver {
+
+    private final DnsResolver delegate;
+
+    private final long ttlNanos;
+
+    private final ConcurrentMap<String, Entry> cache = new ConcurrentHashMap<String, Entry>();
+
+    public CachingDnsResolver(long ttl, TimeUnit unit) {
+        this(SystemDefaultDnsResolver.INSTANCE, ttl, unit);
+    }
+
+    public CachingDnsResolver(DnsResolver delegate, long ttl, TimeUnit unit) {
+        this.delegate = delegate;
+        this.ttlNanos = unit.toNanos(ttl);
+    }
+
+    @Override
+    public InetAddress[] resolve(String host) throws UnknownHostException {
+        Entry entry = cache.get(host);
+        long now = System.nanoTime();
+        if (entry != null && now - entry.resolvedAt < ttlNanos) {
+            return entry.addresses.clone();
+        }
+        InetAddress[] addresses = delegate.resolve(host);
+        cache.put(host, new Entry(addresses.clone(), now));
+        return addresses;
+    }
+
+    /**
+     * 移除域名的缓存，下次使用时重新解析
+     *
+     * @param host
+     */
+    public void invalidate(String host) {
+        cache.remove(host);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    private static class Entry {
+
+        private final InetAddress[] addresses;
+
+        private final long resolvedAt;
+
+        Entry(InetAddress[] addresses, long resolvedAt) {
+            this.addresses = addresses;
+            this.resolvedAt = resolvedAt;
+        }
+    }
+}
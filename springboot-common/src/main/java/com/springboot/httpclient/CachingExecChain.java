@@ -0,0 +1,625 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HeaderElement;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpMessage;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.message.BasicHttpRequest;
+import org.apache.http.message.BasicHttpResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 响应缓存执行链
+ * <p>
+ * 位于执行链最外层，新鲜的缓存直接返回，不经过重试预算、熔断和指标统计；过期的缓存带条件请求头重新验证。
+ * 客户端在进程内共享，缓存按RFC 7234第3.2节的共享缓存处理：不缓存private响应，带Authorization的请求只在响应声明
+ * public、s-maxage或must-revalidate时缓存，s-maxage优先于max-age，must-revalidate的响应过期后必须验证、不做启发式缓存。
+ * 只缓存GET，其他非安全方法成功后使同一URI的缓存失效。
+ * Vary按调用方发出时的请求头匹配，内层执行链按上下文添加的Cookie、Authorization不同的响应不缓存。
+ * 缓存的响应体是解压后的内容，命中时以Content-Length返回
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-30 10:40
+ **/
+class CachingExecChain implements ClientExecChain {
+
+    /**
+     * 可缓存的状态码，RFC 7231中允许启发式缓存的部分
+     */
+    private static final Set<Integer> CACHEABLE_STATUS = new HashSet<Integer>(Arrays.asList(
+            HttpStatus.SC_OK, HttpStatus.SC_NON_AUTHORITATIVE_INFORMATION, HttpStatus.SC_NO_CONTENT,
+            HttpStatus.SC_MULTIPLE_CHOICES, HttpStatus.SC_MOVED_PERMANENTLY, HttpStatus.SC_NOT_FOUND, HttpStatus.SC_GONE));
+
+    /**
+     * 不随缓存保存的逐跳及长度相关的响应头
+     */
+    private static final Set<String> UNCACHED_HEADERS = new HashSet<String>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade",
+            "content-length", "age"));
+
+    /**
+     * 带有这些请求头时由调用方自行处理缓存语义，直接透传
+     */
+    private static final String[] BYPASS_HEADERS = {HttpHeaders.RANGE, HttpHeaders.IF_MATCH, HttpHeaders.IF_NONE_MATCH,
+            HttpHeaders.IF_MODIFIED_SINCE, HttpHeaders.IF_UNMODIFIED_SINCE, HttpHeaders.IF_RANGE};
+
+    /**
+     * 内层执行链按上下文（CookieStore、CredentialsProvider）添加的请求头，查找缓存时无法预知其值
+     */
+    private static final Set<String> CONTEXT_HEADERS = new HashSet<String>(Arrays.asList(
+            "cookie", "authorization", "proxy-authorization"));
+
+    private final ClientExecChain next;
+
+    private final ResponseCachePolicy policy;
+
+    private final HttpClientMetrics metrics;
+
+    private final ResponseCache cache;
+
+    CachingExecChain(ClientExecChain next, ResponseCachePolicy policy, HttpClientMetrics metrics) {
+        this.next = next;
+        this.policy = policy;
+        this.metrics = metrics;
+        this.cache = new ResponseCache(policy.getMaxEntries(), policy.getMaxBytes());
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                         HttpExecutionAware execAware) throws IOException, HttpException {
+        HttpHost target = route.getTargetHost();
+        String method = request.getRequestLine().getMethod();
+        if (!"GET".equals(method)) {
+            CloseableHttpResponse response = next.execute(route, request, context, execAware);
+            if (!isSafe(method) && response.getStatusLine().getStatusCode() < HttpStatus.SC_BAD_REQUEST) {
+                cache.remove(keyOf(target, request));
+            }
+            return response;
+        }
+        long ttl = policy.ttlFor(target);
+        if (ttl == ResponseCachePolicy.DISABLED || !isCacheable(request)) {
+            return next.execute(route, request, context, execAware);
+        }
+        String name = MetricsExecChain.routeOf(route);
+        String key = keyOf(target, request);
+        ResponseCache.Entry entry = cache.get(key);
+        if (entry != null && !entry.matches(request)) {
+            entry = null;
+        }
+        if (entry != null && !requiresRevalidation(request) && entry.isFresh(System.currentTimeMillis())) {
+            metrics.recordCacheHit(name);
+            return toResponse(entry, System.currentTimeMillis());
+        }
+        boolean conditional = entry != null && entry.hasValidators();
+        if (!conditional) {
+            metrics.recordCacheMiss(name);
+        }
+        // 内层执行链会在同一请求对象上添加Accept-Encoding、Cookie和默认请求头，Vary按执行前的请求头记录，与查找时一致
+        HttpRequest original = new BasicHttpRequest(request.getRequestLine());
+        original.setHeaders(request.getAllHeaders());
+        long requestTime = System.currentTimeMillis();
+        CloseableHttpResponse response;
+        try {
+            if (conditional) {
+                if (entry.getEtag() != null) {
+                    request.setHeader(HttpHeaders.IF_NONE_MATCH, entry.getEtag());
+                }
+                if (entry.getLastModified() != null) {
+                    request.setHeader(HttpHeaders.IF_MODIFIED_SINCE, entry.getLastModified());
+                }
+            }
+            response = next.execute(route, request, context, execAware);
+        } finally {
+            // 重试时复用同一个请求对象，条件头在每次执行时按缓存重新添加
+            if (conditional) {
+                request.removeHeaders(HttpHeaders.IF_NONE_MATCH);
+                request.removeHeaders(HttpHeaders.IF_MODIFIED_SINCE);
+            }
+        }
+        long responseTime = System.currentTimeMillis();
+        if (conditional) {
+            boolean notModified = response.getStatusLine().getStatusCode() == HttpStatus.SC_NOT_MODIFIED;
+            metrics.recordCacheRevalidation(name, notModified);
+            if (notModified) {
+                response.close();
+                ResponseCache.Entry updated = refresh(entry, response, requestTime, responseTime, ttl);
+                cache.put(key, updated);
+                return toResponse(updated, responseTime);
+            }
+        }
+        return store(key, original, request, response, requestTime, responseTime, ttl);
+    }
+
+    /**
+     * 可缓存时读取响应体并放入缓存，响应体超过上限时保留已读部分继续透传
+     *
+     * @param original 执行前的请求头
+     * @param sent     内层执行链实际发出的请求
+     */
+    private CloseableHttpResponse store(String key, HttpRequest original, HttpRequest sent, CloseableHttpResponse response,
+                                        long requestTime, long responseTime, long ttl) throws IOException {
+        int status = response.getStatusLine().getStatusCode();
+        if (!CACHEABLE_STATUS.contains(status)) {
+            return response;
+        }
+        Map<String, String> vary = varyOf(original, sent, response);
+        long lifetime = lifetime(response, responseTime, ttl);
+        boolean validators = response.containsHeader(HttpHeaders.ETAG) || response.containsHeader(HttpHeaders.LAST_MODIFIED);
+        if (vary == null || !isStorable(sent, response) || (lifetime <= 0 && !validators)) {
+            cache.remove(key);
+            return response;
+        }
+        byte[] body = bufferBody(response, policy.getMaxEntrySize());
+        if (body == null) {
+            cache.remove(key);
+            return response;
+        }
+        ByteBuffer buffer;
+        if (policy.isOffHeap()) {
+            buffer = ByteBuffer.allocateDirect(body.length);
+            buffer.put(body);
+            buffer.flip();
+        } else {
+            buffer = ByteBuffer.wrap(body);
+        }
+        ResponseCache.Entry entry = new ResponseCache.Entry(response.getProtocolVersion(), status,
+                response.getStatusLine().getReasonPhrase(), cacheableHeaders(response.getAllHeaders()),
+                buffer.asReadOnlyBuffer(), vary, responseTime, initialAge(response, requestTime, responseTime), lifetime);
+        cache.put(key, entry);
+        return toResponse(entry, responseTime);
+    }
+
+    /**
+     * 读取不超过limit字节的响应体并关闭响应；超过时把已读部分与连接上未读的部分拼接为新的响应体，返回null
+     *
+     * @param response
+     * @param limit
+     * @return
+     * @throws IOException
+     */
+    static byte[] bufferBody(CloseableHttpResponse response, long limit) throws IOException {
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            response.close();
+            return new byte[0];
+        }
+        long contentLength = entity.getContentLength();
+        if (contentLength > limit) {
+            return null;
+        }
+        int max = (int) Math.min(limit, Integer.MAX_VALUE - 8);
+        byte[] body = new byte[contentLength >= 0 ? (int) contentLength + 1 : Math.min(max + 1, 8192)];
+        int length = 0;
+        try {
+            InputStream in = entity.getContent();
+            int n;
+            while ((n = in.read(body, length, body.length - length)) != -1) {
+                length += n;
+                if (length > max) {
+                    response.setEntity(new PrefixedEntity(entity, body, length, in));
+                    return null;
+                }
+                if (length == body.length) {
+                    body = Arrays.copyOf(body, (int) Math.min(body.length * 2L, max + 1L));
+                }
+            }
+            in.close();
+        } catch (IOException e) {
+            response.close();
+            throw e;
+        } catch (RuntimeException e) {
+            response.close();
+            throw e;
+        }
+        response.close();
+        return length == body.length ? body : Arrays.copyOf(body, length);
+    }
+
+    /**
+     * 304响应的头部更新到缓存条目，响应体沿用原来的
+     */
+    private ResponseCache.Entry refresh(ResponseCache.Entry entry, HttpResponse notModified,
+                                        long requestTime, long responseTime, long ttl) {
+        Set<String> updated = new HashSet<String>();
+        for (Header header : notModified.getAllHeaders()) {
+            updated.add(header.getName().toLowerCase(Locale.ROOT));
+        }
+        updated.removeAll(UNCACHED_HEADERS);
+        List<Header> headers = new ArrayList<Header>();
+        for (Header header : entry.getHeaders()) {
+            if (!updated.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                headers.add(header);
+            }
+        }
+        for (Header header : notModified.getAllHeaders()) {
+            if (updated.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                headers.add(header);
+            }
+        }
+        BasicHttpResponse merged = new BasicHttpResponse(entry.getVersion(), entry.getStatusCode(), entry.getReason());
+        merged.setHeaders(headers.toArray(new Header[headers.size()]));
+        return new ResponseCache.Entry(entry.getVersion(), entry.getStatusCode(), entry.getReason(), merged.getAllHeaders(),
+                entry.getBody(), entry.getVary(), responseTime, initialAge(merged, requestTime, responseTime),
+                lifetime(merged, responseTime, ttl));
+    }
+
+    private static CloseableHttpResponse toResponse(ResponseCache.Entry entry, long now) {
+        CachedResponse response = new CachedResponse(entry.getVersion(), entry.getStatusCode(), entry.getReason());
+        response.setHeaders(entry.getHeaders());
+        response.setHeader(HttpHeaders.AGE, Long.toString(entry.age(now) / 1000));
+        if (entry.getStatusCode() != HttpStatus.SC_NO_CONTENT) {
+            BufferEntity entity = new BufferEntity(entry.getBody());
+            entity.setContentType(response.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+            entity.setContentEncoding(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+            response.setHeader(HttpHeaders.CONTENT_LENGTH, Long.toString(entity.getContentLength()));
+            response.setEntity(entity);
+        }
+        return response;
+    }
+
+    /**
+     * 缓存键，目标主机加上路径和查询串
+     *
+     * @param target
+     * @param request
+     * @return
+     */
+    static String keyOf(HttpHost target, HttpRequestWrapper request) {
+        URI uri = request.getURI();
+        String path = uri.getRawPath();
+        String query = uri.getRawQuery();
+        StringBuilder key = new StringBuilder(target.toURI());
+        key.append(path == null || path.isEmpty() ? "/" : path);
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        return key.toString();
+    }
+
+    private static boolean isSafe(String method) {
+        return "HEAD".equals(method) || "OPTIONS".equals(method) || "TRACE".equals(method);
+    }
+
+    private static boolean isCacheable(HttpRequest request) {
+        for (String name : BYPASS_HEADERS) {
+            if (request.containsHeader(name)) {
+                return false;
+            }
+        }
+        return !hasDirective(request, "no-store");
+    }
+
+    private static boolean requiresRevalidation(HttpRequest request) {
+        if (hasDirective(request, "no-cache") || maxAge(request) == 0) {
+            return true;
+        }
+        for (Header header : request.getHeaders(HttpHeaders.PRAGMA)) {
+            if (header.getValue().toLowerCase(Locale.ROOT).contains("no-cache")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 共享缓存能否保存响应，RFC 7234第3节、第3.2节
+     *
+     * @param sent     实际发出的请求，包含内层执行链添加的认证头
+     * @param response
+     * @return
+     */
+    private static boolean isStorable(HttpRequest sent, HttpResponse response) {
+        if (hasDirective(response, "no-store") || hasDirective(response, "private")) {
+            return false;
+        }
+        if (sent.containsHeader(HttpHeaders.AUTHORIZATION)) {
+            return hasDirective(response, "public") || hasDirective(response, "s-maxage")
+                    || hasDirective(response, "must-revalidate");
+        }
+        return true;
+    }
+
+    /**
+     * Vary中各请求头在执行前的值，Vary为*或按上下文添加的请求头被改变时返回null表示不可缓存
+     */
+    private static Map<String, String> varyOf(HttpRequest original, HttpRequest sent, HttpResponse response) {
+        Map<String, String> vary = new LinkedHashMap<String, String>();
+        for (Header header : response.getHeaders(HttpHeaders.VARY)) {
+            for (String name : header.getValue().split(",")) {
+                name = name.trim().toLowerCase(Locale.ROOT);
+                if ("*".equals(name)) {
+                    return null;
+                }
+                if (name.isEmpty()) {
+                    continue;
+                }
+                String value = headerValues(original, name);
+                if (CONTEXT_HEADERS.contains(name) && !value.equals(headerValues(sent, name))) {
+                    return null;
+                }
+                vary.put(name, value);
+            }
+        }
+        return vary;
+    }
+
+    /**
+     * 同名请求头的值以逗号连接，不存在时为空串
+     *
+     * @param request
+     * @param name
+     * @return
+     */
+    static String headerValues(HttpRequest request, String name) {
+        Header[] headers = request.getHeaders(name);
+        if (headers.length == 1) {
+            return headers[0].getValue();
+        }
+        StringBuilder value = new StringBuilder();
+        for (Header header : headers) {
+            if (value.length() > 0) {
+                value.append(',');
+            }
+            value.append(header.getValue());
+        }
+        return value.toString();
+    }
+
+    /**
+     * 新鲜期（毫秒）：s-maxage、max-age优先，其次Expires，都没有时按路由的ttl；
+     * no-cache时为0，must-revalidate、proxy-revalidate时不按ttl启发式缓存
+     */
+    private static long lifetime(HttpResponse response, long responseTime, long ttl) {
+        if (hasDirective(response, "no-cache")) {
+            return 0;
+        }
+        long sharedMaxAge = seconds(response, "s-maxage");
+        if (sharedMaxAge >= 0) {
+            return sharedMaxAge * 1000;
+        }
+        long maxAge = maxAge(response);
+        if (maxAge >= 0) {
+            return maxAge * 1000;
+        }
+        Header expires = response.getFirstHeader(HttpHeaders.EXPIRES);
+        if (expires != null) {
+            Date expiresAt = DateUtils.parseDate(expires.getValue());
+            if (expiresAt == null) {
+                return 0;
+            }
+            Date date = dateOf(response);
+            return expiresAt.getTime() - (date != null ? date.getTime() : responseTime);
+        }
+        if (hasDirective(response, "must-revalidate") || hasDirective(response, "proxy-revalidate")) {
+            return 0;
+        }
+        return Math.max(ttl, 0);
+    }
+
+    /**
+     * 收到响应时的年龄（毫秒），按RFC 7234取Date推算的年龄和Age加上往返时间中的较大者
+     */
+    private static long initialAge(HttpResponse response, long requestTime, long responseTime) {
+        Date date = dateOf(response);
+        long apparentAge = date == null ? 0 : Math.max(0, responseTime - date.getTime());
+        long ageValue = 0;
+        Header age = response.getFirstHeader(HttpHeaders.AGE);
+        if (age != null) {
+            try {
+                ageValue = Math.max(0, Long.parseLong(age.getValue().trim())) * 1000;
+            } catch (NumberFormatException e) {
+                ageValue = 0;
+            }
+        }
+        return Math.max(apparentAge, ageValue + (responseTime - requestTime));
+    }
+
+    private static Date dateOf(HttpResponse response) {
+        Header date = response.getFirstHeader(HttpHeaders.DATE);
+        return date == null ? null : DateUtils.parseDate(date.getValue());
+    }
+
+    /**
+     * Cache-Control中的max-age（秒），不存在时为-1，格式错误时为0
+     */
+    private static long maxAge(HttpMessage message) {
+        return seconds(message, "max-age");
+    }
+
+    /**
+     * Cache-Control中以秒为值的指令，不存在时为-1，格式错误时为0
+     */
+    private static long seconds(HttpMessage message, String directive) {
+        for (Header header : message.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+            for (HeaderElement element : header.getElements()) {
+                if (directive.equalsIgnoreCase(element.getName())) {
+                    try {
+                        return Math.max(0, Long.parseLong(element.getValue()));
+                    } catch (NumberFormatException e) {
+                        return 0;
+                    }
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasDirective(HttpMessage message, String directive) {
+        for (Header header : message.getHeaders(HttpHeaders.CACHE_CONTROL)) {
+            for (HeaderElement element : header.getElements()) {
+                if (directive.equalsIgnoreCase(element.getName())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 去掉逐跳及长度相关的响应头
+     *
+     * @param headers
+     * @return
+     */
+    static Header[] cacheableHeaders(Header[] headers) {
+        List<Header> result = new ArrayList<Header>(headers.length);
+        for (Header header : headers) {
+            if (!UNCACHED_HEADERS.contains(header.getName().toLowerCase(Locale.ROOT))) {
+                result.add(header);
+            }
+        }
+        return result.toArray(new Header[result.size()]);
+    }
+
+    /**
+     * 由缓存构建的响应，不占用连接，关闭时无需释放
+     */
+    static class CachedResponse extends BasicHttpResponse implements CloseableHttpResponse {
+
+        CachedResponse(ProtocolVersion version, int code, String reason) {
+            super(version, code, reason);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 缓存的响应体，堆内和堆外都通过ByteBuffer读取
+     */
+    static class BufferEntity extends AbstractHttpEntity {
+
+        private final ByteBuffer buffer;
+
+        BufferEntity(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return buffer.remaining();
+        }
+
+        @Override
+        public InputStream getContent() {
+            final ByteBuffer content = buffer.duplicate();
+            return new InputStream() {
+                @Override
+                public int read() {
+                    return content.hasRemaining() ? content.get() & 0xFF : -1;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    if (!content.hasRemaining()) {
+                        return -1;
+                    }
+                    int n = Math.min(len, content.remaining());
+                    content.get(b, off, n);
+                    return n;
+                }
+
+                @Override
+                public int available() {
+                    return content.remaining();
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            ByteBuffer content = buffer.duplicate();
+            byte[] chunk = new byte[Math.min(content.remaining(), ContentCodecs.Constants.BUFFER_SIZE)];
+            while (content.hasRemaining()) {
+                int n = Math.min(chunk.length, content.remaining());
+                content.get(chunk, 0, n);
+                out.write(chunk, 0, n);
+            }
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+    }
+
+    /**
+     * 超过缓存上限的响应体，先返回已读出的部分，再继续读连接
+     */
+    private static class PrefixedEntity extends HttpEntityWrapper {
+
+        private final InputStream content;
+
+        PrefixedEntity(HttpEntity entity, byte[] prefix, int length, InputStream remaining) {
+            super(entity);
+            this.content = new SequenceInputStream(new ByteArrayInputStream(prefix, 0, length), remaining);
+        }
+
+        @Override
+        public InputStream getContent() {
+            return content;
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return false;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return true;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            try {
+                byte[] buffer = new byte[ContentCodecs.Constants.BUFFER_SIZE];
+                int n;
+                while ((n = content.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                content.close();
+            }
+        }
+    }
+}
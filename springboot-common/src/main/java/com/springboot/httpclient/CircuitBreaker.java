@@ -0,0 +1,179 @@
+package com.springboot.httpclient;
+
+/**
+ * 单个路由的熔断器
+ * <p>
+ * 以环形数组记录最近的调用结果，状态变更与记录在同一把锁内完成，锁只按路由划分
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-20 10:10
+ **/
+public class CircuitBreaker {
+
+    /**
+     * 熔断状态
+     */
+    public enum State {
+        /**
+         * 正常放行
+         */
+        CLOSED,
+        /**
+         * 熔断，全部拒绝
+         */
+        OPEN,
+        /**
+         * 半开，放行少量试探调用
+         */
+        HALF_OPEN
+    }
+
+    private static final byte FAILED = 1;
+
+    private static final byte SLOW = 2;
+
+    private final CircuitBreakerPolicy policy;
+
+    private final long slowCallNanos;
+
+    private final byte[] window;
+
+    private int position;
+
+    private int calls;
+
+    private int failures;
+
+    private int slowCalls;
+
+    private volatile State state = State.CLOSED;
+
+    private long openUntil;
+
+    private int halfOpenPermits;
+
+    private int halfOpenCalls;
+
+    private int halfOpenFailures;
+
+    private int halfOpenSlowCalls;
+
+    public CircuitBreaker(CircuitBreakerPolicy policy) {
+        this.policy = policy;
+        this.slowCallNanos = policy.getSlowCallThreshold() * 1000000L;
+        this.window = new byte[policy.getWindowSize()];
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * 是否放行本次调用
+     *
+     * @return
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() < openUntil) {
+                    return false;
+                }
+                transitionTo(State.HALF_OPEN);
+                // fall through
+            default:
+                if (halfOpenPermits > 0) {
+                    halfOpenPermits--;
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    /**
+     * 放行后未实际调用时归还半开许可
+     */
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenPermits < policy.getHalfOpenCalls()) {
+            halfOpenPermits++;
+        }
+    }
+
+    /**
+     * 记录调用结果
+     *
+     * @param nanos
+     * @param failed
+     */
+    public synchronized void onResult(long nanos, boolean failed) {
+        byte outcome = (byte) ((failed ? FAILED : 0) | (nanos >= slowCallNanos ? SLOW : 0));
+        if (state == State.HALF_OPEN) {
+            halfOpenCalls++;
+            if ((outcome & FAILED) != 0) {
+                halfOpenFailures++;
+            }
+            if ((outcome & SLOW) != 0) {
+                halfOpenSlowCalls++;
+            }
+            if (halfOpenCalls >= policy.getHalfOpenCalls()) {
+                transitionTo(exceeded(halfOpenCalls, halfOpenFailures, halfOpenSlowCalls) ? State.OPEN : State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            // 熔断前已放行的调用
+            return;
+        }
+        if (calls == window.length) {
+            byte evicted = window[position];
+            if ((evicted & FAILED) != 0) {
+                failures--;
+            }
+            if ((evicted & SLOW) != 0) {
+                slowCalls--;
+            }
+        } else {
+            calls++;
+        }
+        window[position] = outcome;
+        position = (position + 1) % window.length;
+        if ((outcome & FAILED) != 0) {
+            failures++;
+        }
+        if ((outcome & SLOW) != 0) {
+            slowCalls++;
+        }
+        if (calls >= policy.getMinimumCalls() && exceeded(calls, failures, slowCalls)) {
+            transitionTo(State.OPEN);
+        }
+    }
+
+    private boolean exceeded(int total, int failed, int slow) {
+        return failed * 100 >= policy.getFailureRateThreshold() * total
+                || slow * 100 >= policy.getSlowCallRateThreshold() * total;
+    }
+
+    private void transitionTo(State next) {
+        state = next;
+        switch (next) {
+            case OPEN:
+                openUntil = System.currentTimeMillis() + policy.getOpenDuration();
+                break;
+            case HALF_OPEN:
+                halfOpenPermits = policy.getHalfOpenCalls();
+                halfOpenCalls = 0;
+                halfOpenFailures = 0;
+                halfOpenSlowCalls = 0;
+                break;
+            default:
+                position = 0;
+                calls = 0;
+                failures = 0;
+                slowCalls = 0;
+                break;
+        }
+    }
+}
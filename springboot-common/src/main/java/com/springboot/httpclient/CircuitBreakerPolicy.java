@@ -0,0 +1,206 @@
+package com.springboot.httpclient;
+
+import java.util.Arrays;
+
+/**
+ * 熔断策略
+ * <p>
+ * 在最近windowSize次调用中，失败率或慢调用率超过阈值时熔断，openDuration后进入半开状态，
+ * 放行halfOpenCalls次试探调用，试探结果仍超过阈值则再次熔断，否则恢复
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-20 10:10
+ **/
+public class CircuitBreakerPolicy {
+
+    /**
+     * 默认策略
+     */
+    public static final CircuitBreakerPolicy DEFAULT = custom().build();
+
+    private final int windowSize;
+
+    private final int minimumCalls;
+
+    private final int failureRateThreshold;
+
+    private final long slowCallThreshold;
+
+    private final int slowCallRateThreshold;
+
+    private final long openDuration;
+
+    private final int halfOpenCalls;
+
+    CircuitBreakerPolicy(Builder builder) {
+        this.windowSize = builder.windowSize;
+        this.minimumCalls = Math.min(builder.minimumCalls, builder.windowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallThreshold = builder.slowCallThreshold;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.openDuration = builder.openDuration;
+        this.halfOpenCalls = builder.halfOpenCalls;
+    }
+
+    /**
+     * 构建策略
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public int getMinimumCalls() {
+        return minimumCalls;
+    }
+
+    public int getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public long getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    public int getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getOpenDuration() {
+        return openDuration;
+    }
+
+    public int getHalfOpenCalls() {
+        return halfOpenCalls;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CircuitBreakerPolicy)) {
+            return false;
+        }
+        CircuitBreakerPolicy that = (CircuitBreakerPolicy) o;
+        return windowSize == that.windowSize
+                && minimumCalls == that.minimumCalls
+                && failureRateThreshold == that.failureRateThreshold
+                && slowCallThreshold == that.slowCallThreshold
+                && slowCallRateThreshold == that.slowCallRateThreshold
+                && openDuration == that.openDuration
+                && halfOpenCalls == that.halfOpenCalls;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{
+                windowSize, minimumCalls, failureRateThreshold, slowCallThreshold, slowCallRateThreshold, openDuration, halfOpenCalls
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreakerPolicy{" +
+                "windowSize=" + windowSize +
+                ", minimumCalls=" + minimumCalls +
+                ", failureRateThreshold=" + failureRateThreshold +
+                ", slowCallThreshold=" + slowCallThreshold +
+                ", slowCallRateThreshold=" + slowCallRateThreshold +
+                ", openDuration=" + openDuration +
+                ", halfOpenCalls=" + halfOpenCalls +
+                '}';
+    }
+
+    /**
+     * 策略构建器
+     */
+    public static class Builder {
+
+        private int windowSize = 100;
+
+        private int minimumCalls = 20;
+
+        private int failureRateThreshold = 50;
+
+        private long slowCallThreshold = 2000;
+
+        private int slowCallRateThreshold = 80;
+
+        private long openDuration = 5000;
+
+        private int halfOpenCalls = 5;
+
+        Builder() {
+        }
+
+        /**
+         * 滑动窗口大小（调用次数），及窗口内开始统计的最少调用次数
+         *
+         * @param windowSize
+         * @param minimumCalls
+         * @return
+         */
+        public Builder setWindow(int windowSize, int minimumCalls) {
+            this.windowSize = windowSize;
+            this.minimumCalls = minimumCalls;
+            return this;
+        }
+
+        /**
+         * 失败率阈值（百分比），异常及5xx响应算作失败
+         *
+         * @param failureRateThreshold
+         * @return
+         */
+        public Builder setFailureRateThreshold(int failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * 慢调用阈值：超过slowCallThreshold毫秒算作慢调用，慢调用率超过slowCallRateThreshold（百分比）时熔断
+         *
+         * @param slowCallThreshold
+         * @param slowCallRateThreshold
+         * @return
+         */
+        public Builder setSlowCall(long slowCallThreshold, int slowCallRateThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * 熔断持续时间（毫秒）
+         *
+         * @param openDuration
+         * @return
+         */
+        public Builder setOpenDuration(long openDuration) {
+            this.openDuration = openDuration;
+            return this;
+        }
+
+        /**
+         * 半开状态放行的试探调用次数
+         *
+         * @param halfOpenCalls
+         * @return
+         */
+        public Builder setHalfOpenCalls(int halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+            return this;
+        }
+
+        public CircuitBreakerPolicy build() {
+            return new CircuitBreakerPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.impl.execchain.RequestAbortedException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
+
+/**
+ * 相同请求合并的执行链
+ * <p>
+ * 第一个请求发出后登记在执行中的表里，相同的请求等待它完成后各自得到一份响应副本或同一个异常。
+ * 完成时先从表中移除再通知等待方，之后到达的请求重新发出；第一个请求被它自己的调用方中止时，等待方各自重新发出。
+ * 上下文中的CookieStore和CredentialsProvider在更内层才写入请求，按对象身份并入合并键，
+ * 使用不同Cookie或凭据的调用不会共享响应。
+ * 等待方不占用连接，可以通过自身的execAware中止，等待时间不超过自身的连接池、连接和读超时之和
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-02 10:00
+ **/
+class CoalescingExecChain implements ClientExecChain {
+
+    private final ClientExecChain next;
+
+    private final CoalescingPolicy policy;
+
+    private final HttpClientMetrics metrics;
+
+    private final ConcurrentMap<Key, CompletableFuture<SharedResponse>> inFlight =
+            new ConcurrentHashMap<Key, CompletableFuture<SharedResponse>>();
+
+    CoalescingExecChain(ClientExecChain next, CoalescingPolicy policy, HttpClientMetrics metrics) {
+        this.next = next;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                         HttpExecutionAware execAware) throws IOException, HttpException {
+        if (request instanceof HttpEntityEnclosingRequest || !policy.getMethods().contains(request.getRequestLine().getMethod())) {
+            return next.execute(route, request, context, execAware);
+        }
+        Key key = keyOf(route, request, context);
+        CompletableFuture<SharedResponse> flight = new CompletableFuture<SharedResponse>();
+        CompletableFuture<SharedResponse> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            SharedResponse shared = await(existing, context, execAware);
+            if (shared == null) {
+                // 响应体过大未能共享，或发起方被自己的调用方中止，自行发出请求
+                return next.execute(route, request, context, execAware);
+            }
+            metrics.recordCoalesced(MetricsExecChain.routeOf(route));
+            return shared.toResponse();
+        }
+        SharedResponse shared;
+        CloseableHttpResponse response;
+        try {
+            response = next.execute(route, request, context, execAware);
+            byte[] body = CachingExecChain.bufferBody(response, policy.getMaxBodySize());
+            shared = body == null ? null : new SharedResponse(response, body);
+        } catch (Throwable e) {
+            inFlight.remove(key, flight);
+            if (e instanceof RequestAbortedException || (execAware != null && execAware.isAborted())) {
+                // 中止只针对发起方自己，等待方并未取消，让它们各自重新发出请求
+                flight.complete(null);
+            } else {
+                flight.completeExceptionally(e);
+            }
+            throw e;
+        }
+        inFlight.remove(key, flight);
+        flight.complete(shared);
+        return shared != null ? shared.toResponse() : response;
+    }
+
+    private Key keyOf(HttpRoute route, HttpRequestWrapper request, HttpClientContext context) {
+        StringBuilder key = new StringBuilder(request.getRequestLine().getMethod()).append(' ')
+                .append(CachingExecChain.keyOf(route.getTargetHost(), request));
+        for (String name : policy.getKeyHeaders()) {
+            if (request.containsHeader(name)) {
+                key.append('\n').append(name).append(':').append(CachingExecChain.headerValues(request, name));
+            }
+        }
+        return new Key(key.toString(), context.getCookieStore(), context.getCredentialsProvider());
+    }
+
+    private static SharedResponse await(CompletableFuture<SharedResponse> flight, HttpClientContext context,
+                                        HttpExecutionAware execAware) throws IOException, HttpException {
+        // 等待方独立的future，中止时只让自己退出，不影响发出请求的一方和其他等待方
+        final CompletableFuture<SharedResponse> waiter = new CompletableFuture<SharedResponse>();
+        flight.whenComplete(new BiConsumer<SharedResponse, Throwable>() {
+            @Override
+            public void accept(SharedResponse shared, Throwable e) {
+                if (e != null) {
+                    waiter.completeExceptionally(e);
+                } else {
+                    waiter.complete(shared);
+                }
+            }
+        });
+        if (execAware != null) {
+            execAware.setCancellable(new Cancellable() {
+                @Override
+                public boolean cancel() {
+                    return waiter.completeExceptionally(new RequestAbortedException("Request aborted"));
+                }
+            });
+            // 已中止的请求不会再登记Cancellable
+            if (execAware.isAborted()) {
+                throw new RequestAbortedException("Request aborted");
+            }
+        }
+        long timeout = timeoutOf(context.getRequestConfig());
+        try {
+            return timeout > 0 ? waiter.get(timeout, TimeUnit.MILLISECONDS) : waiter.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("interrupted while waiting for coalesced request");
+        } catch (TimeoutException e) {
+            throw new SocketTimeoutException("timed out after " + timeout + "ms waiting for coalesced request");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof HttpException) {
+                throw (HttpException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * 等待上限：自行发出请求时依次经历的连接池、连接和读超时之和，都未设置时不限时
+     *
+     * @param config
+     * @return 毫秒，0表示不限时
+     */
+    static long timeoutOf(RequestConfig config) {
+        if (config == null) {
+            return 0;
+        }
+        long timeout = 0;
+        if (config.getConnectionRequestTimeout() > 0) {
+            timeout += config.getConnectionRequestTimeout();
+        }
+        if (config.getConnectTimeout() > 0) {
+            timeout += config.getConnectTimeout();
+        }
+        if (config.getSocketTimeout() > 0) {
+            timeout += config.getSocketTimeout();
+        }
+        return timeout;
+    }
+
+    /**
+     * 合并键，请求部分按值比较，CookieStore和CredentialsProvider按对象身份比较
+     */
+    private static final class Key {
+
+        private final String request;
+
+        private final Object cookieStore;
+
+        private final Object credentialsProvider;
+
+        private final int hash;
+
+        Key(String request, Object cookieStore, Object credentialsProvider) {
+            this.request = request;
+            this.cookieStore = cookieStore;
+            this.credentialsProvider = credentialsProvider;
+            this.hash = 31 * (31 * request.hashCode() + System.identityHashCode(cookieStore))
+                    + System.identityHashCode(credentialsProvider);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return cookieStore == other.cookieStore && credentialsProvider == other.credentialsProvider
+                    && request.equals(other.request);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * 已读入内存的响应，每个调用方得到独立的响应对象
+     */
+    private static class SharedResponse {
+
+        private final ProtocolVersion version;
+
+        private final int statusCode;
+
+        private final String reason;
+
+        private final Header[] headers;
+
+        private final ByteBuffer body;
+
+        SharedResponse(CloseableHttpResponse response, byte[] body) {
+            this.version = response.getProtocolVersion();
+            this.statusCode = response.getStatusLine().getStatusCode();
+            this.reason = response.getStatusLine().getReasonPhrase();
+            this.headers = CachingExecChain.cacheableHeaders(response.getAllHeaders());
+            this.body = response.getEntity() == null ? null : ByteBuffer.wrap(body).asReadOnlyBuffer();
+        }
+
+        CloseableHttpResponse toResponse() {
+            CachingExecChain.CachedResponse response = new CachingExecChain.CachedResponse(version, statusCode, reason);
+            response.setHeaders(headers);
+            if (body != null) {
+                CachingExecChain.BufferEntity entity = new CachingExecChain.BufferEntity(body);
+                entity.setContentType(response.getFirstHeader(HttpHeaders.CONTENT_TYPE));
+                entity.setContentEncoding(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+                response.setHeader(HttpHeaders.CONTENT_LENGTH, Long.toString(entity.getContentLength()));
+                response.setEntity(entity);
+            }
+            return response;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.springboot.httpclient;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 相同请求合并策略
+ * <p>
+ * 方法、目标地址、路径、查询串及keyHeaders中的请求头都相同且不带请求体的请求，在执行期间只发出一次，
+ * 其余调用等待并得到同一个结果或同一个异常。响应体超过maxBodySize时等待方各自重新发出请求
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-02 09:30
+ **/
+public class CoalescingPolicy {
+
+    /**
+     * 默认策略
+     */
+    public static final CoalescingPolicy DEFAULT = custom().build();
+
+    private final Set<String> methods;
+
+    private final List<String> keyHeaders;
+
+    private final long maxBodySize;
+
+    CoalescingPolicy(Builder builder) {
+        this.methods = Collections.unmodifiableSet(new LinkedHashSet<String>(builder.methods));
+        this.keyHeaders = Collections.unmodifiableList(new ArrayList<String>(builder.keyHeaders));
+        this.maxBodySize = builder.maxBodySize;
+    }
+
+    /**
+     * 构建策略
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public Set<String> getMethods() {
+        return methods;
+    }
+
+    public List<String> getKeyHeaders() {
+        return keyHeaders;
+    }
+
+    public long getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CoalescingPolicy)) {
+            return false;
+        }
+        CoalescingPolicy that = (CoalescingPolicy) o;
+        return maxBodySize == that.maxBodySize
+                && methods.equals(that.methods)
+                && keyHeaders.equals(that.keyHeaders);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{methods, keyHeaders, maxBodySize});
+    }
+
+    @Override
+    public String toString() {
+        return "CoalescingPolicy{" +
+                "methods=" + methods +
+                ", keyHeaders=" + keyHeaders +
+                ", maxBodySize=" + maxBodySize +
+                '}';
+    }
+
+    /**
+     * 策略构建器
+     */
+    public static class Builder {
+
+        private static final Set<String> IDEMPOTENT_METHODS = new LinkedHashSet<String>(Arrays.asList(
+                "GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"));
+
+        private Set<String> methods = new LinkedHashSet<String>(Arrays.asList("GET", "HEAD"));
+
+        private List<String> keyHeaders = Arrays.asList(
+                "Accept", "Accept-Encoding", "Accept-Language", "Authorization", "Cookie");
+
+        private long maxBodySize = 1024 * 1024;
+
+        Builder() {
+        }
+
+        /**
+         * 参与合并的方法，只允许幂等方法，带请求体的请求始终不合并
+         *
+         * @param methods
+         * @return
+         */
+        public Builder setMethods(String... methods) {
+            Set<String> result = new LinkedHashSet<String>();
+            for (String method : methods) {
+                String name = method.toUpperCase(Locale.ROOT);
+                if (!IDEMPOTENT_METHODS.contains(name)) {
+                    throw new IllegalArgumentException("method is not idempotent: " + method);
+                }
+                result.add(name);
+            }
+            this.methods = result;
+            return this;
+        }
+
+        /**
+         * 区分请求的请求头，值不同的请求不合并
+         *
+         * @param keyHeaders
+         * @return
+         */
+        public Builder setKeyHeaders(String... keyHeaders) {
+            this.keyHeaders = Arrays.asList(keyHeaders.clone());
+            return this;
+        }
+
+        /**
+         * 共享响应体的字节数上限，响应体需要完整读入内存后分发
+         *
+         * @param maxBodySize
+         * @return
+         */
+        public Builder setMaxBodySize(long maxBodySize) {
+            this.maxBodySize = maxBodySize;
+            return this;
+        }
+
+        public CoalescingPolicy build() {
+            return new CoalescingPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.message.BasicHeader;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 请求体压缩、响应解压的执行链
+ * <p>
+ * 位于指标执行链外层，指标记录的是线路上的字节数，压缩前后的字节数另外通过
+ * {@link HttpClientMetrics#recordRequestCompression}和{@link HttpClientMetrics#recordResponseDecompression}记录
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-29 11:30
+ **/
+class CompressionExecChain implements ClientExecChain {
+
+    private final ClientExecChain next;
+
+    private final CompressionPolicy policy;
+
+    private final HttpClientMetrics metrics;
+
+    CompressionExecChain(ClientExecChain next, CompressionPolicy policy, HttpClientMetrics metrics) {
+        this.next = next;
+        this.policy = policy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                         HttpExecutionAware execAware) throws IOException, HttpException {
+        String name = MetricsExecChain.routeOf(route);
+        if (policy.getAcceptEncoding() != null && !request.containsHeader(HttpHeaders.ACCEPT_ENCODING)) {
+            request.addHeader(HttpHeaders.ACCEPT_ENCODING, policy.getAcceptEncoding());
+        }
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntityEnclosingRequest enclosing = (HttpEntityEnclosingRequest) request;
+            HttpEntity entity = enclosing.getEntity();
+            // 重试时请求体已经是压缩后的实体
+            if (entity != null && !(entity instanceof CompressingEntity) && entity.getContentEncoding() == null
+                    && !request.containsHeader(HttpHeaders.CONTENT_ENCODING) && policy.shouldCompress(entity.getContentLength())) {
+                enclosing.setEntity(new CompressingEntity(entity, name));
+            }
+        }
+        CloseableHttpResponse response = next.execute(route, request, context, execAware);
+        HttpEntity entity = response.getEntity();
+        if (entity != null && entity.getContentLength() != 0) {
+            Header encoding = entity.getContentEncoding();
+            if (encoding != null && ContentCodecs.isSupported(encoding.getValue())) {
+                response.setEntity(new DecompressingEntity(entity, encoding.getValue(), name));
+                response.removeHeaders(HttpHeaders.CONTENT_LENGTH);
+                response.removeHeaders(HttpHeaders.CONTENT_ENCODING);
+                response.removeHeaders(HttpHeaders.CONTENT_MD5);
+            }
+        }
+        return response;
+    }
+
+    /**
+     * 发送时压缩的请求体，长度未知，以分块方式传输
+     */
+    class CompressingEntity extends HttpEntityWrapper {
+
+        private final String route;
+
+        private volatile long wireBytes = -1;
+
+        CompressingEntity(HttpEntity entity, String route) {
+            super(entity);
+            this.route = route;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return new BasicHeader(HttpHeaders.CONTENT_ENCODING, policy.getRequestEncoding());
+        }
+
+        @Override
+        public boolean isChunked() {
+            return true;
+        }
+
+        @Override
+        public InputStream getContent() {
+            throw new UnsupportedOperationException("compressed entity can only be written");
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            CountingOutputStream wire = new CountingOutputStream(new ContentCodecs.NonClosingOutputStream(out));
+            CountingOutputStream logical = new CountingOutputStream(
+                    ContentCodecs.compress(wire, policy.getRequestEncoding(), policy.getLevel()));
+            try {
+                wrappedEntity.writeTo(logical);
+            } finally {
+                logical.close();
+            }
+            wireBytes = wire.count;
+            metrics.recordRequestCompression(route, logical.count, wire.count);
+        }
+
+        /**
+         * 最近一次写出的压缩后字节数，尚未写出时为-1
+         *
+         * @return
+         */
+        long getWireBytes() {
+            return wireBytes;
+        }
+    }
+
+    /**
+     * 读取时解压的响应体
+     */
+    private class DecompressingEntity extends HttpEntityWrapper {
+
+        private final String encoding;
+
+        private final String route;
+
+        private InputStream content;
+
+        DecompressingEntity(HttpEntity entity, String encoding, String route) {
+            super(entity);
+            this.encoding = encoding;
+            this.route = route;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public Header getContentEncoding() {
+            return null;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            if (!wrappedEntity.isStreaming()) {
+                return open();
+            }
+            if (content == null) {
+                content = open();
+            }
+            return content;
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            InputStream in = getContent();
+            try {
+                byte[] buffer = new byte[ContentCodecs.Constants.BUFFER_SIZE];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        private InputStream open() throws IOException {
+            final CountingInputStream wire = new CountingInputStream(wrappedEntity.getContent());
+            return new CountingInputStream(ContentCodecs.decompress(wire, encoding)) {
+                private boolean recorded;
+
+                @Override
+                protected void onEnd() {
+                    if (!recorded) {
+                        recorded = true;
+                        metrics.recordResponseDecompression(route, count, wire.count);
+                    }
+                }
+            };
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+
+    private static class CountingInputStream extends FilterInputStream {
+
+        protected long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b == -1) {
+                onEnd();
+            } else {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                onEnd();
+            } else {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            onEnd();
+            super.close();
+        }
+
+        protected void onEnd() {
+        }
+    }
+}
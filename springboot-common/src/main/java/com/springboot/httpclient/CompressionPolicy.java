@@ -0,0 +1,179 @@
+package com.springboot.httpclient;
+
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * 压缩策略
+ * <p>
+ * 请求体达到minRequestSize字节（长度未知时视为达到）且未设置Content-Encoding时按requestEncoding压缩；
+ * 请求携带Accept-Encoding协商响应编码，gzip/deflate响应以流的方式解压。压缩器和解压器在客户端间池化复用
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-29 10:20
+ **/
+public class CompressionPolicy {
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    /**
+     * 默认策略：gzip压缩1KB以上的请求体，接受gzip/deflate响应
+     */
+    public static final CompressionPolicy DEFAULT = custom().build();
+
+    /**
+     * 只解压响应，不压缩请求体
+     */
+    public static final CompressionPolicy RESPONSE_ONLY = custom().setRequestEncoding(null).build();
+
+    private final String requestEncoding;
+
+    private final long minRequestSize;
+
+    private final int level;
+
+    private final String acceptEncoding;
+
+    CompressionPolicy(Builder builder) {
+        this.requestEncoding = builder.requestEncoding;
+        this.minRequestSize = builder.minRequestSize;
+        this.level = builder.level;
+        this.acceptEncoding = builder.acceptEncoding;
+    }
+
+    /**
+     * 构建策略
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public String getRequestEncoding() {
+        return requestEncoding;
+    }
+
+    public long getMinRequestSize() {
+        return minRequestSize;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public String getAcceptEncoding() {
+        return acceptEncoding;
+    }
+
+    /**
+     * 是否压缩该长度的请求体
+     *
+     * @param contentLength 未知时为负数
+     * @return
+     */
+    public boolean shouldCompress(long contentLength) {
+        return requestEncoding != null && (contentLength < 0 || contentLength >= minRequestSize);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CompressionPolicy)) {
+            return false;
+        }
+        CompressionPolicy that = (CompressionPolicy) o;
+        return minRequestSize == that.minRequestSize
+                && level == that.level
+                && (requestEncoding == null ? that.requestEncoding == null : requestEncoding.equals(that.requestEncoding))
+                && (acceptEncoding == null ? that.acceptEncoding == null : acceptEncoding.equals(that.acceptEncoding));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{requestEncoding, minRequestSize, level, acceptEncoding});
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionPolicy{" +
+                "requestEncoding=" + requestEncoding +
+                ", minRequestSize=" + minRequestSize +
+                ", level=" + level +
+                ", acceptEncoding=" + acceptEncoding +
+                '}';
+    }
+
+    /**
+     * 策略构建器
+     */
+    public static class Builder {
+
+        private String requestEncoding = GZIP;
+
+        private long minRequestSize = 1024;
+
+        private int level = Deflater.DEFAULT_COMPRESSION;
+
+        private String acceptEncoding = GZIP + ", " + DEFLATE;
+
+        Builder() {
+        }
+
+        /**
+         * 请求体编码，gzip或deflate，null表示不压缩请求体
+         *
+         * @param requestEncoding
+         * @return
+         */
+        public Builder setRequestEncoding(String requestEncoding) {
+            if (requestEncoding != null && !GZIP.equals(requestEncoding) && !DEFLATE.equals(requestEncoding)) {
+                throw new IllegalArgumentException("unsupported encoding: " + requestEncoding);
+            }
+            this.requestEncoding = requestEncoding;
+            return this;
+        }
+
+        /**
+         * 压缩请求体的最小字节数，小请求压缩收益不抵开销
+         *
+         * @param minRequestSize
+         * @return
+         */
+        public Builder setMinRequestSize(long minRequestSize) {
+            this.minRequestSize = minRequestSize;
+            return this;
+        }
+
+        /**
+         * 压缩级别，0-9或Deflater.DEFAULT_COMPRESSION
+         *
+         * @param level
+         * @return
+         */
+        public Builder setLevel(int level) {
+            this.level = level;
+            return this;
+        }
+
+        /**
+         * 请求携带的Accept-Encoding，null表示不协商，此时响应仍按Content-Encoding解压
+         *
+         * @param acceptEncoding
+         * @return
+         */
+        public Builder setAcceptEncoding(String acceptEncoding) {
+            this.acceptEncoding = acceptEncoding;
+            return this;
+        }
+
+        public CompressionPolicy build() {
+            return new CompressionPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.springboot.httpclient;
+
+import java.util.Arrays;
+
+/**
+ * 自适应并发限制策略（AIMD）
+ * <p>
+ * 每次正常调用将限制增加1/limit，即每轮约加1；发生异常、5xx或慢调用时乘以backoffRatio。
+ * 超过限制的请求直接拒绝，不在连接池排队
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-20 10:10
+ **/
+public class ConcurrencyLimitPolicy {
+
+    /**
+     * 默认策略
+     */
+    public static final ConcurrencyLimitPolicy DEFAULT = custom().build();
+
+    private final int initialLimit;
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final double backoffRatio;
+
+    private final long slowCallThreshold;
+
+    ConcurrencyLimitPolicy(Builder builder) {
+        this.initialLimit = builder.initialLimit;
+        this.minLimit = builder.minLimit;
+        this.maxLimit = builder.maxLimit;
+        this.backoffRatio = builder.backoffRatio;
+        this.slowCallThreshold = builder.slowCallThreshold;
+    }
+
+    /**
+     * 构建策略
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public int getInitialLimit() {
+        return initialLimit;
+    }
+
+    public int getMinLimit() {
+        return minLimit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public double getBackoffRatio() {
+        return backoffRatio;
+    }
+
+    public long getSlowCallThreshold() {
+        return slowCallThreshold;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ConcurrencyLimitPolicy)) {
+            return false;
+        }
+        ConcurrencyLimitPolicy that = (ConcurrencyLimitPolicy) o;
+        return initialLimit == that.initialLimit
+                && minLimit == that.minLimit
+                && maxLimit == that.maxLimit
+                && Double.compare(backoffRatio, that.backoffRatio) == 0
+                && slowCallThreshold == that.slowCallThreshold;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{initialLimit, minLimit, maxLimit, backoffRatio, slowCallThreshold});
+    }
+
+    @Override
+    public String toString() {
+        return "ConcurrencyLimitPolicy{" +
+                "initialLimit=" + initialLimit +
+                ", minLimit=" + minLimit +
+                ", maxLimit=" + maxLimit +
+                ", backoffRatio=" + backoffRatio +
+                ", slowCallThreshold=" + slowCallThreshold +
+                '}';
+    }
+
+    /**
+     * 策略构建器
+     */
+    public static class Builder {
+
+        private int initialLimit = 20;
+
+        private int minLimit = 1;
+
+        private int maxLimit = HttpClientConfigHandler.Constants.MAX_ROUTE;
+
+        private double backoffRatio = 0.9;
+
+        private long slowCallThreshold = 2000;
+
+        Builder() {
+        }
+
+        /**
+         * 初始、最小及最大并发数
+         *
+         * @param initialLimit
+         * @param minLimit
+         * @param maxLimit
+         * @return
+         */
+        public Builder setLimit(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * 拥塞时并发数的缩减比例
+         *
+         * @param backoffRatio
+         * @return
+         */
+        public Builder setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        /**
+         * 超过该时间（毫秒）的调用视为拥塞
+         *
+         * @param slowCallThreshold
+         * @return
+         */
+        public Builder setSlowCallThreshold(long slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+            return this;
+        }
+
+        public ConcurrencyLimitPolicy build() {
+            return new ConcurrencyLimitPolicy(this);
+        }
+    }
+}
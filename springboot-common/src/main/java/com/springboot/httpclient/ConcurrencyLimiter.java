@@ -0,0 +1,84 @@
+package com.springboot.httpclient;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个路由的自适应并发限制（AIMD）
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-20 10:10
+ **/
+public class ConcurrencyLimiter {
+
+    private final ConcurrencyLimitPolicy policy;
+
+    private final long slowCallNanos;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private double limit;
+
+    private volatile int currentLimit;
+
+    public ConcurrencyLimiter(ConcurrencyLimitPolicy policy) {
+        this.policy = policy;
+        this.slowCallNanos = policy.getSlowCallThreshold() * 1000000L;
+        this.limit = policy.getInitialLimit();
+        this.currentLimit = policy.getInitialLimit();
+    }
+
+    /**
+     * 当前并发限制
+     *
+     * @return
+     */
+    public int getLimit() {
+        return currentLimit;
+    }
+
+    /**
+     * 当前并发数
+     *
+     * @return
+     */
+    public int getInflight() {
+        return inflight.get();
+    }
+
+    /**
+     * 获取并发许可，超过限制时立即返回false
+     *
+     * @return
+     */
+    public boolean tryAcquire() {
+        for (; ; ) {
+            int current = inflight.get();
+            if (current >= currentLimit) {
+                return false;
+            }
+            if (inflight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 释放许可并调整限制
+     *
+     * @param nanos
+     * @param dropped 异常或服务端过载
+     */
+    public void release(long nanos, boolean dropped) {
+        int current = inflight.getAndDecrement();
+        synchronized (this) {
+            if (dropped || nanos >= slowCallNanos) {
+                limit = Math.max(policy.getMinLimit(), limit * policy.getBackoffRatio());
+            } else if (current * 2 >= currentLimit) {
+                // 并发数接近限制时才增加，避免空闲时限制无限增长
+                limit = Math.min(policy.getMaxLimit(), limit + 1.0 / limit);
+            }
+            currentLimit = (int) limit;
+        }
+    }
+}
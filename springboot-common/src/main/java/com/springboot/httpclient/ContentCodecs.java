@@ -0,0 +1,382 @@
+package com.springboot.httpclient;
+
+import java.io.EOFException;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * gzip/deflate流式编解码
+ * <p>
+ * Deflater/Inflater持有较大的本地内存，创建和释放都有开销，这里按格式池化复用，流关闭时归还。
+ * GZIPOutputStream/GZIPInputStream不能传入外部的Deflater/Inflater，因此gzip头和尾在这里自行读写
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-29 10:50
+ **/
+final class ContentCodecs {
+
+    /**
+     * 配置常量
+     */
+    interface Constants {
+        /**
+         * 每种格式最多缓存的实例数
+         */
+        int POOL_SIZE = 64;
+
+        int BUFFER_SIZE = 8192;
+
+        int GZIP_MAGIC = 0x8b1f;
+    }
+
+    private static final byte[] GZIP_HEADER = {(byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private static final int FHCRC = 2;
+
+    private static final int FEXTRA = 4;
+
+    private static final int FNAME = 8;
+
+    private static final int FCOMMENT = 16;
+
+    private static final Queue<Deflater> RAW_DEFLATERS = new ArrayBlockingQueue<Deflater>(Constants.POOL_SIZE);
+
+    private static final Queue<Deflater> ZLIB_DEFLATERS = new ArrayBlockingQueue<Deflater>(Constants.POOL_SIZE);
+
+    private static final Queue<Inflater> RAW_INFLATERS = new ArrayBlockingQueue<Inflater>(Constants.POOL_SIZE);
+
+    private static final Queue<Inflater> ZLIB_INFLATERS = new ArrayBlockingQueue<Inflater>(Constants.POOL_SIZE);
+
+    private ContentCodecs() {
+    }
+
+    /**
+     * 是否支持该Content-Encoding
+     *
+     * @param encoding
+     * @return
+     */
+    static boolean isSupported(String encoding) {
+        return normalize(encoding) != null;
+    }
+
+    /**
+     * 压缩输出流，关闭时写出尾部并归还Deflater，同时关闭out
+     *
+     * @param out
+     * @param encoding gzip或deflate
+     * @param level
+     * @return
+     * @throws IOException
+     */
+    static OutputStream compress(OutputStream out, String encoding, int level) throws IOException {
+        boolean gzip = CompressionPolicy.GZIP.equals(normalize(encoding));
+        Queue<Deflater> pool = gzip ? RAW_DEFLATERS : ZLIB_DEFLATERS;
+        Deflater deflater = pool.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, gzip);
+        } else {
+            deflater.setLevel(level);
+        }
+        return new PooledDeflaterOutputStream(out, deflater, pool, gzip);
+    }
+
+    /**
+     * 解压输入流，关闭时归还Inflater，同时关闭in
+     *
+     * @param in
+     * @param encoding gzip、x-gzip或deflate，deflate同时兼容zlib格式与不带zlib头的原始格式
+     * @return
+     * @throws IOException
+     */
+    static InputStream decompress(InputStream in, String encoding) throws IOException {
+        boolean gzip = CompressionPolicy.GZIP.equals(normalize(encoding));
+        boolean raw = gzip;
+        PushbackInputStream source = new PushbackInputStream(in, 2);
+        if (!gzip) {
+            raw = !isZlibHeader(source);
+        }
+        Queue<Inflater> pool = raw ? RAW_INFLATERS : ZLIB_INFLATERS;
+        Inflater inflater = pool.poll();
+        if (inflater == null) {
+            inflater = new Inflater(raw);
+        }
+        return new PooledInflaterInputStream(source, inflater, pool, gzip);
+    }
+
+    private static String normalize(String encoding) {
+        if (encoding == null) {
+            return null;
+        }
+        String value = encoding.trim().toLowerCase(Locale.ROOT);
+        if (CompressionPolicy.GZIP.equals(value) || "x-gzip".equals(value)) {
+            return CompressionPolicy.GZIP;
+        }
+        return CompressionPolicy.DEFLATE.equals(value) ? CompressionPolicy.DEFLATE : null;
+    }
+
+    /**
+     * 不少服务端发送的deflate实际是原始格式，按RFC 1950头部校验区分
+     */
+    private static boolean isZlibHeader(PushbackInputStream in) throws IOException {
+        byte[] header = new byte[2];
+        int n = 0;
+        while (n < 2) {
+            int read = in.read(header, n, 2 - n);
+            if (read < 0) {
+                break;
+            }
+            n += read;
+        }
+        in.unread(header, 0, n);
+        if (n < 2) {
+            return true;
+        }
+        int cmf = header[0] & 0xFF;
+        int flg = header[1] & 0xFF;
+        return (cmf & 0x0F) == Deflater.DEFLATED && ((cmf << 8) | flg) % 31 == 0;
+    }
+
+    private static void release(Queue<Deflater> pool, Deflater deflater) {
+        deflater.reset();
+        if (!pool.offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    private static void release(Queue<Inflater> pool, Inflater inflater) {
+        inflater.reset();
+        if (!pool.offer(inflater)) {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 关闭时不关闭下层流，用于写出请求体时保留连接
+     */
+    static class NonClosingOutputStream extends FilterOutputStream {
+
+        NonClosingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.flush();
+        }
+    }
+
+    private static class PooledDeflaterOutputStream extends DeflaterOutputStream {
+
+        private final Queue<Deflater> pool;
+
+        private final boolean gzip;
+
+        private final CRC32 crc = new CRC32();
+
+        private boolean finished;
+
+        private boolean closed;
+
+        PooledDeflaterOutputStream(OutputStream out, Deflater deflater, Queue<Deflater> pool, boolean gzip) throws IOException {
+            super(out, deflater, Constants.BUFFER_SIZE);
+            this.pool = pool;
+            this.gzip = gzip;
+            if (gzip) {
+                out.write(GZIP_HEADER);
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            super.write(b, off, len);
+            if (gzip) {
+                crc.update(b, off, len);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (finished) {
+                return;
+            }
+            super.finish();
+            finished = true;
+            if (gzip) {
+                byte[] trailer = new byte[8];
+                writeInt(trailer, 0, (int) crc.getValue());
+                writeInt(trailer, 4, (int) def.getBytesRead());
+                out.write(trailer);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                finish();
+                out.close();
+            } finally {
+                release(pool, def);
+            }
+        }
+
+        private static void writeInt(byte[] b, int offset, int value) {
+            b[offset] = (byte) value;
+            b[offset + 1] = (byte) (value >> 8);
+            b[offset + 2] = (byte) (value >> 16);
+            b[offset + 3] = (byte) (value >> 24);
+        }
+    }
+
+    private static class PooledInflaterInputStream extends InflaterInputStream {
+
+        private final Queue<Inflater> pool;
+
+        private final boolean gzip;
+
+        private final CRC32 crc = new CRC32();
+
+        private boolean started;
+
+        private boolean eof;
+
+        private boolean closed;
+
+        PooledInflaterInputStream(InputStream in, Inflater inflater, Queue<Inflater> pool, boolean gzip) {
+            super(in, inflater, Constants.BUFFER_SIZE);
+            this.pool = pool;
+            this.gzip = gzip;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (eof) {
+                return -1;
+            }
+            if (!started) {
+                started = true;
+                // 空响应体直接结束
+                if (gzip && !readHeader()) {
+                    eof = true;
+                    return -1;
+                }
+            }
+            int n = super.read(b, off, len);
+            if (n == -1) {
+                eof = true;
+                if (gzip) {
+                    readTrailer();
+                }
+            } else if (gzip) {
+                crc.update(b, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return eof ? 0 : super.available();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                in.close();
+            } finally {
+                release(pool, inf);
+            }
+        }
+
+        private boolean readHeader() throws IOException {
+            int first = in.read();
+            if (first < 0) {
+                return false;
+            }
+            if ((first | (readUByte() << 8)) != Constants.GZIP_MAGIC) {
+                throw new ZipException("Not in GZIP format");
+            }
+            if (readUByte() != Deflater.DEFLATED) {
+                throw new ZipException("Unsupported compression method");
+            }
+            int flags = readUByte();
+            skip(6);
+            if ((flags & FEXTRA) != 0) {
+                skip(readUByte() | (readUByte() << 8));
+            }
+            if ((flags & FNAME) != 0) {
+                while (readUByte() != 0) {
+                }
+            }
+            if ((flags & FCOMMENT) != 0) {
+                while (readUByte() != 0) {
+                }
+            }
+            if ((flags & FHCRC) != 0) {
+                skip(2);
+            }
+            return true;
+        }
+
+        /**
+         * 尾部的8字节可能有一部分已被读入缓冲区
+         */
+        private void readTrailer() throws IOException {
+            byte[] trailer = new byte[8];
+            int remaining = Math.min(inf.getRemaining(), trailer.length);
+            System.arraycopy(buf, len - inf.getRemaining(), trailer, 0, remaining);
+            for (int i = remaining; i < trailer.length; i++) {
+                trailer[i] = (byte) readUByte();
+            }
+            long expectedCrc = readUInt(trailer, 0);
+            long expectedSize = readUInt(trailer, 4);
+            if (expectedCrc != crc.getValue() || expectedSize != (inf.getBytesWritten() & 0xFFFFFFFFL)) {
+                throw new ZipException("Corrupt GZIP trailer");
+            }
+        }
+
+        private int readUByte() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of GZIP stream");
+            }
+            return b;
+        }
+
+        private void skip(int n) throws IOException {
+            for (int i = 0; i < n; i++) {
+                readUByte();
+            }
+        }
+
+        private static long readUInt(byte[] b, int offset) {
+            return ((b[offset] & 0xFFL)) | ((b[offset + 1] & 0xFFL) << 8)
+                    | ((b[offset + 2] & 0xFFL) << 16) | ((b[offset + 3] & 0xFFL) << 24);
+        }
+    }
+}
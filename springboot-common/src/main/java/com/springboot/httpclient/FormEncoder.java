@@ -0,0 +1,304 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.HttpMultipartMode;
+import org.apache.http.entity.mime.MultipartEntityBuilder;
+import org.apache.http.entity.mime.content.ContentBody;
+import org.apache.http.entity.mime.content.FileBody;
+import org.apache.http.entity.mime.content.InputStreamBody;
+
+import java.io.File;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * 表单、查询串编码
+ * <p>
+ * 按application/x-www-form-urlencoded规则单次遍历完成百分号编码：字母、数字和-._*原样输出，空格编码为+。
+ * 值为Iterable（Path除外）或数组时按同名参数重复输出，null输出为空值
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-28 15:10
+ **/
+public final class FormEncoder {
+
+    /**
+     * 配置常量
+     */
+    interface Constants {
+        /**
+         * 线程内复用的缓冲区超过该长度时不再保留
+         */
+        int MAX_CACHED_BUFFER = 8192;
+    }
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private static final boolean[] SAFE = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            SAFE[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            SAFE[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            SAFE[c] = true;
+        }
+        SAFE['-'] = true;
+        SAFE['.'] = true;
+        SAFE['_'] = true;
+        SAFE['*'] = true;
+    }
+
+    private static final ThreadLocal<StringBuilder> BUFFERS = new ThreadLocal<StringBuilder>() {
+        @Override
+        protected StringBuilder initialValue() {
+            return new StringBuilder(256);
+        }
+    };
+
+    private FormEncoder() {
+    }
+
+    /**
+     * 把参数拼接到url后，url已带查询串时以&连接
+     *
+     * @param url
+     * @param params
+     * @param charset
+     * @return
+     */
+    public static String appendQuery(String url, Map<String, ?> params, Charset charset) {
+        if (params == null || params.isEmpty()) {
+            return url;
+        }
+        StringBuilder buffer = buffer();
+        buffer.append(url);
+        int query = url.indexOf('?');
+        if (query < 0) {
+            buffer.append('?');
+        } else if (query != url.length() - 1 && !url.endsWith("&")) {
+            buffer.append('&');
+        }
+        appendParams(buffer, params, charset);
+        return release(buffer);
+    }
+
+    /**
+     * 查询串，以?开头，无参数时返回空串
+     *
+     * @param params
+     * @param charset
+     * @return
+     */
+    public static String toQuery(Map<String, ?> params, Charset charset) {
+        return appendQuery("", params, charset);
+    }
+
+    /**
+     * 编码为表单内容，不带?
+     *
+     * @param params
+     * @param charset
+     * @return
+     */
+    public static String encode(Map<String, ?> params, Charset charset) {
+        if (params == null || params.isEmpty()) {
+            return "";
+        }
+        StringBuilder buffer = buffer();
+        appendParams(buffer, params, charset);
+        return release(buffer);
+    }
+
+    /**
+     * 追加全部参数
+     *
+     * @param out
+     * @param params
+     * @param charset
+     */
+    public static void appendParams(StringBuilder out, Map<String, ?> params, Charset charset) {
+        boolean first = true;
+        for (Map.Entry<String, ?> entry : params.entrySet()) {
+            first = appendParam(out, entry.getKey(), entry.getValue(), charset, first);
+        }
+    }
+
+    /**
+     * 追加一个参数，多值时输出多个同名参数
+     *
+     * @param out
+     * @param name
+     * @param value
+     * @param charset
+     * @param first   是否为第一个参数，否则先输出&
+     * @return 之后的参数是否仍为第一个
+     */
+    public static boolean appendParam(StringBuilder out, String name, Object value, Charset charset, boolean first) {
+        if (isMultiValued(value)) {
+            for (Object item : (Iterable<?>) value) {
+                first = appendPair(out, name, item, charset, first);
+            }
+            return first;
+        }
+        if (value instanceof Object[]) {
+            for (Object item : (Object[]) value) {
+                first = appendPair(out, name, item, charset, first);
+            }
+            return first;
+        }
+        return appendPair(out, name, value, charset, first);
+    }
+
+    private static boolean appendPair(StringBuilder out, String name, Object value, Charset charset, boolean first) {
+        if (!first) {
+            out.append('&');
+        }
+        encode(name, charset, out);
+        out.append('=');
+        if (value != null) {
+            encode(value.toString(), charset, out);
+        }
+        return false;
+    }
+
+    /**
+     * 百分号编码
+     *
+     * @param value
+     * @param charset
+     * @param out
+     */
+    public static void encode(CharSequence value, Charset charset, StringBuilder out) {
+        boolean utf8 = StandardCharsets.UTF_8.equals(charset);
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 128 && SAFE[c]) {
+                out.append(c);
+            } else if (c == ' ') {
+                out.append('+');
+            } else if (c < 128) {
+                appendHex(out, c);
+            } else if (utf8) {
+                i = appendUtf8(value, i, out);
+            } else {
+                // 非UTF-8字符集时把连续的非ASCII字符一次转换
+                int end = i + 1;
+                while (end < length && value.charAt(end) >= 128) {
+                    end++;
+                }
+                for (byte b : value.subSequence(i, end).toString().getBytes(charset)) {
+                    appendHex(out, b & 0xFF);
+                }
+                i = end - 1;
+            }
+        }
+    }
+
+    /**
+     * 创建multipart/form-data请求体，文件和流在发送时才读取
+     * <p>
+     * File/Path作为文件上传，byte[]和InputStream作为二进制内容，ContentBody原样使用，其余按字符串处理
+     *
+     * @param params
+     * @param charset
+     * @return
+     */
+    public static HttpEntity multipart(Map<String, ?> params, Charset charset) {
+        MultipartEntityBuilder builder = MultipartEntityBuilder.create()
+                .setMode(HttpMultipartMode.RFC6532)
+                .setCharset(charset);
+        ContentType text = ContentType.TEXT_PLAIN.withCharset(charset);
+        if (params != null) {
+            for (Map.Entry<String, ?> entry : params.entrySet()) {
+                Object value = entry.getValue();
+                if (isMultiValued(value)) {
+                    for (Object item : (Iterable<?>) value) {
+                        addPart(builder, entry.getKey(), item, text);
+                    }
+                } else if (value instanceof Object[]) {
+                    for (Object item : (Object[]) value) {
+                        addPart(builder, entry.getKey(), item, text);
+                    }
+                } else {
+                    addPart(builder, entry.getKey(), value, text);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Path本身也是Iterable，按单个值处理
+     */
+    private static boolean isMultiValued(Object value) {
+        return value instanceof Iterable && !(value instanceof Path);
+    }
+
+    private static void addPart(MultipartEntityBuilder builder, String name, Object value, ContentType text) {
+        if (value instanceof ContentBody) {
+            builder.addPart(name, (ContentBody) value);
+        } else if (value instanceof File) {
+            builder.addPart(name, new FileBody((File) value));
+        } else if (value instanceof Path) {
+            builder.addPart(name, new FileBody(((Path) value).toFile()));
+        } else if (value instanceof byte[]) {
+            builder.addBinaryBody(name, (byte[]) value, ContentType.APPLICATION_OCTET_STREAM, name);
+        } else if (value instanceof InputStream) {
+            builder.addPart(name, new InputStreamBody((InputStream) value, name));
+        } else {
+            builder.addTextBody(name, value == null ? "" : value.toString(), text);
+        }
+    }
+
+    private static int appendUtf8(CharSequence value, int i, StringBuilder out) {
+        char c = value.charAt(i);
+        int codePoint = c;
+        if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            codePoint = Character.toCodePoint(c, value.charAt(++i));
+        } else if (Character.isSurrogate(c)) {
+            // 不成对的代理字符按?输出，与String.getBytes一致
+            appendHex(out, '?');
+            return i;
+        }
+        if (codePoint < 0x800) {
+            appendHex(out, 0xC0 | (codePoint >> 6));
+        } else if (codePoint < 0x10000) {
+            appendHex(out, 0xE0 | (codePoint >> 12));
+            appendHex(out, 0x80 | ((codePoint >> 6) & 0x3F));
+        } else {
+            appendHex(out, 0xF0 | (codePoint >> 18));
+            appendHex(out, 0x80 | ((codePoint >> 12) & 0x3F));
+            appendHex(out, 0x80 | ((codePoint >> 6) & 0x3F));
+        }
+        appendHex(out, 0x80 | (codePoint & 0x3F));
+        return i;
+    }
+
+    private static void appendHex(StringBuilder out, int b) {
+        out.append('%').append(HEX[b >> 4]).append(HEX[b & 0x0F]);
+    }
+
+    private static StringBuilder buffer() {
+        StringBuilder buffer = BUFFERS.get();
+        buffer.setLength(0);
+        return buffer;
+    }
+
+    private static String release(StringBuilder buffer) {
+        String value = buffer.toString();
+        if (buffer.capacity() > Constants.MAX_CACHED_BUFFER) {
+            BUFFERS.remove();
+        }
+        return value;
+    }
+}
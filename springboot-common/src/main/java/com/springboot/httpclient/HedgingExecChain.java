@@ -0,0 +1,362 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.protocol.BasicHttpContext;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 对冲请求执行链
+ * <p>
+ * 原请求在调用线程上执行，等待时间到后由后台线程用新的上下文再执行一次。先得到响应的一方胜出，
+ * 另一方被中止，其连接关闭后释放回连接池。原请求失败而对冲请求仍在执行时等待对冲请求的结果
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-04 10:10
+ **/
+class HedgingExecChain implements ClientExecChain {
+
+    /**
+     * 按百分位计算的等待时间缓存1秒，避免每个请求都遍历直方图
+     */
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final int PENDING = 0;
+
+    private static final int HEDGING = 1;
+
+    private static final int DONE = 2;
+
+    private static final int NONE = 0;
+
+    private static final int PRIMARY = 1;
+
+    private static final int HEDGE = 2;
+
+    private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "http-client-hedge-timer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "http-client-hedge-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    static {
+        // 大多数请求在等待时间内完成，取消的定时任务及时移除
+        TIMER.setRemoveOnCancelPolicy(true);
+    }
+
+    private final ClientExecChain next;
+
+    private final HedgingPolicy policy;
+
+    private final HttpClientMetrics metrics;
+
+    private final RetryBudget budget;
+
+    private final ConcurrentMap<String, long[]> delays = new ConcurrentHashMap<String, long[]>();
+
+    HedgingExecChain(ClientExecChain next, HedgingPolicy policy, HttpClientMetrics metrics) {
+        this.next = next;
+        this.policy = policy;
+        this.metrics = metrics;
+        this.budget = new RetryBudget(policy.getBudgetRatio(), policy.getBudgetMinPerSecond());
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                         HttpExecutionAware execAware) throws IOException, HttpException {
+        if (!isHedgeable(request)) {
+            return next.execute(route, request, context, execAware);
+        }
+        String name = MetricsExecChain.routeOf(route);
+        budget.deposit(name);
+        // 下游执行链会修改原请求的请求头和URI，在执行前复制
+        Race race = new Race(name, route, copyOf(request), context);
+        if (execAware != null) {
+            if (execAware.isAborted()) {
+                throw new RequestAbortedException("Request aborted");
+            }
+            execAware.setCancellable(race);
+        }
+        race.timer = TIMER.schedule(race, delayOf(name), TimeUnit.MILLISECONDS);
+        CloseableHttpResponse response;
+        try {
+            response = next.execute(route, request, context, race.primary);
+        } catch (IOException e) {
+            return race.primaryFailed(e);
+        } catch (HttpException e) {
+            return race.primaryFailed(e);
+        } catch (RuntimeException e) {
+            return race.primaryFailed(e);
+        }
+        return race.primaryCompleted(response);
+    }
+
+    private boolean isHedgeable(HttpRequestWrapper request) {
+        if (!policy.getMethods().contains(request.getRequestLine().getMethod())) {
+            return false;
+        }
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            return entity == null || entity.isRepeatable();
+        }
+        return true;
+    }
+
+    /**
+     * 等待时间（毫秒）
+     */
+    private long delayOf(String route) {
+        if (policy.getPercentile() <= 0 || !(metrics instanceof InMemoryHttpClientMetrics)) {
+            return policy.getDelay();
+        }
+        long now = System.nanoTime();
+        long[] cached = delays.get(route);
+        if (cached != null && now - cached[1] < DELAY_REFRESH_NANOS) {
+            return cached[0];
+        }
+        long delay = policy.getDelay();
+        InMemoryHttpClientMetrics.RouteMetrics routeMetrics = ((InMemoryHttpClientMetrics) metrics).getRoutes().get(route);
+        if (routeMetrics != null && routeMetrics.getLatency().getCount() >= policy.getMinSamples()) {
+            delay = (long) Math.ceil(routeMetrics.getLatency().getPercentileMillis(policy.getPercentile()));
+            delay = Math.max(policy.getMinDelay(), Math.min(policy.getMaxDelay(), delay));
+        }
+        delays.put(route, new long[]{delay, now});
+        return delay;
+    }
+
+    /**
+     * 复制请求，两次执行各自修改自己的请求头
+     */
+    private static HttpRequestWrapper copyOf(HttpRequestWrapper request) {
+        HttpRequestWrapper copy = HttpRequestWrapper.wrap(request.getOriginal(), request.getTarget());
+        copy.setURI(request.getURI());
+        copy.setHeaders(request.getAllHeaders());
+        if (request instanceof HttpEntityEnclosingRequest) {
+            ((HttpEntityEnclosingRequest) copy).setEntity(((HttpEntityEnclosingRequest) request).getEntity());
+        }
+        return copy;
+    }
+
+    private static void closeQuietly(CloseableHttpResponse response) {
+        try {
+            response.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 一次请求的原请求与对冲请求
+     */
+    private class Race implements Runnable, Cancellable {
+
+        private final String name;
+
+        private final HttpRoute route;
+
+        private final HttpRequestWrapper copy;
+
+        private final HttpClientContext context;
+
+        private final Attempt primary = new Attempt();
+
+        private final Attempt hedge = new Attempt();
+
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        private final AtomicInteger winner = new AtomicInteger(NONE);
+
+        /**
+         * 对冲请求胜出时为其响应，未发出、失败或落败时为null
+         */
+        private final CompletableFuture<CloseableHttpResponse> hedgeResult = new CompletableFuture<CloseableHttpResponse>();
+
+        private volatile ScheduledFuture<?> timer;
+
+        private volatile boolean cancelled;
+
+        Race(String name, HttpRoute route, HttpRequestWrapper copy, HttpClientContext context) {
+            this.name = name;
+            this.route = route;
+            this.copy = copy;
+            this.context = context;
+        }
+
+        /**
+         * 等待时间到
+         */
+        @Override
+        public void run() {
+            if (!state.compareAndSet(PENDING, HEDGING)) {
+                return;
+            }
+            if (!budget.tryAcquire(name)) {
+                hedgeResult.complete(null);
+                return;
+            }
+            metrics.recordHedge(name);
+            try {
+                EXECUTOR.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        hedge();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                hedgeResult.complete(null);
+            }
+        }
+
+        private void hedge() {
+            CloseableHttpResponse response;
+            try {
+                // 子上下文读取原请求的配置，连接等状态写入自己的上下文
+                HttpClientContext hedgeContext = HttpClientContext.adapt(new BasicHttpContext(context));
+                // 对冲是同一个请求的另一次尝试，不再计入重试预算，否则每次对冲都多存入一份重试额度
+                hedgeContext.setAttribute(RetryBudgetExecChain.ATTEMPTED, copy);
+                response = next.execute(route, copy, hedgeContext, hedge);
+            } catch (Throwable e) {
+                hedgeResult.complete(null);
+                if (e instanceof Error) {
+                    throw (Error) e;
+                }
+                return;
+            }
+            if (winner.compareAndSet(NONE, HEDGE)) {
+                metrics.recordHedgeWin(name);
+                primary.abort();
+                hedgeResult.complete(response);
+            } else {
+                closeQuietly(response);
+                hedgeResult.complete(null);
+            }
+        }
+
+        CloseableHttpResponse primaryCompleted(CloseableHttpResponse response) throws IOException {
+            stopTimer();
+            if (winner.compareAndSet(NONE, PRIMARY)) {
+                hedge.abort();
+                return response;
+            }
+            // 对冲请求在原请求返回前胜出
+            closeQuietly(response);
+            return awaitHedge();
+        }
+
+        <E extends Exception> CloseableHttpResponse primaryFailed(E e) throws E, IOException {
+            stopTimer();
+            if (state.get() == HEDGING) {
+                CloseableHttpResponse response = awaitHedge();
+                if (response != null) {
+                    return response;
+                }
+            }
+            if (cancelled) {
+                // 连接被关闭产生的异常各不相同，调用方中止时统一报告为中止
+                throw new RequestAbortedException("Request aborted", e);
+            }
+            throw e;
+        }
+
+        private void stopTimer() {
+            if (state.compareAndSet(PENDING, DONE)) {
+                timer.cancel(false);
+            }
+        }
+
+        private CloseableHttpResponse awaitHedge() throws IOException {
+            try {
+                return hedgeResult.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                hedge.abort();
+                throw new InterruptedIOException("interrupted while waiting for hedged request");
+            } catch (ExecutionException e) {
+                return null;
+            }
+        }
+
+        /**
+         * 调用方中止请求时两个请求都中止
+         */
+        @Override
+        public boolean cancel() {
+            cancelled = true;
+            stopTimer();
+            primary.abort();
+            hedge.abort();
+            return true;
+        }
+    }
+
+    /**
+     * 单次执行的中止控制，执行链通过它注册连接的取消操作
+     */
+    private static class Attempt implements HttpExecutionAware {
+
+        private final AtomicBoolean aborted = new AtomicBoolean();
+
+        private volatile Cancellable cancellable;
+
+        @Override
+        public boolean isAborted() {
+            return aborted.get();
+        }
+
+        @Override
+        public void setCancellable(Cancellable cancellable) {
+            this.cancellable = cancellable;
+            if (aborted.get()) {
+                cancellable.cancel();
+            }
+        }
+
+        void abort() {
+            if (aborted.compareAndSet(false, true)) {
+                Cancellable current = cancellable;
+                if (current != null) {
+                    current.cancel();
+                }
+            }
+        }
+    }
+}
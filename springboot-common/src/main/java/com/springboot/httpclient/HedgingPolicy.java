@@ -0,0 +1,240 @@
+package com.springboot.httpclient;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 对冲请求策略
+ * <p>
+ * 幂等请求在delay内没有响应时，在另一个连接上再发出一次，先返回的响应胜出，另一个被中止。
+ * 设置percentile后按路由已观测的延迟百分位决定等待时间，样本不足minSamples时使用delay。
+ * 对冲请求数按令牌桶限制：每个请求存入budgetRatio个令牌，每秒另外补充budgetMinPerSecond个，
+ * 下游整体变慢时对冲量被限制在流量的固定比例内
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-04 09:30
+ **/
+public class HedgingPolicy {
+
+    /**
+     * 默认策略：固定等待100毫秒，对冲量不超过请求量的5%
+     */
+    public static final HedgingPolicy DEFAULT = custom().build();
+
+    private final long delay;
+
+    private final double percentile;
+
+    private final long minSamples;
+
+    private final long minDelay;
+
+    private final long maxDelay;
+
+    private final double budgetRatio;
+
+    private final int budgetMinPerSecond;
+
+    private final Set<String> methods;
+
+    HedgingPolicy(Builder builder) {
+        this.delay = builder.delay;
+        this.percentile = builder.percentile;
+        this.minSamples = builder.minSamples;
+        this.minDelay = builder.minDelay;
+        this.maxDelay = builder.maxDelay;
+        this.budgetRatio = builder.budgetRatio;
+        this.budgetMinPerSecond = builder.budgetMinPerSecond;
+        this.methods = Collections.unmodifiableSet(new LinkedHashSet<String>(builder.methods));
+    }
+
+    /**
+     * 构建策略
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public long getDelay() {
+        return delay;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    public long getMinSamples() {
+        return minSamples;
+    }
+
+    public long getMinDelay() {
+        return minDelay;
+    }
+
+    public long getMaxDelay() {
+        return maxDelay;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public int getBudgetMinPerSecond() {
+        return budgetMinPerSecond;
+    }
+
+    public Set<String> getMethods() {
+        return methods;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HedgingPolicy)) {
+            return false;
+        }
+        HedgingPolicy that = (HedgingPolicy) o;
+        return delay == that.delay
+                && Double.compare(percentile, that.percentile) == 0
+                && minSamples == that.minSamples
+                && minDelay == that.minDelay
+                && maxDelay == that.maxDelay
+                && Double.compare(budgetRatio, that.budgetRatio) == 0
+                && budgetMinPerSecond == that.budgetMinPerSecond
+                && methods.equals(that.methods);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{
+                delay, percentile, minSamples, minDelay, maxDelay, budgetRatio, budgetMinPerSecond, methods
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingPolicy{" +
+                "delay=" + delay +
+                ", percentile=" + percentile +
+                ", minSamples=" + minSamples +
+                ", minDelay=" + minDelay +
+                ", maxDelay=" + maxDelay +
+                ", budgetRatio=" + budgetRatio +
+                ", budgetMinPerSecond=" + budgetMinPerSecond +
+                ", methods=" + methods +
+                '}';
+    }
+
+    /**
+     * 策略构建器
+     */
+    public static class Builder {
+
+        private static final Set<String> IDEMPOTENT_METHODS = new LinkedHashSet<String>(Arrays.asList(
+                "GET", "HEAD", "OPTIONS", "TRACE", "PUT", "DELETE"));
+
+        private long delay = 100;
+
+        private double percentile = 0;
+
+        private long minSamples = 100;
+
+        private long minDelay = 10;
+
+        private long maxDelay = 1000;
+
+        private double budgetRatio = 0.05;
+
+        private int budgetMinPerSecond = 1;
+
+        private Set<String> methods = new LinkedHashSet<String>(Arrays.asList("GET", "HEAD", "OPTIONS"));
+
+        Builder() {
+        }
+
+        /**
+         * 固定的等待时间（毫秒）
+         *
+         * @param delay
+         * @return
+         */
+        public Builder setDelay(long delay) {
+            this.delay = delay;
+            return this;
+        }
+
+        /**
+         * 按路由延迟的百分位决定等待时间，如95，结果限制在[minDelay, maxDelay]内；0表示使用固定的delay。
+         * 需要客户端使用InMemoryHttpClientMetrics
+         *
+         * @param percentile
+         * @param minDelay
+         * @param maxDelay
+         * @return
+         */
+        public Builder setPercentile(double percentile, long minDelay, long maxDelay) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("percentile must be in [0, 100]");
+            }
+            this.percentile = percentile;
+            this.minDelay = minDelay;
+            this.maxDelay = maxDelay;
+            return this;
+        }
+
+        /**
+         * 按百分位计算前路由至少需要的请求数
+         *
+         * @param minSamples
+         * @return
+         */
+        public Builder setMinSamples(long minSamples) {
+            this.minSamples = minSamples;
+            return this;
+        }
+
+        /**
+         * 对冲预算
+         *
+         * @param ratio        每个请求存入的令牌数，即对冲量占请求量的比例上限
+         * @param minPerSecond 每秒额外补充的令牌数，保证低流量时也能对冲
+         * @return
+         */
+        public Builder setBudget(double ratio, int minPerSecond) {
+            this.budgetRatio = ratio;
+            this.budgetMinPerSecond = minPerSecond;
+            return this;
+        }
+
+        /**
+         * 允许对冲的方法，只允许幂等方法，带请求体时请求体需可重复读取
+         *
+         * @param methods
+         * @return
+         */
+        public Builder setMethods(String... methods) {
+            Set<String> result = new LinkedHashSet<String>();
+            for (String method : methods) {
+                String name = method.toUpperCase(Locale.ROOT);
+                if (!IDEMPOTENT_METHODS.contains(name)) {
+                    throw new IllegalArgumentException("method is not idempotent: " + method);
+                }
+                result.add(name);
+            }
+            this.methods = result;
+            return this;
+        }
+
+        public HedgingPolicy build() {
+            return new HedgingPolicy(this);
+        }
+    }
+}
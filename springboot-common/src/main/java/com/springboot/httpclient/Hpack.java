@@ -0,0 +1,430 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.message.BasicHeader;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * HTTP/2头部压缩（RFC 7541）
+ * <p>
+ * 编码只使用静态表和不加入索引的字面量，不维护动态表，对端设置的表大小不影响编码。
+ * 解码完整支持动态表和哈夫曼编码，每个连接一个解码器，按收到头部块的顺序使用
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-05 09:30
+ **/
+final class Hpack {
+
+    /**
+     * 本端允许的动态表大小，即SETTINGS_HEADER_TABLE_SIZE的默认值
+     */
+    static final int DEFAULT_TABLE_SIZE = 4096;
+
+    private static final String[][] STATIC_TABLE = {
+            {":authority", ""},
+            {":method", "GET"},
+            {":method", "POST"},
+            {":path", "/"},
+            {":path", "/index.html"},
+            {":scheme", "http"},
+            {":scheme", "https"},
+            {":status", "200"},
+            {":status", "204"},
+            {":status", "206"},
+            {":status", "304"},
+            {":status", "400"},
+            {":status", "404"},
+            {":status", "500"},
+            {"accept-charset", ""},
+            {"accept-encoding", "gzip, deflate"},
+            {"accept-language", ""},
+            {"accept-ranges", ""},
+            {"accept", ""},
+            {"access-control-allow-origin", ""},
+            {"age", ""},
+            {"allow", ""},
+            {"authorization", ""},
+            {"cache-control", ""},
+            {"content-disposition", ""},
+            {"content-encoding", ""},
+            {"content-language", ""},
+            {"content-length", ""},
+            {"content-location", ""},
+            {"content-range", ""},
+            {"content-type", ""},
+            {"cookie", ""},
+            {"date", ""},
+            {"etag", ""},
+            {"expect", ""},
+            {"expires", ""},
+            {"from", ""},
+            {"host", ""},
+            {"if-match", ""},
+            {"if-modified-since", ""},
+            {"if-none-match", ""},
+            {"if-range", ""},
+            {"if-unmodified-since", ""},
+            {"last-modified", ""},
+            {"link", ""},
+            {"location", ""},
+            {"max-forwards", ""},
+            {"proxy-authenticate", ""},
+            {"proxy-authorization", ""},
+            {"range", ""},
+            {"referer", ""},
+            {"refresh", ""},
+            {"retry-after", ""},
+            {"server", ""},
+            {"set-cookie", ""},
+            {"strict-transport-security", ""},
+            {"transfer-encoding", ""},
+            {"user-agent", ""},
+            {"vary", ""},
+            {"via", ""},
+            {"www-authenticate", ""}
+    };
+
+    /**
+     * 静态表中名称第一次出现的位置
+     */
+    private static final Map<String, Integer> STATIC_NAMES = new HashMap<String, Integer>();
+
+    /**
+     * 静态表中名称和值都相同的位置
+     */
+    private static final Map<String, Integer> STATIC_FIELDS = new HashMap<String, Integer>();
+
+    private static final int[] HUFFMAN_CODES = {
+            0x1ff8, 0x7fffd8, 0xfffffe2, 0xfffffe3, 0xfffffe4, 0xfffffe5, 0xfffffe6, 0xfffffe7,
+            0xfffffe8, 0xffffea, 0x3ffffffc, 0xfffffe9, 0xfffffea, 0x3ffffffd, 0xfffffeb, 0xfffffec,
+            0xfffffed, 0xfffffee, 0xfffffef, 0xffffff0, 0xffffff1, 0xffffff2, 0x3ffffffe, 0xffffff3,
+            0xffffff4, 0xffffff5, 0xffffff6, 0xffffff7, 0xffffff8, 0xffffff9, 0xffffffa, 0xffffffb,
+            0x14, 0x3f8, 0x3f9, 0xffa, 0x1ff9, 0x15, 0xf8, 0x7fa,
+            0x3fa, 0x3fb, 0xf9, 0x7fb, 0xfa, 0x16, 0x17, 0x18,
+            0x0, 0x1, 0x2, 0x19, 0x1a, 0x1b, 0x1c, 0x1d,
+            0x1e, 0x1f, 0x5c, 0xfb, 0x7ffc, 0x20, 0xffb, 0x3fc,
+            0x1ffa, 0x21, 0x5d, 0x5e, 0x5f, 0x60, 0x61, 0x62,
+            0x63, 0x64, 0x65, 0x66, 0x67, 0x68, 0x69, 0x6a,
+            0x6b, 0x6c, 0x6d, 0x6e, 0x6f, 0x70, 0x71, 0x72,
+            0xfc, 0x73, 0xfd, 0x1ffb, 0x7fff0, 0x1ffc, 0x3ffc, 0x22,
+            0x7ffd, 0x3, 0x23, 0x4, 0x24, 0x5, 0x25, 0x26,
+            0x27, 0x6, 0x74, 0x75, 0x28, 0x29, 0x2a, 0x7,
+            0x2b, 0x76, 0x2c, 0x8, 0x9, 0x2d, 0x77, 0x78,
+            0x79, 0x7a, 0x7b, 0x7ffe, 0x7fc, 0x3ffd, 0x1ffd, 0xffffffc,
+            0xfffe6, 0x3fffd2, 0xfffe7, 0xfffe8, 0x3fffd3, 0x3fffd4, 0x3fffd5, 0x7fffd9,
+            0x3fffd6, 0x7fffda, 0x7fffdb, 0x7fffdc, 0x7fffdd, 0x7fffde, 0xffffeb, 0x7fffdf,
+            0xffffec, 0xffffed, 0x3fffd7, 0x7fffe0, 0xffffee, 0x7fffe1, 0x7fffe2, 0x7fffe3,
+            0x7fffe4, 0x1fffdc, 0x3fffd8, 0x7fffe5, 0x3fffd9, 0x7fffe6, 0x7fffe7, 0xffffef,
+            0x3fffda, 0x1fffdd, 0xfffe9, 0x3fffdb, 0x3fffdc, 0x7fffe8, 0x7fffe9, 0x1fffde,
+            0x7fffea, 0x3fffdd, 0x3fffde, 0xfffff0, 0x1fffdf, 0x3fffdf, 0x7fffeb, 0x7fffec,
+            0x1fffe0, 0x1fffe1, 0x3fffe0, 0x1fffe2, 0x7fffed, 0x3fffe1, 0x7fffee, 0x7fffef,
+            0xfffea, 0x3fffe2, 0x3fffe3, 0x3fffe4, 0x7ffff0, 0x3fffe5, 0x3fffe6, 0x7ffff1,
+            0x3ffffe0, 0x3ffffe1, 0xfffeb, 0x7fff1, 0x3fffe7, 0x7ffff2, 0x3fffe8, 0x1ffffec,
+            0x3ffffe2, 0x3ffffe3, 0x3ffffe4, 0x7ffffde, 0x7ffffdf, 0x3ffffe5, 0xfffff1, 0x1ffffed,
+            0x7fff2, 0x1fffe3, 0x3ffffe6, 0x7ffffe0, 0x7ffffe1, 0x3ffffe7, 0x7ffffe2, 0xfffff2,
+            0x1fffe4, 0x1fffe5, 0x3ffffe8, 0x3ffffe9, 0xffffffd, 0x7ffffe3, 0x7ffffe4, 0x7ffffe5,
+            0xfffec, 0xfffff3, 0xfffed, 0x1fffe6, 0x3fffe9, 0x1fffe7, 0x1fffe8, 0x7ffff3,
+            0x3fffea, 0x3fffeb, 0x1ffffee, 0x1ffffef, 0xfffff4, 0xfffff5, 0x3ffffea, 0x7ffff4,
+            0x3ffffeb, 0x7ffffe6, 0x3ffffec, 0x3ffffed, 0x7ffffe7, 0x7ffffe8, 0x7ffffe9, 0x7ffffea,
+            0x7ffffeb, 0xffffffe, 0x7ffffec, 0x7ffffed, 0x7ffffee, 0x7ffffef, 0x7fffff0, 0x3ffffee,
+            0x3fffffff
+    };
+
+    private static final byte[] HUFFMAN_LENGTHS = {
+            13, 23, 28, 28, 28, 28, 28, 28, 28, 24, 30, 28, 28, 30, 28, 28,
+            28, 28, 28, 28, 28, 28, 30, 28, 28, 28, 28, 28, 28, 28, 28, 28,
+            6, 10, 10, 12, 13, 6, 8, 11, 10, 10, 8, 11, 8, 6, 6, 6,
+            5, 5, 5, 6, 6, 6, 6, 6, 6, 6, 7, 8, 15, 6, 12, 10,
+            13, 6, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7, 7,
+            7, 7, 7, 7, 7, 7, 7, 7, 8, 7, 8, 13, 19, 13, 14, 6,
+            15, 5, 6, 5, 6, 5, 6, 6, 6, 5, 7, 7, 6, 6, 6, 5,
+            6, 7, 6, 5, 5, 6, 7, 7, 7, 7, 7, 15, 11, 14, 13, 28,
+            20, 22, 20, 20, 22, 22, 22, 23, 22, 23, 23, 23, 23, 23, 24, 23,
+            24, 24, 22, 23, 24, 23, 23, 23, 23, 21, 22, 23, 22, 23, 23, 24,
+            22, 21, 20, 22, 22, 23, 23, 21, 23, 22, 22, 24, 21, 22, 23, 23,
+            21, 21, 22, 21, 23, 22, 23, 23, 20, 22, 22, 22, 23, 22, 22, 23,
+            26, 26, 20, 19, 22, 23, 22, 25, 26, 26, 26, 27, 27, 26, 24, 25,
+            19, 21, 26, 27, 27, 26, 27, 24, 21, 21, 26, 26, 28, 27, 27, 27,
+            20, 24, 20, 21, 22, 21, 21, 23, 22, 22, 25, 25, 24, 24, 26, 23,
+            26, 27, 26, 26, 27, 27, 27, 27, 27, 28, 27, 27, 27, 27, 27, 26,
+            30
+    };
+
+    /**
+     * 哈夫曼解码树，每个节点占两个位置，分别是0和1的子节点：正数为内部节点，负数为-(符号+1)，0为不存在
+     */
+    private static final int[] HUFFMAN_TREE = new int[2 * HUFFMAN_CODES.length];
+
+    private static final int EOS = 256;
+
+    static {
+        for (int i = STATIC_TABLE.length - 1; i >= 0; i--) {
+            STATIC_NAMES.put(STATIC_TABLE[i][0], i + 1);
+            if (!STATIC_TABLE[i][1].isEmpty()) {
+                STATIC_FIELDS.put(STATIC_TABLE[i][0] + '\n' + STATIC_TABLE[i][1], i + 1);
+            }
+        }
+        int count = 1;
+        for (int symbol = 0; symbol < HUFFMAN_CODES.length; symbol++) {
+            int code = HUFFMAN_CODES[symbol];
+            int node = 0;
+            for (int i = HUFFMAN_LENGTHS[symbol] - 1; i > 0; i--) {
+                int slot = 2 * node + ((code >>> i) & 1);
+                if (HUFFMAN_TREE[slot] == 0) {
+                    HUFFMAN_TREE[slot] = count++;
+                }
+                node = HUFFMAN_TREE[slot];
+            }
+            HUFFMAN_TREE[2 * node + (code & 1)] = -(symbol + 1);
+        }
+    }
+
+    private Hpack() {
+    }
+
+    /**
+     * 编码一个头部，名称需为小写
+     *
+     * @param out
+     * @param name
+     * @param value
+     */
+    static void encode(ByteArrayOutputStream out, String name, String value) {
+        Integer index = STATIC_FIELDS.get(name + '\n' + value);
+        if (index != null) {
+            writeInt(out, 0x80, 7, index);
+            return;
+        }
+        // 凭证类头部标记为永不索引，中间节点也不会把它加入动态表
+        int flags = "authorization".equals(name) || "proxy-authorization".equals(name) ? 0x10 : 0x00;
+        index = STATIC_NAMES.get(name);
+        if (index != null) {
+            writeInt(out, flags, 4, index);
+        } else {
+            out.write(flags);
+            writeString(out, name);
+        }
+        writeString(out, value);
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int flags, int prefix, int value) {
+        int max = (1 << prefix) - 1;
+        if (value < max) {
+            out.write(flags | value);
+            return;
+        }
+        out.write(flags | max);
+        value -= max;
+        while (value >= 0x80) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+        writeInt(out, 0x00, 7, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 头部块解码器，维护对端编码器对应的动态表
+     */
+    static class Decoder {
+
+        private final int maxTableSize;
+
+        private String[][] entries = new String[16][];
+
+        private int head;
+
+        private int count;
+
+        private int size;
+
+        private int tableSize;
+
+        private byte[] buf;
+
+        private int pos;
+
+        private int end;
+
+        Decoder(int maxTableSize) {
+            this.maxTableSize = maxTableSize;
+            this.tableSize = maxTableSize;
+        }
+
+        /**
+         * 解码完整的头部块
+         *
+         * @param block
+         * @param offset
+         * @param length
+         * @return
+         * @throws IOException 头部块不合法，连接需要以COMPRESSION_ERROR关闭
+         */
+        List<Header> decode(byte[] block, int offset, int length) throws IOException {
+            this.buf = block;
+            this.pos = offset;
+            this.end = offset + length;
+            List<Header> headers = new ArrayList<Header>();
+            try {
+                while (pos < end) {
+                    int first = buf[pos] & 0xff;
+                    if ((first & 0x80) != 0) {
+                        String[] field = field(readInt(7));
+                        headers.add(new BasicHeader(field[0], field[1]));
+                    } else if ((first & 0x40) != 0) {
+                        int index = readInt(6);
+                        String name = index == 0 ? readString() : field(index)[0];
+                        String value = readString();
+                        add(name, value);
+                        headers.add(new BasicHeader(name, value));
+                    } else if ((first & 0x20) != 0) {
+                        int newSize = readInt(5);
+                        if (newSize > maxTableSize) {
+                            throw new IOException("HPACK table size " + newSize + " exceeds " + maxTableSize);
+                        }
+                        tableSize = newSize;
+                        evict(0);
+                    } else {
+                        int index = readInt(4);
+                        String name = index == 0 ? readString() : field(index)[0];
+                        headers.add(new BasicHeader(name, readString()));
+                    }
+                }
+            } finally {
+                this.buf = null;
+            }
+            return headers;
+        }
+
+        private String[] field(int index) throws IOException {
+            if (index <= 0) {
+                throw new IOException("HPACK index " + index + " is invalid");
+            }
+            if (index <= STATIC_TABLE.length) {
+                return STATIC_TABLE[index - 1];
+            }
+            int dynamic = index - STATIC_TABLE.length - 1;
+            if (dynamic >= count) {
+                throw new IOException("HPACK index " + index + " is out of range");
+            }
+            return entries[(head + dynamic) % entries.length];
+        }
+
+        private void add(String name, String value) {
+            int entrySize = 32 + name.length() + value.length();
+            if (entrySize > tableSize) {
+                // 超过表大小的条目使表清空
+                evict(tableSize);
+                return;
+            }
+            evict(entrySize);
+            if (count == entries.length) {
+                String[][] grown = new String[entries.length * 2][];
+                for (int i = 0; i < count; i++) {
+                    grown[i] = entries[(head + i) % entries.length];
+                }
+                entries = grown;
+                head = 0;
+            }
+            head = (head - 1 + entries.length) % entries.length;
+            entries[head] = new String[]{name, value};
+            count++;
+            size += entrySize;
+        }
+
+        /**
+         * 淘汰最早的条目，直到能放下needed字节
+         */
+        private void evict(int needed) {
+            while (count > 0 && size + needed > tableSize) {
+                int tail = (head + count - 1) % entries.length;
+                String[] field = entries[tail];
+                size -= 32 + field[0].length() + field[1].length();
+                entries[tail] = null;
+                count--;
+            }
+        }
+
+        private int readInt(int prefix) throws IOException {
+            int max = (1 << prefix) - 1;
+            int value = buf[pos++] & max;
+            if (value < max) {
+                return value;
+            }
+            int shift = 0;
+            int b;
+            do {
+                if (pos >= end || shift > 21) {
+                    throw new IOException("HPACK integer is truncated or too large");
+                }
+                b = buf[pos++] & 0xff;
+                value += (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        private String readString() throws IOException {
+            if (pos >= end) {
+                throw new IOException("HPACK string is truncated");
+            }
+            boolean huffman = (buf[pos] & 0x80) != 0;
+            int length = readInt(7);
+            if (length > end - pos) {
+                throw new IOException("HPACK string is truncated");
+            }
+            String value = huffman ? huffmanDecode(buf, pos, length)
+                    : new String(buf, pos, length, StandardCharsets.ISO_8859_1);
+            pos += length;
+            return value;
+        }
+    }
+
+    static String huffmanDecode(byte[] buf, int offset, int length) throws IOException {
+        StringBuilder out = new StringBuilder(length * 8 / 5);
+        int node = 0;
+        int depth = 0;
+        boolean ones = true;
+        for (int i = offset; i < offset + length; i++) {
+            int b = buf[i] & 0xff;
+            for (int bit = 7; bit >= 0; bit--) {
+                int v = (b >>> bit) & 1;
+                int next = HUFFMAN_TREE[2 * node + v];
+                if (next < 0) {
+                    int symbol = -next - 1;
+                    if (symbol == EOS) {
+                        throw new IOException("HPACK string contains EOS");
+                    }
+                    out.append((char) symbol);
+                    node = 0;
+                    depth = 0;
+                    ones = true;
+                } else if (next == 0) {
+                    throw new IOException("HPACK huffman code is invalid");
+                } else {
+                    node = next;
+                    depth++;
+                    ones &= v == 1;
+                }
+            }
+        }
+        // 末尾只允许不超过7位的EOS前缀作为填充
+        if (depth > 7 || !ones) {
+            throw new IOException("HPACK huffman padding is invalid");
+        }
+        return out.toString();
+    }
+}
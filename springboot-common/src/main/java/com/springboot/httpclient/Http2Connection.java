@@ -0,0 +1,1152 @@
+package com.springboot.httpclient;
+
+import org.apache.http.ConnectionClosedException;
+import org.apache.http.Header;
+import org.apache.http.concurrent.Cancellable;
+import org.apache.http.impl.execchain.RequestAbortedException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * HTTP/2连接（RFC 7540）
+ * <p>
+ * 一个连接上同时执行多个请求，每个请求占用一个流。请求在调用线程上写出，写帧时持有写锁；
+ * 后台读线程解析帧并分发给各个流。接收窗口在调用方读走数据后才补充，读得慢的流不会使缓冲无限增长。
+ * 连接建立时通过SETTINGS关闭服务端推送
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-05 10:30
+ **/
+class Http2Connection implements Closeable {
+
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private static final int DATA = 0x0;
+
+    private static final int HEADERS = 0x1;
+
+    private static final int PRIORITY = 0x2;
+
+    private static final int RST_STREAM = 0x3;
+
+    private static final int SETTINGS = 0x4;
+
+    private static final int PUSH_PROMISE = 0x5;
+
+    private static final int PING = 0x6;
+
+    private static final int GOAWAY = 0x7;
+
+    private static final int WINDOW_UPDATE = 0x8;
+
+    private static final int CONTINUATION = 0x9;
+
+    private static final int FLAG_END_STREAM = 0x1;
+
+    private static final int FLAG_ACK = 0x1;
+
+    private static final int FLAG_END_HEADERS = 0x4;
+
+    private static final int FLAG_PADDED = 0x8;
+
+    private static final int FLAG_PRIORITY = 0x20;
+
+    private static final int SETTINGS_ENABLE_PUSH = 0x2;
+
+    private static final int SETTINGS_MAX_CONCURRENT_STREAMS = 0x3;
+
+    private static final int SETTINGS_INITIAL_WINDOW_SIZE = 0x4;
+
+    private static final int SETTINGS_MAX_FRAME_SIZE = 0x5;
+
+    private static final int NO_ERROR = 0x0;
+
+    private static final int PROTOCOL_ERROR = 0x1;
+
+    private static final int FLOW_CONTROL_ERROR = 0x3;
+
+    private static final int FRAME_SIZE_ERROR = 0x6;
+
+    private static final int REFUSED_STREAM = 0x7;
+
+    private static final int CANCEL = 0x8;
+
+    private static final int COMPRESSION_ERROR = 0x9;
+
+    /**
+     * 协议规定的初始窗口和帧大小
+     */
+    private static final int DEFAULT_WINDOW_SIZE = 65535;
+
+    private static final int DEFAULT_MAX_FRAME_SIZE = 16384;
+
+    /**
+     * 单个头部块的上限，防止对端用CONTINUATION帧耗尽内存
+     */
+    private static final int MAX_HEADER_BLOCK = 1024 * 1024;
+
+    /**
+     * 流编号接近上限后不再接受新的流
+     */
+    private static final int MAX_STREAM_ID = Integer.MAX_VALUE - 2;
+
+    private static final AtomicInteger COUNT = new AtomicInteger();
+
+    /**
+     * 连接状态监听，由连接池实现
+     */
+    interface Listener {
+
+        /**
+         * 流结束或对端调整了并发流上限，可以尝试发起新的流
+         *
+         * @param connection
+         */
+        void released(Http2Connection connection);
+
+        /**
+         * 连接关闭或收到GOAWAY，不再接受新的流
+         *
+         * @param connection
+         */
+        void closed(Http2Connection connection);
+    }
+
+    private final Socket socket;
+
+    private final DataInputStream in;
+
+    private final OutputStream out;
+
+    private final Listener listener;
+
+    private final int maxConcurrentStreams;
+
+    private final int windowSize;
+
+    private final int connectionWindowSize;
+
+    private final Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+    private final ConcurrentMap<Integer, Stream> streams = new ConcurrentHashMap<Integer, Stream>();
+
+    private final Thread reader;
+
+    /**
+     * 写帧和分配流编号时持有，保证HEADERS帧按流编号递增的顺序写出
+     */
+    private final Object writeLock = new Object();
+
+    private final byte[] frameHeader = new byte[9];
+
+    private int nextStreamId = 1;
+
+    /**
+     * 以下字段由this保护：发送窗口、并发数和连接状态
+     */
+    private long sendWindow = DEFAULT_WINDOW_SIZE;
+
+    private int peerInitialWindowSize = DEFAULT_WINDOW_SIZE;
+
+    private int peerMaxConcurrentStreams = Integer.MAX_VALUE;
+
+    private int reserved;
+
+    private long idleSince = System.nanoTime();
+
+    private int unackedBytes;
+
+    private boolean goingAway;
+
+    private IOException failure;
+
+    private volatile int peerMaxFrameSize = DEFAULT_MAX_FRAME_SIZE;
+
+    /**
+     * 读线程私有：跨CONTINUATION帧累积的头部块
+     */
+    private ByteArrayOutputStream headerBlock;
+
+    private int headerStreamId;
+
+    private boolean headerEndStream;
+
+    private Http2Connection(Socket socket, String name, Http2Transport transport, Listener listener) throws IOException {
+        this.socket = socket;
+        this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), DEFAULT_MAX_FRAME_SIZE + 9));
+        this.out = new BufferedOutputStream(socket.getOutputStream(), DEFAULT_MAX_FRAME_SIZE + 9);
+        this.listener = listener;
+        this.maxConcurrentStreams = transport.getMaxConcurrentStreams();
+        this.windowSize = transport.getInitialWindowSize();
+        this.connectionWindowSize = transport.getConnectionWindowSize();
+        this.reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                read();
+            }
+        }, "http2-" + name + "-" + COUNT.incrementAndGet());
+        this.reader.setDaemon(true);
+    }
+
+    /**
+     * 在已建立的套接字上发送连接前言和本端设置，并启动读线程
+     *
+     * @param socket    已连接的套接字，TLS连接需已协商出h2
+     * @param name      路由名称，用于读线程命名
+     * @param transport
+     * @param listener
+     * @return
+     * @throws IOException
+     */
+    static Http2Connection open(Socket socket, String name, Http2Transport transport, Listener listener) throws IOException {
+        Http2Connection connection = new Http2Connection(socket, name, transport, listener);
+        connection.start();
+        return connection;
+    }
+
+    private void start() throws IOException {
+        synchronized (writeLock) {
+            out.write(PREFACE);
+            byte[] settings = new byte[12];
+            putSetting(settings, 0, SETTINGS_ENABLE_PUSH, 0);
+            putSetting(settings, 6, SETTINGS_INITIAL_WINDOW_SIZE, windowSize);
+            writeFrameHeader(settings.length, SETTINGS, 0, 0);
+            out.write(settings);
+            if (connectionWindowSize > DEFAULT_WINDOW_SIZE) {
+                writeFrameHeader(4, WINDOW_UPDATE, 0, 0);
+                out.write(intBytes(connectionWindowSize - DEFAULT_WINDOW_SIZE));
+            }
+            out.flush();
+        }
+        reader.start();
+    }
+
+    /**
+     * 占用一个并发流，成功后必须调用{@link #newStream}
+     *
+     * @return 连接不可用或并发流已满时返回false
+     */
+    synchronized boolean tryReserve() {
+        if (failure != null || goingAway || reserved >= Math.min(maxConcurrentStreams, peerMaxConcurrentStreams)) {
+            return false;
+        }
+        reserved++;
+        return true;
+    }
+
+    /**
+     * 连接是否还能发起新的流
+     *
+     * @return
+     */
+    synchronized boolean isUsable() {
+        return failure == null && !goingAway;
+    }
+
+    /**
+     * 没有执行中的流且空闲超过idleNanos
+     *
+     * @param idleNanos
+     * @return
+     */
+    synchronized boolean isIdle(long idleNanos) {
+        return reserved == 0 && System.nanoTime() - idleSince >= idleNanos;
+    }
+
+    private void unreserve() {
+        boolean close;
+        synchronized (this) {
+            reserved--;
+            if (reserved == 0) {
+                idleSince = System.nanoTime();
+            }
+            close = goingAway && reserved == 0;
+            // 唤醒因流结束而不再需要等待发送窗口的写线程
+            notifyAll();
+        }
+        listener.released(this);
+        if (close) {
+            close();
+        }
+    }
+
+    /**
+     * 发起新的流并写出请求头，需先通过{@link #tryReserve}占用并发数。
+     * 抛出异常时占用已释放
+     *
+     * @param headers   请求头，伪头部在前，名称为小写
+     * @param endStream 没有请求体
+     * @return
+     * @throws IOException
+     */
+    Stream newStream(List<Header> headers, boolean endStream) throws IOException {
+        ByteArrayOutputStream block = new ByteArrayOutputStream(256);
+        for (Header header : headers) {
+            Hpack.encode(block, header.getName(), header.getValue());
+        }
+        Stream stream;
+        synchronized (writeLock) {
+            boolean refused;
+            IOException closed;
+            synchronized (this) {
+                refused = goingAway;
+                closed = failure;
+                if (nextStreamId >= MAX_STREAM_ID) {
+                    goingAway = true;
+                }
+            }
+            if (closed != null || refused) {
+                unreserve();
+                if (closed != null) {
+                    throw new ConnectionClosedException("HTTP/2 connection is closed");
+                }
+                throw new RefusedStreamException("HTTP/2 connection is going away");
+            }
+            stream = new Stream(nextStreamId, endStream);
+            nextStreamId += 2;
+            synchronized (this) {
+                stream.sendWindow = peerInitialWindowSize;
+            }
+            streams.put(stream.id, stream);
+            byte[] bytes = block.toByteArray();
+            try {
+                int maxFrameSize = peerMaxFrameSize;
+                int length = Math.min(bytes.length, maxFrameSize);
+                int flags = (endStream ? FLAG_END_STREAM : 0) | (length == bytes.length ? FLAG_END_HEADERS : 0);
+                writeFrameHeader(length, HEADERS, flags, stream.id);
+                out.write(bytes, 0, length);
+                for (int offset = length; offset < bytes.length; offset += length) {
+                    length = Math.min(bytes.length - offset, maxFrameSize);
+                    writeFrameHeader(length, CONTINUATION, offset + length == bytes.length ? FLAG_END_HEADERS : 0, stream.id);
+                    out.write(bytes, offset, length);
+                }
+                out.flush();
+            } catch (IOException e) {
+                shutdown(e);
+                throw e;
+            }
+        }
+        return stream;
+    }
+
+    /**
+     * 写出请求体，受连接和流的发送窗口限制
+     */
+    private void writeData(Stream stream, byte[] buf, int offset, int length, boolean endStream, int timeout)
+            throws IOException {
+        do {
+            int n = acquireSendWindow(stream, length, timeout);
+            if (n < 0) {
+                // 对端已完整响应并结束了流，剩余请求体不再发送
+                return;
+            }
+            boolean last = endStream && n == length;
+            writeFrame(DATA, last ? FLAG_END_STREAM : 0, stream.id, buf, offset, n);
+            offset += n;
+            length -= n;
+        } while (length > 0);
+    }
+
+    private synchronized int acquireSendWindow(Stream stream, int length, int timeout) throws IOException {
+        long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+        while (true) {
+            stream.checkWritable();
+            if (stream.localClosed) {
+                return -1;
+            }
+            if (failure != null) {
+                throw new ConnectionClosedException("HTTP/2 connection is closed");
+            }
+            if (length == 0) {
+                return 0;
+            }
+            long window = Math.min(sendWindow, stream.sendWindow);
+            if (window > 0) {
+                int n = (int) Math.min(Math.min(window, length), peerMaxFrameSize);
+                sendWindow -= n;
+                stream.sendWindow -= n;
+                return n;
+            }
+            long wait = 0;
+            if (deadline != 0) {
+                wait = deadline - System.nanoTime();
+                if (wait <= 0) {
+                    throw new SocketTimeoutException("Timeout waiting for HTTP/2 flow control window");
+                }
+            }
+            try {
+                wait(wait == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for HTTP/2 flow control window");
+            }
+        }
+    }
+
+    /**
+     * 调用方读走了数据，累积到窗口一半时补充连接接收窗口
+     */
+    private void consumed(int n) {
+        int increment = 0;
+        synchronized (this) {
+            unackedBytes += n;
+            if (unackedBytes >= connectionWindowSize / 2) {
+                increment = unackedBytes;
+                unackedBytes = 0;
+            }
+        }
+        if (increment > 0) {
+            writeWindowUpdate(0, increment);
+        }
+    }
+
+    private void writeWindowUpdate(int streamId, int increment) {
+        try {
+            writeFrame(WINDOW_UPDATE, 0, streamId, intBytes(increment), 0, 4);
+        } catch (IOException ignored) {
+            // 连接已关闭，各个流会收到失败
+        }
+    }
+
+    private void writeReset(int streamId, int errorCode) {
+        try {
+            writeFrame(RST_STREAM, 0, streamId, intBytes(errorCode), 0, 4);
+        } catch (IOException ignored) {
+        }
+    }
+
+    private void writeFrame(int type, int flags, int streamId, byte[] payload, int offset, int length) throws IOException {
+        synchronized (writeLock) {
+            synchronized (this) {
+                if (failure != null) {
+                    throw new ConnectionClosedException("HTTP/2 connection is closed");
+                }
+            }
+            try {
+                writeFrameHeader(length, type, flags, streamId);
+                out.write(payload, offset, length);
+                out.flush();
+            } catch (IOException e) {
+                shutdown(e);
+                throw e;
+            }
+        }
+    }
+
+    private void writeFrameHeader(int length, int type, int flags, int streamId) throws IOException {
+        frameHeader[0] = (byte) (length >>> 16);
+        frameHeader[1] = (byte) (length >>> 8);
+        frameHeader[2] = (byte) length;
+        frameHeader[3] = (byte) type;
+        frameHeader[4] = (byte) flags;
+        frameHeader[5] = (byte) (streamId >>> 24);
+        frameHeader[6] = (byte) (streamId >>> 16);
+        frameHeader[7] = (byte) (streamId >>> 8);
+        frameHeader[8] = (byte) streamId;
+        out.write(frameHeader);
+    }
+
+    /**
+     * 读线程主循环
+     */
+    private void read() {
+        IOException cause;
+        try {
+            while (true) {
+                readFrame();
+            }
+        } catch (Http2Exception e) {
+            try {
+                byte[] payload = new byte[8];
+                System.arraycopy(intBytes(0), 0, payload, 0, 4);
+                System.arraycopy(intBytes(e.errorCode), 0, payload, 4, 4);
+                writeFrame(GOAWAY, 0, 0, payload, 0, payload.length);
+            } catch (IOException ignored) {
+            }
+            cause = e;
+        } catch (IOException e) {
+            cause = e;
+        } catch (RuntimeException e) {
+            cause = new IOException(e);
+        }
+        shutdown(cause);
+    }
+
+    private void readFrame() throws IOException {
+        int length = in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+        int type = in.readUnsignedByte();
+        int flags = in.readUnsignedByte();
+        int streamId = in.readInt() & 0x7fffffff;
+        // 本端未调大SETTINGS_MAX_FRAME_SIZE
+        if (length > DEFAULT_MAX_FRAME_SIZE) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "frame of " + length + " bytes exceeds max frame size");
+        }
+        byte[] payload = length == 0 ? EMPTY : new byte[length];
+        in.readFully(payload);
+        if (headerBlock != null && type != CONTINUATION) {
+            throw new Http2Exception(PROTOCOL_ERROR, "expected CONTINUATION frame");
+        }
+        switch (type) {
+            case DATA:
+                onData(flags, streamId, payload);
+                break;
+            case HEADERS:
+                onHeaders(flags, streamId, payload);
+                break;
+            case PRIORITY:
+                break;
+            case RST_STREAM:
+                if (length != 4) {
+                    throw new Http2Exception(FRAME_SIZE_ERROR, "RST_STREAM frame must be 4 bytes");
+                }
+                Stream reset = streams.get(streamId);
+                if (reset != null) {
+                    reset.remoteReset(readInt(payload, 0));
+                }
+                break;
+            case SETTINGS:
+                onSettings(flags, streamId, payload);
+                break;
+            case PUSH_PROMISE:
+                throw new Http2Exception(PROTOCOL_ERROR, "server push is disabled");
+            case PING:
+                if (length != 8) {
+                    throw new Http2Exception(FRAME_SIZE_ERROR, "PING frame must be 8 bytes");
+                }
+                if ((flags & FLAG_ACK) == 0) {
+                    writeFrame(PING, FLAG_ACK, 0, payload, 0, 8);
+                }
+                break;
+            case GOAWAY:
+                if (length < 8) {
+                    throw new Http2Exception(FRAME_SIZE_ERROR, "GOAWAY frame is too short");
+                }
+                onGoAway(readInt(payload, 0) & 0x7fffffff);
+                break;
+            case WINDOW_UPDATE:
+                if (length != 4) {
+                    throw new Http2Exception(FRAME_SIZE_ERROR, "WINDOW_UPDATE frame must be 4 bytes");
+                }
+                onWindowUpdate(streamId, readInt(payload, 0) & 0x7fffffff);
+                break;
+            case CONTINUATION:
+                if (headerBlock == null || streamId != headerStreamId) {
+                    throw new Http2Exception(PROTOCOL_ERROR, "unexpected CONTINUATION frame");
+                }
+                headerBlock.write(payload, 0, length);
+                if (headerBlock.size() > MAX_HEADER_BLOCK) {
+                    throw new Http2Exception(PROTOCOL_ERROR, "header block is too large");
+                }
+                if ((flags & FLAG_END_HEADERS) != 0) {
+                    byte[] block = headerBlock.toByteArray();
+                    headerBlock = null;
+                    onHeaderBlock(headerStreamId, block, 0, block.length, headerEndStream);
+                }
+                break;
+            default:
+                // 忽略未知类型的帧
+                break;
+        }
+    }
+
+    private void onData(int flags, int streamId, byte[] payload) throws IOException {
+        if (streamId == 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "DATA frame on stream 0");
+        }
+        int offset = 0;
+        int padding = 0;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (payload.length == 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "DATA frame padding is invalid");
+            }
+            padding = payload[0] & 0xff;
+            offset = 1;
+        }
+        int length = payload.length - offset - padding;
+        if (length < 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "DATA frame padding is invalid");
+        }
+        byte[] data = offset == 0 && length == payload.length ? payload : Arrays.copyOfRange(payload, offset, offset + length);
+        Stream stream = streams.get(streamId);
+        // 填充和被丢弃的数据不会被调用方读取，立即归还连接窗口
+        int discarded = payload.length - length;
+        if (stream == null || !stream.receiveData(data, discarded, (flags & FLAG_END_STREAM) != 0)) {
+            discarded = payload.length;
+        }
+        if (discarded > 0) {
+            consumed(discarded);
+        }
+    }
+
+    private void onHeaders(int flags, int streamId, byte[] payload) throws IOException {
+        if (streamId == 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "HEADERS frame on stream 0");
+        }
+        int offset = 0;
+        int padding = 0;
+        if ((flags & FLAG_PADDED) != 0) {
+            if (payload.length == 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "HEADERS frame padding is invalid");
+            }
+            padding = payload[0] & 0xff;
+            offset = 1;
+        }
+        if ((flags & FLAG_PRIORITY) != 0) {
+            offset += 5;
+        }
+        int length = payload.length - offset - padding;
+        if (length < 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "HEADERS frame padding is invalid");
+        }
+        boolean endStream = (flags & FLAG_END_STREAM) != 0;
+        if ((flags & FLAG_END_HEADERS) != 0) {
+            onHeaderBlock(streamId, payload, offset, length, endStream);
+        } else {
+            headerBlock = new ByteArrayOutputStream(Math.max(length * 2, 256));
+            headerBlock.write(payload, offset, length);
+            headerStreamId = streamId;
+            headerEndStream = endStream;
+        }
+    }
+
+    private void onHeaderBlock(int streamId, byte[] block, int offset, int length, boolean endStream) throws IOException {
+        List<Header> headers;
+        try {
+            // 已结束的流的头部块也要解码，保持动态表与对端一致
+            headers = decoder.decode(block, offset, length);
+        } catch (IOException e) {
+            throw new Http2Exception(COMPRESSION_ERROR, e.getMessage());
+        }
+        Stream stream = streams.get(streamId);
+        if (stream != null) {
+            stream.receiveHeaders(headers, endStream);
+        }
+    }
+
+    private void onSettings(int flags, int streamId, byte[] payload) throws IOException {
+        if (streamId != 0) {
+            throw new Http2Exception(PROTOCOL_ERROR, "SETTINGS frame on stream " + streamId);
+        }
+        if ((flags & FLAG_ACK) != 0) {
+            return;
+        }
+        if (payload.length % 6 != 0) {
+            throw new Http2Exception(FRAME_SIZE_ERROR, "SETTINGS frame length is invalid");
+        }
+        for (int i = 0; i < payload.length; i += 6) {
+            int id = (payload[i] & 0xff) << 8 | (payload[i + 1] & 0xff);
+            int value = readInt(payload, i + 2);
+            switch (id) {
+                case SETTINGS_MAX_CONCURRENT_STREAMS:
+                    synchronized (this) {
+                        peerMaxConcurrentStreams = value < 0 ? Integer.MAX_VALUE : value;
+                    }
+                    break;
+                case SETTINGS_INITIAL_WINDOW_SIZE:
+                    if (value < 0) {
+                        throw new Http2Exception(FLOW_CONTROL_ERROR, "initial window size is too large");
+                    }
+                    synchronized (this) {
+                        int delta = value - peerInitialWindowSize;
+                        peerInitialWindowSize = value;
+                        for (Stream stream : streams.values()) {
+                            stream.sendWindow += delta;
+                        }
+                        notifyAll();
+                    }
+                    break;
+                case SETTINGS_MAX_FRAME_SIZE:
+                    if (value < DEFAULT_MAX_FRAME_SIZE || value > 0xffffff) {
+                        throw new Http2Exception(PROTOCOL_ERROR, "max frame size " + value + " is invalid");
+                    }
+                    peerMaxFrameSize = value;
+                    break;
+                default:
+                    // 编码不使用动态表，不受SETTINGS_HEADER_TABLE_SIZE影响
+                    break;
+            }
+        }
+        writeFrame(SETTINGS, FLAG_ACK, 0, EMPTY, 0, 0);
+        listener.released(this);
+    }
+
+    private void onGoAway(int lastStreamId) {
+        boolean close;
+        synchronized (this) {
+            goingAway = true;
+            close = reserved == 0;
+        }
+        // 编号大于lastStreamId的流未被处理，可以在其他连接上重新发送
+        for (Stream stream : streams.values()) {
+            if (stream.id > lastStreamId) {
+                stream.fail(new RefusedStreamException("HTTP/2 stream " + stream.id + " refused by GOAWAY"));
+            }
+        }
+        listener.closed(this);
+        if (close) {
+            close();
+        }
+    }
+
+    private void onWindowUpdate(int streamId, int increment) throws IOException {
+        if (increment == 0) {
+            if (streamId == 0) {
+                throw new Http2Exception(PROTOCOL_ERROR, "WINDOW_UPDATE increment is 0");
+            }
+            return;
+        }
+        synchronized (this) {
+            if (streamId == 0) {
+                sendWindow += increment;
+            } else {
+                Stream stream = streams.get(streamId);
+                if (stream != null) {
+                    stream.sendWindow += increment;
+                }
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * 连接失败，关闭套接字并使所有流失败
+     */
+    private void shutdown(IOException cause) {
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+            failure = cause;
+            notifyAll();
+        }
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+        for (Stream stream : streams.values()) {
+            stream.fail(cause);
+        }
+        listener.closed(this);
+    }
+
+    /**
+     * 发送GOAWAY后关闭连接，执行中的流失败
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (failure != null) {
+                return;
+            }
+        }
+        try {
+            writeFrame(GOAWAY, 0, 0, new byte[8], 0, 8);
+        } catch (IOException ignored) {
+        }
+        shutdown(new ConnectionClosedException("HTTP/2 connection is closed"));
+    }
+
+    private static void putSetting(byte[] buf, int offset, int id, int value) {
+        buf[offset] = (byte) (id >>> 8);
+        buf[offset + 1] = (byte) id;
+        System.arraycopy(intBytes(value), 0, buf, offset + 2, 4);
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    private static int readInt(byte[] buf, int offset) {
+        return (buf[offset] & 0xff) << 24 | (buf[offset + 1] & 0xff) << 16 | (buf[offset + 2] & 0xff) << 8 | (buf[offset + 3] & 0xff);
+    }
+
+    /**
+     * 一个请求对应的流
+     * <p>
+     * 响应头和响应体由读线程放入，调用方线程取出。对端结束且数据读完、本端请求发送完时流结束，释放并发数
+     */
+    class Stream implements Cancellable {
+
+        private final int id;
+
+        /**
+         * 发送窗口，由连接的this保护
+         */
+        private long sendWindow;
+
+        private final ArrayDeque<byte[]> chunks = new ArrayDeque<byte[]>();
+
+        private int chunkOffset;
+
+        private int buffered;
+
+        private int unackedBytes;
+
+        private List<Header> headers;
+
+        private boolean remoteClosed;
+
+        private boolean released;
+
+        private volatile boolean localClosed;
+
+        private volatile IOException failure;
+
+        Stream(int id, boolean localClosed) {
+            this.id = id;
+            this.localClosed = localClosed;
+        }
+
+        /**
+         * 等待响应头，跳过1xx响应
+         *
+         * @param timeout 毫秒，0表示不超时
+         * @return
+         * @throws IOException
+         */
+        synchronized List<Header> awaitHeaders(int timeout) throws IOException {
+            long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+            while (headers == null) {
+                if (failure != null) {
+                    throw failure;
+                }
+                await(deadline);
+            }
+            return headers;
+        }
+
+        /**
+         * 请求体输出流，关闭时结束流
+         *
+         * @param timeout 等待发送窗口的超时时间（毫秒）
+         * @return
+         */
+        OutputStream newOutputStream(final int timeout) {
+            return new OutputStream() {
+
+                private final byte[] buf = new byte[DEFAULT_MAX_FRAME_SIZE];
+
+                private int count;
+
+                private boolean closed;
+
+                @Override
+                public void write(int b) throws IOException {
+                    if (count == buf.length) {
+                        flushBuffer(false);
+                    }
+                    buf[count++] = (byte) b;
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    if (len >= buf.length) {
+                        flushBuffer(false);
+                        writeData(Stream.this, b, off, len, false, timeout);
+                        return;
+                    }
+                    if (len > buf.length - count) {
+                        flushBuffer(false);
+                    }
+                    System.arraycopy(b, off, buf, count, len);
+                    count += len;
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    flushBuffer(false);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    if (!closed) {
+                        closed = true;
+                        flushBuffer(true);
+                        localClosed = true;
+                        checkRelease();
+                    }
+                }
+
+                private void flushBuffer(boolean endStream) throws IOException {
+                    if (count > 0 || endStream) {
+                        writeData(Stream.this, buf, 0, count, endStream, timeout);
+                        count = 0;
+                    }
+                }
+            };
+        }
+
+        /**
+         * 响应体输入流，未读完就关闭时重置流
+         *
+         * @param timeout 等待数据的超时时间（毫秒）
+         * @return
+         */
+        InputStream newInputStream(final int timeout) {
+            return new InputStream() {
+
+                @Override
+                public int read() throws IOException {
+                    byte[] b = new byte[1];
+                    int n = Stream.this.read(b, 0, 1, timeout);
+                    return n == -1 ? -1 : b[0] & 0xff;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return Stream.this.read(b, off, len, timeout);
+                }
+
+                @Override
+                public int available() {
+                    synchronized (Stream.this) {
+                        return buffered;
+                    }
+                }
+
+                @Override
+                public void close() {
+                    Stream.this.close();
+                }
+            };
+        }
+
+        private int read(byte[] b, int off, int len, int timeout) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            int n;
+            int increment = 0;
+            boolean drained;
+            synchronized (this) {
+                long deadline = timeout > 0 ? System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+                while (chunks.isEmpty()) {
+                    if (failure != null) {
+                        throw failure;
+                    }
+                    if (remoteClosed) {
+                        return -1;
+                    }
+                    await(deadline);
+                }
+                byte[] chunk = chunks.peek();
+                n = Math.min(len, chunk.length - chunkOffset);
+                System.arraycopy(chunk, chunkOffset, b, off, n);
+                chunkOffset += n;
+                if (chunkOffset == chunk.length) {
+                    chunks.poll();
+                    chunkOffset = 0;
+                }
+                buffered -= n;
+                unackedBytes += n;
+                if (!remoteClosed && unackedBytes >= windowSize / 2) {
+                    increment = unackedBytes;
+                    unackedBytes = 0;
+                }
+                drained = remoteClosed && chunks.isEmpty();
+            }
+            consumed(n);
+            if (increment > 0) {
+                writeWindowUpdate(id, increment);
+            }
+            if (drained) {
+                checkRelease();
+            }
+            return n;
+        }
+
+        private void await(long deadline) throws IOException {
+            long wait = 0;
+            if (deadline != 0) {
+                wait = deadline - System.nanoTime();
+                if (wait <= 0) {
+                    throw new SocketTimeoutException("Read timed out");
+                }
+            }
+            try {
+                wait(wait == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while waiting for HTTP/2 response");
+            }
+        }
+
+        private void receiveHeaders(List<Header> block, boolean endStream) {
+            synchronized (this) {
+                if (headers == null) {
+                    if (isInformational(block) && !endStream) {
+                        return;
+                    }
+                    headers = block;
+                }
+                // 之后的头部块是trailers，不处理
+                if (endStream) {
+                    remoteClosed = true;
+                }
+                notifyAll();
+            }
+            if (endStream) {
+                checkRelease();
+            }
+        }
+
+        /**
+         * @return 流已结束时返回false，数据被丢弃
+         */
+        private boolean receiveData(byte[] data, int padding, boolean endStream) {
+            synchronized (this) {
+                if (released || remoteClosed) {
+                    return false;
+                }
+                if (data.length > 0) {
+                    chunks.add(data);
+                    buffered += data.length;
+                }
+                unackedBytes += padding;
+                if (endStream) {
+                    remoteClosed = true;
+                }
+                notifyAll();
+            }
+            if (endStream) {
+                checkRelease();
+            }
+            return true;
+        }
+
+        private void remoteReset(int errorCode) {
+            if (errorCode == NO_ERROR) {
+                synchronized (this) {
+                    if (remoteClosed) {
+                        // 对端已完整响应，只是不再接收剩余的请求体
+                        localClosed = true;
+                    }
+                }
+                if (localClosed) {
+                    checkRelease();
+                    return;
+                }
+            }
+            terminate(errorCode == REFUSED_STREAM
+                    ? new RefusedStreamException("HTTP/2 stream " + id + " refused")
+                    : new IOException("HTTP/2 stream " + id + " reset by peer, error code " + errorCode), -1);
+        }
+
+        void fail(IOException cause) {
+            terminate(cause, -1);
+        }
+
+        /**
+         * 调用方中止请求
+         */
+        @Override
+        public boolean cancel() {
+            terminate(new RequestAbortedException("Request aborted"), CANCEL);
+            return true;
+        }
+
+        /**
+         * 响应未读完时关闭，重置流而不影响连接上的其他流
+         */
+        void close() {
+            terminate(new ConnectionClosedException("HTTP/2 stream is closed"), CANCEL);
+        }
+
+        private void terminate(IOException cause, int errorCode) {
+            int unread;
+            boolean reset;
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+                failure = cause;
+                reset = errorCode >= 0 && !(remoteClosed && localClosed);
+                unread = buffered;
+                chunks.clear();
+                buffered = 0;
+                localClosed = true;
+                notifyAll();
+            }
+            if (reset) {
+                writeReset(id, errorCode);
+            }
+            if (unread > 0) {
+                consumed(unread);
+            }
+            streams.remove(id, this);
+            unreserve();
+        }
+
+        private void checkRelease() {
+            synchronized (this) {
+                if (released || !remoteClosed || !localClosed || !chunks.isEmpty()) {
+                    return;
+                }
+                released = true;
+            }
+            streams.remove(id, this);
+            unreserve();
+        }
+
+        private void checkWritable() throws IOException {
+            IOException cause = failure;
+            if (cause != null) {
+                throw cause;
+            }
+        }
+
+        private boolean isInformational(List<Header> block) {
+            for (Header header : block) {
+                if (":status".equals(header.getName())) {
+                    return header.getValue().length() == 3 && header.getValue().charAt(0) == '1';
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 流未被服务端处理，可以安全地重新发送
+     */
+    static class RefusedStreamException extends IOException {
+
+        RefusedStreamException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 连接级协议错误，发送GOAWAY后关闭连接
+     */
+    private static class Http2Exception extends IOException {
+
+        private final int errorCode;
+
+        Http2Exception(int errorCode, String message) {
+            super("HTTP/2 protocol error: " + message);
+            this.errorCode = errorCode;
+        }
+    }
+}
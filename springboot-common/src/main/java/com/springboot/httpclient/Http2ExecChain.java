@@ -0,0 +1,514 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.ProtocolException;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.entity.BasicHttpEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpCoreContext;
+
+import javax.net.ssl.SSLParameters;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HTTP/2执行链
+ * <p>
+ * 替代连接池执行链位于协议执行链之内，请求头已由协议拦截器补全。每个路由维护少量连接，
+ * 请求占用连接上的一个流，响应体读完或关闭后释放。经过代理或未协商出h2的路由交给HTTP/1.1执行链
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-05 14:00
+ **/
+class Http2ExecChain implements ClientExecChain, Closeable {
+
+    private static final ProtocolVersion HTTP_2 = new ProtocolVersion("HTTP", 2, 0);
+
+    /**
+     * 被拒绝的流最多重新发送的次数
+     */
+    private static final int MAX_REFUSED_RETRIES = 3;
+
+    /**
+     * HTTP/2禁止的连接相关请求头，Host改为:authority发送
+     */
+    private static final Set<String> CONNECTION_HEADERS = new HashSet<String>(Arrays.asList(
+            "connection", "keep-alive", "proxy-connection", "transfer-encoding", "upgrade", "host", "expect"));
+
+    private static final Method SET_APPLICATION_PROTOCOLS;
+
+    private static final Method GET_APPLICATION_PROTOCOL;
+
+    static {
+        Method set = null;
+        Method get = null;
+        try {
+            // JDK 9+及8u252+提供ALPN接口
+            set = SSLParameters.class.getMethod("setApplicationProtocols", String[].class);
+            get = SSLSocket.class.getMethod("getApplicationProtocol");
+        } catch (NoSuchMethodException ignored) {
+        }
+        SET_APPLICATION_PROTOCOLS = set;
+        GET_APPLICATION_PROTOCOL = get;
+    }
+
+    private final ClientExecChain classic;
+
+    private final Http2Transport transport;
+
+    private final HttpClientMetrics metrics;
+
+    private final long idleNanos;
+
+    private final ConcurrentMap<HttpRoute, RoutePool> pools = new ConcurrentHashMap<HttpRoute, RoutePool>();
+
+    private final SslPolicy sslPolicy;
+
+    private final DnsResolver dnsResolver;
+
+    private volatile SSLSocketFactory sslSocketFactory;
+
+    private volatile boolean closed;
+
+    Http2ExecChain(ClientExecChain classic, Http2Transport transport, HttpClientConfig config, HttpClientMetrics metrics) {
+        this.classic = classic;
+        this.transport = transport;
+        this.metrics = metrics;
+        this.idleNanos = config.getIdleTimeout() > 0 ? TimeUnit.SECONDS.toNanos(config.getIdleTimeout()) : 0;
+        this.sslPolicy = config.getSslPolicy();
+        this.dnsResolver = HttpClientConfigHandler.dnsResolver(config);
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                         HttpExecutionAware execAware) throws IOException, HttpException {
+        if (route.getProxyHost() != null || (route.isSecure() && GET_APPLICATION_PROTOCOL == null)) {
+            return classic.execute(route, request, context, execAware);
+        }
+        RoutePool pool = pools.get(route);
+        if (pool == null) {
+            pool = new RoutePool(route);
+            RoutePool previous = pools.putIfAbsent(route, pool);
+            if (previous != null) {
+                pool = previous;
+            }
+        }
+        HttpEntity entity = request instanceof HttpEntityEnclosingRequest ? ((HttpEntityEnclosingRequest) request).getEntity() : null;
+        RequestConfig config = context.getRequestConfig();
+        for (int attempt = 0; ; attempt++) {
+            if (execAware != null && execAware.isAborted()) {
+                throw new RequestAbortedException("Request aborted");
+            }
+            Http2Connection connection = pool.acquire(config);
+            if (connection == null) {
+                return classic.execute(route, request, context, execAware);
+            }
+            try {
+                return exchange(connection, route, request, entity, context, execAware, config.getSocketTimeout());
+            } catch (Http2Connection.RefusedStreamException e) {
+                // 服务端没有处理被拒绝的流，请求体可重复时换一个流重新发送
+                if (attempt >= MAX_REFUSED_RETRIES || (entity != null && !entity.isRepeatable())) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private CloseableHttpResponse exchange(Http2Connection connection, HttpRoute route, HttpRequestWrapper request,
+                                           HttpEntity entity, HttpClientContext context, HttpExecutionAware execAware,
+                                           int socketTimeout) throws IOException, HttpException {
+        Http2Connection.Stream stream = connection.newStream(requestHeaders(route, request), entity == null);
+        boolean success = false;
+        try {
+            if (execAware != null) {
+                execAware.setCancellable(stream);
+            }
+            if (entity != null) {
+                OutputStream out = stream.newOutputStream(socketTimeout);
+                entity.writeTo(out);
+                out.close();
+            }
+            context.setAttribute(HttpCoreContext.HTTP_REQ_SENT, Boolean.TRUE);
+            CloseableHttpResponse response = toResponse(stream, request, stream.awaitHeaders(socketTimeout), socketTimeout);
+            success = true;
+            return response;
+        } finally {
+            if (!success) {
+                stream.cancel();
+            }
+        }
+    }
+
+    private static List<Header> requestHeaders(HttpRoute route, HttpRequestWrapper request) {
+        HttpHost target = route.getTargetHost();
+        Header host = request.getFirstHeader(HTTP.TARGET_HOST);
+        List<Header> headers = new ArrayList<Header>();
+        headers.add(new BasicHeader(":method", request.getRequestLine().getMethod()));
+        headers.add(new BasicHeader(":scheme", route.isSecure() ? "https" : "http"));
+        headers.add(new BasicHeader(":authority", host != null ? host.getValue() : target.toHostString()));
+        headers.add(new BasicHeader(":path", pathOf(request)));
+        for (Header header : request.getAllHeaders()) {
+            String name = header.getName().toLowerCase(Locale.ROOT);
+            if (CONNECTION_HEADERS.contains(name)
+                    || ("te".equals(name) && !"trailers".equalsIgnoreCase(header.getValue().trim()))) {
+                continue;
+            }
+            headers.add(new BasicHeader(name, header.getValue()));
+        }
+        return headers;
+    }
+
+    private static String pathOf(HttpRequestWrapper request) {
+        URI uri = request.getURI();
+        String path = uri.getRawPath();
+        if (path == null || path.isEmpty()) {
+            path = "/";
+        }
+        return uri.getRawQuery() == null ? path : path + '?' + uri.getRawQuery();
+    }
+
+    private static CloseableHttpResponse toResponse(Http2Connection.Stream stream, HttpRequestWrapper request,
+                                                    List<Header> headers, int socketTimeout) throws ProtocolException {
+        int status = -1;
+        for (Header header : headers) {
+            if (":status".equals(header.getName())) {
+                try {
+                    status = Integer.parseInt(header.getValue());
+                } catch (NumberFormatException ignored) {
+                }
+                break;
+            }
+        }
+        if (status < 100 || status > 999) {
+            throw new ProtocolException("Invalid HTTP/2 response status");
+        }
+        Http2Response response = new Http2Response(status, stream);
+        for (Header header : headers) {
+            if (!header.getName().startsWith(":")) {
+                response.addHeader(header);
+            }
+        }
+        if (!hasBody(request.getRequestLine().getMethod(), status)) {
+            stream.close();
+            return response;
+        }
+        BasicHttpEntity entity = new BasicHttpEntity();
+        entity.setContent(stream.newInputStream(socketTimeout));
+        entity.setContentLength(-1);
+        Header length = response.getFirstHeader(HTTP.CONTENT_LEN);
+        if (length != null) {
+            try {
+                entity.setContentLength(Long.parseLong(length.getValue()));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        entity.setContentType(response.getFirstHeader(HTTP.CONTENT_TYPE));
+        entity.setContentEncoding(response.getFirstHeader(HTTP.CONTENT_ENCODING));
+        response.setEntity(entity);
+        return response;
+    }
+
+    private static boolean hasBody(String method, int status) {
+        return !"HEAD".equals(method) && status >= 200 && status != 204 && status != 304;
+    }
+
+    private Http2Connection connect(HttpRoute route, String name, int connectTimeout, Http2Connection.Listener listener)
+            throws IOException {
+        HttpHost target = route.getTargetHost();
+        int port = target.getPort() > 0 ? target.getPort() : (route.isSecure() ? 443 : 80);
+        InetAddress[] addresses = target.getAddress() != null
+                ? new InetAddress[]{target.getAddress()}
+                : dnsResolver.resolve(target.getHostName());
+        Socket socket = null;
+        try {
+            // 与连接池一致，依次尝试解析出的地址
+            for (int i = 0; socket == null; i++) {
+                Socket attempt = new Socket();
+                try {
+                    attempt.setTcpNoDelay(true);
+                    attempt.connect(new InetSocketAddress(addresses[i], port), Math.max(connectTimeout, 0));
+                    socket = attempt;
+                } catch (IOException e) {
+                    closeQuietly(attempt);
+                    if (i == addresses.length - 1) {
+                        throw e;
+                    }
+                }
+            }
+            if (route.isSecure()) {
+                SSLSocket ssl = (SSLSocket) sslSocketFactory().createSocket(socket, target.getHostName(), port, true);
+                socket = ssl;
+                if (sslPolicy.getProtocols() != null) {
+                    ssl.setEnabledProtocols(sslPolicy.getProtocols());
+                }
+                if (!negotiate(ssl, target.getHostName(), connectTimeout)) {
+                    ssl.close();
+                    return null;
+                }
+            }
+            return Http2Connection.open(socket, name, transport, listener);
+        } catch (IOException e) {
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * TLS握手并通过ALPN协商协议
+     *
+     * @return 服务端选择了h2
+     */
+    private static boolean negotiate(SSLSocket socket, String host, int timeout) throws IOException {
+        SSLParameters parameters = socket.getSSLParameters();
+        try {
+            SET_APPLICATION_PROTOCOLS.invoke(parameters, (Object) new String[]{"h2", "http/1.1"});
+        } catch (IllegalAccessException e) {
+            return false;
+        } catch (InvocationTargetException e) {
+            return false;
+        }
+        socket.setSSLParameters(parameters);
+        socket.setSoTimeout(Math.max(timeout, 0));
+        socket.startHandshake();
+        socket.setSoTimeout(0);
+        if (!SSLConnectionSocketFactory.getDefaultHostnameVerifier().verify(host, socket.getSession())) {
+            throw new SSLPeerUnverifiedException("Certificate for <" + host + "> doesn't match any of the subject alternative names");
+        }
+        try {
+            return "h2".equals(GET_APPLICATION_PROTOCOL.invoke(socket));
+        } catch (IllegalAccessException e) {
+            return false;
+        } catch (InvocationTargetException e) {
+            return false;
+        }
+    }
+
+    private SSLSocketFactory sslSocketFactory() throws IOException {
+        SSLSocketFactory factory = sslSocketFactory;
+        if (factory == null) {
+            try {
+                factory = HttpClientConfigHandler.sslContext(sslPolicy).getSocketFactory();
+            } catch (Exception e) {
+                throw new IOException("failed to create SSL context", e);
+            }
+            sslSocketFactory = factory;
+        }
+        return factory;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    /**
+     * 关闭全部连接
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (RoutePool pool : pools.values()) {
+            pool.close();
+        }
+    }
+
+    /**
+     * 单个路由的连接，按并发流分配
+     */
+    private class RoutePool implements Http2Connection.Listener {
+
+        private final HttpRoute route;
+
+        private final String name;
+
+        private final List<Http2Connection> connections = new ArrayList<Http2Connection>();
+
+        private int connecting;
+
+        /**
+         * TLS协商未选择h2，之后该路由都使用HTTP/1.1
+         */
+        private volatile boolean http1;
+
+        RoutePool(HttpRoute route) {
+            this.route = route;
+            this.name = route.getTargetHost().toHostString();
+        }
+
+        /**
+         * 获取有空闲并发流的连接，全部占满且未达到连接数上限时建立新连接
+         *
+         * @param config
+         * @return 该路由需要使用HTTP/1.1时返回null
+         * @throws IOException
+         */
+        Http2Connection acquire(RequestConfig config) throws IOException {
+            long start = System.nanoTime();
+            long timeout = config.getConnectionRequestTimeout();
+            long deadline = timeout > 0 ? start + TimeUnit.MILLISECONDS.toNanos(timeout) : 0;
+            List<Http2Connection> idle = new ArrayList<Http2Connection>();
+            Http2Connection found = null;
+            try {
+                synchronized (this) {
+                    while (true) {
+                        if (closed) {
+                            throw new IllegalStateException("Connection pool shut down");
+                        }
+                        if (http1) {
+                            return null;
+                        }
+                        for (Iterator<Http2Connection> it = connections.iterator(); it.hasNext(); ) {
+                            Http2Connection connection = it.next();
+                            if (!connection.isUsable() || (idleNanos > 0 && connection.isIdle(idleNanos))) {
+                                it.remove();
+                                idle.add(connection);
+                            } else if (found == null && connection.tryReserve()) {
+                                found = connection;
+                            }
+                        }
+                        if (found != null) {
+                            metrics.recordLease(System.nanoTime() - start);
+                            return found;
+                        }
+                        if (connections.size() + connecting < transport.getMaxConnectionsPerRoute()) {
+                            connecting++;
+                            break;
+                        }
+                        long wait = 0;
+                        if (deadline != 0) {
+                            wait = deadline - System.nanoTime();
+                            if (wait <= 0) {
+                                throw new ConnectionPoolTimeoutException("Timeout waiting for HTTP/2 stream");
+                            }
+                        }
+                        try {
+                            wait(wait == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(wait) + 1);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new InterruptedIOException("interrupted while waiting for HTTP/2 stream");
+                        }
+                    }
+                }
+            } finally {
+                // 空闲过久或已不可用的连接在锁外关闭
+                for (Http2Connection connection : idle) {
+                    connection.close();
+                }
+            }
+            metrics.recordLease(System.nanoTime() - start);
+            Http2Connection connection = null;
+            boolean negotiated = false;
+            try {
+                connection = connect(route, name, config.getConnectTimeout(), this);
+                negotiated = true;
+            } finally {
+                synchronized (this) {
+                    connecting--;
+                    if (connection != null) {
+                        connections.add(connection);
+                        connection.tryReserve();
+                    } else if (negotiated) {
+                        http1 = true;
+                    }
+                    notifyAll();
+                }
+            }
+            if (connection != null && closed) {
+                connection.close();
+                throw new IllegalStateException("Connection pool shut down");
+            }
+            return connection;
+        }
+
+        @Override
+        public synchronized void released(Http2Connection connection) {
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void closed(Http2Connection connection) {
+            connections.remove(connection);
+            notifyAll();
+        }
+
+        void close() {
+            List<Http2Connection> snapshot;
+            synchronized (this) {
+                snapshot = new ArrayList<Http2Connection>(connections);
+                connections.clear();
+                notifyAll();
+            }
+            for (Http2Connection connection : snapshot) {
+                connection.close();
+            }
+        }
+    }
+
+    /**
+     * HTTP/2响应，关闭时未读完的流被重置，连接继续供其他流使用
+     */
+    private static class Http2Response extends BasicHttpResponse implements CloseableHttpResponse {
+
+        private final Http2Connection.Stream stream;
+
+        Http2Response(int status, Http2Connection.Stream stream) {
+            super(new BasicStatusLine(HTTP_2, status, EnglishReasonPhraseCatalog.INSTANCE.getReason(status, null)));
+            this.stream = stream;
+        }
+
+        @Override
+        public void close() {
+            stream.close();
+        }
+    }
+}
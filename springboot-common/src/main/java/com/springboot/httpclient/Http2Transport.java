@@ -0,0 +1,178 @@
+package com.springboot.httpclient;
+
+import org.apache.http.impl.execchain.ClientExecChain;
+
+import java.util.Arrays;
+
+/**
+ * HTTP/2传输
+ * <p>
+ * 每个路由只保持少量连接，执行中的请求作为流在连接上多路复用，同样的吞吐需要的套接字和TLS握手少得多。
+ * http地址直接以HTTP/2通信（h2c），服务端需要支持；https地址通过ALPN协商，运行环境不支持ALPN
+ * 或服务端未选择h2时该路由改用HTTP/1.1连接池。经过代理的请求也使用HTTP/1.1连接池
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-05 09:10
+ **/
+public class Http2Transport implements HttpTransport {
+
+    /**
+     * 默认配置：每个路由1个连接，每个连接最多100个并发流
+     */
+    public static final Http2Transport DEFAULT = custom().build();
+
+    private final int maxConnectionsPerRoute;
+
+    private final int maxConcurrentStreams;
+
+    private final int initialWindowSize;
+
+    private final int connectionWindowSize;
+
+    Http2Transport(Builder builder) {
+        this.maxConnectionsPerRoute = builder.maxConnectionsPerRoute;
+        this.maxConcurrentStreams = builder.maxConcurrentStreams;
+        this.initialWindowSize = builder.initialWindowSize;
+        this.connectionWindowSize = builder.connectionWindowSize;
+    }
+
+    /**
+     * 构建配置
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    @Override
+    public ClientExecChain createExec(ClientExecChain classic, HttpClientConfig config, HttpClientMetrics metrics) {
+        return new Http2ExecChain(classic, this, config, metrics);
+    }
+
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+
+    public int getMaxConcurrentStreams() {
+        return maxConcurrentStreams;
+    }
+
+    public int getInitialWindowSize() {
+        return initialWindowSize;
+    }
+
+    public int getConnectionWindowSize() {
+        return connectionWindowSize;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Http2Transport)) {
+            return false;
+        }
+        Http2Transport that = (Http2Transport) o;
+        return maxConnectionsPerRoute == that.maxConnectionsPerRoute
+                && maxConcurrentStreams == that.maxConcurrentStreams
+                && initialWindowSize == that.initialWindowSize
+                && connectionWindowSize == that.connectionWindowSize;
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{
+                maxConnectionsPerRoute, maxConcurrentStreams, initialWindowSize, connectionWindowSize
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "Http2Transport{" +
+                "maxConnectionsPerRoute=" + maxConnectionsPerRoute +
+                ", maxConcurrentStreams=" + maxConcurrentStreams +
+                ", initialWindowSize=" + initialWindowSize +
+                ", connectionWindowSize=" + connectionWindowSize +
+                '}';
+    }
+
+    /**
+     * 配置构建器
+     */
+    public static class Builder {
+
+        private int maxConnectionsPerRoute = 1;
+
+        private int maxConcurrentStreams = 100;
+
+        private int initialWindowSize = 1024 * 1024;
+
+        private int connectionWindowSize = 16 * 1024 * 1024;
+
+        Builder() {
+        }
+
+        /**
+         * 每个路由的最大连接数，已有连接的并发流都占满时才建立新连接
+         *
+         * @param maxConnectionsPerRoute
+         * @return
+         */
+        public Builder setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+            if (maxConnectionsPerRoute <= 0) {
+                throw new IllegalArgumentException("maxConnectionsPerRoute must be positive");
+            }
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+            return this;
+        }
+
+        /**
+         * 每个连接的最大并发流数，实际取它与服务端SETTINGS_MAX_CONCURRENT_STREAMS中较小的一个
+         *
+         * @param maxConcurrentStreams
+         * @return
+         */
+        public Builder setMaxConcurrentStreams(int maxConcurrentStreams) {
+            if (maxConcurrentStreams <= 0) {
+                throw new IllegalArgumentException("maxConcurrentStreams must be positive");
+            }
+            this.maxConcurrentStreams = maxConcurrentStreams;
+            return this;
+        }
+
+        /**
+         * 每个流的接收窗口（字节），即单个响应未被读取时最多缓冲的数据量
+         *
+         * @param initialWindowSize
+         * @return
+         */
+        public Builder setInitialWindowSize(int initialWindowSize) {
+            if (initialWindowSize < 16384) {
+                throw new IllegalArgumentException("initialWindowSize must be at least 16384");
+            }
+            this.initialWindowSize = initialWindowSize;
+            return this;
+        }
+
+        /**
+         * 连接的接收窗口（字节），即一个连接上所有流未被读取时最多缓冲的数据量
+         *
+         * @param connectionWindowSize
+         * @return
+         */
+        public Builder setConnectionWindowSize(int connectionWindowSize) {
+            if (connectionWindowSize < 65535) {
+                throw new IllegalArgumentException("connectionWindowSize must be at least 65535");
+            }
+            this.connectionWindowSize = connectionWindowSize;
+            return this;
+        }
+
+        public Http2Transport build() {
+            return new Http2Transport(this);
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.util.EntityUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 异步http客户端工具类
+ * <p>
+ * 与{@link HttpClientUtil}的请求头、字符集处理保持一致，请求在NIO客户端上执行，不占用调用线程
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-11 10:15
+ **/
+public class HttpAsyncClientUtil {
+
+    /**
+     * 获取请求参数
+     *
+     * @param url
+     * @param params
+     * @return
+     */
+    public static CompletableFuture<String> get(String url, HashMap<String, Object> params) {
+        return get(url, null, params);
+    }
+
+    /**
+     * 获取请求参数
+     *
+     * @param url
+     * @param headers
+     * @param params
+     * @return
+     */
+    public static CompletableFuture<String> get(String url, HashMap<String, String> headers, HashMap<String, Object> params) {
+        HttpGet get = new HttpGet(FormEncoder.appendQuery(url, params, StandardCharsets.UTF_8));
+        return execute(get, headers);
+    }
+
+    /**
+     * post方式提交form表单
+     *
+     * @param url
+     * @param params
+     * @return
+     */
+    public static CompletableFuture<String> postFormUrlencoded(String url, HashMap<String, Object> params) {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new FormUrlEncodedEntity(params, StandardCharsets.UTF_8));
+        return execute(post, null);
+    }
+
+    /**
+     * post数据元数据
+     *
+     * @param url
+     * @param headers
+     * @param params
+     * @return
+     */
+    public static CompletableFuture<String> postJson(String url, HashMap<String, String> headers, Object params) {
+        return post(url, headers, params.toString());
+    }
+
+    /**
+     * post数据元数据
+     *
+     * @param url
+     * @param headers
+     * @param params
+     * @return
+     */
+    public static CompletableFuture<String> post(String url, HashMap<String, String> headers, String params) {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new StringEntity(params, HttpClientUtil.Constants.CHAR_SET_UTF_8));
+        return execute(post, headers);
+    }
+
+    /**
+     * 执行用户请求
+     *
+     * @param request
+     * @param headers
+     * @return
+     */
+    public static CompletableFuture<String> execute(HttpUriRequest request, HashMap<String, String> headers) {
+        return execute(request, headers, HttpClientUtil.Constants.CHAR_SET_UTF_8);
+    }
+
+    /**
+     * 执行用户请求
+     *
+     * @param request
+     * @param headers
+     * @param charset
+     * @return
+     */
+    public static CompletableFuture<String> execute(HttpUriRequest request, HashMap<String, String> headers, String charset) {
+        return execute(HttpClientRegistry.DEFAULT_NAME, request, headers, charset);
+    }
+
+    /**
+     * 使用指定名称的客户端执行用户请求
+     *
+     * @param clientName
+     * @param request
+     * @param headers
+     * @param charset
+     * @return
+     */
+    public static CompletableFuture<String> execute(String clientName, HttpUriRequest request, HashMap<String, String> headers, String charset) {
+        return executeForResult(clientName, request, headers, charset).thenApply(new Function<HttpResult, String>() {
+            @Override
+            public String apply(HttpResult result) {
+                return result.getBody();
+            }
+        });
+    }
+
+    /**
+     * 执行用户请求，返回状态码、响应头及响应体
+     *
+     * @param request
+     * @param headers
+     * @return
+     */
+    public static CompletableFuture<HttpResult> executeForResult(HttpUriRequest request, HashMap<String, String> headers) {
+        return executeForResult(HttpClientRegistry.DEFAULT_NAME, request, headers, HttpClientUtil.Constants.CHAR_SET_UTF_8);
+    }
+
+    /**
+     * 使用指定名称的客户端执行用户请求，返回状态码、响应头及响应体
+     *
+     * @param clientName
+     * @param request
+     * @param headers
+     * @param charset
+     * @return
+     */
+    public static CompletableFuture<HttpResult> executeForResult(String clientName, HttpUriRequest request, HashMap<String, String> headers, final String charset) {
+        final CompletableFuture<HttpResult> result = new CompletableFuture<HttpResult>();
+        try {
+            CloseableHttpAsyncClient httpClient = HttpClientRegistry.getAsyncClient(clientName);
+            if (headers != null) {
+                request.setHeaders(HttpClientConfigHandler.createHeaders(headers));
+            }
+            final Future<HttpResponse> future = httpClient.execute(request, new FutureCallback<HttpResponse>() {
+                @Override
+                public void completed(HttpResponse response) {
+                    try {
+                        HttpEntity entity = response.getEntity();
+                        String body = entity == null ? null : EntityUtils.toString(entity, charset);
+                        result.complete(new HttpResult(response.getStatusLine().getStatusCode(), response.getAllHeaders(), body));
+                    } catch (Exception e) {
+                        result.completeExceptionally(e);
+                    }
+                }
+
+                @Override
+                public void failed(Exception e) {
+                    result.completeExceptionally(e);
+                }
+
+                @Override
+                public void cancelled() {
+                    result.cancel(false);
+                }
+            });
+            // 调用方取消时中止底层请求
+            result.whenComplete(new BiConsumer<HttpResult, Throwable>() {
+                @Override
+                public void accept(HttpResult r, Throwable e) {
+                    if (result.isCancelled()) {
+                        future.cancel(true);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,553 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * 批量执行请求
+ * <p>
+ * 工作线程从输入中按需取出请求放入各路由的队列，按路由轮转挑选下一个请求，单个路由同时执行的请求数有上限，
+ * 慢的主机只占用自己的份额。取出未执行的请求数和未消费的结果数都有上限，消费跟不上时工作线程等待，
+ * 无界的输入也只占用有限的内存。结果按完成顺序返回，失败记录在各自的结果中，不影响其他请求
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-03 09:40
+ **/
+public class HttpBatch {
+
+    private static final AtomicInteger BATCH_ID = new AtomicInteger();
+
+    private HttpBatch() {
+    }
+
+    /**
+     * 使用默认客户端批量执行，结果按完成顺序返回
+     *
+     * @param requests
+     * @param policy
+     * @return
+     */
+    public static ResultIterator<HttpResult> stream(Iterator<? extends HttpUriRequest> requests, BatchPolicy policy) {
+        return stream(HttpClientRegistry.DEFAULT_NAME, requests, policy, resultHandler(HttpClientUtil.Constants.CHAR_SET_UTF_8), null);
+    }
+
+    /**
+     * 使用默认客户端批量执行，结果按完成顺序返回
+     *
+     * @param requests
+     * @param policy
+     * @return
+     */
+    public static ResultIterator<HttpResult> stream(Stream<? extends HttpUriRequest> requests, BatchPolicy policy) {
+        return stream(requests.iterator(), policy);
+    }
+
+    /**
+     * 使用指定名称的客户端批量执行，由handler处理各个响应，结果按完成顺序返回
+     * <p>
+     * 不再读取结果时需要关闭迭代器，否则工作线程会因结果无人消费而一直等待
+     *
+     * @param clientName
+     * @param requests   只在工作线程持有锁时读取，不要求线程安全
+     * @param policy
+     * @param handler
+     * @param executor   运行工作线程，为null时为本批请求创建守护线程
+     * @param <T>
+     * @return
+     */
+    public static <T> ResultIterator<T> stream(String clientName, Iterator<? extends HttpUriRequest> requests, BatchPolicy policy,
+                                               ResponseHandler<? extends T> handler, Executor executor) {
+        ManagedHttpClient client;
+        try {
+            client = HttpClientRegistry.getManagedClient(clientName);
+        } catch (Exception e) {
+            throw new IllegalStateException("http client [" + clientName + "] is unavailable", e);
+        }
+        int perRoute = policy.getMaxPerRoute() > 0 ? policy.getMaxPerRoute()
+                : Math.min(policy.getConcurrency(), client.getConfig().getMaxRoute());
+        int maxQueued = policy.getMaxQueued() > 0 ? policy.getMaxQueued() : policy.getConcurrency() * 4;
+        Batch<T> batch = new Batch<T>(client.getClient(), requests, handler, policy.getConcurrency(), perRoute, maxQueued);
+        int id = BATCH_ID.incrementAndGet();
+        for (int i = 0; i < policy.getConcurrency(); i++) {
+            if (executor != null) {
+                executor.execute(batch);
+            } else {
+                Thread thread = new Thread(batch, "http-batch-" + id + "-" + i);
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        return new ResultIterator<T>(batch);
+    }
+
+    /**
+     * 使用默认客户端批量执行，在调用线程上依次回调各个结果，全部完成后返回
+     *
+     * @param requests
+     * @param policy
+     * @param callback
+     */
+    public static void execute(Iterator<? extends HttpUriRequest> requests, BatchPolicy policy, Consumer<? super Result<HttpResult>> callback) {
+        ResultIterator<HttpResult> results = stream(requests, policy);
+        try {
+            while (results.hasNext()) {
+                callback.accept(results.next());
+            }
+        } finally {
+            results.close();
+        }
+    }
+
+    /**
+     * 使用默认客户端批量执行，全部完成后按输入顺序返回结果
+     *
+     * @param requests
+     * @param policy
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Result<HttpResult>> executeAll(Collection<? extends HttpUriRequest> requests, BatchPolicy policy) {
+        final Result<HttpResult>[] results = new Result[requests.size()];
+        execute(requests.iterator(), policy, new Consumer<Result<HttpResult>>() {
+            @Override
+            public void accept(Result<HttpResult> result) {
+                results[(int) result.getIndex()] = result;
+            }
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * 读取状态码、响应头和响应体
+     *
+     * @param charset 响应未声明编码时使用
+     * @return
+     */
+    public static ResponseHandler<HttpResult> resultHandler(final String charset) {
+        return new ResponseHandler<HttpResult>() {
+            @Override
+            public HttpResult handleResponse(HttpResponse response) throws IOException {
+                HttpEntity entity = response.getEntity();
+                String body = entity == null ? null : EntityUtils.toString(entity, charset);
+                return new HttpResult(response.getStatusLine().getStatusCode(), response.getAllHeaders(), body);
+            }
+        };
+    }
+
+    /**
+     * 单个请求的结果
+     *
+     * @param <T>
+     */
+    public static final class Result<T> {
+
+        private final long index;
+
+        private final HttpUriRequest request;
+
+        private final T value;
+
+        private final Exception failure;
+
+        Result(long index, HttpUriRequest request, T value, Exception failure) {
+            this.index = index;
+            this.request = request;
+            this.value = value;
+            this.failure = failure;
+        }
+
+        /**
+         * 请求在输入中的下标
+         *
+         * @return
+         */
+        public long getIndex() {
+            return index;
+        }
+
+        public HttpUriRequest getRequest() {
+            return request;
+        }
+
+        /**
+         * handler的返回值，失败时为null
+         *
+         * @return
+         */
+        public T getValue() {
+            return value;
+        }
+
+        public Exception getFailure() {
+            return failure;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                    "index=" + index +
+                    ", request=" + request.getRequestLine() +
+                    ", value=" + value +
+                    ", failure=" + failure +
+                    '}';
+        }
+    }
+
+    /**
+     * 按完成顺序返回结果的迭代器，关闭时不再取出新的请求，等待执行中的请求结束
+     *
+     * @param <T>
+     */
+    public static final class ResultIterator<T> implements Iterator<Result<T>>, Closeable {
+
+        private final Batch<T> batch;
+
+        private Result<T> next;
+
+        private boolean done;
+
+        ResultIterator(Batch<T> batch) {
+            this.batch = batch;
+        }
+
+        /**
+         * 等待下一个结果
+         *
+         * @return
+         * @throws IllegalStateException 读取请求输入时抛出异常
+         */
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            if (done) {
+                return false;
+            }
+            Object result = take();
+            if (result == Batch.END) {
+                done = true;
+                if (batch.sourceFailure != null) {
+                    throw new IllegalStateException("failed to read requests", batch.sourceFailure);
+                }
+                return false;
+            }
+            next = (Result<T>) result;
+            return true;
+        }
+
+        @Override
+        public Result<T> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Result<T> result = next;
+            next = null;
+            return result;
+        }
+
+        @Override
+        public void close() {
+            batch.cancel();
+            while (!done) {
+                done = take() == Batch.END;
+            }
+            next = null;
+        }
+
+        private Object take() {
+            try {
+                return batch.results.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.cancel();
+                throw new IllegalStateException("interrupted while waiting for results", e);
+            }
+        }
+    }
+
+    /**
+     * 一批请求的调度状态，每个工作线程运行同一个实例
+     */
+    static final class Batch<T> implements Runnable {
+
+        static final Object END = new Object();
+
+        private final CloseableHttpClient client;
+
+        private final Iterator<? extends HttpUriRequest> source;
+
+        private final ResponseHandler<? extends T> handler;
+
+        private final int perRoute;
+
+        private final int maxQueued;
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Condition changed = lock.newCondition();
+
+        private final Map<String, RouteQueue> routes = new HashMap<String, RouteQueue>();
+
+        /**
+         * 有排队请求或执行中请求的路由，按轮转顺序挑选
+         */
+        private final List<RouteQueue> ring = new ArrayList<RouteQueue>();
+
+        private final BlockingQueue<Object> results;
+
+        private int cursor;
+
+        private int queued;
+
+        private long index;
+
+        private boolean exhausted;
+
+        private boolean cancelled;
+
+        private int running;
+
+        private volatile RuntimeException sourceFailure;
+
+        Batch(CloseableHttpClient client, Iterator<? extends HttpUriRequest> source, ResponseHandler<? extends T> handler,
+              int workers, int perRoute, int maxQueued) {
+            this.client = client;
+            this.source = source;
+            this.handler = handler;
+            this.perRoute = perRoute;
+            this.maxQueued = maxQueued;
+            this.running = workers;
+            this.results = new ArrayBlockingQueue<Object>(maxQueued);
+        }
+
+        @Override
+        public void run() {
+            try {
+                Task task;
+                while ((task = take()) != null) {
+                    Result<T> result;
+                    try {
+                        result = execute(task);
+                    } finally {
+                        complete(task);
+                    }
+                    results.put(result);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+            } finally {
+                boolean last;
+                lock.lock();
+                try {
+                    last = --running == 0;
+                } finally {
+                    lock.unlock();
+                }
+                if (last) {
+                    finish();
+                }
+            }
+        }
+
+        /**
+         * 放入结束标记，队列满时等待消费方取走结果
+         */
+        private void finish() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    results.put(END);
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        void cancel() {
+            lock.lock();
+            try {
+                cancelled = true;
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private Result<T> execute(Task task) {
+            try {
+                return new Result<T>(task.index, task.request, client.execute(task.request, handler), null);
+            } catch (Exception e) {
+                return new Result<T>(task.index, task.request, null, e);
+            }
+        }
+
+        /**
+         * 取出下一个可执行的请求，没有时等待，全部完成或已取消时返回null
+         */
+        private Task take() throws InterruptedException {
+            lock.lock();
+            try {
+                while (true) {
+                    if (cancelled) {
+                        return null;
+                    }
+                    fill();
+                    Task task = poll();
+                    if (task != null) {
+                        return task;
+                    }
+                    if (exhausted && queued == 0) {
+                        return null;
+                    }
+                    changed.await();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 从输入中补充请求直到达到排队上限
+         */
+        private void fill() {
+            while (!exhausted && queued < maxQueued) {
+                HttpUriRequest request;
+                try {
+                    if (!source.hasNext()) {
+                        exhausted = true;
+                        return;
+                    }
+                    request = source.next();
+                } catch (RuntimeException e) {
+                    sourceFailure = e;
+                    exhausted = true;
+                    return;
+                }
+                String route = routeOf(request);
+                RouteQueue queue = routes.get(route);
+                if (queue == null) {
+                    queue = new RouteQueue(route);
+                    routes.put(route, queue);
+                    ring.add(queue);
+                }
+                queue.tasks.add(new Task(index++, request, queue));
+                queued++;
+            }
+        }
+
+        /**
+         * 从上次挑选的下一个路由开始轮转，跳过已达到并发上限的路由
+         */
+        private Task poll() {
+            int size = ring.size();
+            for (int i = 0; i < size; i++) {
+                int position = (cursor + i) % size;
+                RouteQueue queue = ring.get(position);
+                if (!queue.tasks.isEmpty() && queue.inFlight < perRoute) {
+                    cursor = (position + 1) % size;
+                    queue.inFlight++;
+                    queued--;
+                    return queue.tasks.poll();
+                }
+            }
+            return null;
+        }
+
+        private void complete(Task task) {
+            lock.lock();
+            try {
+                RouteQueue queue = task.queue;
+                queue.inFlight--;
+                // 路由空闲后移除，输入中出现大量不同主机时不会累积
+                if (queue.inFlight == 0 && queue.tasks.isEmpty()) {
+                    routes.remove(queue.route);
+                    int position = ring.indexOf(queue);
+                    ring.remove(position);
+                    if (position < cursor) {
+                        cursor--;
+                    }
+                    if (cursor >= ring.size()) {
+                        cursor = 0;
+                    }
+                }
+                changed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private static String routeOf(HttpUriRequest request) {
+            HttpHost host = URIUtils.extractHost(request.getURI());
+            return host == null ? "unknown" : ResponseCachePolicy.normalize(host).toURI();
+        }
+    }
+
+    /**
+     * 单个路由的排队请求
+     */
+    private static final class RouteQueue {
+
+        private final String route;
+
+        private final ArrayDeque<Task> tasks = new ArrayDeque<Task>();
+
+        private int inFlight;
+
+        RouteQueue(String route) {
+            this.route = route;
+        }
+    }
+
+    private static final class Task {
+
+        private final long index;
+
+        private final HttpUriRequest request;
+
+        private final RouteQueue queue;
+
+        Task(long index, HttpUriRequest request, RouteQueue queue) {
+            this.index = index;
+            this.request = request;
+            this.queue = queue;
+        }
+    }
+}
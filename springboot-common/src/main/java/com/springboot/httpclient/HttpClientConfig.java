@@ -0,0 +1,609 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpHost;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 客户端配置项，相同配置的客户端共享同一个连接池
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-10 09:30
+ **/
+public class HttpClientConfig {
+
+    /**
+     * 默认配置
+     */
+    public static final HttpClientConfig DEFAULT = custom().build();
+
+    private final int maxTotal;
+
+    private final int maxRoute;
+
+    private final int requestTimeOut;
+
+    private final int connectionTimeOut;
+
+    private final int socketTimeOut;
+
+    private final RetryPolicy retryPolicy;
+
+    private final int ioThreadCount;
+
+    private final Map<HttpHost, Integer> maxPerRoute;
+
+    private final long connectionTimeToLive;
+
+    private final int validateAfterInactivity;
+
+    private final long keepAliveDuration;
+
+    private final long idleTimeout;
+
+    private final HttpClientMetrics metrics;
+
+    private final CircuitBreakerPolicy circuitBreakerPolicy;
+
+    private final ConcurrencyLimitPolicy concurrencyLimitPolicy;
+
+    private final CompressionPolicy compressionPolicy;
+
+    private final ResponseCachePolicy responseCachePolicy;
+
+    private final CoalescingPolicy coalescingPolicy;
+
+    private final HedgingPolicy hedgingPolicy;
+
+    private final HttpTransport transport;
+
+    private final SslPolicy sslPolicy;
+
+    private final long dnsCacheTtl;
+
+    /**
+     * 作为注册中心的键频繁使用，构建时计算一次
+     */
+    private final int hash;
+
+    HttpClientConfig(Builder builder) {
+        this.maxTotal = builder.maxTotal;
+        this.maxRoute = builder.maxRoute;
+        this.requestTimeOut = builder.requestTimeOut;
+        this.connectionTimeOut = builder.connectionTimeOut;
+        this.socketTimeOut = builder.socketTimeOut;
+        this.retryPolicy = builder.retryPolicy;
+        this.ioThreadCount = builder.ioThreadCount;
+        this.maxPerRoute = Collections.unmodifiableMap(new LinkedHashMap<HttpHost, Integer>(builder.maxPerRoute));
+        this.connectionTimeToLive = builder.connectionTimeToLive;
+        this.validateAfterInactivity = builder.validateAfterInactivity;
+        this.keepAliveDuration = builder.keepAliveDuration;
+        this.idleTimeout = builder.idleTimeout;
+        this.metrics = builder.metrics;
+        this.circuitBreakerPolicy = builder.circuitBreakerPolicy;
+        this.concurrencyLimitPolicy = builder.concurrencyLimitPolicy;
+        this.compressionPolicy = builder.compressionPolicy;
+        this.responseCachePolicy = builder.responseCachePolicy;
+        this.coalescingPolicy = builder.coalescingPolicy;
+        this.hedgingPolicy = builder.hedgingPolicy;
+        this.transport = builder.transport;
+        this.sslPolicy = builder.sslPolicy;
+        this.dnsCacheTtl = builder.dnsCacheTtl;
+        this.hash = computeHash();
+    }
+
+    /**
+     * 构建配置
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public int getMaxTotal() {
+        return maxTotal;
+    }
+
+    public int getMaxRoute() {
+        return maxRoute;
+    }
+
+    public int getRequestTimeOut() {
+        return requestTimeOut;
+    }
+
+    public int getConnectionTimeOut() {
+        return connectionTimeOut;
+    }
+
+    public int getSocketTimeOut() {
+        return socketTimeOut;
+    }
+
+    public RetryPolicy getRetryPolicy() {
+        return retryPolicy;
+    }
+
+    public int getIoThreadCount() {
+        return ioThreadCount;
+    }
+
+    public Map<HttpHost, Integer> getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    public long getConnectionTimeToLive() {
+        return connectionTimeToLive;
+    }
+
+    public int getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+
+    public long getKeepAliveDuration() {
+        return keepAliveDuration;
+    }
+
+    public long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public HttpClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    public CircuitBreakerPolicy getCircuitBreakerPolicy() {
+        return circuitBreakerPolicy;
+    }
+
+    public ConcurrencyLimitPolicy getConcurrencyLimitPolicy() {
+        return concurrencyLimitPolicy;
+    }
+
+    public CompressionPolicy getCompressionPolicy() {
+        return compressionPolicy;
+    }
+
+    public ResponseCachePolicy getResponseCachePolicy() {
+        return responseCachePolicy;
+    }
+
+    public CoalescingPolicy getCoalescingPolicy() {
+        return coalescingPolicy;
+    }
+
+    public HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
+    public HttpTransport getTransport() {
+        return transport;
+    }
+
+    public SslPolicy getSslPolicy() {
+        return sslPolicy;
+    }
+
+    public long getDnsCacheTtl() {
+        return dnsCacheTtl;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof HttpClientConfig)) {
+            return false;
+        }
+        HttpClientConfig that = (HttpClientConfig) o;
+        return hash == that.hash
+                && maxTotal == that.maxTotal
+                && maxRoute == that.maxRoute
+                && requestTimeOut == that.requestTimeOut
+                && connectionTimeOut == that.connectionTimeOut
+                && socketTimeOut == that.socketTimeOut
+                && retryPolicy.equals(that.retryPolicy)
+                && ioThreadCount == that.ioThreadCount
+                && connectionTimeToLive == that.connectionTimeToLive
+                && validateAfterInactivity == that.validateAfterInactivity
+                && keepAliveDuration == that.keepAliveDuration
+                && idleTimeout == that.idleTimeout
+                && maxPerRoute.equals(that.maxPerRoute)
+                && metrics == that.metrics
+                && equal(circuitBreakerPolicy, that.circuitBreakerPolicy)
+                && equal(concurrencyLimitPolicy, that.concurrencyLimitPolicy)
+                && equal(compressionPolicy, that.compressionPolicy)
+                && equal(responseCachePolicy, that.responseCachePolicy)
+                && equal(coalescingPolicy, that.coalescingPolicy)
+                && equal(hedgingPolicy, that.hedgingPolicy)
+                && transport.equals(that.transport)
+                && sslPolicy.equals(that.sslPolicy)
+                && dnsCacheTtl == that.dnsCacheTtl;
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    private int computeHash() {
+        return Arrays.hashCode(new Object[]{
+                maxTotal, maxRoute, requestTimeOut, connectionTimeOut, socketTimeOut, retryPolicy, ioThreadCount,
+                maxPerRoute, connectionTimeToLive, validateAfterInactivity, keepAliveDuration, idleTimeout,
+                System.identityHashCode(metrics), circuitBreakerPolicy, concurrencyLimitPolicy, compressionPolicy,
+                responseCachePolicy, coalescingPolicy, hedgingPolicy, transport,
+                sslPolicy, dnsCacheTtl
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "HttpClientConfig{" +
+                "maxTotal=" + maxTotal +
+                ", maxRoute=" + maxRoute +
+                ", requestTimeOut=" + requestTimeOut +
+                ", connectionTimeOut=" + connectionTimeOut +
+                ", socketTimeOut=" + socketTimeOut +
+                ", retryPolicy=" + retryPolicy +
+                ", ioThreadCount=" + ioThreadCount +
+                ", maxPerRoute=" + maxPerRoute +
+                ", connectionTimeToLive=" + connectionTimeToLive +
+                ", validateAfterInactivity=" + validateAfterInactivity +
+                ", keepAliveDuration=" + keepAliveDuration +
+                ", idleTimeout=" + idleTimeout +
+                ", metrics=" + metrics +
+                ", circuitBreakerPolicy=" + circuitBreakerPolicy +
+                ", concurrencyLimitPolicy=" + concurrencyLimitPolicy +
+                ", compressionPolicy=" + compressionPolicy +
+                ", responseCachePolicy=" + responseCachePolicy +
+                ", coalescingPolicy=" + coalescingPolicy +
+                ", hedgingPolicy=" + hedgingPolicy +
+                ", transport=" + transport +
+                ", sslPolicy=" + sslPolicy +
+                ", dnsCacheTtl=" + dnsCacheTtl +
+                '}';
+    }
+
+    /**
+     * 配置构建器
+     */
+    public static class Builder {
+
+        private int maxTotal = HttpClientConfigHandler.Constants.MAX_TOTAL;
+
+        private int maxRoute = HttpClientConfigHandler.Constants.MAX_ROUTE;
+
+        private int requestTimeOut = HttpClientConfigHandler.Constants.TIME_OUT;
+
+        private int connectionTimeOut = HttpClientConfigHandler.Constants.TIME_OUT;
+
+        private int socketTimeOut = HttpClientConfigHandler.Constants.TIME_OUT;
+
+        private RetryPolicy retryPolicy = RetryPolicy.DEFAULT;
+
+        private int ioThreadCount = Runtime.getRuntime().availableProcessors();
+
+        private final Map<HttpHost, Integer> maxPerRoute = new LinkedHashMap<HttpHost, Integer>();
+
+        private long connectionTimeToLive = HttpClientConfigHandler.Constants.TIME_TO_LIVE;
+
+        private int validateAfterInactivity = HttpClientConfigHandler.Constants.VALIDATE_AFTER_INACTIVITY;
+
+        private long keepAliveDuration = HttpClientConfigHandler.Constants.KEEP_ALIVE;
+
+        private long idleTimeout = HttpClientConfigHandler.Constants.IDLE_TIME_OUT;
+
+        private HttpClientMetrics metrics;
+
+        private CircuitBreakerPolicy circuitBreakerPolicy;
+
+        private ConcurrencyLimitPolicy concurrencyLimitPolicy;
+
+        private CompressionPolicy compressionPolicy;
+
+        private ResponseCachePolicy responseCachePolicy;
+
+        private CoalescingPolicy coalescingPolicy;
+
+        private HedgingPolicy hedgingPolicy;
+
+        private HttpTransport transport = HttpTransport.CLASSIC;
+
+        private SslPolicy sslPolicy = SslPolicy.DEFAULT;
+
+        private long dnsCacheTtl = HttpClientConfigHandler.Constants.DNS_CACHE_TTL;
+
+        Builder() {
+        }
+
+        /**
+         * 最大连接数
+         *
+         * @param maxTotal
+         * @return
+         */
+        public Builder setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        /**
+         * 每个路由的最大连接数
+         *
+         * @param maxRoute
+         * @return
+         */
+        public Builder setMaxRoute(int maxRoute) {
+            this.maxRoute = maxRoute;
+            return this;
+        }
+
+        /**
+         * 统一设置超时时间（秒）
+         *
+         * @param timeOut
+         * @return
+         */
+        public Builder setTimeOut(int timeOut) {
+            this.requestTimeOut = timeOut;
+            this.connectionTimeOut = timeOut;
+            this.socketTimeOut = timeOut;
+            return this;
+        }
+
+        /**
+         * 从连接池获取连接的超时时间（秒）
+         *
+         * @param requestTimeOut
+         * @return
+         */
+        public Builder setRequestTimeOut(int requestTimeOut) {
+            this.requestTimeOut = requestTimeOut;
+            return this;
+        }
+
+        /**
+         * 建立连接的超时时间（秒）
+         *
+         * @param connectionTimeOut
+         * @return
+         */
+        public Builder setConnectionTimeOut(int connectionTimeOut) {
+            this.connectionTimeOut = connectionTimeOut;
+            return this;
+        }
+
+        /**
+         * 读取数据的超时时间（秒）
+         *
+         * @param socketTimeOut
+         * @return
+         */
+        public Builder setSocketTimeOut(int socketTimeOut) {
+            this.socketTimeOut = socketTimeOut;
+            return this;
+        }
+
+        /**
+         * 最大尝试次数，等同于只设置了尝试次数的{@link RetryPolicy}
+         *
+         * @param retryCount
+         * @return
+         */
+        public Builder setRetryCount(int retryCount) {
+            this.retryPolicy = RetryPolicy.custom().setMaxAttempts(retryCount).build();
+            return this;
+        }
+
+        /**
+         * 重试策略
+         *
+         * @param retryPolicy
+         * @return
+         */
+        public Builder setRetryPolicy(RetryPolicy retryPolicy) {
+            if (retryPolicy == null) {
+                throw new IllegalArgumentException("retryPolicy must not be null");
+            }
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * 异步客户端的I/O线程数
+         *
+         * @param ioThreadCount
+         * @return
+         */
+        public Builder setIoThreadCount(int ioThreadCount) {
+            this.ioThreadCount = ioThreadCount;
+            return this;
+        }
+
+        /**
+         * 单独设置某个主机的最大连接数
+         *
+         * @param host
+         * @param maxConnections
+         * @return
+         */
+        public Builder setMaxPerRoute(HttpHost host, int maxConnections) {
+            this.maxPerRoute.put(host, maxConnections);
+            return this;
+        }
+
+        /**
+         * 连接最长存活时间（秒），超过后不再复用，小于等于0表示不限制
+         *
+         * @param connectionTimeToLive
+         * @return
+         */
+        public Builder setConnectionTimeToLive(long connectionTimeToLive) {
+            this.connectionTimeToLive = connectionTimeToLive;
+            return this;
+        }
+
+        /**
+         * 连接空闲超过该时间（毫秒）后，复用前先检查是否已被服务端关闭
+         *
+         * @param validateAfterInactivity
+         * @return
+         */
+        public Builder setValidateAfterInactivity(int validateAfterInactivity) {
+            this.validateAfterInactivity = validateAfterInactivity;
+            return this;
+        }
+
+        /**
+         * 服务端未返回Keep-Alive超时时连接的保持时间（秒），服务端返回的超时也不会超过该值
+         *
+         * @param keepAliveDuration
+         * @return
+         */
+        public Builder setKeepAliveDuration(long keepAliveDuration) {
+            this.keepAliveDuration = keepAliveDuration;
+            return this;
+        }
+
+        /**
+         * 空闲超过该时间（秒）的连接由后台线程关闭，小于等于0表示不清理
+         *
+         * @param idleTimeout
+         * @return
+         */
+        public Builder setIdleTimeout(long idleTimeout) {
+            this.idleTimeout = idleTimeout;
+            return this;
+        }
+
+        /**
+         * 指标采集实现，不设置时每个客户端使用独立的{@link InMemoryHttpClientMetrics}
+         *
+         * @param metrics
+         * @return
+         */
+        public Builder setMetrics(HttpClientMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * 按路由熔断，不设置时不启用
+         *
+         * @param circuitBreakerPolicy
+         * @return
+         */
+        public Builder setCircuitBreakerPolicy(CircuitBreakerPolicy circuitBreakerPolicy) {
+            this.circuitBreakerPolicy = circuitBreakerPolicy;
+            return this;
+        }
+
+        /**
+         * 按路由自适应限制并发，不设置时不启用
+         *
+         * @param concurrencyLimitPolicy
+         * @return
+         */
+        public Builder setConcurrencyLimitPolicy(ConcurrencyLimitPolicy concurrencyLimitPolicy) {
+            this.concurrencyLimitPolicy = concurrencyLimitPolicy;
+            return this;
+        }
+
+        /**
+         * 请求体压缩及响应解压，不设置时沿用HttpClient默认的响应解压
+         *
+         * @param compressionPolicy
+         * @return
+         */
+        public Builder setCompressionPolicy(CompressionPolicy compressionPolicy) {
+            this.compressionPolicy = compressionPolicy;
+            return this;
+        }
+
+        /**
+         * GET响应缓存，每个客户端独立一份，不设置时不缓存
+         *
+         * @param responseCachePolicy
+         * @return
+         */
+        public Builder setResponseCachePolicy(ResponseCachePolicy responseCachePolicy) {
+            this.responseCachePolicy = responseCachePolicy;
+            return this;
+        }
+
+        /**
+         * 合并执行中的相同请求，不设置时不合并
+         *
+         * @param coalescingPolicy
+         * @return
+         */
+        public Builder setCoalescingPolicy(CoalescingPolicy coalescingPolicy) {
+            this.coalescingPolicy = coalescingPolicy;
+            return this;
+        }
+
+        /**
+         * 幂等请求超过等待时间未响应时再发出一次，不设置时不对冲
+         *
+         * @param hedgingPolicy
+         * @return
+         */
+        public Builder setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
+        /**
+         * 传输方式，默认为{@link HttpTransport#CLASSIC}，设置为{@link Http2Transport}时在少量连接上多路复用请求
+         *
+         * @param transport
+         * @return
+         */
+        public Builder setTransport(HttpTransport transport) {
+            if (transport == null) {
+                throw new IllegalArgumentException("transport must not be null");
+            }
+            this.transport = transport;
+            return this;
+        }
+
+        /**
+         * TLS配置，相同配置的客户端共享SSLContext及其会话缓存，默认为{@link SslPolicy#DEFAULT}
+         *
+         * @param sslPolicy
+         * @return
+         */
+        public Builder setSslPolicy(SslPolicy sslPolicy) {
+            if (sslPolicy == null) {
+                throw new IllegalArgumentException("sslPolicy must not be null");
+            }
+            this.sslPolicy = sslPolicy;
+            return this;
+        }
+
+        /**
+         * 域名解析结果的缓存时间（秒），小于等于0时每次建立连接都交给系统解析
+         *
+         * @param dnsCacheTtl
+         * @return
+         */
+        public Builder setDnsCacheTtl(long dnsCacheTtl) {
+            this.dnsCacheTtl = dnsCacheTtl;
+            return this;
+        }
+
+        public HttpClientConfig build() {
+            return new HttpClientConfig(this);
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHost;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.conn.ssl.TrustSelfSignedStrategy;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.execchain.ClientExecChain;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.message.BasicHeader;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.ssl.SSLContexts;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.security.KeyStore;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端配置
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-03 11:02
+ **/
+public class HttpClientConfigHandler {
+
+    /**
+     * 配置常量
+     */
+    interface Constants {
+        int MAX_TOTAL = 500;
+
+        int MAX_ROUTE = 100;
+
+        int TIME_OUT = 3;
+
+        int RETRY_COUNT = 3;
+
+        /**
+         * 连接存活时间（秒），不限制
+         */
+        long TIME_TO_LIVE = -1;
+
+        /**
+         * 空闲多久后复用前检查连接（毫秒）
+         */
+        int VALIDATE_AFTER_INACTIVITY = 2000;
+
+        /**
+         * 默认keep-alive时间（秒）
+         */
+        long KEEP_ALIVE = 30;
+
+        /**
+         * 空闲连接清理时间（秒）
+         */
+        long IDLE_TIME_OUT = 60;
+
+        /**
+         * 域名解析缓存时间（秒），与JVM默认的networkaddress.cache.ttl一致
+         */
+        long DNS_CACHE_TTL = 30;
+    }
+
+    /**
+     * 相同TLS配置共享的SSLContext，会话缓存在SSLContext上，共享后不同客户端到同一服务端的连接也能恢复会话
+     */
+    private static final ConcurrentMap<SslPolicy, SSLContext> SSL_CONTEXTS = new ConcurrentHashMap<SslPolicy, SSLContext>();
+
+    /**
+     * 相同缓存时间共享的域名解析缓存
+     */
+    private static final ConcurrentMap<Long, CachingDnsResolver> DNS_RESOLVERS = new ConcurrentHashMap<Long, CachingDnsResolver>();
+
+    /**
+     * 构建连接池
+     *
+     * @return
+     * @throws Exception
+     */
+    public static PoolingHttpClientConnectionManager createManager() throws Exception {
+        return createManager(Constants.MAX_TOTAL, Constants.MAX_ROUTE);
+    }
+
+    /**
+     * 构建连接池，https使用配置的{@link SslPolicy}
+     *
+     * @param config
+     * @return
+     * @throws Exception
+     */
+    public static PoolingHttpClientConnectionManager createManager(HttpClientConfig config) throws Exception {
+        return createManager(config, config.getMetrics() != null ? config.getMetrics() : HttpClientMetrics.NOOP);
+    }
+
+    /**
+     * 构建连接池，https使用配置的{@link SslPolicy}
+     *
+     * @param config
+     * @param metrics
+     * @return
+     * @throws Exception
+     */
+    public static PoolingHttpClientConnectionManager createManager(HttpClientConfig config, HttpClientMetrics metrics) throws Exception {
+        // 添加https支持
+        SslPolicy sslPolicy = config.getSslPolicy();
+        SSLConnectionSocketFactory sslsf = new SSLConnectionSocketFactory(sslContext(sslPolicy), sslPolicy.getProtocols(), null,
+                SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+        Registry<ConnectionSocketFactory> registry = RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("https", sslsf)
+                .register("http", PlainConnectionSocketFactory.getSocketFactory())
+                .build();
+        PoolingHttpClientConnectionManager manager = new MeteredConnectionManager(registry, dnsResolver(config), config.getConnectionTimeToLive(), metrics);
+        // 将最大连接数增加
+        manager.setMaxTotal(config.getMaxTotal());
+        // 将每个路由基础的连接增加
+        manager.setDefaultMaxPerRoute(config.getMaxRoute());
+        for (Map.Entry<HttpHost, Integer> entry : config.getMaxPerRoute().entrySet()) {
+            manager.setMaxPerRoute(createRoute(entry.getKey()), entry.getValue());
+        }
+        // 空闲一段时间的连接复用前先检查，避免使用已被服务端关闭的连接
+        manager.setValidateAfterInactivity(config.getValidateAfterInactivity());
+
+        return manager;
+    }
+
+    /**
+     * 构建连接池，https使用配置的{@link SslPolicy}
+     *
+     * @param maxTotal
+     * @param maxRoute
+     * @return
+     * @throws Exception
+     */
+    public static PoolingHttpClientConnectionManager createManager(int maxTotal, int maxRoute) throws Exception {
+        return createManager(HttpClientConfig.custom().setMaxTotal(maxTotal).setMaxRoute(maxRoute).build());
+    }
+
+    /**
+     * 构建异步客户端连接池，https使用配置的{@link SslPolicy}
+     *
+     * @param config
+     * @return
+     * @throws Exception
+     */
+    public static PoolingNHttpClientConnectionManager createAsyncManager(HttpClientConfig config) throws Exception {
+        IOReactorConfig reactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(config.getIoThreadCount())
+                .setConnectTimeout(config.getConnectionTimeOut() * 1000)
+                .setSoTimeout(config.getSocketTimeOut() * 1000)
+                .build();
+        // 添加https支持
+        SslPolicy sslPolicy = config.getSslPolicy();
+        SSLIOSessionStrategy sslStrategy = new SSLIOSessionStrategy(sslContext(sslPolicy), sslPolicy.getProtocols(), null,
+                SSLConnectionSocketFactory.getDefaultHostnameVerifier());
+        Registry<SchemeIOSessionStrategy> registry = RegistryBuilder.<SchemeIOSessionStrategy>create()
+                .register("https", sslStrategy)
+                .register("http", NoopIOSessionStrategy.INSTANCE)
+                .build();
+        PoolingNHttpClientConnectionManager manager = new PoolingNHttpClientConnectionManager(new DefaultConnectingIOReactor(reactorConfig),
+                null, registry, null, dnsResolver(config), config.getConnectionTimeToLive(), TimeUnit.SECONDS);
+        manager.setMaxTotal(config.getMaxTotal());
+        manager.setDefaultMaxPerRoute(config.getMaxRoute());
+        for (Map.Entry<HttpHost, Integer> entry : config.getMaxPerRoute().entrySet()) {
+            manager.setMaxPerRoute(createRoute(entry.getKey()), entry.getValue());
+        }
+
+        return manager;
+    }
+
+    /**
+     * 构建主机对应的直连路由
+     *
+     * @param host
+     * @return
+     */
+    static HttpRoute createRoute(HttpHost host) {
+        return new HttpRoute(host, null, "https".equalsIgnoreCase(host.getSchemeName()));
+    }
+
+    /**
+     * 获取TLS配置对应的SSL上下文，相同配置只构建一次
+     *
+     * @param policy
+     * @return
+     * @throws Exception
+     */
+    static SSLContext sslContext(SslPolicy policy) throws Exception {
+        SSLContext context = SSL_CONTEXTS.get(policy);
+        if (context != null) {
+            return context;
+        }
+        context = createSslContext(policy);
+        SSLContext previous = SSL_CONTEXTS.putIfAbsent(policy, context);
+        return previous != null ? previous : context;
+    }
+
+    /**
+     * 构建SSL上下文
+     *
+     * @param policy
+     * @return
+     * @throws Exception
+     */
+    private static SSLContext createSslContext(SslPolicy policy) throws Exception {
+        SSLContextBuilder builder = SSLContexts.custom();
+        KeyStore trustStore = policy.getTrustStore() != null
+                ? loadKeyStore(policy.getTrustStore(), policy.getTrustStoreType(), policy.getTrustStorePassword())
+                : null;
+        // 信任库为null时使用JVM默认信任库
+        builder.loadTrustMaterial(trustStore, policy.isTrustSelfSigned() ? new TrustSelfSignedStrategy() : null);
+        if (policy.getKeyStore() != null) {
+            KeyStore keyStore = loadKeyStore(policy.getKeyStore(), policy.getKeyStoreType(), policy.getKeyStorePassword());
+            builder.loadKeyMaterial(keyStore, policy.getKeyPassword());
+        }
+        SSLContext context = builder.build();
+        SSLSessionContext sessions = context.getClientSessionContext();
+        if (policy.getSessionCacheSize() >= 0) {
+            sessions.setSessionCacheSize(policy.getSessionCacheSize());
+        }
+        if (policy.getSessionTimeout() >= 0) {
+            sessions.setSessionTimeout(policy.getSessionTimeout());
+        }
+        return context;
+    }
+
+    private static KeyStore loadKeyStore(String path, String type, char[] password) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance(type);
+        InputStream in = new FileInputStream(path);
+        try {
+            keyStore.load(in, password);
+        } finally {
+            in.close();
+        }
+        return keyStore;
+    }
+
+    /**
+     * 获取配置对应的域名解析器，缓存时间大于0时相同缓存时间的客户端共享解析结果
+     *
+     * @param config
+     * @return
+     */
+    static DnsResolver dnsResolver(HttpClientConfig config) {
+        long ttl = config.getDnsCacheTtl();
+        if (ttl <= 0) {
+            return SystemDefaultDnsResolver.INSTANCE;
+        }
+        CachingDnsResolver resolver = DNS_RESOLVERS.get(ttl);
+        if (resolver == null) {
+            resolver = new CachingDnsResolver(ttl, TimeUnit.SECONDS);
+            CachingDnsResolver previous = DNS_RESOLVERS.putIfAbsent(ttl, resolver);
+            if (previous != null) {
+                resolver = previous;
+            }
+        }
+        return resolver;
+    }
+
+    /**
+     * 构建请求配置
+     *
+     * @return
+     */
+    public static RequestConfig createConfig() {
+        return createConfig(Constants.TIME_OUT);
+    }
+
+    /**
+     * 构建请求配置
+     *
+     * @param timeOut
+     * @return
+     */
+    public static RequestConfig createConfig(int timeOut) {
+        return createConfig(timeOut, timeOut, timeOut);
+    }
+
+    /**
+     * 构建请求配置
+     *
+     * @param config
+     * @return
+     */
+    public static RequestConfig createConfig(HttpClientConfig config) {
+        return createConfig(config.getRequestTimeOut(), config.getConnectionTimeOut(), config.getSocketTimeOut());
+    }
+
+    /**
+     * 构建请求配置
+     *
+     * @param requestTimeOut
+     * @param connectionTimeOut
+     * @param socketTimeOut
+     * @return
+     */
+    public static RequestConfig createConfig(int requestTimeOut, int connectionTimeOut, int socketTimeOut) {
+        RequestConfig config = RequestConfig.custom()
+                .setConnectionRequestTimeout(requestTimeOut * 1000)
+                .setConnectTimeout(connectionTimeOut * 1000)
+                .setSocketTimeout(socketTimeOut * 1000).build();
+
+        return config;
+    }
+
+    /**
+     * 构建请求头
+     *
+     * @param params
+     * @return
+     */
+    public static Header[] createHeaders(Map<String, String> params) {
+        if (params == null || params.size() == 0) {
+            return null;
+        }
+        Header[] headers = new Header[params.size()];
+        int i = 0;
+        for (Map.Entry<String, String> entry : params.entrySet()) {
+            headers[i++] = new BasicHeader(entry.getKey(), entry.getValue());
+        }
+        return headers;
+    }
+
+    /**
+     * 构建请求客户端，每次调用都会新建连接池，共享客户端请使用{@link HttpClientRegistry}
+     *
+     * @return
+     */
+    public static CloseableHttpClient createClient() throws Exception {
+        return createClient(createManager(), createConfig());
+    }
+
+    /**
+     * 构建请求客户端
+     *
+     * @param manager
+     * @param config
+     * @return
+     */
+    public static CloseableHttpClient createClient(PoolingHttpClientConnectionManager manager, RequestConfig config) {
+        return HttpClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(config)
+                .setRetryHandler(new HttpClientRetryHandler())
+                .build();
+    }
+
+    /**
+     * 构建请求客户端
+     *
+     * @param manager
+     * @param config
+     * @return
+     */
+    public static CloseableHttpClient createClient(PoolingHttpClientConnectionManager manager, HttpClientConfig config) {
+        return createClient(manager, config, config.getMetrics() != null ? config.getMetrics() : HttpClientMetrics.NOOP);
+    }
+
+    /**
+     * 构建请求客户端
+     *
+     * @param manager
+     * @param config
+     * @param metrics
+     * @return
+     */
+    public static CloseableHttpClient createClient(PoolingHttpClientConnectionManager manager, final HttpClientConfig config, final HttpClientMetrics metrics) {
+        RetryPolicy policy = config.getRetryPolicy();
+        // 重试预算在同一客户端的所有请求间按路由共享
+        final RetryBudget budget = new RetryBudget(policy.getBudgetRatio(), policy.getBudgetMinPerSecond());
+        HttpClientExecBuilder builder = HttpClientExecBuilder.newBuilder();
+        // 传输方式替换连接池执行链，外层的装饰与传输方式无关
+        builder.setMainExec(new HttpClientExecBuilder.Decorator() {
+            @Override
+            public ClientExecChain decorate(ClientExecChain next) {
+                return config.getTransport().createExec(next, config, metrics);
+            }
+        });
+        if (config.getResponseCachePolicy() != null) {
+            // 最外层，命中缓存的请求不占用重试预算和并发限制
+            builder.addDecorator(new HttpClientExecBuilder.Decorator() {
+                @Override
+                public ClientExecChain decorate(ClientExecChain next) {
+                    return new CachingExecChain(next, config.getResponseCachePolicy(), metrics);
+                }
+            });
+        }
+        if (config.getCoalescingPolicy() != null) {
+            // 位于缓存之内，缓存未命中时的并发请求合并为一次
+            builder.addDecorator(new HttpClientExecBuilder.Decorator() {
+                @Override
+                public ClientExecChain decorate(ClientExecChain next) {
+                    return new CoalescingExecChain(next, config.getCoalescingPolicy(), metrics);
+                }
+            });
+        }
+        if (config.getHedgingPolicy() != null) {
+            // 对冲请求与原请求各自经过重试预算、熔断和指标统计
+            builder.addDecorator(new HttpClientExecBuilder.Decorator() {
+                @Override
+                public ClientExecChain decorate(ClientExecChain next) {
+                    return new HedgingExecChain(next, config.getHedgingPolicy(), metrics);
+                }
+            });
+        }
+        builder.addDecorator(new HttpClientExecBuilder.Decorator() {
+            @Override
+            public ClientExecChain decorate(ClientExecChain next) {
+                return new RetryBudgetExecChain(next, budget);
+            }
+        });
+        if (config.getCircuitBreakerPolicy() != null || config.getConcurrencyLimitPolicy() != null) {
+            builder.addDecorator(new HttpClientExecBuilder.Decorator() {
+                @Override
+                public ClientExecChain decorate(ClientExecChain next) {
+                    return new RouteGuardExecChain(next, config.getCircuitBreakerPolicy(), config.getConcurrencyLimitPolicy(), metrics);
+                }
+            });
+        }
+        if (config.getCompressionPolicy() != null) {
+            // 由压缩执行链接管Accept-Encoding和响应解压，关闭内置的解压以免重复处理
+            builder.disableContentCompression();
+            builder.addDecorator(new HttpClientExecBuilder.Decorator() {
+                @Override
+                public ClientExecChain decorate(ClientExecChain next) {
+                    return new CompressionExecChain(next, config.getCompressionPolicy(), metrics);
+                }
+            });
+        }
+        return builder
+                .addDecorator(new HttpClientExecBuilder.Decorator() {
+                    @Override
+                    public ClientExecChain decorate(ClientExecChain next) {
+                        return new MetricsExecChain(next, metrics);
+                    }
+                })
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(createConfig(config))
+                .setRetryHandler(new HttpClientRetryHandler(policy, budget, metrics))
+                .setServiceUnavailableRetryStrategy(new HttpClientServiceUnavailableRetryStrategy(policy, budget, metrics))
+                .setKeepAliveStrategy(new HttpClientKeepAliveStrategy(config.getKeepAliveDuration()))
+                .build();
+    }
+
+    /**
+     * 构建并启动异步请求客户端
+     *
+     * @param manager
+     * @param config
+     * @return
+     */
+    public static CloseableHttpAsyncClient createAsyncClient(PoolingNHttpClientConnectionManager manager, HttpClientConfig config) {
+        CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+                .setConnectionManager(manager)
+                .setDefaultRequestConfig(createConfig(config))
+                .setKeepAliveStrategy(new HttpClientKeepAliveStrategy(config.getKeepAliveDuration()))
+                .build();
+        client.start();
+        return client;
+    }
+
+}
@@ -0,0 +1,72 @@
+package com.springboot.httpclient;
+
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.execchain.ClientExecChain;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 支持在协议执行链外层添加装饰的客户端构建器
+ * <p>
+ * 装饰位于重试之内，每次尝试都会经过，先添加的在外层。最内层的连接池执行链可以整体替换
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-16 09:50
+ **/
+class HttpClientExecBuilder extends HttpClientBuilder {
+
+    /**
+     * 执行链装饰
+     */
+    interface Decorator {
+        ClientExecChain decorate(ClientExecChain next);
+    }
+
+    private final List<Decorator> decorators = new ArrayList<Decorator>();
+
+    private Decorator mainExec;
+
+    static HttpClientExecBuilder newBuilder() {
+        return new HttpClientExecBuilder();
+    }
+
+    HttpClientExecBuilder addDecorator(Decorator decorator) {
+        decorators.add(decorator);
+        return this;
+    }
+
+    /**
+     * 替换最内层的连接池执行链，返回的执行链实现了Closeable时随客户端一起关闭
+     *
+     * @param mainExec
+     * @return
+     */
+    HttpClientExecBuilder setMainExec(Decorator mainExec) {
+        this.mainExec = mainExec;
+        return this;
+    }
+
+    @Override
+    protected ClientExecChain decorateMainExec(ClientExecChain mainExec) {
+        if (this.mainExec == null) {
+            return mainExec;
+        }
+        ClientExecChain chain = this.mainExec.decorate(mainExec);
+        if (chain != mainExec && chain instanceof Closeable) {
+            addCloseable((Closeable) chain);
+        }
+        return chain;
+    }
+
+    @Override
+    protected ClientExecChain decorateProtocolExec(ClientExecChain protocolExec) {
+        ClientExecChain chain = protocolExec;
+        for (int i = decorators.size() - 1; i >= 0; i--) {
+            chain = decorators.get(i).decorate(chain);
+        }
+        return chain;
+    }
+}
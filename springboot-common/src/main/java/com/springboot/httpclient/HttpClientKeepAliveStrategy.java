@@ -0,0 +1,51 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.HttpResponse;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 连接保持策略
+ * <p>
+ * 优先使用服务端Keep-Alive头中的timeout，但不超过配置的最大保持时间
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-13 10:20
+ **/
+public class HttpClientKeepAliveStrategy implements ConnectionKeepAliveStrategy {
+
+    /**
+     * 最大保持时间（毫秒）
+     */
+    private final long maxKeepAlive;
+
+    /**
+     * @param keepAliveDuration 保持时间（秒），小于等于0时完全按服务端返回
+     */
+    public HttpClientKeepAliveStrategy(long keepAliveDuration) {
+        this.maxKeepAlive = keepAliveDuration > 0 ? keepAliveDuration * 1000 : -1;
+    }
+
+    @Override
+    public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+        HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+        while (it.hasNext()) {
+            HeaderElement element = it.nextElement();
+            String value = element.getValue();
+            if (value != null && "timeout".equalsIgnoreCase(element.getName())) {
+                try {
+                    long timeout = Long.parseLong(value) * 1000;
+                    return maxKeepAlive > 0 ? Math.min(timeout, maxKeepAlive) : timeout;
+                } catch (NumberFormatException ignore) {
+                    // 非法的timeout按默认处理
+                }
+            }
+        }
+        return maxKeepAlive;
+    }
+}
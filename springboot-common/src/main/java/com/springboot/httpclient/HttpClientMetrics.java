@@ -0,0 +1,176 @@
+package com.springboot.httpclient;
+
+/**
+ * 客户端指标采集接口
+ * <p>
+ * 实现需要线程安全，且记录方法位于请求路径上，不应阻塞或分配大量对象
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-16 09:50
+ **/
+public interface HttpClientMetrics {
+
+    /**
+     * 不采集任何指标
+     */
+    HttpClientMetrics NOOP = new HttpClientMetrics() {
+        @Override
+        public void recordLease(long nanos) {
+        }
+
+        @Override
+        public void recordRequest(String route, int statusCode, long nanos) {
+        }
+
+        @Override
+        public void recordException(String route, Throwable exception, long nanos) {
+        }
+
+        @Override
+        public void recordRetry(String route, Throwable exception) {
+        }
+
+        @Override
+        public void recordBytes(String route, long sent, long received) {
+        }
+    };
+
+    /**
+     * 从连接池获取连接的等待时间
+     *
+     * @param nanos
+     */
+    void recordLease(long nanos);
+
+    /**
+     * 请求完成
+     *
+     * @param route      目标主机，如http://127.0.0.1:8080
+     * @param statusCode
+     * @param nanos      耗时
+     */
+    void recordRequest(String route, int statusCode, long nanos);
+
+    /**
+     * 请求异常
+     *
+     * @param route
+     * @param exception
+     * @param nanos
+     */
+    void recordException(String route, Throwable exception, long nanos);
+
+    /**
+     * 请求重试
+     *
+     * @param route
+     * @param exception 引起重试的异常，按状态码重试时为null
+     */
+    void recordRetry(String route, Throwable exception);
+
+    /**
+     * 传输字节数
+     *
+     * @param route
+     * @param sent
+     * @param received
+     */
+    void recordBytes(String route, long sent, long received);
+
+    /**
+     * 请求体压缩
+     *
+     * @param route
+     * @param logicalBytes 压缩前字节数
+     * @param wireBytes    压缩后实际发送的字节数
+     */
+    default void recordRequestCompression(String route, long logicalBytes, long wireBytes) {
+    }
+
+    /**
+     * 响应体解压，在响应体读完或关闭时记录
+     *
+     * @param route
+     * @param logicalBytes 解压后字节数
+     * @param wireBytes    实际接收的压缩字节数
+     */
+    default void recordResponseDecompression(String route, long logicalBytes, long wireBytes) {
+    }
+
+    /**
+     * 新鲜的缓存直接返回，未发出请求
+     *
+     * @param route
+     */
+    default void recordCacheHit(String route) {
+    }
+
+    /**
+     * 没有可用的缓存
+     *
+     * @param route
+     */
+    default void recordCacheMiss(String route) {
+    }
+
+    /**
+     * 过期的缓存发出条件请求重新验证
+     *
+     * @param route
+     * @param notModified 服务端返回304，沿用缓存的响应体
+     */
+    default void recordCacheRevalidation(String route, boolean notModified) {
+    }
+
+    /**
+     * 请求与执行中的相同请求合并，未单独发出
+     *
+     * @param route
+     */
+    default void recordCoalesced(String route) {
+    }
+
+    /**
+     * 发出对冲请求
+     *
+     * @param route
+     */
+    default void recordHedge(String route) {
+    }
+
+    /**
+     * 对冲请求先于原请求返回
+     *
+     * @param route
+     */
+    default void recordHedgeWin(String route) {
+    }
+
+    /**
+     * 请求被熔断或并发限制拒绝
+     *
+     * @param route
+     * @param reason
+     */
+    default void recordRejection(String route, String reason) {
+    }
+
+    /**
+     * 熔断状态变化
+     *
+     * @param route
+     * @param state
+     */
+    default void recordCircuitState(String route, CircuitBreaker.State state) {
+    }
+
+    /**
+     * 并发限制变化
+     *
+     * @param route
+     * @param limit
+     */
+    default void recordConcurrencyLimit(String route, int limit) {
+    }
+}
@@ -0,0 +1,322 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpHost;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * 客户端注册中心
+ * <p>
+ * 按名称注册配置，相同配置只构建一次客户端并在线程间共享，进程退出时统一关闭。
+ * 客户端构建完成后按名称获取只是一次并发map的读取，不加锁也不分配对象
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-10 09:30
+ **/
+public class HttpClientRegistry {
+
+    /**
+     * 默认客户端名称
+     */
+    public static final String DEFAULT_NAME = "default";
+
+    /**
+     * 名称与配置的映射
+     */
+    private static final ConcurrentMap<String, HttpClientConfig> CONFIGS = new ConcurrentHashMap<String, HttpClientConfig>();
+
+    /**
+     * 配置与客户端的映射
+     */
+    private static final ConcurrentMap<HttpClientConfig, ManagedHttpClient> CLIENTS = new ConcurrentHashMap<HttpClientConfig, ManagedHttpClient>();
+
+    /**
+     * 名称与已构建客户端的映射，按名称获取的快速路径
+     */
+    private static final ConcurrentMap<String, ManagedHttpClient> NAMED = new ConcurrentHashMap<String, ManagedHttpClient>();
+
+    /**
+     * 空闲连接清理
+     */
+    private static final IdleConnectionReaper REAPER = new IdleConnectionReaper();
+
+    private static volatile boolean closed = false;
+
+    static {
+        CONFIGS.put(DEFAULT_NAME, HttpClientConfig.DEFAULT);
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        }, "http-client-registry-shutdown"));
+    }
+
+    private HttpClientRegistry() {
+    }
+
+    /**
+     * 注册客户端配置，同一名称的客户端构建后不允许更换配置
+     *
+     * @param name
+     * @param config
+     */
+    public static synchronized void register(String name, HttpClientConfig config) {
+        if (name == null || config == null) {
+            throw new IllegalArgumentException("name and config must not be null");
+        }
+        ManagedHttpClient built = NAMED.get(name);
+        if (built != null && !built.getConfig().equals(config)) {
+            throw new IllegalStateException("client [" + name + "] is already built with " + built.getConfig());
+        }
+        CONFIGS.put(name, config);
+    }
+
+    /**
+     * 获取默认客户端
+     *
+     * @return
+     * @throws Exception
+     */
+    public static CloseableHttpClient getClient() throws Exception {
+        return getClient(DEFAULT_NAME);
+    }
+
+    /**
+     * 按名称获取客户端
+     *
+     * @param name
+     * @return
+     * @throws Exception
+     */
+    public static CloseableHttpClient getClient(String name) throws Exception {
+        return getManagedClient(name).getClient();
+    }
+
+    /**
+     * 按配置获取客户端
+     *
+     * @param config
+     * @return
+     * @throws Exception
+     */
+    public static CloseableHttpClient getClient(HttpClientConfig config) throws Exception {
+        return getManagedClient(config).getClient();
+    }
+
+    /**
+     * 获取默认异步客户端
+     *
+     * @return
+     * @throws Exception
+     */
+    public static CloseableHttpAsyncClient getAsyncClient() throws Exception {
+        return getAsyncClient(DEFAULT_NAME);
+    }
+
+    /**
+     * 按名称获取异步客户端
+     *
+     * @param name
+     * @return
+     * @throws Exception
+     */
+    public static CloseableHttpAsyncClient getAsyncClient(String name) throws Exception {
+        return getManagedClient(name).getAsyncClient();
+    }
+
+    /**
+     * 预热客户端，为配置了单独连接数的主机（{@link HttpClientConfig.Builder#setMaxPerRoute}）解析域名并建立连接，
+     * 在服务报告就绪前调用
+     *
+     * @param name
+     * @param connections 每个路由建立的连接数
+     * @return 新建立的连接数
+     * @throws Exception
+     */
+    public static int warmUp(String name, int connections) throws Exception {
+        ManagedHttpClient client = getManagedClient(name);
+        return client.warmUp(client.getConfig().getMaxPerRoute().keySet(), connections);
+    }
+
+    /**
+     * 预热客户端，为指定主机解析域名并建立连接
+     *
+     * @param name
+     * @param hosts
+     * @param connections 每个路由建立的连接数
+     * @return 新建立的连接数
+     * @throws Exception
+     */
+    public static int warmUp(String name, Collection<HttpHost> hosts, int connections) throws Exception {
+        return getManagedClient(name).warmUp(hosts, connections);
+    }
+
+    /**
+     * 按名称获取或构建客户端
+     *
+     * @param name
+     * @return
+     * @throws Exception
+     */
+    static ManagedHttpClient getManagedClient(String name) throws Exception {
+        ManagedHttpClient client = NAMED.get(name);
+        if (client != null && !closed) {
+            return client;
+        }
+        HttpClientConfig config = CONFIGS.get(name);
+        if (config == null) {
+            throw new IllegalArgumentException("client [" + name + "] is not registered");
+        }
+        client = getManagedClient(config);
+        ManagedHttpClient previous = NAMED.putIfAbsent(name, client);
+        if (previous != null) {
+            return previous;
+        }
+        registerMBean(name, client);
+        return client;
+    }
+
+    /**
+     * 按名称获取指标
+     *
+     * @param name
+     * @return
+     * @throws Exception
+     */
+    public static HttpClientMetrics getMetrics(String name) throws Exception {
+        return getManagedClient(name).getMetrics();
+    }
+
+    /**
+     * 注册JMX监控
+     *
+     * @param name
+     * @param client
+     */
+    private static void registerMBean(String name, ManagedHttpClient client) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(name);
+            if (!server.isRegistered(objectName)) {
+                server.registerMBean(new HttpClientStats(client.getManager(), client.getMetrics()), objectName);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * 注销JMX监控
+     *
+     * @param name
+     */
+    private static void unregisterMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = objectName(name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static ObjectName objectName(String name) throws MalformedObjectNameException {
+        return new ObjectName("com.springboot.httpclient:type=HttpClient,name=" + ObjectName.quote(name));
+    }
+
+    /**
+     * 获取或构建客户端，同一配置只会构建一次
+     *
+     * @param config
+     * @return
+     * @throws Exception
+     */
+    static ManagedHttpClient getManagedClient(HttpClientConfig config) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("http client registry is closed");
+        }
+        ManagedHttpClient client = CLIENTS.get(config);
+        if (client != null) {
+            return client;
+        }
+        try {
+            client = CLIENTS.computeIfAbsent(config, new Function<HttpClientConfig, ManagedHttpClient>() {
+                @Override
+                public ManagedHttpClient apply(HttpClientConfig config) {
+                    return build(config);
+                }
+            });
+        } catch (BuildException e) {
+            throw (Exception) e.getCause();
+        }
+        if (closed) {
+            // 与close并发时构建出的客户端不能泄漏
+            CLIENTS.remove(config, client);
+            REAPER.unregister(client);
+            client.close();
+            throw new IllegalStateException("http client registry is closed");
+        }
+        return client;
+    }
+
+    private static ManagedHttpClient build(HttpClientConfig config) {
+        try {
+            ManagedHttpClient client = new ManagedHttpClient(config);
+            REAPER.register(client);
+            return client;
+        } catch (Exception e) {
+            throw new BuildException(e);
+        }
+    }
+
+    /**
+     * 关闭全部客户端及连接池
+     */
+    public static void close() {
+        List<ManagedHttpClient> clients;
+        synchronized (HttpClientRegistry.class) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            clients = new ArrayList<ManagedHttpClient>(CLIENTS.values());
+            for (String name : NAMED.keySet()) {
+                unregisterMBean(name);
+            }
+            CLIENTS.clear();
+            NAMED.clear();
+        }
+        REAPER.shutdown();
+        for (ManagedHttpClient client : clients) {
+            try {
+                client.close();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * computeIfAbsent中传递构建异常
+     */
+    private static class BuildException extends RuntimeException {
+        BuildException(Exception cause) {
+            super(cause);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpRequest;
+import org.apache.http.client.HttpRequestRetryHandler;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+
+import java.io.IOException;
+
+/**
+ * 请求重试
+ * <p>
+ * 按{@link RetryPolicy}判断是否重试，重试前按退避时间等待，并受路由重试预算限制
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-03 10:43
+ **/
+public class HttpClientRetryHandler implements HttpRequestRetryHandler {
+
+    private final RetryPolicy policy;
+
+    private final RetryBudget budget;
+
+    private final HttpClientMetrics metrics;
+
+    HttpClientRetryHandler() {
+        this(HttpClientConfigHandler.Constants.RETRY_COUNT);
+    }
+
+    HttpClientRetryHandler(int maxCount) {
+        this(RetryPolicy.custom().setMaxAttempts(maxCount).build(), RetryBudget.UNLIMITED, HttpClientMetrics.NOOP);
+    }
+
+    HttpClientRetryHandler(RetryPolicy policy, RetryBudget budget, HttpClientMetrics metrics) {
+        this.policy = policy;
+        this.budget = budget;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean retryRequest(IOException exception, int count, HttpContext context) {
+        HttpClientContext clientContext = HttpClientContext.adapt(context);
+        if (!shouldRetry(exception, count, clientContext)) {
+            return false;
+        }
+        String route = MetricsExecChain.routeOf(clientContext.getHttpRoute());
+        // 超出重试预算时放弃，避免下游降级时重试放大流量
+        if (!budget.tryAcquire(route)) {
+            return false;
+        }
+        long backoff = policy.backoff(count);
+        if (backoff > 0) {
+            try {
+                Thread.sleep(backoff);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        metrics.recordRetry(route, exception);
+        return true;
+    }
+
+    private boolean shouldRetry(IOException exception, int count, HttpClientContext context) {
+        // 如果已经尝试了maxAttempts次，就放弃
+        if (count >= policy.getMaxAttempts()) {
+            return false;
+        }
+        Boolean retryable = policy.isRetryable(exception);
+        if (retryable != null) {
+            return retryable;
+        }
+        // 如果请求是幂等的，就再次尝试
+        return isIdempotent(context.getRequest());
+    }
+
+    /**
+     * 请求是否幂等
+     *
+     * @param request
+     * @return
+     */
+    static boolean isIdempotent(HttpRequest request) {
+        return !(request instanceof HttpEntityEnclosingRequest);
+    }
+}
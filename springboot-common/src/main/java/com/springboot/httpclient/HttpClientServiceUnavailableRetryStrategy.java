@@ -0,0 +1,74 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ServiceUnavailableRetryStrategy;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * 按响应状态码重试
+ * <p>
+ * 幂等请求收到{@link RetryPolicy#getRetryableStatusCodes()}中的状态码时重试，优先使用服务端的Retry-After
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-18 14:30
+ **/
+public class HttpClientServiceUnavailableRetryStrategy implements ServiceUnavailableRetryStrategy {
+
+    /**
+     * getRetryInterval没有参数，由retryRequest在同一线程中计算好
+     */
+    private static final ThreadLocal<Long> INTERVAL = new ThreadLocal<Long>();
+
+    private final RetryPolicy policy;
+
+    private final RetryBudget budget;
+
+    private final HttpClientMetrics metrics;
+
+    HttpClientServiceUnavailableRetryStrategy(RetryPolicy policy, RetryBudget budget, HttpClientMetrics metrics) {
+        this.policy = policy;
+        this.budget = budget;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean retryRequest(HttpResponse response, int executionCount, HttpContext context) {
+        if (executionCount >= policy.getMaxAttempts()
+                || !policy.getRetryableStatusCodes().contains(response.getStatusLine().getStatusCode())) {
+            return false;
+        }
+        HttpClientContext clientContext = HttpClientContext.adapt(context);
+        if (!HttpClientRetryHandler.isIdempotent(clientContext.getRequest())) {
+            return false;
+        }
+        String route = MetricsExecChain.routeOf(clientContext.getHttpRoute());
+        if (!budget.tryAcquire(route)) {
+            return false;
+        }
+        INTERVAL.set(retryAfter(response, executionCount));
+        metrics.recordRetry(route, null);
+        return true;
+    }
+
+    @Override
+    public long getRetryInterval() {
+        Long interval = INTERVAL.get();
+        INTERVAL.remove();
+        return interval == null ? 0 : interval;
+    }
+
+    private long retryAfter(HttpResponse response, int executionCount) {
+        Header header = response.getFirstHeader("Retry-After");
+        if (header != null) {
+            try {
+                return Math.min(Long.parseLong(header.getValue().trim()) * 1000, policy.getMaxBackoff());
+            } catch (NumberFormatException ignore) {
+                // 日期格式的Retry-After按退避时间处理
+            }
+        }
+        return policy.backoff(executionCount);
+    }
+}
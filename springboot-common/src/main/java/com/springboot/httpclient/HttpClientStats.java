@@ -0,0 +1,278 @@
+package com.springboot.httpclient;
+
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 客户端JMX监控实现，连接池数据实时读取，请求数据来自{@link InMemoryHttpClientMetrics}
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-16 09:50
+ **/
+class HttpClientStats implements HttpClientStatsMXBean {
+
+    private final PoolingHttpClientConnectionManager manager;
+
+    /**
+     * 使用自定义指标实现时为null，只提供连接池数据
+     */
+    private final InMemoryHttpClientMetrics metrics;
+
+    HttpClientStats(PoolingHttpClientConnectionManager manager, HttpClientMetrics metrics) {
+        this.manager = manager;
+        this.metrics = metrics instanceof InMemoryHttpClientMetrics ? (InMemoryHttpClientMetrics) metrics : null;
+    }
+
+    @Override
+    public int getMaxTotal() {
+        return manager.getMaxTotal();
+    }
+
+    @Override
+    public int getLeased() {
+        return stats().getLeased();
+    }
+
+    @Override
+    public int getAvailable() {
+        return stats().getAvailable();
+    }
+
+    @Override
+    public int getPending() {
+        return stats().getPending();
+    }
+
+    @Override
+    public double getLeaseWaitP99Millis() {
+        return metrics == null ? 0 : metrics.getLease().getPercentileMillis(99);
+    }
+
+    @Override
+    public double getLeaseWaitMaxMillis() {
+        return metrics == null ? 0 : metrics.getLease().getMaxMillis();
+    }
+
+    @Override
+    public long getRequestCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getRequests();
+        }
+        return total;
+    }
+
+    @Override
+    public long getExceptionCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getExceptions();
+        }
+        return total;
+    }
+
+    @Override
+    public long getRetryCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getRetries();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesSent() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getBytesSent();
+        }
+        return total;
+    }
+
+    @Override
+    public long getBytesReceived() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getBytesReceived();
+        }
+        return total;
+    }
+
+    @Override
+    public long getRequestLogicalBytes() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCompressedLogicalBytesSent();
+        }
+        return total;
+    }
+
+    @Override
+    public long getRequestWireBytes() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCompressedWireBytesSent();
+        }
+        return total;
+    }
+
+    @Override
+    public long getResponseLogicalBytes() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCompressedLogicalBytesReceived();
+        }
+        return total;
+    }
+
+    @Override
+    public long getResponseWireBytes() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCompressedWireBytesReceived();
+        }
+        return total;
+    }
+
+    @Override
+    public long getCacheHitCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCacheHits();
+        }
+        return total;
+    }
+
+    @Override
+    public long getCacheMissCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCacheMisses();
+        }
+        return total;
+    }
+
+    @Override
+    public long getCacheRevalidationCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCacheRevalidations();
+        }
+        return total;
+    }
+
+    @Override
+    public long getCacheNotModifiedCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCacheNotModified();
+        }
+        return total;
+    }
+
+    @Override
+    public long getCoalescedCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getCoalesced();
+        }
+        return total;
+    }
+
+    @Override
+    public long getHedgeCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getHedges();
+        }
+        return total;
+    }
+
+    @Override
+    public long getHedgeWinCount() {
+        long total = 0;
+        for (InMemoryHttpClientMetrics.RouteMetrics route : routes().values()) {
+            total += route.getHedgeWins();
+        }
+        return total;
+    }
+
+    @Override
+    public Map<String, Long> getRouteRequests() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, InMemoryHttpClientMetrics.RouteMetrics> entry : routes().entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getRequests());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getRouteP50Millis() {
+        return percentiles(50);
+    }
+
+    @Override
+    public Map<String, Double> getRouteP99Millis() {
+        return percentiles(99);
+    }
+
+    @Override
+    public Map<String, Long> getRouteRejections() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        for (Map.Entry<String, InMemoryHttpClientMetrics.RouteMetrics> entry : routes().entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getRejections());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, String> getRouteCircuitStates() {
+        Map<String, String> result = new TreeMap<String, String>();
+        for (Map.Entry<String, InMemoryHttpClientMetrics.RouteMetrics> entry : routes().entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getCircuitState().name());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Integer> getRouteConcurrencyLimits() {
+        Map<String, Integer> result = new TreeMap<String, Integer>();
+        for (Map.Entry<String, InMemoryHttpClientMetrics.RouteMetrics> entry : routes().entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getConcurrencyLimit());
+        }
+        return result;
+    }
+
+    @Override
+    public Map<String, Long> getExceptionCounts() {
+        Map<String, Long> result = new TreeMap<String, Long>();
+        if (metrics != null) {
+            for (Map.Entry<String, LongAdder> entry : metrics.getExceptions().entrySet()) {
+                result.put(entry.getKey(), entry.getValue().sum());
+            }
+        }
+        return result;
+    }
+
+    private Map<String, Double> percentiles(double percentile) {
+        Map<String, Double> result = new TreeMap<String, Double>();
+        for (Map.Entry<String, InMemoryHttpClientMetrics.RouteMetrics> entry : routes().entrySet()) {
+            result.put(entry.getKey(), entry.getValue().getLatency().getPercentileMillis(percentile));
+        }
+        return result;
+    }
+
+    private Map<String, InMemoryHttpClientMetrics.RouteMetrics> routes() {
+        return metrics == null ? Collections.<String, InMemoryHttpClientMetrics.RouteMetrics>emptyMap() : metrics.getRoutes();
+    }
+
+    private PoolStats stats() {
+        return manager.getTotalStats();
+    }
+}
@@ -0,0 +1,143 @@
+package com.springboot.httpclient;
+
+import java.util.Map;
+
+/**
+ * 客户端JMX监控接口
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-16 09:50
+ **/
+public interface HttpClientStatsMXBean {
+
+    /**
+     * 连接池最大连接数
+     */
+    int getMaxTotal();
+
+    /**
+     * 已租用的连接数
+     */
+    int getLeased();
+
+    /**
+     * 空闲可用的连接数
+     */
+    int getAvailable();
+
+    /**
+     * 等待连接的请求数
+     */
+    int getPending();
+
+    /**
+     * 获取连接等待时间p99（毫秒）
+     */
+    double getLeaseWaitP99Millis();
+
+    /**
+     * 获取连接等待时间最大值（毫秒）
+     */
+    double getLeaseWaitMaxMillis();
+
+    long getRequestCount();
+
+    long getExceptionCount();
+
+    long getRetryCount();
+
+    long getBytesSent();
+
+    long getBytesReceived();
+
+    /**
+     * 压缩前的请求体字节数
+     */
+    long getRequestLogicalBytes();
+
+    /**
+     * 压缩后实际发送的请求体字节数
+     */
+    long getRequestWireBytes();
+
+    /**
+     * 解压后的响应体字节数
+     */
+    long getResponseLogicalBytes();
+
+    /**
+     * 解压前实际接收的响应体字节数
+     */
+    long getResponseWireBytes();
+
+    /**
+     * 直接由缓存返回的请求数
+     */
+    long getCacheHitCount();
+
+    /**
+     * 没有可用缓存的请求数
+     */
+    long getCacheMissCount();
+
+    /**
+     * 缓存重新验证次数
+     */
+    long getCacheRevalidationCount();
+
+    /**
+     * 重新验证返回304的次数
+     */
+    long getCacheNotModifiedCount();
+
+    /**
+     * 合并到执行中的相同请求的次数
+     */
+    long getCoalescedCount();
+
+    /**
+     * 对冲请求数
+     */
+    long getHedgeCount();
+
+    /**
+     * 对冲请求先返回的次数
+     */
+    long getHedgeWinCount();
+
+    /**
+     * 各路由请求数
+     */
+    Map<String, Long> getRouteRequests();
+
+    /**
+     * 各路由延迟p50（毫秒）
+     */
+    Map<String, Double> getRouteP50Millis();
+
+    /**
+     * 各路由延迟p99（毫秒）
+     */
+    Map<String, Double> getRouteP99Millis();
+
+    /**
+     * 各路由被拒绝的请求数
+     */
+    Map<String, Long> getRouteRejections();
+
+    /**
+     * 各路由熔断状态
+     */
+    Map<String, String> getRouteCircuitStates();
+
+    /**
+     * 各路由并发限制
+     */
+    Map<String, Integer> getRouteConcurrencyLimits();
+
+    /**
+     * 各异常类型次数
+     */
+    Map<String, Long> getExceptionCounts();
+}
@@ -0,0 +1,271 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * http客户端工具类
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-02 14:07
+ **/
+public class HttpClientUtil {
+
+    /**
+     * 配置常量
+     */
+    interface Constants {
+        String CHAR_SET_UTF_8 = "UTF-8";
+    }
+
+    /**
+     * 获取请求参数
+     *
+     * @return
+     */
+    public static String get(String url, HashMap<String, Object> params) {
+        return get(url, null, params);
+    }
+
+    /**
+     * 获取请求参数
+     *
+     * @return
+     */
+    public static String get(String url, HashMap<String, String> headers, HashMap<String, Object> params) {
+        HttpGet get = new HttpGet(FormEncoder.appendQuery(url, params, StandardCharsets.UTF_8));
+        return execute(get, headers);
+    }
+
+    /**
+     * post方式提交multipart/form-data表单，值为File/Path时作为文件上传
+     *
+     * @param url
+     * @param params
+     * @return
+     */
+    public static String postFormData(String url, HashMap<String, Object> params) {
+        return postFormData(url, null, params, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * post方式提交multipart/form-data表单，文件在发送时流式读取
+     *
+     * @param url
+     * @param headers
+     * @param params
+     * @param charset
+     * @return
+     */
+    public static String postFormData(String url, HashMap<String, String> headers, HashMap<String, Object> params, Charset charset) {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(FormEncoder.multipart(params, charset));
+        return execute(post, headers);
+    }
+
+    /**
+     * post方式提交form表单
+     *
+     * @param url
+     * @param params
+     * @return
+     */
+    public static String postFormUrlencoded(String url, HashMap<String, Object> params) {
+        return postForm(url, null, params);
+    }
+
+    /**
+     * post方式提交application/x-www-form-urlencoded表单
+     *
+     * @param url
+     * @param headers
+     * @param params
+     * @return
+     */
+    public static String postForm(String url, HashMap<String, String> headers, HashMap<String, Object> params) {
+        return postForm(url, headers, params, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * post方式提交application/x-www-form-urlencoded表单，参数在请求体中按charset编码
+     *
+     * @param url
+     * @param headers
+     * @param params
+     * @param charset
+     * @return
+     */
+    public static String postForm(String url, HashMap<String, String> headers, HashMap<String, Object> params, Charset charset) {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new FormUrlEncodedEntity(params, charset));
+        return execute(post, headers);
+    }
+
+    /**
+     * post数据元数据
+     *
+     * @param url
+     * @param headers
+     * @param params
+     * @return
+     */
+    public static String postJson(String url, HashMap<String, String> headers, Object params) {
+        return post(url, headers, params.toString());
+    }
+
+    /**
+     * post数据元数据
+     *
+     * @param url
+     * @param headers
+     * @param params
+     * @return
+     */
+    public static String post(String url, HashMap<String, String> headers, String params) {
+        HttpPost post = new HttpPost(url);
+        post.setEntity(new StringEntity(params, Constants.CHAR_SET_UTF_8));
+        return execute(post, headers);
+    }
+
+    /**
+     * 执行用户请求
+     *
+     * @param request
+     * @param headers
+     * @return
+     */
+    public static String execute(HttpUriRequest request, HashMap<String, String> headers) {
+        return execute(request, headers, Constants.CHAR_SET_UTF_8);
+    }
+
+    /**
+     * 执行用户请求
+     *
+     * @param request
+     * @param headers
+     * @param charset
+     * @return
+     */
+    public static String execute(HttpUriRequest request, HashMap<String, String> headers, String charset) {
+        return execute(HttpClientRegistry.DEFAULT_NAME, request, headers, charset);
+    }
+
+    /**
+     * 使用指定名称的客户端执行用户请求
+     *
+     * @param clientName
+     * @param request
+     * @param headers
+     * @param charset
+     * @return
+     */
+    public static String execute(String clientName, HttpUriRequest request, HashMap<String, String> headers, String charset) {
+        try {
+            CloseableHttpClient httpClient = HttpClientRegistry.getClient(clientName);
+            if (headers != null) {
+                request.setHeaders(HttpClientConfigHandler.createHeaders(headers));
+            }
+            // 关闭响应，确保连接归还连接池
+            try (CloseableHttpResponse response = httpClient.execute(request)) {
+                HttpEntity entity = response.getEntity();
+                return entity == null ? null : EntityUtils.toString(entity, charset);
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * 执行用户请求，由handler以流的方式处理响应
+     * <p>
+     * handler返回后响应体会被消费完并关闭，连接归还连接池
+     *
+     * @param request
+     * @param headers
+     * @param handler
+     * @param <T>
+     * @return
+     */
+    public static <T> T execute(HttpUriRequest request, HashMap<String, String> headers, ResponseHandler<? extends T> handler) {
+        return execute(HttpClientRegistry.DEFAULT_NAME, request, headers, handler);
+    }
+
+    /**
+     * 使用指定名称的客户端执行用户请求，由handler以流的方式处理响应
+     *
+     * @param clientName
+     * @param request
+     * @param headers
+     * @param handler
+     * @param <T>
+     * @return
+     */
+    public static <T> T execute(String clientName, HttpUriRequest request, HashMap<String, String> headers, ResponseHandler<? extends T> handler) {
+        try {
+            CloseableHttpClient httpClient = HttpClientRegistry.getClient(clientName);
+            if (headers != null) {
+                request.setHeaders(HttpClientConfigHandler.createHeaders(headers));
+            }
+            return httpClient.execute(request, handler);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * 下载响应体到文件
+     *
+     * @param request
+     * @param headers
+     * @param path
+     * @return 写入的字节数，失败返回null
+     */
+    public static Long download(HttpUriRequest request, HashMap<String, String> headers, Path path) {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return download(request, headers, channel);
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return null;
+    }
+
+    /**
+     * 下载响应体到通道
+     *
+     * @param request
+     * @param headers
+     * @param channel
+     * @return 写入的字节数，失败返回null
+     */
+    public static Long download(HttpUriRequest request, HashMap<String, String> headers, WritableByteChannel channel) {
+        return execute(request, headers, new StreamResponseHandler(channel));
+    }
+
+    /**
+     * 获取请求参数
+     *
+     * @param params
+     * @return
+     */
+    static String getQuery(HashMap<String, Object> params) {
+        return FormEncoder.toQuery(params, StandardCharsets.UTF_8);
+    }
+}
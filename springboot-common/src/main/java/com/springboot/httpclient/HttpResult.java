@@ -0,0 +1,72 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+
+/**
+ * 请求结果
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-11 10:15
+ **/
+public class HttpResult {
+
+    private final int statusCode;
+
+    private final Header[] headers;
+
+    private final String body;
+
+    public HttpResult(int statusCode, Header[] headers, String body) {
+        this.statusCode = statusCode;
+        this.headers = headers;
+        this.body = body;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public Header[] getHeaders() {
+        return headers;
+    }
+
+    /**
+     * 获取第一个同名响应头的值
+     *
+     * @param name
+     * @return
+     */
+    public String getHeader(String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Header header : headers) {
+            if (header.getName().equalsIgnoreCase(name)) {
+                return header.getValue();
+            }
+        }
+        return null;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * 是否2xx响应
+     *
+     * @return
+     */
+    public boolean isSuccess() {
+        return statusCode >= 200 && statusCode < 300;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpResult{" +
+                "statusCode=" + statusCode +
+                ", body=" + body +
+                '}';
+    }
+}
@@ -0,0 +1,41 @@
+package com.springboot.httpclient;
+
+import org.apache.http.impl.execchain.ClientExecChain;
+
+/**
+ * 传输方式扩展点
+ * <p>
+ * 传输方式构建执行链的最内层，负责把请求发送到服务端并取回响应。缓存、合并、对冲、重试、熔断、压缩和指标统计
+ * 都在它的外层，与传输方式无关。默认的{@link #CLASSIC}使用连接池中的HTTP/1.1连接，执行中的每个请求独占一个连接
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-05 09:00
+ **/
+public interface HttpTransport {
+
+    /**
+     * 基于连接池的HTTP/1.1传输
+     */
+    HttpTransport CLASSIC = new HttpTransport() {
+        @Override
+        public ClientExecChain createExec(ClientExecChain classic, HttpClientConfig config, HttpClientMetrics metrics) {
+            return classic;
+        }
+
+        @Override
+        public String toString() {
+            return "CLASSIC";
+        }
+    };
+
+    /**
+     * 构建执行链最内层，每个客户端调用一次
+     *
+     * @param classic 基于连接池的HTTP/1.1执行链，不支持的请求可以交给它
+     * @param config
+     * @param metrics
+     * @return 实现了{@link java.io.Closeable}时随客户端一起关闭
+     */
+    ClientExecChain createExec(ClientExecChain classic, HttpClientConfig config, HttpClientMetrics metrics);
+}
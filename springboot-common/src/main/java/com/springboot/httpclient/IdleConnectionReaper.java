@@ -0,0 +1,85 @@
+package com.springboot.httpclient;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 空闲连接清理
+ * <p>
+ * 由注册中心持有的后台线程，定期关闭各客户端连接池中过期和空闲过久的连接，
+ * 避免复用已被服务端半关闭的连接导致NoHttpResponseException
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-13 10:20
+ **/
+class IdleConnectionReaper {
+
+    /**
+     * 清理间隔（秒）
+     */
+    static final long INTERVAL = 5;
+
+    private final Set<ManagedHttpClient> clients = new CopyOnWriteArraySet<ManagedHttpClient>();
+
+    private ScheduledExecutorService executor;
+
+    /**
+     * 加入清理
+     *
+     * @param client
+     */
+    synchronized void register(ManagedHttpClient client) {
+        clients.add(client);
+        if (executor == null) {
+            executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "http-client-idle-reaper");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    reap();
+                }
+            }, INTERVAL, INTERVAL, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * 移出清理
+     *
+     * @param client
+     */
+    void unregister(ManagedHttpClient client) {
+        clients.remove(client);
+    }
+
+    void reap() {
+        for (ManagedHttpClient client : clients) {
+            try {
+                client.closeIdleConnections();
+            } catch (Exception e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * 停止后台线程
+     */
+    synchronized void shutdown() {
+        clients.clear();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
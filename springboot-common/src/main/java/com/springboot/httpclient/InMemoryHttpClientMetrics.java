@@ -0,0 +1,360 @@
+package com.springboot.httpclient;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 默认的内存指标实现，无第三方依赖
+ * <p>
+ * 按路由统计延迟直方图、状态码、异常、重试、传输字节数、压缩前后的字节数、缓存命中、请求合并及对冲情况
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-16 09:50
+ **/
+public class InMemoryHttpClientMetrics implements HttpClientMetrics {
+
+    private final LatencyHistogram lease = new LatencyHistogram();
+
+    private final ConcurrentMap<String, RouteMetrics> routes = new ConcurrentHashMap<String, RouteMetrics>();
+
+    private final ConcurrentMap<String, LongAdder> exceptions = new ConcurrentHashMap<String, LongAdder>();
+
+    @Override
+    public void recordLease(long nanos) {
+        lease.record(nanos);
+    }
+
+    @Override
+    public void recordRequest(String route, int statusCode, long nanos) {
+        RouteMetrics metrics = route(route);
+        metrics.latency.record(nanos);
+        if (statusCode >= 500) {
+            metrics.serverErrors.increment();
+        } else if (statusCode >= 400) {
+            metrics.clientErrors.increment();
+        }
+    }
+
+    @Override
+    public void recordException(String route, Throwable exception, long nanos) {
+        RouteMetrics metrics = route(route);
+        metrics.latency.record(nanos);
+        metrics.exceptions.increment();
+        counter(exceptions, exception.getClass().getName()).increment();
+    }
+
+    @Override
+    public void recordRetry(String route, Throwable exception) {
+        route(route).retries.increment();
+    }
+
+    @Override
+    public void recordBytes(String route, long sent, long received) {
+        RouteMetrics metrics = route(route);
+        if (sent > 0) {
+            metrics.bytesSent.add(sent);
+        }
+        if (received > 0) {
+            metrics.bytesReceived.add(received);
+        }
+    }
+
+    @Override
+    public void recordRequestCompression(String route, long logicalBytes, long wireBytes) {
+        RouteMetrics metrics = route(route);
+        metrics.compressedLogicalBytesSent.add(logicalBytes);
+        metrics.compressedWireBytesSent.add(wireBytes);
+    }
+
+    @Override
+    public void recordResponseDecompression(String route, long logicalBytes, long wireBytes) {
+        RouteMetrics metrics = route(route);
+        metrics.compressedLogicalBytesReceived.add(logicalBytes);
+        metrics.compressedWireBytesReceived.add(wireBytes);
+    }
+
+    @Override
+    public void recordCacheHit(String route) {
+        route(route).cacheHits.increment();
+    }
+
+    @Override
+    public void recordCacheMiss(String route) {
+        route(route).cacheMisses.increment();
+    }
+
+    @Override
+    public void recordCacheRevalidation(String route, boolean notModified) {
+        RouteMetrics metrics = route(route);
+        metrics.cacheRevalidations.increment();
+        if (notModified) {
+            metrics.cacheNotModified.increment();
+        }
+    }
+
+    @Override
+    public void recordCoalesced(String route) {
+        route(route).coalesced.increment();
+    }
+
+    @Override
+    public void recordHedge(String route) {
+        route(route).hedges.increment();
+    }
+
+    @Override
+    public void recordHedgeWin(String route) {
+        route(route).hedgeWins.increment();
+    }
+
+    @Override
+    public void recordRejection(String route, String reason) {
+        route(route).rejections.increment();
+    }
+
+    @Override
+    public void recordCircuitState(String route, CircuitBreaker.State state) {
+        route(route).circuitState = state;
+    }
+
+    @Override
+    public void recordConcurrencyLimit(String route, int limit) {
+        route(route).concurrencyLimit = limit;
+    }
+
+    /**
+     * 连接获取等待时间
+     *
+     * @return
+     */
+    public LatencyHistogram getLease() {
+        return lease;
+    }
+
+    /**
+     * 各路由指标
+     *
+     * @return
+     */
+    public Map<String, RouteMetrics> getRoutes() {
+        return Collections.unmodifiableMap(routes);
+    }
+
+    /**
+     * 各异常类型次数
+     *
+     * @return
+     */
+    public Map<String, LongAdder> getExceptions() {
+        return Collections.unmodifiableMap(exceptions);
+    }
+
+    private RouteMetrics route(String route) {
+        RouteMetrics metrics = routes.get(route);
+        if (metrics == null) {
+            metrics = new RouteMetrics();
+            RouteMetrics previous = routes.putIfAbsent(route, metrics);
+            if (previous != null) {
+                metrics = previous;
+            }
+        }
+        return metrics;
+    }
+
+    static LongAdder counter(ConcurrentMap<String, LongAdder> counters, String name) {
+        LongAdder counter = counters.get(name);
+        if (counter == null) {
+            counter = new LongAdder();
+            LongAdder previous = counters.putIfAbsent(name, counter);
+            if (previous != null) {
+                counter = previous;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * 单个路由的指标
+     */
+    public static class RouteMetrics {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private final LongAdder clientErrors = new LongAdder();
+
+        private final LongAdder serverErrors = new LongAdder();
+
+        private final LongAdder exceptions = new LongAdder();
+
+        private final LongAdder retries = new LongAdder();
+
+        private final LongAdder bytesSent = new LongAdder();
+
+        private final LongAdder bytesReceived = new LongAdder();
+
+        private final LongAdder rejections = new LongAdder();
+
+        private final LongAdder compressedLogicalBytesSent = new LongAdder();
+
+        private final LongAdder compressedWireBytesSent = new LongAdder();
+
+        private final LongAdder compressedLogicalBytesReceived = new LongAdder();
+
+        private final LongAdder compressedWireBytesReceived = new LongAdder();
+
+        private final LongAdder cacheHits = new LongAdder();
+
+        private final LongAdder cacheMisses = new LongAdder();
+
+        private final LongAdder cacheRevalidations = new LongAdder();
+
+        private final LongAdder cacheNotModified = new LongAdder();
+
+        private final LongAdder coalesced = new LongAdder();
+
+        private final LongAdder hedges = new LongAdder();
+
+        private final LongAdder hedgeWins = new LongAdder();
+
+        private volatile CircuitBreaker.State circuitState = CircuitBreaker.State.CLOSED;
+
+        private volatile int concurrencyLimit = -1;
+
+        public LatencyHistogram getLatency() {
+            return latency;
+        }
+
+        public long getRequests() {
+            return latency.getCount();
+        }
+
+        public long getClientErrors() {
+            return clientErrors.sum();
+        }
+
+        public long getServerErrors() {
+            return serverErrors.sum();
+        }
+
+        public long getExceptions() {
+            return exceptions.sum();
+        }
+
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        public long getRejections() {
+            return rejections.sum();
+        }
+
+        /**
+         * 经过压缩的请求体压缩前的字节数
+         *
+         * @return
+         */
+        public long getCompressedLogicalBytesSent() {
+            return compressedLogicalBytesSent.sum();
+        }
+
+        /**
+         * 经过压缩的请求体实际发送的字节数
+         *
+         * @return
+         */
+        public long getCompressedWireBytesSent() {
+            return compressedWireBytesSent.sum();
+        }
+
+        /**
+         * 经过解压的响应体解压后的字节数
+         *
+         * @return
+         */
+        public long getCompressedLogicalBytesReceived() {
+            return compressedLogicalBytesReceived.sum();
+        }
+
+        /**
+         * 经过解压的响应体实际接收的字节数
+         *
+         * @return
+         */
+        public long getCompressedWireBytesReceived() {
+            return compressedWireBytesReceived.sum();
+        }
+
+        /**
+         * 直接由缓存返回的次数
+         *
+         * @return
+         */
+        public long getCacheHits() {
+            return cacheHits.sum();
+        }
+
+        public long getCacheMisses() {
+            return cacheMisses.sum();
+        }
+
+        public long getCacheRevalidations() {
+            return cacheRevalidations.sum();
+        }
+
+        /**
+         * 重新验证时服务端返回304的次数
+         *
+         * @return
+         */
+        public long getCacheNotModified() {
+            return cacheNotModified.sum();
+        }
+
+        /**
+         * 合并到执行中的相同请求的次数
+         *
+         * @return
+         */
+        public long getCoalesced() {
+            return coalesced.sum();
+        }
+
+        public long getHedges() {
+            return hedges.sum();
+        }
+
+        /**
+         * 对冲请求先返回的次数
+         *
+         * @return
+         */
+        public long getHedgeWins() {
+            return hedgeWins.sum();
+        }
+
+        public CircuitBreaker.State getCircuitState() {
+            return circuitState;
+        }
+
+        /**
+         * 当前并发限制，未启用时为-1
+         *
+         * @return
+         */
+        public int getConcurrencyLimit() {
+            return concurrencyLimit;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 注册中心持有的客户端，连同连接池一起管理生命周期
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-10 09:30
+ **/
+class ManagedHttpClient implements Closeable {
+
+    /**
+     * 预热时并行建立连接的线程数上限
+     */
+    private static final int WARM_UP_THREADS = 16;
+
+    private static final ThreadFactory WARM_UP_THREAD_FACTORY = new ThreadFactory() {
+
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "http-client-warm-up-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private final HttpClientConfig config;
+
+    private final PoolingHttpClientConnectionManager manager;
+
+    private final CloseableHttpClient client;
+
+    private final HttpClientMetrics metrics;
+
+    /**
+     * 异步客户端在首次使用时构建
+     */
+    private volatile CloseableHttpAsyncClient asyncClient;
+
+    private volatile PoolingNHttpClientConnectionManager asyncManager;
+
+    private volatile boolean closed = false;
+
+    ManagedHttpClient(HttpClientConfig config) throws Exception {
+        this.config = config;
+        this.metrics = config.getMetrics() != null ? config.getMetrics() : new InMemoryHttpClientMetrics();
+        this.manager = HttpClientConfigHandler.createManager(config, metrics);
+        this.client = HttpClientConfigHandler.createClient(manager, config, metrics);
+    }
+
+    HttpClientConfig getConfig() {
+        return config;
+    }
+
+    PoolingHttpClientConnectionManager getManager() {
+        return manager;
+    }
+
+    CloseableHttpClient getClient() {
+        return client;
+    }
+
+    HttpClientMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * 获取异步客户端，拥有独立的NIO连接池
+     *
+     * @return
+     * @throws Exception
+     */
+    CloseableHttpAsyncClient getAsyncClient() throws Exception {
+        CloseableHttpAsyncClient client = asyncClient;
+        if (client == null) {
+            synchronized (this) {
+                client = asyncClient;
+                if (client == null) {
+                    if (closed) {
+                        throw new IllegalStateException("http client is closed");
+                    }
+                    PoolingNHttpClientConnectionManager nManager = HttpClientConfigHandler.createAsyncManager(config);
+                    client = HttpClientConfigHandler.createAsyncClient(nManager, config);
+                    asyncManager = nManager;
+                    asyncClient = client;
+                }
+            }
+        }
+        return client;
+    }
+
+    /**
+     * 预热：解析主机域名并在连接池中为每个主机建立连接，服务就绪前调用可避免首批请求承担建连和TLS握手的延迟
+     * <p>
+     * 每个路由最多建立connections个连接，不超过路由的最大连接数，连接池中已有的连接计入其中。
+     * 连接并行建立，全部结束后归还连接池；部分失败时已建立的连接保留，抛出第一个异常。
+     * HTTP/2传输只解析域名，不建立连接；异步连接池在首次使用时才构建，不预热
+     *
+     * @param hosts
+     * @param connections
+     * @return 新建立的连接数
+     * @throws Exception
+     */
+    int warmUp(Collection<HttpHost> hosts, int connections) throws Exception {
+        if (closed) {
+            throw new IllegalStateException("http client is closed");
+        }
+        DnsResolver resolver = HttpClientConfigHandler.dnsResolver(config);
+        for (HttpHost host : hosts) {
+            if (host.getAddress() == null) {
+                resolver.resolve(host.getHostName());
+            }
+        }
+        if (connections <= 0 || config.getTransport() != HttpTransport.CLASSIC) {
+            return 0;
+        }
+        List<HttpRoute> routes = new ArrayList<HttpRoute>();
+        List<HttpClientConnection> leased = new ArrayList<HttpClientConnection>();
+        Exception failure = null;
+        try {
+            // 依次借出，同一路由的连接不会被重复借出，借满后再统一归还
+            for (HttpHost host : hosts) {
+                HttpRoute route = HttpClientConfigHandler.createRoute(host);
+                int count = Math.min(connections, manager.getMaxPerRoute(route));
+                for (int i = 0; i < count; i++) {
+                    leased.add(manager.requestConnection(route, null).get(config.getRequestTimeOut(), TimeUnit.SECONDS));
+                    routes.add(route);
+                }
+            }
+        } catch (Exception e) {
+            failure = e;
+        }
+        int opened = 0;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(leased.size(), WARM_UP_THREADS)), WARM_UP_THREAD_FACTORY);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<Future<Boolean>>();
+            for (int i = 0; i < leased.size(); i++) {
+                final HttpClientConnection conn = leased.get(i);
+                final HttpRoute route = routes.get(i);
+                futures.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() throws IOException {
+                        return open(conn, route);
+                    }
+                }));
+            }
+            for (Future<Boolean> future : futures) {
+                try {
+                    if (future.get()) {
+                        opened++;
+                    }
+                } catch (ExecutionException e) {
+                    Exception cause = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    if (failure == null) {
+                        failure = cause;
+                    } else {
+                        failure.addSuppressed(cause);
+                    }
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            for (HttpClientConnection conn : leased) {
+                if (conn.isOpen()) {
+                    manager.releaseConnection(conn, null, config.getKeepAliveDuration(), TimeUnit.SECONDS);
+                } else {
+                    manager.releaseConnection(conn, null, 0, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return opened;
+    }
+
+    /**
+     * 建立借出的连接，连接池中已打开的连接直接返回false
+     */
+    private boolean open(HttpClientConnection conn, HttpRoute route) throws IOException {
+        if (conn.isOpen()) {
+            return false;
+        }
+        HttpClientContext context = HttpClientContext.create();
+        try {
+            manager.connect(conn, route, config.getConnectionTimeOut() * 1000, context);
+            manager.routeComplete(conn, route, context);
+        } catch (IOException e) {
+            conn.close();
+            throw e;
+        }
+        return true;
+    }
+
+    /**
+     * 关闭过期及空闲过久的连接
+     */
+    void closeIdleConnections() {
+        manager.closeExpiredConnections();
+        PoolingNHttpClientConnectionManager nManager = asyncManager;
+        if (nManager != null) {
+            nManager.closeExpiredConnections();
+        }
+        long idleTimeout = config.getIdleTimeout();
+        if (idleTimeout > 0) {
+            manager.closeIdleConnections(idleTimeout, TimeUnit.SECONDS);
+            if (nManager != null) {
+                nManager.closeIdleConnections(idleTimeout, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        CloseableHttpAsyncClient async;
+        synchronized (this) {
+            closed = true;
+            async = asyncClient;
+        }
+        try {
+            client.close();
+            if (async != null) {
+                async.close();
+            }
+        } finally {
+            manager.shutdown();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.routing.RouteInfo;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.impl.execchain.ClientExecChain;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 采集请求指标的执行链
+ * <p>
+ * 记录每次尝试的耗时、状态码、异常及请求/响应字节数，响应字节数在响应体读完或关闭时记录
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-16 09:50
+ **/
+class MetricsExecChain implements ClientExecChain {
+
+    private final ClientExecChain next;
+
+    private final HttpClientMetrics metrics;
+
+    MetricsExecChain(ClientExecChain next, HttpClientMetrics metrics) {
+        this.next = next;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                         HttpExecutionAware execAware) throws IOException, HttpException {
+        String name = routeOf(route);
+        long start = System.nanoTime();
+        CloseableHttpResponse response;
+        try {
+            response = next.execute(route, request, context, execAware);
+        } catch (IOException e) {
+            metrics.recordException(name, e, System.nanoTime() - start);
+            throw e;
+        } catch (HttpException e) {
+            metrics.recordException(name, e, System.nanoTime() - start);
+            throw e;
+        } catch (RuntimeException e) {
+            metrics.recordException(name, e, System.nanoTime() - start);
+            throw e;
+        }
+        metrics.recordRequest(name, response.getStatusLine().getStatusCode(), System.nanoTime() - start);
+        long sent = 0;
+        if (request instanceof HttpEntityEnclosingRequest) {
+            HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+            if (entity instanceof CompressionExecChain.CompressingEntity) {
+                sent = Math.max(0, ((CompressionExecChain.CompressingEntity) entity).getWireBytes());
+            } else if (entity != null && entity.getContentLength() > 0) {
+                sent = entity.getContentLength();
+            }
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity != null) {
+            response.setEntity(new CountingEntity(entity, name, sent));
+        } else {
+            metrics.recordBytes(name, sent, 0);
+        }
+        return response;
+    }
+
+    /**
+     * 路由名称
+     *
+     * @param route
+     * @return
+     */
+    static String routeOf(RouteInfo route) {
+        return route == null ? "unknown" : route.getTargetHost().toURI();
+    }
+
+    /**
+     * 统计读取字节数的响应体
+     */
+    private class CountingEntity extends HttpEntityWrapper {
+
+        private final String route;
+
+        private final long sent;
+
+        private boolean recorded;
+
+        CountingEntity(HttpEntity entity, String route, long sent) {
+            super(entity);
+            this.route = route;
+            this.sent = sent;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return new FilterInputStream(super.getContent()) {
+
+                private long received;
+
+                @Override
+                public int read() throws IOException {
+                    int b = super.read();
+                    if (b == -1) {
+                        record(received);
+                    } else {
+                        received++;
+                    }
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int n = super.read(b, off, len);
+                    if (n == -1) {
+                        record(received);
+                    } else {
+                        received += n;
+                    }
+                    return n;
+                }
+
+                @Override
+                public void close() throws IOException {
+                    record(received);
+                    super.close();
+                }
+            };
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            InputStream in = getContent();
+            try {
+                byte[] buffer = new byte[4096];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, n);
+                }
+            } finally {
+                in.close();
+            }
+        }
+
+        private void record(long received) {
+            if (!recorded) {
+                recorded = true;
+                metrics.recordBytes(route, sent, received);
+            }
+        }
+    }
+}
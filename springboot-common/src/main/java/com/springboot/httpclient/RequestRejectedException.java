@@ -0,0 +1,24 @@
+package com.springboot.httpclient;
+
+import java.io.IOException;
+
+/**
+ * 请求被熔断或并发限制拒绝，未发送到服务端
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-20 10:10
+ **/
+public class RequestRejectedException extends IOException {
+
+    private final String route;
+
+    public RequestRejectedException(String route, String reason) {
+        super(reason + ": " + route);
+        this.route = route;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+}
@@ -0,0 +1,277 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpRequest;
+import org.apache.http.ProtocolVersion;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 响应缓存存储
+ * <p>
+ * 按键的哈希分段加锁，每段按访问顺序淘汰，条数和字节数上限平均分到各段。
+ * 条目创建后不再修改，304重新验证时以新条目替换
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-30 10:10
+ **/
+final class ResponseCache {
+
+    /**
+     * 每个条目除响应体外的估算开销
+     */
+    private static final int ENTRY_OVERHEAD = 256;
+
+    private final Segment[] segments;
+
+    ResponseCache(int maxEntries, long maxBytes) {
+        int count = 1;
+        while (count < Runtime.getRuntime().availableProcessors() * 4 && count * 2 <= maxEntries) {
+            count <<= 1;
+        }
+        this.segments = new Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment((maxEntries + count - 1) / count, maxBytes / count);
+        }
+    }
+
+    Entry get(String key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * 放入缓存，超过单段字节上限的条目不缓存
+     *
+     * @param key
+     * @param entry
+     */
+    void put(String key, Entry entry) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.add(key, entry);
+        }
+    }
+
+    void remove(String key) {
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            segment.delete(key);
+        }
+    }
+
+    void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+                segment.bytes = 0;
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    long bytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                bytes += segment.bytes;
+            }
+        }
+        return bytes;
+    }
+
+    private Segment segmentFor(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    /**
+     * 缓存的响应
+     */
+    static final class Entry {
+
+        private final ProtocolVersion version;
+
+        private final int statusCode;
+
+        private final String reason;
+
+        private final Header[] headers;
+
+        private final ByteBuffer body;
+
+        private final Map<String, String> vary;
+
+        private final long responseTime;
+
+        private final long initialAge;
+
+        private final long lifetime;
+
+        private final String etag;
+
+        private final String lastModified;
+
+        /**
+         * @param version
+         * @param statusCode
+         * @param reason
+         * @param headers      不含Content-Length、Transfer-Encoding
+         * @param body         只读，读取时使用duplicate
+         * @param vary         Vary中各请求头的小写名称及缓存时请求携带的值
+         * @param responseTime 收到响应的时间（毫秒）
+         * @param initialAge   收到响应时已有的年龄（毫秒）
+         * @param lifetime     新鲜期（毫秒）
+         */
+        Entry(ProtocolVersion version, int statusCode, String reason, Header[] headers, ByteBuffer body,
+              Map<String, String> vary, long responseTime, long initialAge, long lifetime) {
+            this.version = version;
+            this.statusCode = statusCode;
+            this.reason = reason;
+            this.headers = headers;
+            this.body = body;
+            this.vary = vary.isEmpty() ? Collections.<String, String>emptyMap() : vary;
+            this.responseTime = responseTime;
+            this.initialAge = initialAge;
+            this.lifetime = lifetime;
+            this.etag = value(headers, "ETag");
+            this.lastModified = value(headers, "Last-Modified");
+        }
+
+        ProtocolVersion getVersion() {
+            return version;
+        }
+
+        int getStatusCode() {
+            return statusCode;
+        }
+
+        String getReason() {
+            return reason;
+        }
+
+        Header[] getHeaders() {
+            return headers;
+        }
+
+        ByteBuffer getBody() {
+            return body.duplicate();
+        }
+
+        Map<String, String> getVary() {
+            return vary;
+        }
+
+        String getEtag() {
+            return etag;
+        }
+
+        String getLastModified() {
+            return lastModified;
+        }
+
+        boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * 当前年龄（毫秒）
+         *
+         * @param now
+         * @return
+         */
+        long age(long now) {
+            return initialAge + Math.max(0, now - responseTime);
+        }
+
+        boolean isFresh(long now) {
+            return age(now) < lifetime;
+        }
+
+        /**
+         * 请求头与缓存时Vary指定的请求头一致
+         *
+         * @param request
+         * @return
+         */
+        boolean matches(HttpRequest request) {
+            for (Map.Entry<String, String> entry : vary.entrySet()) {
+                if (!entry.getValue().equals(CachingExecChain.headerValues(request, entry.getKey()))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long size() {
+            return body.capacity() + ENTRY_OVERHEAD;
+        }
+
+        private static String value(Header[] headers, String name) {
+            for (Header header : headers) {
+                if (header.getName().equalsIgnoreCase(name)) {
+                    return header.getValue();
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * 按访问顺序淘汰的分段
+     */
+    private static class Segment extends LinkedHashMap<String, Entry> {
+
+        private final int maxEntries;
+
+        private final long maxBytes;
+
+        private long bytes;
+
+        Segment(int maxEntries, long maxBytes) {
+            super(16, 0.75f, true);
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        void add(String key, ResponseCache.Entry entry) {
+            if (entry.size() > maxBytes) {
+                delete(key);
+                return;
+            }
+            ResponseCache.Entry previous = put(key, entry);
+            if (previous != null) {
+                bytes -= previous.size();
+            }
+            bytes += entry.size();
+            Iterator<ResponseCache.Entry> eldest = values().iterator();
+            while ((size() > maxEntries || bytes > maxBytes) && eldest.hasNext()) {
+                bytes -= eldest.next().size();
+                eldest.remove();
+            }
+        }
+
+        void delete(String key) {
+            ResponseCache.Entry previous = remove(key);
+            if (previous != null) {
+                bytes -= previous.size();
+            }
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpHost;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * GET响应缓存策略
+ * <p>
+ * 按Cache-Control/Expires计算新鲜期，过期后带If-None-Match/If-Modified-Since重新验证，304时沿用缓存的响应体。
+ * 响应未声明新鲜期时按路由的ttl启发式缓存，ttl为0则只缓存带ETag或Last-Modified、每次都需验证的响应。
+ * 缓存按条数和响应体总字节数限制，最近最少使用的先淘汰
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-30 09:40
+ **/
+public class ResponseCachePolicy {
+
+    /**
+     * 路由不缓存
+     */
+    public static final long DISABLED = -1;
+
+    /**
+     * 默认策略
+     */
+    public static final ResponseCachePolicy DEFAULT = custom().build();
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    private final long maxEntrySize;
+
+    private final boolean offHeap;
+
+    private final long defaultTtl;
+
+    private final Map<HttpHost, Long> routeTtl;
+
+    ResponseCachePolicy(Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.maxBytes = builder.maxBytes;
+        this.maxEntrySize = builder.maxEntrySize;
+        this.offHeap = builder.offHeap;
+        this.defaultTtl = builder.defaultTtl;
+        this.routeTtl = Collections.unmodifiableMap(new LinkedHashMap<HttpHost, Long>(builder.routeTtl));
+    }
+
+    /**
+     * 构建策略
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public long getDefaultTtl() {
+        return defaultTtl;
+    }
+
+    public Map<HttpHost, Long> getRouteTtl() {
+        return routeTtl;
+    }
+
+    /**
+     * 路由的启发式新鲜期（毫秒），{@link #DISABLED}表示该路由不缓存
+     *
+     * @param host
+     * @return
+     */
+    public long ttlFor(HttpHost host) {
+        if (routeTtl.isEmpty() || host == null) {
+            return defaultTtl;
+        }
+        Long ttl = routeTtl.get(normalize(host));
+        return ttl == null ? defaultTtl : ttl;
+    }
+
+    /**
+     * 补全默认端口并统一大小写，路由里的主机总带端口，配置里的通常不带
+     */
+    static HttpHost normalize(HttpHost host) {
+        String scheme = host.getSchemeName().toLowerCase(Locale.ROOT);
+        int port = host.getPort();
+        if (port < 0) {
+            port = "https".equals(scheme) ? 443 : 80;
+        }
+        return new HttpHost(host.getHostName().toLowerCase(Locale.ROOT), port, scheme);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ResponseCachePolicy)) {
+            return false;
+        }
+        ResponseCachePolicy that = (ResponseCachePolicy) o;
+        return maxEntries == that.maxEntries
+                && maxBytes == that.maxBytes
+                && maxEntrySize == that.maxEntrySize
+                && offHeap == that.offHeap
+                && defaultTtl == that.defaultTtl
+                && routeTtl.equals(that.routeTtl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{maxEntries, maxBytes, maxEntrySize, offHeap, defaultTtl, routeTtl});
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCachePolicy{" +
+                "maxEntries=" + maxEntries +
+                ", maxBytes=" + maxBytes +
+                ", maxEntrySize=" + maxEntrySize +
+                ", offHeap=" + offHeap +
+                ", defaultTtl=" + defaultTtl +
+                ", routeTtl=" + routeTtl +
+                '}';
+    }
+
+    /**
+     * 策略构建器
+     */
+    public static class Builder {
+
+        private int maxEntries = 1000;
+
+        private long maxBytes = 64L * 1024 * 1024;
+
+        private long maxEntrySize = 1024 * 1024;
+
+        private boolean offHeap = false;
+
+        private long defaultTtl = 0;
+
+        private final Map<HttpHost, Long> routeTtl = new LinkedHashMap<HttpHost, Long>();
+
+        Builder() {
+        }
+
+        /**
+         * 最大缓存条数
+         *
+         * @param maxEntries
+         * @return
+         */
+        public Builder setMaxEntries(int maxEntries) {
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * 缓存的响应体总字节数上限
+         *
+         * @param maxBytes
+         * @return
+         */
+        public Builder setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+            return this;
+        }
+
+        /**
+         * 单个响应体的字节数上限，更大的响应直接透传不缓存
+         *
+         * @param maxEntrySize
+         * @return
+         */
+        public Builder setMaxEntrySize(long maxEntrySize) {
+            this.maxEntrySize = maxEntrySize;
+            return this;
+        }
+
+        /**
+         * 响应体是否存放在堆外内存，减少大量缓存对GC的压力，受-XX:MaxDirectMemorySize限制
+         *
+         * @param offHeap
+         * @return
+         */
+        public Builder setOffHeap(boolean offHeap) {
+            this.offHeap = offHeap;
+            return this;
+        }
+
+        /**
+         * 响应未声明Cache-Control/Expires时的新鲜期（毫秒），{@link #DISABLED}表示默认不缓存，只缓存单独配置的路由
+         *
+         * @param defaultTtl
+         * @return
+         */
+        public Builder setDefaultTtl(long defaultTtl) {
+            this.defaultTtl = defaultTtl;
+            return this;
+        }
+
+        /**
+         * 单个路由的新鲜期（毫秒），{@link #DISABLED}表示该路由不缓存
+         *
+         * @param host
+         * @param ttl
+         * @return
+         */
+        public Builder setRouteTtl(HttpHost host, long ttl) {
+            this.routeTtl.put(normalize(host), ttl);
+            return this;
+        }
+
+        /**
+         * 该路由不缓存
+         *
+         * @param host
+         * @return
+         */
+        public Builder disableRoute(HttpHost host) {
+            return setRouteTtl(host, DISABLED);
+        }
+
+        public ResponseCachePolicy build() {
+            return new ResponseCachePolicy(this);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.springboot.httpclient;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按路由的重试预算
+ * <p>
+ * 令牌桶实现：每个请求存入ratio个令牌，每秒另外补充minPerSecond个，每次重试取走一个，
+ * 下游整体降级时重试量被限制在流量的固定比例内，避免重试风暴
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-18 14:30
+ **/
+public class RetryBudget {
+
+    /**
+     * 不限制重试
+     */
+    public static final RetryBudget UNLIMITED = new RetryBudget(-1, 0);
+
+    /**
+     * 令牌以千分之一为单位保存
+     */
+    private static final long SCALE = 1000;
+
+    /**
+     * 每个路由最多积累的令牌数
+     */
+    private static final long MAX_TOKENS = 100;
+
+    private final long deposit;
+
+    private final long minPerSecond;
+
+    private final boolean unlimited;
+
+    private final ConcurrentMap<String, Bucket> buckets = new ConcurrentHashMap<String, Bucket>();
+
+    public RetryBudget(double ratio, int minPerSecond) {
+        this.unlimited = ratio < 0;
+        this.deposit = (long) (ratio * SCALE);
+        this.minPerSecond = minPerSecond;
+    }
+
+    /**
+     * 记录一次请求
+     *
+     * @param route
+     */
+    public void deposit(String route) {
+        if (!unlimited) {
+            bucket(route).deposit(deposit);
+        }
+    }
+
+    /**
+     * 尝试取得一次重试机会
+     *
+     * @param route
+     * @return
+     */
+    public boolean tryAcquire(String route) {
+        return unlimited || bucket(route).tryWithdraw();
+    }
+
+    private Bucket bucket(String route) {
+        Bucket bucket = buckets.get(route);
+        if (bucket == null) {
+            bucket = new Bucket(minPerSecond);
+            Bucket previous = buckets.putIfAbsent(route, bucket);
+            if (previous != null) {
+                bucket = previous;
+            }
+        }
+        return bucket;
+    }
+
+    private static class Bucket {
+
+        private final long refillPerSecond;
+
+        private long tokens;
+
+        private long lastRefill = System.nanoTime();
+
+        Bucket(long refillPerSecond) {
+            this.refillPerSecond = refillPerSecond * SCALE;
+            this.tokens = this.refillPerSecond;
+        }
+
+        synchronized void deposit(long amount) {
+            tokens = Math.min(tokens + amount, MAX_TOKENS * SCALE);
+        }
+
+        synchronized boolean tryWithdraw() {
+            long now = System.nanoTime();
+            // 最多按一小时补充，避免乘法溢出
+            long elapsed = Math.min(now - lastRefill, 3600000000000L);
+            if (elapsed > 0 && refillPerSecond > 0) {
+                long refill = elapsed * refillPerSecond / 1000000000L;
+                if (refill > 0) {
+                    tokens = Math.min(tokens + refill, MAX_TOKENS * SCALE);
+                    lastRefill = now;
+                }
+            }
+            if (tokens >= SCALE) {
+                tokens -= SCALE;
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.execchain.ClientExecChain;
+
+import java.io.IOException;
+
+/**
+ * 为每个请求向重试预算存入令牌，同一请求的重试不重复存入
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-18 14:30
+ **/
+class RetryBudgetExecChain implements ClientExecChain {
+
+    /**
+     * 上下文中最近一次计入预算的请求对象
+     */
+    static final String ATTEMPTED = "com.springboot.httpclient.retry-budget.request";
+
+    private final ClientExecChain next;
+
+    private final RetryBudget budget;
+
+    RetryBudgetExecChain(ClientExecChain next, RetryBudget budget) {
+        this.next = next;
+        this.budget = budget;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                         HttpExecutionAware execAware) throws IOException, HttpException {
+        // 重试时执行链收到的是同一个请求对象
+        if (context.getAttribute(ATTEMPTED) != request) {
+            context.setAttribute(ATTEMPTED, request);
+            budget.deposit(MetricsExecChain.routeOf(route));
+        }
+        return next.execute(route, request, context, execAware);
+    }
+}
@@ -0,0 +1,328 @@
+package com.springboot.httpclient;
+
+import org.apache.http.NoHttpResponseException;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 重试策略
+ * <p>
+ * 包含最大尝试次数、带抖动的指数退避、可重试的状态码与异常，以及按路由共享的重试预算
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-18 14:30
+ **/
+public class RetryPolicy {
+
+    /**
+     * 默认策略
+     */
+    public static final RetryPolicy DEFAULT = custom().build();
+
+    /**
+     * 不重试
+     */
+    public static final RetryPolicy NONE = custom().setMaxAttempts(1).build();
+
+    private final int maxAttempts;
+
+    private final long initialBackoff;
+
+    private final long maxBackoff;
+
+    private final double multiplier;
+
+    private final double jitter;
+
+    private final Set<Integer> retryableStatusCodes;
+
+    private final List<Class<? extends IOException>> retryableExceptions;
+
+    private final List<Class<? extends IOException>> nonRetryableExceptions;
+
+    private final double budgetRatio;
+
+    private final int budgetMinPerSecond;
+
+    RetryPolicy(Builder builder) {
+        this.maxAttempts = builder.maxAttempts;
+        this.initialBackoff = builder.initialBackoff;
+        this.maxBackoff = builder.maxBackoff;
+        this.multiplier = builder.multiplier;
+        this.jitter = builder.jitter;
+        this.retryableStatusCodes = Collections.unmodifiableSet(new LinkedHashSet<Integer>(builder.retryableStatusCodes));
+        this.retryableExceptions = Collections.unmodifiableList(new ArrayList<Class<? extends IOException>>(builder.retryableExceptions));
+        this.nonRetryableExceptions = Collections.unmodifiableList(new ArrayList<Class<? extends IOException>>(builder.nonRetryableExceptions));
+        this.budgetRatio = builder.budgetRatio;
+        this.budgetMinPerSecond = builder.budgetMinPerSecond;
+    }
+
+    /**
+     * 构建策略
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    /**
+     * 第count次重试前的等待时间（毫秒），count从1开始
+     *
+     * @param count
+     * @return
+     */
+    public long backoff(int count) {
+        if (initialBackoff <= 0) {
+            return 0;
+        }
+        double delay = initialBackoff * Math.pow(multiplier, Math.max(count - 1, 0));
+        delay = Math.min(delay, maxBackoff);
+        if (jitter > 0) {
+            // 在[delay * (1 - jitter), delay]之间随机，避免各线程同时重试
+            delay = delay * (1 - jitter * ThreadLocalRandom.current().nextDouble());
+        }
+        return (long) delay;
+    }
+
+    /**
+     * 异常是否明确可重试，返回null表示未配置，由请求是否幂等决定
+     *
+     * @param exception
+     * @return
+     */
+    Boolean isRetryable(IOException exception) {
+        for (Class<? extends IOException> type : retryableExceptions) {
+            if (type.isInstance(exception)) {
+                return Boolean.TRUE;
+            }
+        }
+        for (Class<? extends IOException> type : nonRetryableExceptions) {
+            if (type.isInstance(exception)) {
+                return Boolean.FALSE;
+            }
+        }
+        return null;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getInitialBackoff() {
+        return initialBackoff;
+    }
+
+    public long getMaxBackoff() {
+        return maxBackoff;
+    }
+
+    public double getMultiplier() {
+        return multiplier;
+    }
+
+    public double getJitter() {
+        return jitter;
+    }
+
+    public Set<Integer> getRetryableStatusCodes() {
+        return retryableStatusCodes;
+    }
+
+    public List<Class<? extends IOException>> getRetryableExceptions() {
+        return retryableExceptions;
+    }
+
+    public List<Class<? extends IOException>> getNonRetryableExceptions() {
+        return nonRetryableExceptions;
+    }
+
+    public double getBudgetRatio() {
+        return budgetRatio;
+    }
+
+    public int getBudgetMinPerSecond() {
+        return budgetMinPerSecond;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof RetryPolicy)) {
+            return false;
+        }
+        RetryPolicy that = (RetryPolicy) o;
+        return maxAttempts == that.maxAttempts
+                && initialBackoff == that.initialBackoff
+                && maxBackoff == that.maxBackoff
+                && Double.compare(multiplier, that.multiplier) == 0
+                && Double.compare(jitter, that.jitter) == 0
+                && Double.compare(budgetRatio, that.budgetRatio) == 0
+                && budgetMinPerSecond == that.budgetMinPerSecond
+                && retryableStatusCodes.equals(that.retryableStatusCodes)
+                && retryableExceptions.equals(that.retryableExceptions)
+                && nonRetryableExceptions.equals(that.nonRetryableExceptions);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{
+                maxAttempts, initialBackoff, maxBackoff, multiplier, jitter, budgetRatio, budgetMinPerSecond,
+                retryableStatusCodes, retryableExceptions, nonRetryableExceptions
+        });
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxAttempts=" + maxAttempts +
+                ", initialBackoff=" + initialBackoff +
+                ", maxBackoff=" + maxBackoff +
+                ", multiplier=" + multiplier +
+                ", jitter=" + jitter +
+                ", retryableStatusCodes=" + retryableStatusCodes +
+                ", budgetRatio=" + budgetRatio +
+                ", budgetMinPerSecond=" + budgetMinPerSecond +
+                '}';
+    }
+
+    /**
+     * 策略构建器
+     */
+    public static class Builder {
+
+        private int maxAttempts = HttpClientConfigHandler.Constants.RETRY_COUNT;
+
+        private long initialBackoff = 50;
+
+        private long maxBackoff = 2000;
+
+        private double multiplier = 2;
+
+        private double jitter = 0.5;
+
+        private final Set<Integer> retryableStatusCodes = new LinkedHashSet<Integer>(Collections.singleton(503));
+
+        private final List<Class<? extends IOException>> retryableExceptions = new ArrayList<Class<? extends IOException>>();
+
+        private final List<Class<? extends IOException>> nonRetryableExceptions = new ArrayList<Class<? extends IOException>>();
+
+        private double budgetRatio = 0.2;
+
+        private int budgetMinPerSecond = 10;
+
+        Builder() {
+            // 服务器丢掉了连接
+            retryableExceptions.add(NoHttpResponseException.class);
+            // 超时、目标服务器不可达、连接被拒绝、SSL异常、熔断或并发限制拒绝
+            nonRetryableExceptions.add(InterruptedIOException.class);
+            nonRetryableExceptions.add(UnknownHostException.class);
+            nonRetryableExceptions.add(ConnectException.class);
+            nonRetryableExceptions.add(SSLException.class);
+            nonRetryableExceptions.add(RequestRejectedException.class);
+        }
+
+        /**
+         * 最大尝试次数，包含首次请求
+         *
+         * @param maxAttempts
+         * @return
+         */
+        public Builder setMaxAttempts(int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        /**
+         * 退避时间：首次重试等待initialBackoff毫秒，之后按multiplier递增，不超过maxBackoff毫秒
+         *
+         * @param initialBackoff
+         * @param maxBackoff
+         * @param multiplier
+         * @return
+         */
+        public Builder setBackoff(long initialBackoff, long maxBackoff, double multiplier) {
+            this.initialBackoff = initialBackoff;
+            this.maxBackoff = maxBackoff;
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * 抖动比例0-1，实际等待时间在[backoff * (1 - jitter), backoff]之间
+         *
+         * @param jitter
+         * @return
+         */
+        public Builder setJitter(double jitter) {
+            this.jitter = jitter;
+            return this;
+        }
+
+        /**
+         * 可重试的响应状态码，只对幂等请求生效
+         *
+         * @param statusCodes
+         * @return
+         */
+        public Builder setRetryableStatusCodes(Integer... statusCodes) {
+            this.retryableStatusCodes.clear();
+            this.retryableStatusCodes.addAll(Arrays.asList(statusCodes));
+            return this;
+        }
+
+        /**
+         * 总是重试的异常，非幂等请求也会重试
+         *
+         * @param exception
+         * @return
+         */
+        public Builder addRetryableException(Class<? extends IOException> exception) {
+            this.retryableExceptions.add(exception);
+            return this;
+        }
+
+        /**
+         * 不重试的异常
+         *
+         * @param exception
+         * @return
+         */
+        public Builder addNonRetryableException(Class<? extends IOException> exception) {
+            this.nonRetryableExceptions.add(exception);
+            return this;
+        }
+
+        /**
+         * 重试预算：每个路由的重试数不超过请求数的ratio，另外每秒保底允许minPerSecond次重试，
+         * ratio小于0表示不限制
+         *
+         * @param ratio
+         * @param minPerSecond
+         * @return
+         */
+        public Builder setBudget(double ratio, int minPerSecond) {
+            this.budgetRatio = ratio;
+            this.budgetMinPerSecond = minPerSecond;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
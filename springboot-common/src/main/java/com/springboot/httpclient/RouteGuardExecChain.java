@@ -0,0 +1,121 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpExecutionAware;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.execchain.ClientExecChain;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * 按路由熔断及限制并发的执行链
+ * <p>
+ * 位于连接池之前，熔断或超出并发限制的请求直接抛出{@link RequestRejectedException}，
+ * 慢路由不会占满连接池而拖累其他路由。并发许可在收到响应头时释放
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-20 10:10
+ **/
+class RouteGuardExecChain implements ClientExecChain {
+
+    private final ClientExecChain next;
+
+    private final CircuitBreakerPolicy breakerPolicy;
+
+    private final ConcurrencyLimitPolicy limitPolicy;
+
+    private final HttpClientMetrics metrics;
+
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<String, CircuitBreaker>();
+
+    private final ConcurrentMap<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<String, ConcurrencyLimiter>();
+
+    RouteGuardExecChain(ClientExecChain next, CircuitBreakerPolicy breakerPolicy, ConcurrencyLimitPolicy limitPolicy,
+                        HttpClientMetrics metrics) {
+        this.next = next;
+        this.breakerPolicy = breakerPolicy;
+        this.limitPolicy = limitPolicy;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public CloseableHttpResponse execute(HttpRoute route, HttpRequestWrapper request, HttpClientContext context,
+                                         HttpExecutionAware execAware) throws IOException, HttpException {
+        String name = MetricsExecChain.routeOf(route);
+        CircuitBreaker breaker = breakerPolicy == null ? null : breaker(name);
+        if (breaker != null) {
+            CircuitBreaker.State before = breaker.getState();
+            boolean permitted = breaker.tryAcquire();
+            if (before != breaker.getState()) {
+                metrics.recordCircuitState(name, breaker.getState());
+            }
+            if (!permitted) {
+                metrics.recordRejection(name, "circuit open");
+                throw new RequestRejectedException(name, "circuit open");
+            }
+        }
+        ConcurrencyLimiter limiter = limitPolicy == null ? null : limiter(name);
+        if (limiter != null && !limiter.tryAcquire()) {
+            if (breaker != null) {
+                breaker.release();
+            }
+            metrics.recordRejection(name, "concurrency limit exceeded");
+            throw new RequestRejectedException(name, "concurrency limit " + limiter.getLimit() + " exceeded");
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            CloseableHttpResponse response = next.execute(route, request, context, execAware);
+            failed = response.getStatusLine().getStatusCode() >= 500;
+            return response;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            if (limiter != null) {
+                limiter.release(nanos, failed);
+                metrics.recordConcurrencyLimit(name, limiter.getLimit());
+            }
+            if (breaker != null) {
+                record(name, breaker, nanos, failed);
+            }
+        }
+    }
+
+    private void record(String name, CircuitBreaker breaker, long nanos, boolean failed) {
+        CircuitBreaker.State before = breaker.getState();
+        breaker.onResult(nanos, failed);
+        CircuitBreaker.State after = breaker.getState();
+        if (before != after) {
+            metrics.recordCircuitState(name, after);
+        }
+    }
+
+    private CircuitBreaker breaker(String name) {
+        CircuitBreaker breaker = breakers.get(name);
+        if (breaker == null) {
+            breaker = new CircuitBreaker(breakerPolicy);
+            CircuitBreaker previous = breakers.putIfAbsent(name, breaker);
+            if (previous != null) {
+                breaker = previous;
+            }
+        }
+        return breaker;
+    }
+
+    private ConcurrencyLimiter limiter(String name) {
+        ConcurrencyLimiter limiter = limiters.get(name);
+        if (limiter == null) {
+            limiter = new ConcurrencyLimiter(limitPolicy);
+            ConcurrencyLimiter previous = limiters.putIfAbsent(name, limiter);
+            if (previous != null) {
+                limiter = previous;
+            }
+        }
+        return limiter;
+    }
+}
@@ -0,0 +1,274 @@
+package com.springboot.httpclient;
+
+import java.security.KeyStore;
+import java.util.Arrays;
+
+/**
+ * TLS配置
+ * <p>
+ * 相同配置的客户端共享同一个SSLContext，其会话缓存使到同一服务端的新连接可以恢复会话，省去完整握手。
+ * 未设置信任库时使用JVM默认信任库；trustSelfSigned为true时另外信任自签名证书，与之前的行为一致
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-07 09:30
+ **/
+public class SslPolicy {
+
+    /**
+     * 默认配置：JVM默认信任库并信任自签名证书，会话缓存使用JVM默认值
+     */
+    public static final SslPolicy DEFAULT = custom().build();
+
+    private final String trustStore;
+
+    private final String trustStoreType;
+
+    private final char[] trustStorePassword;
+
+    private final boolean trustSelfSigned;
+
+    private final String keyStore;
+
+    private final String keyStoreType;
+
+    private final char[] keyStorePassword;
+
+    private final char[] keyPassword;
+
+    private final String[] protocols;
+
+    private final int sessionCacheSize;
+
+    private final int sessionTimeout;
+
+    SslPolicy(Builder builder) {
+        this.trustStore = builder.trustStore;
+        this.trustStoreType = builder.trustStoreType;
+        this.trustStorePassword = builder.trustStorePassword;
+        this.trustSelfSigned = builder.trustSelfSigned;
+        this.keyStore = builder.keyStore;
+        this.keyStoreType = builder.keyStoreType;
+        this.keyStorePassword = builder.keyStorePassword;
+        this.keyPassword = builder.keyPassword;
+        this.protocols = builder.protocols;
+        this.sessionCacheSize = builder.sessionCacheSize;
+        this.sessionTimeout = builder.sessionTimeout;
+    }
+
+    /**
+     * 构建配置
+     *
+     * @return
+     */
+    public static Builder custom() {
+        return new Builder();
+    }
+
+    public String getTrustStore() {
+        return trustStore;
+    }
+
+    public String getTrustStoreType() {
+        return trustStoreType;
+    }
+
+    char[] getTrustStorePassword() {
+        return trustStorePassword;
+    }
+
+    public boolean isTrustSelfSigned() {
+        return trustSelfSigned;
+    }
+
+    public String getKeyStore() {
+        return keyStore;
+    }
+
+    public String getKeyStoreType() {
+        return keyStoreType;
+    }
+
+    char[] getKeyStorePassword() {
+        return keyStorePassword;
+    }
+
+    char[] getKeyPassword() {
+        return keyPassword;
+    }
+
+    public String[] getProtocols() {
+        return protocols == null ? null : protocols.clone();
+    }
+
+    public int getSessionCacheSize() {
+        return sessionCacheSize;
+    }
+
+    public int getSessionTimeout() {
+        return sessionTimeout;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SslPolicy)) {
+            return false;
+        }
+        SslPolicy that = (SslPolicy) o;
+        return trustSelfSigned == that.trustSelfSigned
+                && sessionCacheSize == that.sessionCacheSize
+                && sessionTimeout == that.sessionTimeout
+                && equal(trustStore, that.trustStore)
+                && trustStoreType.equals(that.trustStoreType)
+                && Arrays.equals(trustStorePassword, that.trustStorePassword)
+                && equal(keyStore, that.keyStore)
+                && keyStoreType.equals(that.keyStoreType)
+                && Arrays.equals(keyStorePassword, that.keyStorePassword)
+                && Arrays.equals(keyPassword, that.keyPassword)
+                && Arrays.equals(protocols, that.protocols);
+    }
+
+    private static boolean equal(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(new Object[]{
+                trustStore, trustStoreType, Arrays.hashCode(trustStorePassword), trustSelfSigned, keyStore, keyStoreType,
+                Arrays.hashCode(keyStorePassword), Arrays.hashCode(keyPassword), Arrays.hashCode(protocols),
+                sessionCacheSize, sessionTimeout
+        });
+    }
+
+    /**
+     * 不输出密码
+     */
+    @Override
+    public String toString() {
+        return "SslPolicy{" +
+                "trustStore=" + trustStore +
+                ", trustStoreType=" + trustStoreType +
+                ", trustSelfSigned=" + trustSelfSigned +
+                ", keyStore=" + keyStore +
+                ", keyStoreType=" + keyStoreType +
+                ", protocols=" + Arrays.toString(protocols) +
+                ", sessionCacheSize=" + sessionCacheSize +
+                ", sessionTimeout=" + sessionTimeout +
+                '}';
+    }
+
+    /**
+     * 配置构建器
+     */
+    public static class Builder {
+
+        private String trustStore;
+
+        private String trustStoreType = KeyStore.getDefaultType();
+
+        private char[] trustStorePassword;
+
+        private boolean trustSelfSigned = true;
+
+        private String keyStore;
+
+        private String keyStoreType = KeyStore.getDefaultType();
+
+        private char[] keyStorePassword;
+
+        private char[] keyPassword;
+
+        private String[] protocols;
+
+        private int sessionCacheSize = -1;
+
+        private int sessionTimeout = -1;
+
+        Builder() {
+        }
+
+        /**
+         * 信任库，替代JVM默认信任库
+         *
+         * @param path     文件路径
+         * @param type     类型，如JKS、PKCS12，为null时使用JVM默认类型
+         * @param password 密码，可以为null
+         * @return
+         */
+        public Builder setTrustStore(String path, String type, char[] password) {
+            this.trustStore = path;
+            this.trustStoreType = type != null ? type : KeyStore.getDefaultType();
+            this.trustStorePassword = password == null ? null : password.clone();
+            return this;
+        }
+
+        /**
+         * 是否信任自签名证书，默认为true
+         *
+         * @param trustSelfSigned
+         * @return
+         */
+        public Builder setTrustSelfSigned(boolean trustSelfSigned) {
+            this.trustSelfSigned = trustSelfSigned;
+            return this;
+        }
+
+        /**
+         * 客户端证书，服务端要求双向认证时使用
+         *
+         * @param path          文件路径
+         * @param type          类型，如JKS、PKCS12，为null时使用JVM默认类型
+         * @param storePassword 密钥库密码
+         * @param keyPassword   私钥密码，为null时与密钥库密码相同
+         * @return
+         */
+        public Builder setKeyStore(String path, String type, char[] storePassword, char[] keyPassword) {
+            this.keyStore = path;
+            this.keyStoreType = type != null ? type : KeyStore.getDefaultType();
+            this.keyStorePassword = storePassword == null ? null : storePassword.clone();
+            this.keyPassword = keyPassword != null ? keyPassword.clone() : this.keyStorePassword;
+            return this;
+        }
+
+        /**
+         * 启用的协议版本，如TLSv1.2，不设置时使用JVM默认值
+         *
+         * @param protocols
+         * @return
+         */
+        public Builder setProtocols(String... protocols) {
+            this.protocols = protocols == null || protocols.length == 0 ? null : protocols.clone();
+            return this;
+        }
+
+        /**
+         * 客户端会话缓存的条目数，0表示不限制，小于0时使用JVM默认值
+         *
+         * @param sessionCacheSize
+         * @return
+         */
+        public Builder setSessionCacheSize(int sessionCacheSize) {
+            this.sessionCacheSize = sessionCacheSize;
+            return this;
+        }
+
+        /**
+         * 缓存的会话可恢复的时间（秒），0表示不限制，小于0时使用JVM默认值
+         *
+         * @param sessionTimeout
+         * @return
+         */
+        public Builder setSessionTimeout(int sessionTimeout) {
+            this.sessionTimeout = sessionTimeout;
+            return this;
+        }
+
+        public SslPolicy build() {
+            return new SslPolicy(this);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.HttpResponseException;
+import org.apache.http.client.ResponseHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * 将响应体直接写入通道，不在内存中缓存整个响应
+ * <p>
+ * 读写使用线程内复用的固定大小缓冲区，返回写入的字节数
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-12 14:40
+ **/
+public class StreamResponseHandler implements ResponseHandler<Long> {
+
+    /**
+     * 缓冲区大小
+     */
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocate(BUFFER_SIZE);
+        }
+    };
+
+    private final WritableByteChannel channel;
+
+    public StreamResponseHandler(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
+    @Override
+    public Long handleResponse(HttpResponse response) throws IOException {
+        StatusLine statusLine = response.getStatusLine();
+        if (statusLine.getStatusCode() >= 300) {
+            throw new HttpResponseException(statusLine.getStatusCode(), statusLine.getReasonPhrase());
+        }
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            return 0L;
+        }
+        InputStream in = entity.getContent();
+        try {
+            return transfer(in, channel);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * 将输入流写入通道
+     *
+     * @param in
+     * @param channel
+     * @return
+     * @throws IOException
+     */
+    static long transfer(InputStream in, WritableByteChannel channel) throws IOException {
+        ByteBuffer buffer = BUFFER.get();
+        byte[] array = buffer.array();
+        long total = 0;
+        int read;
+        while ((read = in.read(array, 0, array.length)) != -1) {
+            buffer.clear();
+            buffer.limit(read);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            total += read;
+        }
+        buffer.clear();
+        return total;
+    }
+}
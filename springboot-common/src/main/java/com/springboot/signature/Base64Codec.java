@@ -0,0 +1,514 @@
+package com.springboot.signature;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Base64编解码
+ * <p>
+ * 查表实现，可以直接编解码到调用方提供的byte[]/ByteBuffer，除最终输出外不产生中间对象。
+ * 提供标准、URL安全和MIME（每行76字符，\r\n换行）三种编码；
+ * 解码时忽略空白字符，兼容旧版本按行折断的签名和PEM格式密钥，MIME解码忽略所有非法字符。
+ * 与xmlsec一致按严格格式解码：可以省略填充，有填充时必须完整，填充后只允许空白，末组未使用的位必须为0，
+ * 被截断、拼接或篡改的输入解码失败而不是返回部分结果。
+ * 密文可以先用JdkRsaUtil的ByteBuffer加密方法写入缓冲区，再用{@link #encode(ByteBuffer, ByteBuffer)}编码到发送缓冲区
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-27 10:20
+ **/
+public final class Base64Codec {
+
+    private static final byte[] STANDARD_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] URL_SAFE_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_"
+            .getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] LINE_SEPARATOR = {'\r', '\n'};
+
+    private static final byte PAD = '=';
+
+    /**
+     * 解码表中的特殊值
+     */
+    private static final int INVALID = -1;
+
+    private static final int WHITESPACE = -2;
+
+    /**
+     * 标准编码，RFC 4648
+     */
+    public static final Base64Codec BASIC = new Base64Codec(false, 0, false);
+
+    /**
+     * URL安全编码，使用-和_代替+和/
+     */
+    public static final Base64Codec URL_SAFE = new Base64Codec(true, 0, false);
+
+    /**
+     * MIME编码，RFC 2045
+     */
+    public static final Base64Codec MIME = new Base64Codec(false, 76, true);
+
+    private final byte[] alphabet;
+
+    private final int[] decodeTable;
+
+    private final int lineLength;
+
+    private final boolean ignoreIllegal;
+
+    private Base64Codec(boolean urlSafe, int lineLength, boolean ignoreIllegal) {
+        this.alphabet = urlSafe ? URL_SAFE_ALPHABET : STANDARD_ALPHABET;
+        this.lineLength = lineLength;
+        this.ignoreIllegal = ignoreIllegal;
+        this.decodeTable = new int[256];
+        Arrays.fill(decodeTable, INVALID);
+        decodeTable[' '] = WHITESPACE;
+        decodeTable['\t'] = WHITESPACE;
+        decodeTable['\r'] = WHITESPACE;
+        decodeTable['\n'] = WHITESPACE;
+        for (int i = 0; i < alphabet.length; i++) {
+            decodeTable[alphabet[i]] = i;
+        }
+    }
+
+    /**
+     * 编码后的长度
+     *
+     * @param length 原始数据长度
+     * @return
+     */
+    public int encodedLength(int length) {
+        long encoded = (length + 2L) / 3 * 4;
+        if (lineLength > 0 && encoded > 0) {
+            encoded += (encoded - 1) / lineLength * LINE_SEPARATOR.length;
+        }
+        if (encoded > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("input too large: " + length);
+        }
+        return (int) encoded;
+    }
+
+    /**
+     * 解码后长度的上限，精确长度见{@link #decodedLength(byte[], int, int)}
+     *
+     * @param length 编码数据长度
+     * @return
+     */
+    public int maxDecodedLength(int length) {
+        return (int) ((length + 3L) / 4 * 3);
+    }
+
+    /**
+     * 编码
+     *
+     * @param src
+     * @return
+     */
+    public byte[] encode(byte[] src) {
+        byte[] dst = new byte[encodedLength(src.length)];
+        encode(src, 0, src.length, dst, 0);
+        return dst;
+    }
+
+    /**
+     * 编码为字符串
+     *
+     * @param src
+     * @return
+     */
+    public String encodeToString(byte[] src) {
+        return new String(encode(src), StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * 编码到调用方提供的数组
+     *
+     * @param src
+     * @param offset
+     * @param length
+     * @param dst       剩余空间不小于{@link #encodedLength(int)}
+     * @param dstOffset
+     * @return 写入的字节数
+     */
+    public int encode(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+        int required = encodedLength(length);
+        if (dst.length - dstOffset < required) {
+            throw new IllegalArgumentException("output buffer too small, required " + required);
+        }
+        int end = offset + length;
+        int position = dstOffset;
+        int lineRemaining = lineLength;
+        int i = offset;
+        while (end - i >= 3) {
+            if (lineLength > 0 && lineRemaining == 0) {
+                dst[position++] = LINE_SEPARATOR[0];
+                dst[position++] = LINE_SEPARATOR[1];
+                lineRemaining = lineLength;
+            }
+            int bits = (src[i++] & 0xFF) << 16 | (src[i++] & 0xFF) << 8 | (src[i++] & 0xFF);
+            dst[position++] = alphabet[bits >>> 18];
+            dst[position++] = alphabet[(bits >>> 12) & 0x3F];
+            dst[position++] = alphabet[(bits >>> 6) & 0x3F];
+            dst[position++] = alphabet[bits & 0x3F];
+            lineRemaining -= 4;
+        }
+        if (i < end) {
+            if (lineLength > 0 && lineRemaining == 0) {
+                dst[position++] = LINE_SEPARATOR[0];
+                dst[position++] = LINE_SEPARATOR[1];
+            }
+            int bits = (src[i++] & 0xFF) << 16;
+            boolean two = i < end;
+            if (two) {
+                bits |= (src[i] & 0xFF) << 8;
+            }
+            dst[position++] = alphabet[bits >>> 18];
+            dst[position++] = alphabet[(bits >>> 12) & 0x3F];
+            dst[position++] = two ? alphabet[(bits >>> 6) & 0x3F] : PAD;
+            dst[position++] = PAD;
+        }
+        return position - dstOffset;
+    }
+
+    /**
+     * 编码src中position到limit的数据写入dst，支持直接缓冲区，两者的position都会前移
+     *
+     * @param src
+     * @param dst 剩余空间不小于{@link #encodedLength(int)}
+     * @return 写入的字节数
+     */
+    public int encode(ByteBuffer src, ByteBuffer dst) {
+        int length = src.remaining();
+        int required = encodedLength(length);
+        if (dst.remaining() < required) {
+            throw new IllegalArgumentException("output buffer too small, required " + required);
+        }
+        if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+            int written = encode(src.array(), src.arrayOffset() + src.position(), length,
+                    dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.limit());
+            dst.position(dst.position() + written);
+            return written;
+        }
+        int lineRemaining = lineLength;
+        while (src.remaining() >= 3) {
+            if (lineLength > 0 && lineRemaining == 0) {
+                dst.put(LINE_SEPARATOR);
+                lineRemaining = lineLength;
+            }
+            int bits = (src.get() & 0xFF) << 16 | (src.get() & 0xFF) << 8 | (src.get() & 0xFF);
+            dst.put(alphabet[bits >>> 18])
+                    .put(alphabet[(bits >>> 12) & 0x3F])
+                    .put(alphabet[(bits >>> 6) & 0x3F])
+                    .put(alphabet[bits & 0x3F]);
+            lineRemaining -= 4;
+        }
+        if (src.hasRemaining()) {
+            if (lineLength > 0 && lineRemaining == 0) {
+                dst.put(LINE_SEPARATOR);
+            }
+            int bits = (src.get() & 0xFF) << 16;
+            boolean two = src.hasRemaining();
+            if (two) {
+                bits |= (src.get() & 0xFF) << 8;
+            }
+            dst.put(alphabet[bits >>> 18])
+                    .put(alphabet[(bits >>> 12) & 0x3F])
+                    .put(two ? alphabet[(bits >>> 6) & 0x3F] : PAD)
+                    .put(PAD);
+        }
+        return required;
+    }
+
+    /**
+     * 解码
+     *
+     * @param src
+     * @return
+     */
+    public byte[] decode(byte[] src) {
+        byte[] dst = new byte[decodedLength(src, 0, src.length)];
+        decode(src, 0, src.length, dst, 0);
+        return dst;
+    }
+
+    /**
+     * 解码字符串，直接读取字符不做编码转换
+     *
+     * @param src
+     * @return
+     */
+    public byte[] decode(CharSequence src) {
+        int symbols = 0;
+        for (int i = 0, length = src.length(); i < length; i++) {
+            int c = src.charAt(i);
+            if (c == PAD) {
+                break;
+            }
+            if (symbol(c) >= 0) {
+                symbols++;
+            }
+        }
+        byte[] dst = new byte[lengthOf(symbols)];
+        int position = 0;
+        int bits = 0;
+        int count = 0;
+        for (int i = 0, length = src.length(); i < length; i++) {
+            int c = src.charAt(i);
+            if (c == PAD) {
+                checkEnd(src, i, count);
+                break;
+            }
+            int value = symbol(c);
+            if (value < 0) {
+                continue;
+            }
+            bits = bits << 6 | value;
+            if (++count == 4) {
+                dst[position++] = (byte) (bits >> 16);
+                dst[position++] = (byte) (bits >> 8);
+                dst[position++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        tail(bits, count, dst, position);
+        return dst;
+    }
+
+    /**
+     * 解码后的精确长度
+     *
+     * @param src
+     * @param offset
+     * @param length
+     * @return
+     */
+    public int decodedLength(byte[] src, int offset, int length) {
+        int symbols = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int c = src[i] & 0xFF;
+            if (c == PAD) {
+                break;
+            }
+            if (symbol(c) >= 0) {
+                symbols++;
+            }
+        }
+        return lengthOf(symbols);
+    }
+
+    /**
+     * 解码到调用方提供的数组
+     *
+     * @param src
+     * @param offset
+     * @param length
+     * @param dst       剩余空间不小于{@link #maxDecodedLength(int)}或{@link #decodedLength(byte[], int, int)}，不足时抛出IllegalArgumentException且不写入
+     * @param dstOffset
+     * @return 写入的字节数
+     */
+    public int decode(byte[] src, int offset, int length, byte[] dst, int dstOffset) {
+        int available = dst.length - dstOffset;
+        if (available < maxDecodedLength(length)) {
+            checkDecodeSpace(available, decodedLength(src, offset, length));
+        }
+        int position = dstOffset;
+        int bits = 0;
+        int count = 0;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            int c = src[i] & 0xFF;
+            if (c == PAD) {
+                checkEnd(src, i, end, count);
+                break;
+            }
+            int value = symbol(c);
+            if (value < 0) {
+                continue;
+            }
+            bits = bits << 6 | value;
+            if (++count == 4) {
+                dst[position++] = (byte) (bits >> 16);
+                dst[position++] = (byte) (bits >> 8);
+                dst[position++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        return tail(bits, count, dst, position) - dstOffset;
+    }
+
+    /**
+     * 解码src中position到limit的数据写入dst，支持直接缓冲区，两者的position都会前移
+     *
+     * @param src
+     * @param dst 剩余空间不小于{@link #maxDecodedLength(int)}或解码后的精确长度，不足时抛出IllegalArgumentException且两者都不移动
+     * @return 写入的字节数
+     */
+    public int decode(ByteBuffer src, ByteBuffer dst) {
+        if (dst.remaining() < maxDecodedLength(src.remaining())) {
+            checkDecodeSpace(dst.remaining(), decodedLength(src));
+        }
+        if (src.hasArray() && dst.hasArray() && !dst.isReadOnly()) {
+            int written = decode(src.array(), src.arrayOffset() + src.position(), src.remaining(),
+                    dst.array(), dst.arrayOffset() + dst.position());
+            src.position(src.limit());
+            dst.position(dst.position() + written);
+            return written;
+        }
+        int start = dst.position();
+        int bits = 0;
+        int count = 0;
+        while (src.hasRemaining()) {
+            int c = src.get() & 0xFF;
+            if (c == PAD) {
+                checkEnd(src, count);
+                break;
+            }
+            int value = symbol(c);
+            if (value < 0) {
+                continue;
+            }
+            bits = bits << 6 | value;
+            if (++count == 4) {
+                dst.put((byte) (bits >> 16)).put((byte) (bits >> 8)).put((byte) bits);
+                bits = 0;
+                count = 0;
+            }
+        }
+        checkTail(bits, count);
+        if (count == 2) {
+            dst.put((byte) (bits >> 4));
+        } else if (count == 3) {
+            dst.put((byte) (bits >> 10)).put((byte) (bits >> 2));
+        }
+        return dst.position() - start;
+    }
+
+    /**
+     * src中position到limit的数据解码后的精确长度，不移动position
+     */
+    private int decodedLength(ByteBuffer src) {
+        int symbols = 0;
+        for (int i = src.position(), end = src.limit(); i < end; i++) {
+            int c = src.get(i) & 0xFF;
+            if (c == PAD) {
+                break;
+            }
+            if (symbol(c) >= 0) {
+                symbols++;
+            }
+        }
+        return lengthOf(symbols);
+    }
+
+    /**
+     * 在写出任何数据前校验目标空间，避免写到一半越界
+     */
+    private static void checkDecodeSpace(int available, int required) {
+        if (available < required) {
+            throw new IllegalArgumentException("output buffer too small, required " + required);
+        }
+    }
+
+    /**
+     * 字符对应的6位值，空白及MIME下的非法字符返回负数
+     */
+    private int symbol(int c) {
+        int value = c < 256 ? decodeTable[c] : INVALID;
+        if (value == INVALID && !ignoreIllegal) {
+            throw new IllegalArgumentException("illegal base64 character " + Integer.toHexString(c));
+        }
+        return value;
+    }
+
+    private static int lengthOf(int symbols) {
+        if (symbols % 4 == 1) {
+            throw new IllegalArgumentException("invalid base64 length");
+        }
+        return symbols / 4 * 3 + (symbols % 4 == 0 ? 0 : symbols % 4 - 1);
+    }
+
+    /**
+     * 写出不足4个字符的末组
+     */
+    private static int tail(int bits, int count, byte[] dst, int position) {
+        checkTail(bits, count);
+        if (count == 2) {
+            dst[position++] = (byte) (bits >> 4);
+        } else if (count == 3) {
+            dst[position++] = (byte) (bits >> 10);
+            dst[position++] = (byte) (bits >> 2);
+        }
+        return position;
+    }
+
+    /**
+     * 校验末组：单个字符不构成字节，未使用的低位必须为0，否则同一结果可以有多种编码
+     */
+    private static void checkTail(int bits, int count) {
+        if (count == 1) {
+            throw new IllegalArgumentException("invalid base64 length");
+        }
+        if (count == 2 && (bits & 0xF) != 0 || count == 3 && (bits & 0x3) != 0) {
+            throw new IllegalArgumentException("invalid base64 trailing bits");
+        }
+    }
+
+    /**
+     * 校验从第一个填充字符开始的剩余输入
+     *
+     * @param count 末组已读取的字符数
+     */
+    private void checkEnd(byte[] src, int start, int end, int count) {
+        int pads = 0;
+        for (int i = start; i < end; i++) {
+            pads = padding(src[i] & 0xFF, pads);
+        }
+        checkPadding(count, pads);
+    }
+
+    private void checkEnd(CharSequence src, int start, int count) {
+        int pads = 0;
+        for (int i = start, length = src.length(); i < length; i++) {
+            pads = padding(src.charAt(i), pads);
+        }
+        checkPadding(count, pads);
+    }
+
+    /**
+     * 第一个填充字符已经读取
+     */
+    private void checkEnd(ByteBuffer src, int count) {
+        int pads = 1;
+        while (src.hasRemaining()) {
+            pads = padding(src.get() & 0xFF, pads);
+        }
+        checkPadding(count, pads);
+    }
+
+    /**
+     * 填充之后只允许填充字符和空白（MIME下还有被忽略的非法字符）
+     *
+     * @return 累计的填充字符数
+     */
+    private int padding(int c, int pads) {
+        if (c == PAD) {
+            return pads + 1;
+        }
+        if (symbol(c) >= 0) {
+            throw new IllegalArgumentException("unexpected base64 character after padding");
+        }
+        return pads;
+    }
+
+    private static void checkPadding(int count, int pads) {
+        if (pads != (count == 2 ? 2 : count == 3 ? 1 : -1)) {
+            throw new IllegalArgumentException("invalid base64 padding");
+        }
+    }
+}
@@ -0,0 +1,779 @@
+package com.springboot.signature;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.*;
+import java.security.interfaces.RSAKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+
+/**
+ * jdk自带rsa加解密，签名工具
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-03 15:18
+ **/
+public class JdkRsaUtil {
+    /**
+     * 配置常量
+     */
+    interface Constants {
+        /**
+         * PKCS1填充占用的长度，明文块最大为模长减去该值
+         */
+        int PKCS1_PADDING_LENGTH = 11;
+
+        /**
+         * 加密算法RSA
+         */
+        String KEY_ALGORITHM = "RSA";
+
+        /**
+         * 签名算法
+         */
+        String SIGNATURE_ALGORITHM = "MD5withRSA";
+
+        /**
+         * 密钥缓存数
+         */
+        int KEY_CACHE_SIZE = 256;
+
+        /**
+         * 流式签名的读缓冲大小
+         */
+        int STREAM_BUFFER_SIZE = 8192;
+
+        /**
+         * 文件签名时每次映射的大小
+         */
+        long MAPPED_CHUNK_SIZE = 64L * 1024 * 1024;
+    }
+
+    private static final RsaKeyCache.Loader<PublicKey> PUBLIC_KEY_LOADER = new RsaKeyCache.Loader<PublicKey>() {
+        @Override
+        public PublicKey load(String encoded) throws Exception {
+            return parsePublicKey(encoded);
+        }
+    };
+
+    private static final RsaKeyCache.Loader<PrivateKey> PRIVATE_KEY_LOADER = new RsaKeyCache.Loader<PrivateKey>() {
+        @Override
+        public PrivateKey load(String encoded) throws Exception {
+            return parsePrivateKey(encoded);
+        }
+    };
+
+    private static volatile RsaKeyCache<PublicKey> publicKeys = new RsaKeyCache<PublicKey>(Constants.KEY_CACHE_SIZE, 0);
+
+    private static volatile RsaKeyCache<PrivateKey> privateKeys = new RsaKeyCache<PrivateKey>(Constants.KEY_CACHE_SIZE, 0);
+
+    private static volatile RsaVerifyCache verifyCache;
+
+    /**
+     * 调整密钥缓存，已缓存的密钥会被丢弃
+     *
+     * @param maxSize          最大缓存数，小于等于0表示不缓存
+     * @param expireAfterWrite 写入后过期时间（毫秒），小于等于0表示不过期
+     */
+    public static void configureKeyCache(int maxSize, long expireAfterWrite) {
+        publicKeys = new RsaKeyCache<PublicKey>(maxSize, expireAfterWrite);
+        privateKeys = new RsaKeyCache<PrivateKey>(maxSize, expireAfterWrite);
+    }
+
+    /**
+     * 开启验签结果缓存，已缓存的结果会被丢弃
+     *
+     * @param maxSize          最大缓存数，小于等于0表示关闭缓存
+     * @param expireAfterWrite 写入后过期时间（毫秒），小于等于0表示不过期
+     */
+    public static void configureVerifyCache(int maxSize, long expireAfterWrite) {
+        verifyCache = maxSize > 0 ? new RsaVerifyCache(maxSize, expireAfterWrite) : null;
+    }
+
+    /**
+     * 当前的验签结果缓存，可读取命中统计
+     *
+     * @return 未开启时返回null
+     */
+    public static RsaVerifyCache getVerifyCache() {
+        return verifyCache;
+    }
+
+    /**
+     * PKCS8密钥规范签名
+     *
+     * @param context
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static String sign(String context, String privateKey) throws Exception {
+        PrivateKey key = getPrivateKey(privateKey);
+        return sign(context.getBytes(), key);
+    }
+
+    /**
+     * 使用预先注册的私钥签名
+     *
+     * @param context
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static String sign(String context, RsaKeyHandle privateKey) throws Exception {
+        return sign(context.getBytes(), privateKey.getPrivateKey());
+    }
+
+    /**
+     * 签名
+     *
+     * @param context
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static String sign(byte[] context, PrivateKey privateKey) throws Exception {
+        Signature signature = RsaEngines.signer(Constants.SIGNATURE_ALGORITHM, privateKey);
+        try {
+            signature.update(context);
+            return Base64Codec.BASIC.encodeToString(signature.sign());
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 流式签名，不关闭输入流
+     *
+     * @param in
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static String sign(InputStream in, PrivateKey privateKey) throws Exception {
+        Signature signature = RsaEngines.signer(Constants.SIGNATURE_ALGORITHM, privateKey);
+        try {
+            update(signature, in);
+            return Base64Codec.BASIC.encodeToString(signature.sign());
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 签名缓冲区中position到limit的数据，支持直接缓冲区，完成后position移到limit
+     *
+     * @param context
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static String sign(ByteBuffer context, PrivateKey privateKey) throws Exception {
+        Signature signature = RsaEngines.signer(Constants.SIGNATURE_ALGORITHM, privateKey);
+        try {
+            signature.update(context);
+            return Base64Codec.BASIC.encodeToString(signature.sign());
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 文件签名，分段内存映射后交给Signature，内存占用与文件大小无关
+     *
+     * @param file
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static String sign(Path file, PrivateKey privateKey) throws Exception {
+        Signature signature = RsaEngines.signer(Constants.SIGNATURE_ALGORITHM, privateKey);
+        try {
+            update(signature, file);
+            return Base64Codec.BASIC.encodeToString(signature.sign());
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 签名并返回Base64编码的字节，不经过String，除结果外不分配内存
+     *
+     * @param context
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static byte[] signBase64(byte[] context, PrivateKey privateKey) throws Exception {
+        byte[] out = new byte[Base64Codec.BASIC.encodedLength(keySize(privateKey))];
+        signBase64(context, privateKey, ByteBuffer.wrap(out));
+        return out;
+    }
+
+    /**
+     * 签名并把Base64编码直接写入out，如待发送的请求缓冲区
+     *
+     * @param context
+     * @param privateKey
+     * @param out
+     * @return 写入的字节数
+     * @throws Exception
+     */
+    public static int signBase64(byte[] context, PrivateKey privateKey, ByteBuffer out) throws Exception {
+        Signature signature = RsaEngines.signer(Constants.SIGNATURE_ALGORITHM, privateKey);
+        try {
+            byte[] scratch = RsaEngines.scratch(keySize(privateKey));
+            signature.update(context);
+            int length = signature.sign(scratch, 0, scratch.length);
+            return Base64Codec.BASIC.encode(ByteBuffer.wrap(scratch, 0, length), out);
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 签名认证
+     *
+     * @param context
+     * @param publicKey
+     * @param sign
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(String context, String publicKey, String sign) throws Exception {
+        PublicKey key = getPublicKey(publicKey);
+        return verify(context.getBytes(), key, sign);
+    }
+
+    /**
+     * 使用预先注册的公钥签名认证
+     *
+     * @param context
+     * @param publicKey
+     * @param sign
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(String context, RsaKeyHandle publicKey, String sign) throws Exception {
+        return verify(context.getBytes(), publicKey.getPublicKey(), sign);
+    }
+
+    /**
+     * 签名认证
+     *
+     * @param context
+     * @param publicKey
+     * @param sign
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(byte[] context, PublicKey publicKey, String sign) throws Exception {
+        byte[] data = Base64Codec.BASIC.decode(sign);
+        return verify(context, publicKey, data, 0, data.length);
+    }
+
+
+    /**
+     * 流式签名认证，不关闭输入流
+     *
+     * @param in
+     * @param publicKey
+     * @param sign
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(InputStream in, PublicKey publicKey, String sign) throws Exception {
+        Signature signature = RsaEngines.verifier(Constants.SIGNATURE_ALGORITHM, publicKey);
+        try {
+            update(signature, in);
+            return signature.verify(Base64Codec.BASIC.decode(sign));
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 认证缓冲区中position到limit的数据，支持直接缓冲区，完成后position移到limit
+     *
+     * @param context
+     * @param publicKey
+     * @param sign
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(ByteBuffer context, PublicKey publicKey, String sign) throws Exception {
+        Signature signature = RsaEngines.verifier(Constants.SIGNATURE_ALGORITHM, publicKey);
+        try {
+            signature.update(context);
+            return signature.verify(Base64Codec.BASIC.decode(sign));
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 文件签名认证，分段内存映射后交给Signature，内存占用与文件大小无关
+     *
+     * @param file
+     * @param publicKey
+     * @param sign
+     * @return
+     * @throws Exception
+     */
+    public static boolean verify(Path file, PublicKey publicKey, String sign) throws Exception {
+        Signature signature = RsaEngines.verifier(Constants.SIGNATURE_ALGORITHM, publicKey);
+        try {
+            update(signature, file);
+            return signature.verify(Base64Codec.BASIC.decode(sign));
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 认证Base64编码字节形式的签名，不经过String
+     *
+     * @param context
+     * @param publicKey
+     * @param sign
+     * @return
+     * @throws Exception
+     */
+    public static boolean verifyBase64(byte[] context, PublicKey publicKey, byte[] sign) throws Exception {
+        byte[] scratch = RsaEngines.scratch(Base64Codec.BASIC.maxDecodedLength(sign.length));
+        int length = Base64Codec.BASIC.decode(sign, 0, sign.length, scratch, 0);
+        return verify(context, publicKey, scratch, 0, length);
+    }
+
+    /**
+     * 签名认证，开启验签缓存时先查缓存，只记录认证成功的结果
+     */
+    private static boolean verify(byte[] context, PublicKey publicKey, byte[] sign, int offset, int length) throws Exception {
+        RsaVerifyCache cache = verifyCache;
+        RsaVerifyCache.Fingerprint fingerprint = null;
+        if (cache != null) {
+            fingerprint = cache.fingerprint(publicKey, context, sign, offset, length);
+            if (cache.contains(fingerprint)) {
+                return true;
+            }
+        }
+        Signature signature = RsaEngines.verifier(Constants.SIGNATURE_ALGORITHM, publicKey);
+        boolean verified;
+        try {
+            signature.update(context);
+            verified = signature.verify(sign, offset, length);
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+        if (verified && cache != null) {
+            cache.put(fingerprint);
+        }
+        return verified;
+    }
+
+    private static void update(Signature signature, InputStream in) throws IOException, SignatureException {
+        byte[] buffer = new byte[Constants.STREAM_BUFFER_SIZE];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            signature.update(buffer, 0, read);
+        }
+    }
+
+    /**
+     * 按MAPPED_CHUNK_SIZE分段映射文件，映射区在不再引用后由GC释放
+     */
+    private static void update(Signature signature, Path file) throws IOException, SignatureException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long position = 0; position < size; position += Constants.MAPPED_CHUNK_SIZE) {
+                MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                        Math.min(Constants.MAPPED_CHUNK_SIZE, size - position));
+                signature.update(chunk);
+            }
+        }
+    }
+
+    /**
+     * 使用PKCS8私钥规范加密
+     *
+     * @param context
+     * @param privateKey
+     * @return
+     */
+    public static String encryptByPrivateKey(String context, String privateKey) throws Exception {
+        PrivateKey key = getPrivateKey(privateKey);
+        return Base64Codec.BASIC.encodeToString(encryptByPrivateKey(context.getBytes(), key));
+    }
+
+    /**
+     * 使用X509公钥规范解密
+     *
+     * @param context
+     * @param publicKey
+     * @return
+     */
+    public static String decryptByPublicKey(String context, String publicKey) throws Exception {
+        PublicKey key = getPublicKey(publicKey);
+        return new String(decryptByPublicKey(Base64Codec.BASIC.decode(context), key));
+    }
+
+    /**
+     * 使用PKCS8私钥规范解密
+     *
+     * @param context
+     * @param privateKey
+     * @return
+     */
+    public static String decryptByPrivateKey(String context, String privateKey) throws Exception {
+        PrivateKey key = getPrivateKey(privateKey);
+        return new String(decryptByPrivateKey(Base64Codec.BASIC.decode(context), key));
+    }
+
+    /**
+     * 使用X509公钥规范加密
+     *
+     * @param context
+     * @param publicKey
+     * @return
+     */
+    public static String encryptByPublicKey(String context, String publicKey) throws Exception {
+        PublicKey key = getPublicKey(publicKey);
+        return Base64Codec.BASIC.encodeToString(encryptByPublicKey(context.getBytes(), key));
+    }
+
+    /**
+     * 使用预先注册的密钥加密，公钥或私钥均可
+     *
+     * @param context
+     * @param key
+     * @return
+     */
+    public static String encrypt(String context, RsaKeyHandle key) throws Exception {
+        byte[] data = key.isPublic() ? encryptByPublicKey(context.getBytes(), key.getPublicKey())
+                : encryptByPrivateKey(context.getBytes(), key.getPrivateKey());
+        return Base64Codec.BASIC.encodeToString(data);
+    }
+
+    /**
+     * 使用预先注册的密钥解密，公钥或私钥均可
+     *
+     * @param context
+     * @param key
+     * @return
+     */
+    public static String decrypt(String context, RsaKeyHandle key) throws Exception {
+        byte[] data = key.isPublic() ? decryptByPublicKey(Base64Codec.BASIC.decode(context), key.getPublicKey())
+                : decryptByPrivateKey(Base64Codec.BASIC.decode(context), key.getPrivateKey());
+        return new String(data);
+    }
+
+
+    /**
+     * 私钥加密
+     *
+     * @param content
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static byte[] encryptByPrivateKey(byte[] content, PrivateKey privateKey) throws Exception {
+        Cipher cipher = RsaEngines.cipher(Constants.KEY_ALGORITHM, Cipher.ENCRYPT_MODE, privateKey);
+        return doFinal(cipher, content, Cipher.ENCRYPT_MODE, privateKey);
+    }
+
+    /**
+     * 公钥解密
+     *
+     * @param content
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    public static byte[] decryptByPublicKey(byte[] content, PublicKey publicKey) throws Exception {
+        Cipher cipher = RsaEngines.cipher(Constants.KEY_ALGORITHM, Cipher.DECRYPT_MODE, publicKey);
+        return doFinal(cipher, content, Cipher.DECRYPT_MODE, publicKey);
+    }
+
+    /**
+     * 公钥加密
+     *
+     * @param content
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    public static byte[] encryptByPublicKey(byte[] content, PublicKey publicKey) throws Exception {
+        Cipher cipher = RsaEngines.cipher(Constants.KEY_ALGORITHM, Cipher.ENCRYPT_MODE, publicKey);
+        return doFinal(cipher, content, Cipher.ENCRYPT_MODE, publicKey);
+    }
+
+    /**
+     * 私钥解密
+     *
+     * @param content
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static byte[] decryptByPrivateKey(byte[] content, PrivateKey privateKey) throws Exception {
+        Cipher cipher = RsaEngines.cipher(Constants.KEY_ALGORITHM, Cipher.DECRYPT_MODE, privateKey);
+        return doFinal(cipher, content, Cipher.DECRYPT_MODE, privateKey);
+    }
+
+    /**
+     * 私钥加密到缓冲区，从in的position读到limit，写入out并返回写入的字节数
+     *
+     * @param in
+     * @param out
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static int encryptByPrivateKey(ByteBuffer in, ByteBuffer out, PrivateKey privateKey) throws Exception {
+        Cipher cipher = RsaEngines.cipher(Constants.KEY_ALGORITHM, Cipher.ENCRYPT_MODE, privateKey);
+        return doFinal(cipher, in, out, Cipher.ENCRYPT_MODE, privateKey);
+    }
+
+    /**
+     * 公钥解密到缓冲区，从in的position读到limit，写入out并返回写入的字节数
+     *
+     * @param in
+     * @param out
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    public static int decryptByPublicKey(ByteBuffer in, ByteBuffer out, PublicKey publicKey) throws Exception {
+        Cipher cipher = RsaEngines.cipher(Constants.KEY_ALGORITHM, Cipher.DECRYPT_MODE, publicKey);
+        return doFinal(cipher, in, out, Cipher.DECRYPT_MODE, publicKey);
+    }
+
+    /**
+     * 公钥加密到缓冲区，从in的position读到limit，写入out并返回写入的字节数
+     *
+     * @param in
+     * @param out
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    public static int encryptByPublicKey(ByteBuffer in, ByteBuffer out, PublicKey publicKey) throws Exception {
+        Cipher cipher = RsaEngines.cipher(Constants.KEY_ALGORITHM, Cipher.ENCRYPT_MODE, publicKey);
+        return doFinal(cipher, in, out, Cipher.ENCRYPT_MODE, publicKey);
+    }
+
+    /**
+     * 私钥解密到缓冲区，从in的position读到limit，写入out并返回写入的字节数
+     *
+     * @param in
+     * @param out
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static int decryptByPrivateKey(ByteBuffer in, ByteBuffer out, PrivateKey privateKey) throws Exception {
+        Cipher cipher = RsaEngines.cipher(Constants.KEY_ALGORITHM, Cipher.DECRYPT_MODE, privateKey);
+        return doFinal(cipher, in, out, Cipher.DECRYPT_MODE, privateKey);
+    }
+
+    /**
+     * 计算处理结果所需的最大长度，解密时为上限
+     *
+     * @param length 输入长度
+     * @param mode   Cipher.ENCRYPT_MODE或Cipher.DECRYPT_MODE
+     * @param key
+     * @return
+     */
+    public static int getOutputSize(int length, int mode, Key key) {
+        int keySize = keySize(key);
+        int block = blockSize(keySize, mode);
+        int blocks = (length + block - 1) / block;
+        if (mode == Cipher.ENCRYPT_MODE) {
+            return blocks * keySize;
+        }
+        // Cipher要求每次输出都预留一个模长的空间
+        return blocks == 0 ? 0 : (blocks - 1) * (keySize - Constants.PKCS1_PADDING_LENGTH) + keySize;
+    }
+
+    /**
+     * 密钥模长（字节）
+     *
+     * @param key
+     * @return
+     */
+    static int keySize(Key key) {
+        if (!(key instanceof RSAKey)) {
+            throw new IllegalArgumentException("not a rsa key: " + key.getClass().getName());
+        }
+        return (((RSAKey) key).getModulus().bitLength() + 7) / 8;
+    }
+
+    /**
+     * 分块大小：加密时为模长减去填充长度，解密时为模长
+     *
+     * @param keySize
+     * @param mode
+     * @return
+     */
+    private static int blockSize(int keySize, int mode) {
+        return mode == Cipher.ENCRYPT_MODE ? keySize - Constants.PKCS1_PADDING_LENGTH : keySize;
+    }
+
+    /**
+     * 分块处理数据
+     *
+     * @param cipher
+     * @param content
+     * @param mode
+     * @param key
+     * @return
+     * @throws Exception
+     */
+    private static byte[] doFinal(Cipher cipher, byte[] content, int mode, Key key) throws Exception {
+        try {
+            int block = blockSize(keySize(key), mode);
+            // 按分块数预先分配输出，加密时长度精确，解密时为上限
+            byte[] out = new byte[getOutputSize(content.length, mode, key)];
+            int written = 0;
+            // 数据分段处理
+            for (int offset = 0; offset < content.length; offset += block) {
+                written += cipher.doFinal(content, offset, Math.min(block, content.length - offset), out, written);
+            }
+            return written == out.length ? out : Arrays.copyOf(out, written);
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        }
+    }
+
+    /**
+     * 分块处理缓冲区数据，不产生中间数组
+     *
+     * @param cipher
+     * @param in
+     * @param out
+     * @param mode
+     * @param key
+     * @return
+     * @throws Exception
+     */
+    private static int doFinal(Cipher cipher, ByteBuffer in, ByteBuffer out, int mode, Key key) throws Exception {
+        int required = getOutputSize(in.remaining(), mode, key);
+        if (out.remaining() < required) {
+            throw new ShortBufferException("output buffer requires " + required + " bytes, remaining " + out.remaining());
+        }
+        int block = blockSize(keySize(key), mode);
+        int limit = in.limit();
+        int written = 0;
+        try {
+            while (in.position() < limit) {
+                in.limit(Math.min(limit, in.position() + block));
+                written += cipher.doFinal(in, out);
+            }
+        } catch (Exception e) {
+            RsaEngines.reset();
+            throw e;
+        } finally {
+            in.limit(limit);
+        }
+        return written;
+    }
+
+    /**
+     * 获取X509Encoded规范的公钥，优先从缓存获取
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    static PublicKey getPublicKey(String publicKey) throws Exception {
+        return publicKeys.get(publicKey, PUBLIC_KEY_LOADER);
+    }
+
+    /**
+     * 获取PKCS8规范的私钥，优先从缓存获取
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    static PrivateKey getPrivateKey(String privateKey) throws Exception {
+        return privateKeys.get(privateKey, PRIVATE_KEY_LOADER);
+    }
+
+    /**
+     * 解析X509Encoded规范的公钥
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    private static PublicKey parsePublicKey(String publicKey) throws Exception{
+        byte[] keyBytes = Base64Codec.BASIC.decode(publicKey);
+        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(keyBytes);
+        KeyFactory keyFactory = KeyFactory.getInstance(Constants.KEY_ALGORITHM);
+        PublicKey key = keyFactory.generatePublic(keySpec);
+        return key;
+    }
+
+    /**
+     * 解析PKCS8规范的私钥
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    private static PrivateKey parsePrivateKey(String privateKey) throws Exception{
+        byte[] keyBytes = Base64Codec.BASIC.decode(privateKey);
+        PKCS8EncodedKeySpec keySpec = new PKCS8EncodedKeySpec(keyBytes);
+        KeyFactory keyFactory = KeyFactory.getInstance(Constants.KEY_ALGORITHM);
+        PrivateKey key = keyFactory.generatePrivate(keySpec);
+        return key;
+    }
+
+//    public static void main(String[] args) throws Exception {
+//
+//        KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance(Constants.KEY_ALGORITHM);
+//        keyPairGenerator.initialize(1024);
+//        KeyPair key = keyPairGenerator.generateKeyPair();
+//
+//        //私钥加密
+//        String encryptedStr = encryptByPrivateKey("测试", Base64Codec.BASIC.encodeToString(key.getPrivate().getEncoded()));
+//        System.out.println("加密后：" + encryptedStr);
+//
+//        //公钥解密
+//        String decryptedStr = decryptByPublicKey(encryptedStr, Base64Codec.BASIC.encodeToString(key.getPublic().getEncoded()));
+//        System.out.println("解密后：" + decryptedStr);
+//
+//
+//        //公钥加密
+//        String encryptedStr1 = encryptByPublicKey("测试", Base64Codec.BASIC.encodeToString(key.getPublic().getEncoded()));
+//        System.out.println("加密后：" + encryptedStr1);
+//
+//        //私钥解密
+//        String decryptedStr1 = decryptByPrivateKey(encryptedStr1, Base64Codec.BASIC.encodeToString(key.getPrivate().getEncoded()));
+//        System.out.println("解密后：" + decryptedStr1);
+//
+//        //私钥签名
+//        String sign = sign("测试", Base64Codec.BASIC.encodeToString(key.getPrivate().getEncoded()));
+//        System.out.println("签名：" + sign);
+//
+//        //公钥认证
+//        boolean verify = verify("测试", Base64Codec.BASIC.encodeToString(key.getPublic().getEncoded()),sign);
+//        System.out.println("签名认证：" + verify);
+//    }
+}
@@ -0,0 +1,292 @@
+package com.springboot.signature;
+
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * RSA批量签名、验签
+ * <p>
+ * 按下标把批次切成连续的段并行处理，默认使用ForkJoinPool.commonPool()，也可传入自己的线程池。
+ * 每个工作线程通过JdkRsaUtil复用线程内的Signature实例，结果按输入下标写回boolean[]/String[]。
+ * 不支持随机访问的列表（如LinkedList）先复制为ArrayList再切分
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-26 17:10
+ **/
+public class RsaBatch {
+
+    /**
+     * 配置常量
+     */
+    interface Constants {
+        /**
+         * 每个并行度切分的段数，段越多负载越均衡
+         */
+        int SEGMENTS_PER_THREAD = 4;
+
+        /**
+         * 每段最少条数，避免调度开销超过验签本身
+         */
+        int MIN_SEGMENT_SIZE = 16;
+    }
+
+    private RsaBatch() {
+    }
+
+    /**
+     * 待验签的数据
+     */
+    public static final class SignedContent {
+        private final byte[] content;
+        private final PublicKey publicKey;
+        private final String sign;
+
+        public SignedContent(byte[] content, PublicKey publicKey, String sign) {
+            this.content = content;
+            this.publicKey = publicKey;
+            this.sign = sign;
+        }
+
+        public byte[] getContent() {
+            return content;
+        }
+
+        public PublicKey getPublicKey() {
+            return publicKey;
+        }
+
+        public String getSign() {
+            return sign;
+        }
+    }
+
+    /**
+     * 同一私钥批量签名
+     *
+     * @param contents
+     * @param privateKey
+     * @return 与contents下标一一对应的签名
+     * @throws Exception
+     */
+    public static String[] signAll(List<byte[]> contents, PrivateKey privateKey) throws Exception {
+        return signAll(contents, privateKey, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 同一私钥批量签名，任一条签名失败时抛出该异常
+     *
+     * @param contents
+     * @param privateKey
+     * @param executor
+     * @return 与contents下标一一对应的签名
+     * @throws Exception
+     */
+    public static String[] signAll(List<byte[]> contents, PrivateKey privateKey, Executor executor) throws Exception {
+        List<byte[]> contentList = indexed(contents);
+        String[] signs = new String[contentList.size()];
+        execute(signs.length, executor, new Segment() {
+            @Override
+            public void run(int from, int to) throws Exception {
+                for (int i = from; i < to; i++) {
+                    signs[i] = JdkRsaUtil.sign(contentList.get(i), privateKey);
+                }
+            }
+        });
+        return signs;
+    }
+
+    /**
+     * 同一公钥批量验签
+     *
+     * @param contents
+     * @param publicKey
+     * @param signs
+     * @return 与contents下标一一对应的验签结果
+     */
+    public static boolean[] verifyAll(List<byte[]> contents, PublicKey publicKey, List<String> signs) {
+        return verifyAll(contents, publicKey, signs, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 同一公钥批量验签，签名格式错误等异常视为验签失败
+     *
+     * @param contents
+     * @param publicKey
+     * @param signs
+     * @param executor
+     * @return 与contents下标一一对应的验签结果
+     */
+    public static boolean[] verifyAll(List<byte[]> contents, PublicKey publicKey, List<String> signs, Executor executor) {
+        if (contents.size() != signs.size()) {
+            throw new IllegalArgumentException("contents and signs size mismatch");
+        }
+        List<byte[]> contentList = indexed(contents);
+        List<String> signList = indexed(signs);
+        boolean[] results = new boolean[contentList.size()];
+        executeQuietly(results.length, executor, new Segment() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    results[i] = verifyQuietly(contentList.get(i), publicKey, signList.get(i));
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * 批量验签
+     *
+     * @param items
+     * @return 与items下标一一对应的验签结果
+     */
+    public static boolean[] verifyAll(List<SignedContent> items) {
+        return verifyAll(items, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 批量验签，流会先收集为列表以便按下标切分
+     *
+     * @param items
+     * @param executor
+     * @return 与流中顺序一一对应的验签结果
+     */
+    public static boolean[] verifyAll(Stream<SignedContent> items, Executor executor) {
+        List<SignedContent> list = items.collect(Collectors.toList());
+        return verifyAll(list, executor);
+    }
+
+    /**
+     * 批量验签，签名格式错误等异常视为验签失败
+     *
+     * @param items
+     * @param executor
+     * @return 与items下标一一对应的验签结果
+     */
+    public static boolean[] verifyAll(List<SignedContent> items, Executor executor) {
+        List<SignedContent> itemList = indexed(items);
+        boolean[] results = new boolean[itemList.size()];
+        executeQuietly(results.length, executor, new Segment() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    SignedContent item = itemList.get(i);
+                    results[i] = verifyQuietly(item.getContent(), item.getPublicKey(), item.getSign());
+                }
+            }
+        });
+        return results;
+    }
+
+    /**
+     * 各段按下标读取，LinkedList等按下标读取为O(n)的列表先复制
+     */
+    private static <T> List<T> indexed(List<T> list) {
+        return list instanceof RandomAccess ? list : new ArrayList<T>(list);
+    }
+
+    private static boolean verifyQuietly(byte[] content, PublicKey publicKey, String sign) {
+        try {
+            return JdkRsaUtil.verify(content, publicKey, sign);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 下标区间[from, to)的处理逻辑
+     */
+    private interface Segment {
+        void run(int from, int to) throws Exception;
+    }
+
+    private static void executeQuietly(int size, Executor executor, Segment segment) {
+        try {
+            execute(size, executor, segment);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 切段提交到线程池，最后一段由调用线程执行，全部完成后返回。
+     * 任一段失败后尚未开始的段不再执行；调用线程的段失败或提交被拒绝时，等已开始的段结束后再抛出，
+     * 返回后不会再有工作线程写入结果数组
+     */
+    private static void execute(int size, Executor executor, final Segment segment) throws Exception {
+        if (size == 0) {
+            return;
+        }
+        int parallelism = executor instanceof ForkJoinPool
+                ? ((ForkJoinPool) executor).getParallelism()
+                : Runtime.getRuntime().availableProcessors();
+        int segmentSize = Math.max(Constants.MIN_SEGMENT_SIZE,
+                (size + parallelism * Constants.SEGMENTS_PER_THREAD - 1) / (parallelism * Constants.SEGMENTS_PER_THREAD));
+        final AtomicBoolean cancelled = new AtomicBoolean();
+        List<CompletableFuture<Void>> futures = new ArrayList<CompletableFuture<Void>>();
+        boolean completed = false;
+        try {
+            int from = 0;
+            while (size - from > segmentSize) {
+                final int start = from;
+                final int end = from + segmentSize;
+                final CompletableFuture<Void> future = new CompletableFuture<Void>();
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            if (!cancelled.get()) {
+                                segment.run(start, end);
+                            }
+                            future.complete(null);
+                        } catch (Throwable e) {
+                            cancelled.set(true);
+                            future.completeExceptionally(e);
+                        }
+                    }
+                });
+                // 提交成功后再加入，被拒绝的任务不会完成
+                futures.add(future);
+                from = end;
+            }
+            segment.run(from, size);
+            completed = true;
+        } finally {
+            if (!completed) {
+                cancelled.set(true);
+                awaitQuietly(futures);
+            }
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            }
+            throw e;
+        }
+    }
+
+    private static void awaitQuietly(List<CompletableFuture<Void>> futures) {
+        for (CompletableFuture<Void> future : futures) {
+            try {
+                future.join();
+            } catch (CompletionException ignored) {
+            }
+        }
+    }
+}
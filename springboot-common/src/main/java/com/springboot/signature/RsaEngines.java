@@ -0,0 +1,152 @@
+package com.springboot.signature;
+
+import javax.crypto.Cipher;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 线程内复用的Signature与Cipher实例
+ * <p>
+ * getInstance需要查找Provider并加锁，每次调用都新建实例开销与RSA运算本身相当。
+ * 每个线程按算法缓存实例，密钥和模式不变时不重新初始化：sign/verify/doFinal完成后实例会自动回到初始化后的状态。
+ * 使用过程中出现异常时需要调用{@link #reset()}丢弃可能处于中间状态的实例
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-24 11:20
+ **/
+final class RsaEngines {
+
+    private static final ThreadLocal<RsaEngines> ENGINES = new ThreadLocal<RsaEngines>() {
+        @Override
+        protected RsaEngines initialValue() {
+            return new RsaEngines();
+        }
+    };
+
+    private final Map<String, Slot<Signature>> signatures = new HashMap<String, Slot<Signature>>();
+
+    private final Map<String, Slot<Cipher>> ciphers = new HashMap<String, Slot<Cipher>>();
+
+    private byte[] scratch = new byte[0];
+
+    private RsaEngines() {
+    }
+
+    /**
+     * 当前线程的临时缓冲区，长度不小于size，内容在下次调用前有效
+     *
+     * @param size
+     * @return
+     */
+    static byte[] scratch(int size) {
+        RsaEngines engines = ENGINES.get();
+        if (engines.scratch.length < size) {
+            engines.scratch = new byte[size];
+        }
+        return engines.scratch;
+    }
+
+    /**
+     * 获取已用私钥初始化签名的Signature
+     *
+     * @param algorithm
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    static Signature signer(String algorithm, PrivateKey privateKey) throws Exception {
+        Slot<Signature> slot = ENGINES.get().signature(algorithm);
+        if (slot.key != privateKey || slot.mode != Cipher.ENCRYPT_MODE) {
+            slot.key = null;
+            slot.engine.initSign(privateKey);
+            slot.key = privateKey;
+            slot.mode = Cipher.ENCRYPT_MODE;
+        }
+        return slot.engine;
+    }
+
+    /**
+     * 获取已用公钥初始化验签的Signature
+     *
+     * @param algorithm
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    static Signature verifier(String algorithm, PublicKey publicKey) throws Exception {
+        Slot<Signature> slot = ENGINES.get().signature(algorithm);
+        if (slot.key != publicKey || slot.mode != Cipher.DECRYPT_MODE) {
+            slot.key = null;
+            slot.engine.initVerify(publicKey);
+            slot.key = publicKey;
+            slot.mode = Cipher.DECRYPT_MODE;
+        }
+        return slot.engine;
+    }
+
+    /**
+     * 获取已初始化的Cipher
+     *
+     * @param algorithm
+     * @param mode      Cipher.ENCRYPT_MODE或Cipher.DECRYPT_MODE
+     * @param key
+     * @return
+     * @throws Exception
+     */
+    static Cipher cipher(String algorithm, int mode, Key key) throws Exception {
+        Slot<Cipher> slot = ENGINES.get().cipher(algorithm);
+        if (slot.key != key || slot.mode != mode) {
+            slot.key = null;
+            slot.engine.init(mode, key);
+            slot.key = key;
+            slot.mode = mode;
+        }
+        return slot.engine;
+    }
+
+    /**
+     * 丢弃当前线程缓存的实例
+     */
+    static void reset() {
+        ENGINES.remove();
+    }
+
+    private Slot<Signature> signature(String algorithm) throws Exception {
+        Slot<Signature> slot = signatures.get(algorithm);
+        if (slot == null) {
+            slot = new Slot<Signature>(Signature.getInstance(algorithm));
+            signatures.put(algorithm, slot);
+        }
+        return slot;
+    }
+
+    private Slot<Cipher> cipher(String algorithm) throws Exception {
+        Slot<Cipher> slot = ciphers.get(algorithm);
+        if (slot == null) {
+            slot = new Slot<Cipher>(Cipher.getInstance(algorithm));
+            ciphers.put(algorithm, slot);
+        }
+        return slot;
+    }
+
+    /**
+     * 实例及其当前的初始化状态
+     */
+    private static class Slot<T> {
+
+        private final T engine;
+
+        private Key key;
+
+        private int mode;
+
+        Slot(T engine) {
+            this.engine = engine;
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package com.springboot.signature;
+
+import javax.crypto.AEADBadTagException;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+
+/**
+ * 数字信封加解密（RSA包装的AES-GCM）
+ * <p>
+ * 每条消息随机生成AES内容密钥，用RSA公钥加密后放在消息头，正文按块以AES-GCM加密。
+ * 大消息只需一次RSA运算，其余均为对称加密，且加解密都可以流式进行。
+ * <pre>
+ * 格式（大端）：
+ * magic "RE"(2) | version(1) | 包装密钥长度(2) | 包装密钥 | nonce前缀(7) | 块大小(4)
+ * 块：header(4，最高位为末块标记，其余为密文长度) | 密文（含16字节认证标签）
+ * 每块的IV为 nonce前缀(7) | 块序号(4) | 末块标记(1)，块header作为附加认证数据，
+ * 块被重排、截断或篡改都会导致解密失败
+ * </pre>
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-26 15:40
+ **/
+public class RsaEnvelope {
+
+    /**
+     * 配置常量
+     */
+    interface Constants {
+        byte[] MAGIC = {'R', 'E'};
+
+        byte VERSION = 1;
+
+        String CONTENT_ALGORITHM = "AES";
+
+        String CONTENT_TRANSFORMATION = "AES/GCM/NoPadding";
+
+        /**
+         * 内容密钥长度（字节）
+         */
+        int CONTENT_KEY_LENGTH = 16;
+
+        int NONCE_PREFIX_LENGTH = 7;
+
+        int TAG_LENGTH = 16;
+
+        /**
+         * 默认块大小
+         */
+        int CHUNK_SIZE = 64 * 1024;
+
+        /**
+         * 最大块大小，块大小来自未经认证的消息头，限制解密时的内存分配
+         */
+        int MAX_CHUNK_SIZE = 16 * 1024 * 1024;
+
+        int FINAL_FLAG = 0x80000000;
+    }
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private RsaEnvelope() {
+    }
+
+    /**
+     * 公钥加密
+     *
+     * @param content
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    public static byte[] encrypt(byte[] content, PublicKey publicKey) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length + content.length / Constants.CHUNK_SIZE * 20 + 1024);
+        encrypt(new ByteArrayInputStream(content), out, publicKey);
+        return out.toByteArray();
+    }
+
+    /**
+     * 私钥解密
+     *
+     * @param content
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static byte[] decrypt(byte[] content, PrivateKey privateKey) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.length);
+        decrypt(new ByteArrayInputStream(content), out, privateKey);
+        return out.toByteArray();
+    }
+
+    /**
+     * 公钥流式加密，不关闭输入输出流
+     *
+     * @param in
+     * @param out
+     * @param publicKey
+     * @return 写入的字节数
+     * @throws Exception
+     */
+    public static long encrypt(InputStream in, OutputStream out, PublicKey publicKey) throws Exception {
+        return encrypt(Channels.newChannel(in), Channels.newChannel(out), publicKey, Constants.CHUNK_SIZE);
+    }
+
+    /**
+     * 私钥流式解密，不关闭输入输出流
+     *
+     * @param in
+     * @param out
+     * @param privateKey
+     * @return 写入的字节数
+     * @throws Exception
+     */
+    public static long decrypt(InputStream in, OutputStream out, PrivateKey privateKey) throws Exception {
+        return decrypt(Channels.newChannel(in), Channels.newChannel(out), privateKey);
+    }
+
+    /**
+     * 公钥加密通道数据，如FileChannel，不关闭通道
+     *
+     * @param in
+     * @param out
+     * @param publicKey
+     * @param chunkSize 块大小，不超过{@link Constants#MAX_CHUNK_SIZE}
+     * @return 写入的字节数
+     * @throws Exception
+     */
+    public static long encrypt(ReadableByteChannel in, WritableByteChannel out, PublicKey publicKey, int chunkSize) throws Exception {
+        if (chunkSize <= 0 || chunkSize > Constants.MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunk size must be in (0, " + Constants.MAX_CHUNK_SIZE + "]");
+        }
+        byte[] contentKey = new byte[Constants.CONTENT_KEY_LENGTH];
+        byte[] noncePrefix = new byte[Constants.NONCE_PREFIX_LENGTH];
+        RANDOM.nextBytes(contentKey);
+        RANDOM.nextBytes(noncePrefix);
+        byte[] wrappedKey = JdkRsaUtil.encryptByPublicKey(contentKey, publicKey);
+
+        ByteBuffer header = ByteBuffer.allocate(2 + 1 + 2 + wrappedKey.length + Constants.NONCE_PREFIX_LENGTH + 4);
+        header.put(Constants.MAGIC).put(Constants.VERSION)
+                .putShort((short) wrappedKey.length).put(wrappedKey)
+                .put(noncePrefix).putInt(chunkSize);
+        header.flip();
+        long written = writeFully(out, header);
+
+        Cipher cipher = Cipher.getInstance(Constants.CONTENT_TRANSFORMATION);
+        SecretKeySpec key = new SecretKeySpec(contentKey, Constants.CONTENT_ALGORITHM);
+        ByteBuffer plain = ByteBuffer.allocate(chunkSize);
+        ByteBuffer sealed = ByteBuffer.allocate(4 + chunkSize + Constants.TAG_LENGTH);
+        int counter = 0;
+        boolean last = false;
+        while (!last) {
+            plain.clear();
+            last = readFully(in, plain);
+            plain.flip();
+            int chunkHeader = (plain.remaining() + Constants.TAG_LENGTH) | (last ? Constants.FINAL_FLAG : 0);
+            sealed.clear();
+            sealed.putInt(chunkHeader);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(Constants.TAG_LENGTH * 8, iv(noncePrefix, counter++, last)));
+            cipher.updateAAD(sealed.array(), 0, 4);
+            cipher.doFinal(plain, sealed);
+            sealed.flip();
+            written += writeFully(out, sealed);
+        }
+        return written;
+    }
+
+    /**
+     * 私钥解密通道数据，如FileChannel，不关闭通道
+     *
+     * @param in
+     * @param out
+     * @param privateKey
+     * @return 写入的字节数
+     * @throws Exception
+     */
+    public static long decrypt(ReadableByteChannel in, WritableByteChannel out, PrivateKey privateKey) throws Exception {
+        ByteBuffer prefix = ByteBuffer.allocate(5);
+        readExactly(in, prefix);
+        if (prefix.get() != Constants.MAGIC[0] || prefix.get() != Constants.MAGIC[1]) {
+            throw new GeneralSecurityException("not a rsa envelope");
+        }
+        if (prefix.get() != Constants.VERSION) {
+            throw new GeneralSecurityException("unsupported envelope version");
+        }
+        ByteBuffer header = ByteBuffer.allocate((prefix.getShort() & 0xFFFF) + Constants.NONCE_PREFIX_LENGTH + 4);
+        readExactly(in, header);
+        byte[] wrappedKey = new byte[header.remaining() - Constants.NONCE_PREFIX_LENGTH - 4];
+        byte[] noncePrefix = new byte[Constants.NONCE_PREFIX_LENGTH];
+        header.get(wrappedKey).get(noncePrefix);
+        int chunkSize = header.getInt();
+        if (chunkSize <= 0 || chunkSize > Constants.MAX_CHUNK_SIZE) {
+            throw new GeneralSecurityException("invalid chunk size " + chunkSize);
+        }
+        byte[] contentKey = JdkRsaUtil.decryptByPrivateKey(wrappedKey, privateKey);
+        if (contentKey.length != Constants.CONTENT_KEY_LENGTH) {
+            throw new GeneralSecurityException("invalid content key length " + contentKey.length);
+        }
+        SecretKeySpec key = new SecretKeySpec(contentKey, Constants.CONTENT_ALGORITHM);
+
+        Cipher cipher = Cipher.getInstance(Constants.CONTENT_TRANSFORMATION);
+        ByteBuffer chunkHeader = ByteBuffer.allocate(4);
+        int maxLength = chunkSize + Constants.TAG_LENGTH;
+        // 缓冲区按实际的块长度分配，消息头声明的块大小只作为上限
+        int capacity = Math.min(maxLength, Constants.CHUNK_SIZE + Constants.TAG_LENGTH);
+        ByteBuffer sealed = ByteBuffer.allocate(capacity);
+        ByteBuffer plain = ByteBuffer.allocate(capacity);
+        long written = 0;
+        int counter = 0;
+        boolean last = false;
+        while (!last) {
+            chunkHeader.clear();
+            readExactly(in, chunkHeader);
+            int value = chunkHeader.getInt();
+            last = (value & Constants.FINAL_FLAG) != 0;
+            int length = value & ~Constants.FINAL_FLAG;
+            if (length < Constants.TAG_LENGTH || length > maxLength) {
+                throw new AEADBadTagException("invalid chunk length " + length);
+            }
+            if (length > sealed.capacity()) {
+                sealed = ByteBuffer.allocate(length);
+                plain = ByteBuffer.allocate(length);
+            }
+            sealed.clear();
+            sealed.limit(length);
+            readExactly(in, sealed);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(Constants.TAG_LENGTH * 8, iv(noncePrefix, counter++, last)));
+            cipher.updateAAD(chunkHeader.array(), 0, 4);
+            plain.clear();
+            cipher.doFinal(sealed, plain);
+            plain.flip();
+            written += writeFully(out, plain);
+        }
+        return written;
+    }
+
+    private static byte[] iv(byte[] noncePrefix, int counter, boolean last) {
+        byte[] iv = new byte[12];
+        System.arraycopy(noncePrefix, 0, iv, 0, noncePrefix.length);
+        iv[7] = (byte) (counter >>> 24);
+        iv[8] = (byte) (counter >>> 16);
+        iv[9] = (byte) (counter >>> 8);
+        iv[10] = (byte) counter;
+        iv[11] = (byte) (last ? 1 : 0);
+        return iv;
+    }
+
+    /**
+     * 读满缓冲区，数据恰好读完时由下一轮写出空的末块
+     *
+     * @return 是否已读到结尾
+     */
+    private static boolean readFully(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void readExactly(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        if (readFully(in, buffer)) {
+            throw new EOFException("truncated rsa envelope");
+        }
+        buffer.flip();
+    }
+
+    private static long writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        long written = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        return written;
+    }
+}
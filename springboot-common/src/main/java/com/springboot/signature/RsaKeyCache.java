@@ -0,0 +1,78 @@
+package com.springboot.signature;
+
+import java.security.Key;
+
+/**
+ * 密钥缓存
+ * <p>
+ * 以Base64编码的密钥字符串为键，按最近最少使用淘汰，可选写入后过期，
+ * 避免每次调用都重新解码并通过KeyFactory生成密钥。与验签缓存共用{@link StripedLruCache}，按键的哈希分段加锁，并发验签不争用同一把锁
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-23 16:05
+ **/
+public class RsaKeyCache<K extends Key> {
+
+    /**
+     * 密钥解析
+     */
+    public interface Loader<K> {
+        K load(String encoded) throws Exception;
+    }
+
+    private final int maxSize;
+
+    private final StripedLruCache<String, K> keys;
+
+    /**
+     * @param maxSize          最大缓存数
+     * @param expireAfterWrite 写入后过期时间（毫秒），小于等于0表示不过期
+     */
+    public RsaKeyCache(int maxSize, long expireAfterWrite) {
+        this.maxSize = maxSize;
+        this.keys = new StripedLruCache<String, K>(maxSize, expireAfterWrite);
+    }
+
+    /**
+     * 获取密钥，未缓存或已过期时通过loader解析
+     *
+     * @param encoded
+     * @param loader
+     * @return
+     * @throws Exception
+     */
+    public K get(String encoded, Loader<K> loader) throws Exception {
+        if (maxSize <= 0) {
+            return loader.load(encoded);
+        }
+        K key = keys.get(encoded);
+        if (key != null) {
+            return key;
+        }
+        // 解析在锁外进行，并发未命中时可能重复解析，结果相同
+        key = loader.load(encoded);
+        keys.put(encoded, key);
+        return key;
+    }
+
+    /**
+     * 移除密钥
+     *
+     * @param encoded
+     */
+    public void invalidate(String encoded) {
+        keys.remove(encoded);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        keys.clear();
+    }
+
+    public int size() {
+        return keys.size();
+    }
+}
@@ -0,0 +1,94 @@
+package com.springboot.signature;
+
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+
+/**
+ * 预先解析好的密钥
+ * <p>
+ * 调用方启动时注册一次，之后按句柄签名、验签、加解密，不再传递和解析密钥字符串
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-23 16:05
+ **/
+public class RsaKeyHandle {
+
+    private final String name;
+
+    private final Key key;
+
+    private RsaKeyHandle(String name, Key key) {
+        this.name = name;
+        this.key = key;
+    }
+
+    /**
+     * 由X509规范的Base64公钥创建
+     *
+     * @param name
+     * @param publicKey
+     * @return
+     * @throws Exception
+     */
+    public static RsaKeyHandle publicKey(String name, String publicKey) throws Exception {
+        return new RsaKeyHandle(name, JdkRsaUtil.getPublicKey(publicKey));
+    }
+
+    /**
+     * 由PKCS8规范的Base64私钥创建
+     *
+     * @param name
+     * @param privateKey
+     * @return
+     * @throws Exception
+     */
+    public static RsaKeyHandle privateKey(String name, String privateKey) throws Exception {
+        return new RsaKeyHandle(name, JdkRsaUtil.getPrivateKey(privateKey));
+    }
+
+    /**
+     * 由已有密钥创建
+     *
+     * @param name
+     * @param key
+     * @return
+     */
+    public static RsaKeyHandle of(String name, Key key) {
+        if (!(key instanceof PublicKey) && !(key instanceof PrivateKey)) {
+            throw new IllegalArgumentException("unsupported key type: " + key.getClass().getName());
+        }
+        return new RsaKeyHandle(name, key);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isPublic() {
+        return key instanceof PublicKey;
+    }
+
+    public PublicKey getPublicKey() {
+        if (!(key instanceof PublicKey)) {
+            throw new IllegalStateException("key [" + name + "] is not a public key");
+        }
+        return (PublicKey) key;
+    }
+
+    public PrivateKey getPrivateKey() {
+        if (!(key instanceof PrivateKey)) {
+            throw new IllegalStateException("key [" + name + "] is not a private key");
+        }
+        return (PrivateKey) key;
+    }
+
+    @Override
+    public String toString() {
+        return "RsaKeyHandle{" +
+                "name=" + name +
+                ", type=" + (isPublic() ? "public" : "private") +
+                '}';
+    }
+}
@@ -0,0 +1,155 @@
+package com.springboot.signature;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 验签结果缓存
+ * <p>
+ * 以SHA-256(公钥, 签名, 消息)为键，只缓存验签成功的结果，重复消息的验签只需一次摘要计算而不必再做RSA模幂运算。
+ * 存储使用{@link StripedLruCache}，按键的哈希分段加锁，每段按最近最少使用淘汰，可选写入后过期
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-04-27 15:30
+ **/
+public class RsaVerifyCache {
+
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = new ThreadLocal<MessageDigest>() {
+        @Override
+        protected MessageDigest initialValue() {
+            try {
+                return MessageDigest.getInstance(DIGEST_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private final StripedLruCache<Fingerprint, Boolean> verified;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param maxSize          最大缓存数
+     * @param expireAfterWrite 写入后过期时间（毫秒），小于等于0表示不过期
+     */
+    public RsaVerifyCache(int maxSize, long expireAfterWrite) {
+        this.verified = new StripedLruCache<Fingerprint, Boolean>(maxSize, expireAfterWrite);
+    }
+
+    /**
+     * 计算缓存键
+     *
+     * @param publicKey
+     * @param content
+     * @param sign
+     * @param offset
+     * @param length
+     * @return
+     */
+    public Fingerprint fingerprint(PublicKey publicKey, byte[] content, byte[] sign, int offset, int length) {
+        MessageDigest digest = DIGESTS.get();
+        byte[] key = publicKey.getEncoded();
+        // 各部分带长度前缀，避免边界移动产生相同的摘要
+        updateLength(digest, key.length);
+        digest.update(key);
+        updateLength(digest, length);
+        digest.update(sign, offset, length);
+        digest.update(content);
+        return new Fingerprint(digest.digest());
+    }
+
+    /**
+     * 是否已验签成功且未过期
+     *
+     * @param fingerprint
+     * @return
+     */
+    public boolean contains(Fingerprint fingerprint) {
+        if (verified.get(fingerprint) == null) {
+            misses.increment();
+            return false;
+        }
+        hits.increment();
+        return true;
+    }
+
+    /**
+     * 记录验签成功
+     *
+     * @param fingerprint
+     */
+    public void put(Fingerprint fingerprint) {
+        verified.put(fingerprint, Boolean.TRUE);
+    }
+
+    /**
+     * 清空缓存，命中统计保留
+     */
+    public void clear() {
+        verified.clear();
+    }
+
+    public int size() {
+        return verified.size();
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * 命中率，尚无请求时为0
+     *
+     * @return
+     */
+    public double getHitRate() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    private static void updateLength(MessageDigest digest, int length) {
+        digest.update((byte) (length >>> 24));
+        digest.update((byte) (length >>> 16));
+        digest.update((byte) (length >>> 8));
+        digest.update((byte) length);
+    }
+
+    /**
+     * 缓存键，摘要本身已均匀分布，直接取前4字节作为哈希值
+     */
+    public static final class Fingerprint {
+
+        private final byte[] digest;
+
+        private final int hash;
+
+        Fingerprint(byte[] digest) {
+            this.digest = digest;
+            this.hash = (digest[0] & 0xFF) << 24 | (digest[1] & 0xFF) << 16 | (digest[2] & 0xFF) << 8 | (digest[3] & 0xFF);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return this == o || o instanceof Fingerprint && Arrays.equals(digest, ((Fingerprint) o).digest);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.springboot.signature;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 按键的哈希分段加锁的LRU缓存
+ * <p>
+ * 每段是按访问顺序淘汰的LinkedHashMap，由各自的锁保护，不同段的读写互不争用；可选写入后过期，
+ * 过期的条目在读取时移除。供密钥缓存和验签缓存共用
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 10:00
+ **/
+final class StripedLruCache<K, V> {
+
+    /**
+     * 分段数上限，再多也不会减少争用，只会让每段更小
+     */
+    static final int MAX_SEGMENTS = 16;
+
+    /**
+     * 每段的最小容量，段太小时落在同一段的几个热点键会互相淘汰
+     */
+    static final int MIN_SEGMENT_SIZE = 16;
+
+    private final long expireAfterWrite;
+
+    private final Segment<K, V>[] segments;
+
+    /**
+     * @param maxSize          最大缓存数
+     * @param expireAfterWrite 写入后过期时间（毫秒），小于等于0表示不过期
+     */
+    @SuppressWarnings("unchecked")
+    StripedLruCache(int maxSize, long expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+        int count = segmentCount(maxSize, Runtime.getRuntime().availableProcessors());
+        this.segments = new Segment[count];
+        int segmentSize = (maxSize + count - 1) / count;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<K, V>(segmentSize);
+        }
+    }
+
+    /**
+     * 分段数：不超过CPU数的4倍和{@link #MAX_SEGMENTS}，且每段至少容纳{@link #MIN_SEGMENT_SIZE}个条目
+     *
+     * @param maxSize
+     * @param processors
+     * @return 2的幂
+     */
+    static int segmentCount(int maxSize, int processors) {
+        int limit = Math.min(processors * 4, MAX_SEGMENTS);
+        int count = 1;
+        while (count < limit && maxSize / (count * 2) >= MIN_SEGMENT_SIZE) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    /**
+     * 获取未过期的值
+     *
+     * @param key
+     * @return 未缓存或已过期时为null
+     */
+    V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.currentTimeMillis() >= entry.expireAt) {
+                segment.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    void put(K key, V value) {
+        long expireAt = expireAfterWrite > 0 ? System.currentTimeMillis() + expireAfterWrite : Long.MAX_VALUE;
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, new Entry<V>(value, expireAt));
+        }
+    }
+
+    void remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    private static class Entry<V> {
+
+        private final V value;
+
+        private final long expireAt;
+
+        Entry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+
+    /**
+     * 按访问顺序淘汰的分段
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, StripedLruCache.Entry<V>> {
+
+        private final int maxSize;
+
+        Segment(int maxSize) {
+            super(16, 0.75f, true);
+            this.maxSize = maxSize;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, StripedLruCache.Entry<V>> eldest) {
+            return size() > maxSize;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.springboot;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 测试断言
+ * <p>
+ * 测试类按surefire的POJO方式运行：类名以Test结尾，public的test开头方法为用例，断言失败抛出AssertionError
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-08 09:30
+ **/
+public final class Asserts {
+
+    /**
+     * 可能抛出异常的代码块
+     */
+    public interface Block {
+        void run() throws Exception;
+    }
+
+    private Asserts() {
+    }
+
+    public static void assertTrue(boolean condition, String message) {
+        if (!condition) {
+            throw new AssertionError(message);
+        }
+    }
+
+    public static void assertFalse(boolean condition, String message) {
+        assertTrue(!condition, message);
+    }
+
+    public static void assertEquals(Object expected, Object actual) {
+        if (!Objects.deepEquals(expected, actual)) {
+            throw new AssertionError("expected <" + format(expected) + "> but was <" + format(actual) + ">");
+        }
+    }
+
+    public static void assertSame(Object expected, Object actual) {
+        if (expected != actual) {
+            throw new AssertionError("expected same <" + expected + "> but was <" + actual + ">");
+        }
+    }
+
+    public static void assertNull(Object actual) {
+        if (actual != null) {
+            throw new AssertionError("expected null but was <" + format(actual) + ">");
+        }
+    }
+
+    /**
+     * 断言代码块抛出指定类型的异常
+     *
+     * @param type
+     * @param block
+     * @return 抛出的异常
+     */
+    public static <T extends Throwable> T assertThrows(Class<T> type, Block block) {
+        try {
+            block.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e)) {
+                return type.cast(e);
+            }
+            throw new AssertionError("expected " + type.getName() + " but was " + e, e);
+        }
+        throw new AssertionError("expected " + type.getName() + " but nothing was thrown");
+    }
+
+    public static AssertionError fail(String message) {
+        throw new AssertionError(message);
+    }
+
+    private static String format(Object value) {
+        if (value instanceof byte[]) {
+            return Arrays.toString((byte[]) value);
+        }
+        if (value instanceof Object[]) {
+            return Arrays.deepToString((Object[]) value);
+        }
+        return String.valueOf(value);
+    }
+}
@@ -0,0 +1,93 @@
+package com.springboot.httpclient;
+
+import org.apache.http.conn.DnsResolver;
+import org.apache.http.impl.conn.SystemDefaultDnsResolver;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertSame;
+import static com.springboot.Asserts.assertThrows;
+
+/**
+ * 域名解析缓存测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 16:30
+ **/
+public class CachingDnsResolverTest {
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    /**
+     * 计数的解析器，missing开头的域名解析失败
+     */
+    private final DnsResolver delegate = new DnsResolver() {
+        @Override
+        public InetAddress[] resolve(String host) throws UnknownHostException {
+            lookups.incrementAndGet();
+            if (host.startsWith("missing")) {
+                throw new UnknownHostException(host);
+            }
+            return new InetAddress[]{InetAddress.getByAddress(host, new byte[]{127, 0, 0, (byte) lookups.get()})};
+        }
+    };
+
+    public void testResultsAreCachedUntilTtl() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 100, TimeUnit.MILLISECONDS);
+        InetAddress[] first = resolver.resolve("api.example.com");
+        assertEquals(first, resolver.resolve("api.example.com"));
+        assertEquals(1, lookups.get());
+        resolver.resolve("cdn.example.com");
+        assertEquals(2, lookups.get());
+        Thread.sleep(200);
+        InetAddress[] refreshed = resolver.resolve("api.example.com");
+        assertEquals(3, lookups.get());
+        assertEquals(InetAddress.getByAddress(new byte[]{127, 0, 0, 3}), refreshed[0]);
+    }
+
+    public void testFailuresAreNotCached() {
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 1, TimeUnit.MINUTES);
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.example.com"));
+        assertThrows(UnknownHostException.class, () -> resolver.resolve("missing.example.com"));
+        assertEquals(2, lookups.get());
+    }
+
+    public void testCallersCannotModifyCache() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 1, TimeUnit.MINUTES);
+        InetAddress[] addresses = resolver.resolve("api.example.com");
+        InetAddress original = addresses[0];
+        addresses[0] = null;
+        assertEquals(original, resolver.resolve("api.example.com")[0]);
+        resolver.resolve("api.example.com")[0] = null;
+        assertEquals(original, resolver.resolve("api.example.com")[0]);
+        assertEquals(1, lookups.get());
+    }
+
+    public void testInvalidateAndClear() throws Exception {
+        CachingDnsResolver resolver = new CachingDnsResolver(delegate, 1, TimeUnit.MINUTES);
+        resolver.resolve("api.example.com");
+        resolver.resolve("cdn.example.com");
+        resolver.invalidate("api.example.com");
+        resolver.resolve("api.example.com");
+        resolver.resolve("cdn.example.com");
+        assertEquals(3, lookups.get());
+        resolver.clear();
+        resolver.resolve("api.example.com");
+        resolver.resolve("cdn.example.com");
+        assertEquals(5, lookups.get());
+    }
+
+    public void testClientsShareResolverByTtl() {
+        DnsResolver first = HttpClientConfigHandler.dnsResolver(HttpClientConfig.custom().setDnsCacheTtl(42).build());
+        DnsResolver second = HttpClientConfigHandler.dnsResolver(HttpClientConfig.custom().setDnsCacheTtl(42).build());
+        assertSame(first, second);
+        assertEquals(CachingDnsResolver.class, first.getClass());
+        assertSame(SystemDefaultDnsResolver.INSTANCE,
+                HttpClientConfigHandler.dnsResolver(HttpClientConfig.custom().setDnsCacheTtl(0).build()));
+    }
+}
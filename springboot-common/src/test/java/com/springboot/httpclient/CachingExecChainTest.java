@@ -0,0 +1,211 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.auth.BasicScheme;
+import org.apache.http.impl.client.BasicAuthCache;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.apache.http.util.EntityUtils;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 响应缓存测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-08 14:30
+ **/
+public class CachingExecChainTest {
+
+    private LocalServer server;
+
+    private ManagedHttpClient client;
+
+    public void setUp() throws Exception {
+        server = LocalServer.start();
+        client = new ManagedHttpClient(HttpClientConfig.custom()
+                .setResponseCachePolicy(ResponseCachePolicy.custom().setDefaultTtl(60000).build())
+                .build());
+    }
+
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    private String get(String path, String... headers) throws Exception {
+        return get(path, HttpClientContext.create(), headers);
+    }
+
+    private String get(String path, HttpClientContext context, String... headers) throws Exception {
+        HttpGet get = new HttpGet(server.url(path));
+        for (int i = 0; i < headers.length; i += 2) {
+            get.setHeader(headers[i], headers[i + 1]);
+        }
+        try (CloseableHttpResponse response = client.getClient().execute(get, context)) {
+            return response.getStatusLine().getStatusCode() + " " + EntityUtils.toString(response.getEntity());
+        }
+    }
+
+    private InMemoryHttpClientMetrics.RouteMetrics routeMetrics() {
+        return ((InMemoryHttpClientMetrics) client.getMetrics()).getRoutes().get(server.host().toURI());
+    }
+
+    /**
+     * 按固定的Cache-Control返回递增的响应体
+     */
+    private void cacheControl(String path, final String cacheControl, final String... headers) {
+        final AtomicInteger version = new AtomicInteger();
+        server.handle(path, exchange -> {
+            exchange.getResponseHeaders().set(HttpHeaders.CACHE_CONTROL, cacheControl);
+            for (int i = 0; i < headers.length; i += 2) {
+                exchange.getResponseHeaders().set(headers[i], headers[i + 1]);
+            }
+            LocalServer.respond(exchange, 200, "v" + version.incrementAndGet());
+        });
+    }
+
+    public void testFreshResponseIsServedFromCache() throws Exception {
+        cacheControl("/fresh", "max-age=60");
+        assertEquals("200 v1", get("/fresh"));
+        assertEquals("200 v1", get("/fresh"));
+        assertEquals(1, server.count("/fresh"));
+        assertEquals(1L, routeMetrics().getCacheHits());
+    }
+
+    public void testExpiredResponseIsFetchedAgain() throws Exception {
+        cacheControl("/expired", "max-age=1");
+        assertEquals("200 v1", get("/expired"));
+        Thread.sleep(1100);
+        assertEquals("200 v2", get("/expired"));
+        assertEquals(2, server.count("/expired"));
+    }
+
+    public void testRequestNoCacheBypassesFreshEntry() throws Exception {
+        cacheControl("/reload", "max-age=60");
+        assertEquals("200 v1", get("/reload"));
+        assertEquals("200 v2", get("/reload", HttpHeaders.CACHE_CONTROL, "no-cache"));
+        assertEquals("200 v2", get("/reload"));
+    }
+
+    public void testNotModifiedRevalidation() throws Exception {
+        server.handle("/etag", exchange -> {
+            exchange.getResponseHeaders().set(HttpHeaders.CACHE_CONTROL, "no-cache");
+            exchange.getResponseHeaders().set(HttpHeaders.ETAG, "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst(HttpHeaders.IF_NONE_MATCH))) {
+                LocalServer.respond(exchange, 304, "");
+            } else {
+                LocalServer.respond(exchange, 200, "body");
+            }
+        });
+        assertEquals("200 body", get("/etag"));
+        assertEquals("200 body", get("/etag"));
+        assertEquals("200 body", get("/etag"));
+        assertEquals(3, server.count("/etag"));
+        assertEquals(2L, routeMetrics().getCacheRevalidations());
+        assertEquals(2L, routeMetrics().getCacheNotModified());
+    }
+
+    /**
+     * 内层执行链添加的Accept-Encoding不影响Vary匹配
+     */
+    public void testVaryOnAcceptEncodingAddedByInnerChain() throws Exception {
+        cacheControl("/gzip", "max-age=60", HttpHeaders.VARY, "Accept-Encoding");
+        assertEquals("200 v1", get("/gzip"));
+        assertEquals("200 v1", get("/gzip"));
+        assertEquals(1, server.count("/gzip"));
+    }
+
+    public void testVaryOnCallerHeader() throws Exception {
+        cacheControl("/lang", "max-age=60", HttpHeaders.VARY, "Accept-Language");
+        assertEquals("200 v1", get("/lang", HttpHeaders.ACCEPT_LANGUAGE, "en"));
+        assertEquals("200 v1", get("/lang", HttpHeaders.ACCEPT_LANGUAGE, "en"));
+        assertEquals("200 v2", get("/lang", HttpHeaders.ACCEPT_LANGUAGE, "fr"));
+        assertEquals("200 v2", get("/lang", HttpHeaders.ACCEPT_LANGUAGE, "fr"));
+        assertEquals(2, server.count("/lang"));
+    }
+
+    public void testPrivateResponseIsNotStored() throws Exception {
+        cacheControl("/private", "private, max-age=60");
+        assertEquals("200 v1", get("/private"));
+        assertEquals("200 v2", get("/private"));
+    }
+
+    public void testAuthorizedResponseRequiresPublic() throws Exception {
+        cacheControl("/auth", "max-age=60");
+        cacheControl("/auth-public", "public, max-age=60");
+        assertEquals("200 v1", get("/auth", HttpHeaders.AUTHORIZATION, "Bearer a"));
+        assertEquals("200 v2", get("/auth", HttpHeaders.AUTHORIZATION, "Bearer a"));
+        assertEquals("200 v1", get("/auth-public", HttpHeaders.AUTHORIZATION, "Bearer a"));
+        assertEquals("200 v1", get("/auth-public", HttpHeaders.AUTHORIZATION, "Bearer b"));
+    }
+
+    /**
+     * 上下文中的凭据由内层执行链添加，同样不能共享
+     */
+    public void testContextCredentialsAreNotShared() throws Exception {
+        cacheControl("/basic", "max-age=60");
+        BasicCredentialsProvider credentials = new BasicCredentialsProvider();
+        credentials.setCredentials(AuthScope.ANY, new UsernamePasswordCredentials("user", "secret"));
+        BasicAuthCache authCache = new BasicAuthCache();
+        authCache.put(server.host(), new BasicScheme());
+        HttpClientContext context = HttpClientContext.create();
+        context.setCredentialsProvider(credentials);
+        context.setAuthCache(authCache);
+        assertEquals("200 v1", get("/basic", context));
+        assertEquals("200 v2", get("/basic"));
+        assertEquals(2, server.count("/basic"));
+    }
+
+    public void testVaryOnContextCookieIsNotStored() throws Exception {
+        cacheControl("/cookie", "max-age=60", HttpHeaders.VARY, "Cookie");
+        BasicCookieStore cookies = new BasicCookieStore();
+        BasicClientCookie cookie = new BasicClientCookie("session", "alice");
+        cookie.setDomain("127.0.0.1");
+        cookie.setPath("/");
+        cookies.addCookie(cookie);
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(cookies);
+        assertEquals("200 v1", get("/cookie", context));
+        assertEquals("200 v2", get("/cookie"));
+    }
+
+    /**
+     * must-revalidate的响应不按路由ttl启发式缓存，每次都要验证
+     */
+    public void testMustRevalidateDisablesHeuristicFreshness() throws Exception {
+        server.handle("/must", exchange -> {
+            exchange.getResponseHeaders().set(HttpHeaders.CACHE_CONTROL, "must-revalidate");
+            exchange.getResponseHeaders().set(HttpHeaders.LAST_MODIFIED, "Mon, 07 May 2018 00:00:00 GMT");
+            if (exchange.getRequestHeaders().containsKey(HttpHeaders.IF_MODIFIED_SINCE)) {
+                LocalServer.respond(exchange, 304, "");
+            } else {
+                LocalServer.respond(exchange, 200, "body");
+            }
+        });
+        cacheControl("/heuristic", "public");
+        for (int i = 0; i < 3; i++) {
+            assertEquals("200 body", get("/must"));
+            assertEquals("200 v1", get("/heuristic"));
+        }
+        assertEquals(3, server.count("/must"));
+        assertEquals(1, server.count("/heuristic"));
+    }
+
+    public void testSharedMaxAgeOverridesMaxAge() throws Exception {
+        cacheControl("/shared", "max-age=0, s-maxage=60");
+        assertEquals("200 v1", get("/shared"));
+        assertEquals("200 v1", get("/shared"));
+        assertTrue(server.count("/shared") == 1, "s-maxage ignored");
+    }
+}
@@ -0,0 +1,126 @@
+package com.springboot.httpclient;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertFalse;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 熔断器状态变化测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 15:00
+ **/
+public class CircuitBreakerTest {
+
+    private static final long OPEN_DURATION = 100;
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    private CircuitBreaker breaker;
+
+    public void setUp() {
+        breaker = new CircuitBreaker(CircuitBreakerPolicy.custom()
+                .setWindow(4, 4)
+                .setFailureRateThreshold(50)
+                .setSlowCall(50, 75)
+                .setOpenDuration(OPEN_DURATION)
+                .setHalfOpenCalls(2)
+                .build());
+    }
+
+    private void record(boolean... failures) {
+        for (boolean failed : failures) {
+            assertTrue(breaker.tryAcquire(), "closed circuit rejected");
+            breaker.onResult(0, failed);
+        }
+    }
+
+    private void open() throws InterruptedException {
+        record(true, true, false, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    private void halfOpen() throws InterruptedException {
+        open();
+        Thread.sleep(OPEN_DURATION * 2);
+        assertTrue(breaker.tryAcquire(), "half-open circuit rejected probe");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+    }
+
+    public void testOpensAfterMinimumCalls() {
+        // 未达到最少调用次数时不统计
+        record(true, true, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        record(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "open circuit permitted call");
+    }
+
+    public void testWindowSlides() {
+        record(true, false, false, false, false);
+        // 最早的失败已移出窗口，失败率回到0
+        record(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        record(true);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    public void testSlowCallsOpen() {
+        for (int i = 0; i < 3; i++) {
+            assertTrue(breaker.tryAcquire(), "closed circuit rejected");
+            breaker.onResult(SLOW, false);
+        }
+        record(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    public void testHalfOpenPermitsLimitedProbes() throws Exception {
+        halfOpen();
+        assertTrue(breaker.tryAcquire(), "second probe rejected");
+        assertFalse(breaker.tryAcquire(), "probe beyond half-open permits");
+        breaker.onResult(0, false);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        breaker.onResult(0, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        // 关闭后窗口清空，重新累计到最少调用次数
+        record(true, true, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    public void testFailedProbesReopen() throws Exception {
+        halfOpen();
+        assertTrue(breaker.tryAcquire(), "second probe rejected");
+        breaker.onResult(0, true);
+        breaker.onResult(0, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "reopened circuit permitted call");
+        Thread.sleep(OPEN_DURATION * 2);
+        assertTrue(breaker.tryAcquire(), "circuit not half-open after open duration");
+    }
+
+    public void testReleaseReturnsHalfOpenPermit() throws Exception {
+        halfOpen();
+        assertTrue(breaker.tryAcquire(), "second probe rejected");
+        assertFalse(breaker.tryAcquire(), "probe beyond half-open permits");
+        breaker.release();
+        assertTrue(breaker.tryAcquire(), "released permit not reusable");
+        // 归还不超过半开许可数
+        breaker.release();
+        breaker.release();
+        breaker.release();
+        assertTrue(breaker.tryAcquire(), "released permit not reusable");
+        assertTrue(breaker.tryAcquire(), "released permit not reusable");
+        assertFalse(breaker.tryAcquire(), "release exceeded half-open permits");
+    }
+
+    public void testReleaseIgnoredWhenNotHalfOpen() throws Exception {
+        breaker.release();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        open();
+        breaker.release();
+        assertFalse(breaker.tryAcquire(), "release opened the circuit");
+    }
+}
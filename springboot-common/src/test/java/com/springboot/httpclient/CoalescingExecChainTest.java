@@ -0,0 +1,176 @@
+package com.springboot.httpclient;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.impl.client.BasicCookieStore;
+import org.apache.http.impl.cookie.BasicClientCookie;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 相同请求合并测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-08 16:00
+ **/
+public class CoalescingExecChainTest {
+
+    private LocalServer server;
+
+    private ManagedHttpClient client;
+
+    private ExecutorService executor;
+
+    /**
+     * 放行服务端挂起的请求
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * 服务端收到第一个请求
+     */
+    private final CountDownLatch received = new CountDownLatch(1);
+
+    public void setUp() throws Exception {
+        server = LocalServer.start();
+        server.handle("/slow", exchange -> {
+            received.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            String cookie = exchange.getRequestHeaders().getFirst("Cookie");
+            LocalServer.respond(exchange, 200, cookie == null ? "none" : cookie);
+        });
+        // 合并位于重试之内，关闭重试，避免等待方收到的异常被重试掩盖
+        client = new ManagedHttpClient(HttpClientConfig.custom()
+                .setCoalescingPolicy(CoalescingPolicy.DEFAULT)
+                .setRetryCount(0)
+                .build());
+        executor = Executors.newCachedThreadPool();
+    }
+
+    public void tearDown() throws Exception {
+        release.countDown();
+        executor.shutdownNow();
+        client.close();
+        server.close();
+    }
+
+    private String get(HttpGet get, HttpClientContext context) throws IOException {
+        try (CloseableHttpResponse response = client.getClient().execute(get, context)) {
+            return EntityUtils.toString(response.getEntity());
+        }
+    }
+
+    private Future<String> submit(final HttpGet get, final HttpClientContext context) {
+        return executor.submit(() -> get(get, context));
+    }
+
+    private static HttpClientContext contextWithCookie(String value) {
+        BasicCookieStore cookieStore = new BasicCookieStore();
+        BasicClientCookie cookie = new BasicClientCookie("sid", value);
+        cookie.setDomain("127.0.0.1");
+        cookie.setPath("/");
+        cookieStore.addCookie(cookie);
+        HttpClientContext context = HttpClientContext.create();
+        context.setCookieStore(cookieStore);
+        return context;
+    }
+
+    public void testIdenticalRequestsShareOneUpstreamCall() throws Exception {
+        Future<String> leader = submit(new HttpGet(server.url("/slow")), HttpClientContext.create());
+        assertTrue(received.await(5, TimeUnit.SECONDS), "leader never reached the server");
+        List<Future<String>> waiters = new ArrayList<Future<String>>();
+        for (int i = 0; i < 4; i++) {
+            waiters.add(submit(new HttpGet(server.url("/slow")), HttpClientContext.create()));
+        }
+        Thread.sleep(200);
+        release.countDown();
+        assertEquals("none", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> waiter : waiters) {
+            assertEquals("none", waiter.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, server.count("/slow"));
+        assertEquals(4L, ((InMemoryHttpClientMetrics) client.getMetrics()).getRoutes()
+                .get(server.host().toURI()).getCoalesced());
+    }
+
+    public void testDifferentCookieStoresAreNotCoalesced() throws Exception {
+        Future<String> first = submit(new HttpGet(server.url("/slow")), contextWithCookie("a"));
+        assertTrue(received.await(5, TimeUnit.SECONDS), "first request never reached the server");
+        Future<String> second = submit(new HttpGet(server.url("/slow")), contextWithCookie("b"));
+        Thread.sleep(200);
+        release.countDown();
+        assertEquals("sid=a", first.get(5, TimeUnit.SECONDS));
+        assertEquals("sid=b", second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, server.count("/slow"));
+    }
+
+    public void testWaiterIsBoundedByItsOwnTimeouts() throws Exception {
+        Future<String> leader = submit(new HttpGet(server.url("/slow")), HttpClientContext.create());
+        assertTrue(received.await(5, TimeUnit.SECONDS), "leader never reached the server");
+        HttpGet get = new HttpGet(server.url("/slow"));
+        get.setConfig(RequestConfig.custom()
+                .setConnectionRequestTimeout(100).setConnectTimeout(100).setSocketTimeout(100).build());
+        long start = System.nanoTime();
+        assertThrows(SocketTimeoutException.class, () -> get(get, HttpClientContext.create()));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= 250 && elapsed < 2000, "waited " + elapsed + "ms");
+        release.countDown();
+        assertEquals("none", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.count("/slow"));
+    }
+
+    public void testAbortDetachesOnlyTheWaiter() throws Exception {
+        Future<String> leader = submit(new HttpGet(server.url("/slow")), HttpClientContext.create());
+        assertTrue(received.await(5, TimeUnit.SECONDS), "leader never reached the server");
+        final HttpGet get = new HttpGet(server.url("/slow"));
+        Future<String> waiter = submit(get, HttpClientContext.create());
+        Thread.sleep(200);
+        get.abort();
+        try {
+            waiter.get(2, TimeUnit.SECONDS);
+            throw new AssertionError("aborted waiter returned a response");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RequestAbortedException, "unexpected " + e.getCause());
+        }
+        release.countDown();
+        assertEquals("none", leader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.count("/slow"));
+    }
+
+    public void testLeaderAbortDoesNotFailWaiters() throws Exception {
+        final HttpGet leaderGet = new HttpGet(server.url("/slow"));
+        Future<String> leader = submit(leaderGet, HttpClientContext.create());
+        assertTrue(received.await(5, TimeUnit.SECONDS), "leader never reached the server");
+        Future<String> waiter = submit(new HttpGet(server.url("/slow")), HttpClientContext.create());
+        Thread.sleep(200);
+        leaderGet.abort();
+        try {
+            leader.get(2, TimeUnit.SECONDS);
+            throw new AssertionError("aborted leader returned a response");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IOException, "unexpected " + e.getCause());
+        }
+        // 等待方没有被中止，改为自行发出请求
+        release.countDown();
+        assertEquals("none", waiter.get(5, TimeUnit.SECONDS));
+        assertEquals(2, server.count("/slow"));
+    }
+}
@@ -0,0 +1,136 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.util.EntityUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertNull;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 请求体压缩、响应解压测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-09 10:00
+ **/
+public class CompressionExecChainTest {
+
+    private LocalServer server;
+
+    private ManagedHttpClient client;
+
+    public void setUp() throws Exception {
+        server = LocalServer.start();
+        // 请求体按声明的编码解码，响应在客户端接受gzip时压缩返回，并用响应头回报收到的请求
+        server.handle("/echo", exchange -> {
+            byte[] body = LocalServer.readBody(exchange);
+            String requestEncoding = exchange.getRequestHeaders().getFirst(HttpHeaders.CONTENT_ENCODING);
+            if ("gzip".equals(requestEncoding)) {
+                body = gunzip(body);
+            }
+            exchange.getResponseHeaders().set("X-Request-Encoding", String.valueOf(requestEncoding));
+            exchange.getResponseHeaders().set("X-Request-Length", Integer.toString(body.length));
+            String accept = exchange.getRequestHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+            if (accept != null && accept.contains("gzip")) {
+                exchange.getResponseHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+                body = gzip(body);
+            }
+            LocalServer.respond(exchange, 200, body);
+        });
+        client = new ManagedHttpClient(HttpClientConfig.custom()
+                .setCompressionPolicy(CompressionPolicy.DEFAULT)
+                .build());
+    }
+
+    public void tearDown() throws Exception {
+        client.close();
+        server.close();
+    }
+
+    private InMemoryHttpClientMetrics.RouteMetrics routeMetrics() {
+        return ((InMemoryHttpClientMetrics) client.getMetrics()).getRoutes().get(server.host().toURI());
+    }
+
+    private static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] data) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] text(int length) {
+        StringBuilder text = new StringBuilder(length);
+        while (text.length() < length) {
+            text.append("compressible payload ").append(text.length() % 97).append('\n');
+        }
+        return text.substring(0, length).getBytes(StandardCharsets.UTF_8);
+    }
+
+    public void testGzipRoundTrip() throws Exception {
+        byte[] body = text(16 * 1024);
+        HttpPost post = new HttpPost(server.url("/echo"));
+        post.setEntity(new ByteArrayEntity(body));
+        try (CloseableHttpResponse response = client.getClient().execute(post)) {
+            assertEquals("gzip", response.getFirstHeader("X-Request-Encoding").getValue());
+            assertEquals(Integer.toString(body.length), response.getFirstHeader("X-Request-Length").getValue());
+            // 解压后去掉了编码和长度，调用方只看到原文
+            assertNull(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+            assertNull(response.getFirstHeader(HttpHeaders.CONTENT_LENGTH));
+            assertEquals(body, EntityUtils.toByteArray(response.getEntity()));
+        }
+        InMemoryHttpClientMetrics.RouteMetrics metrics = routeMetrics();
+        assertEquals((long) body.length, metrics.getCompressedLogicalBytesSent());
+        assertTrue(metrics.getCompressedWireBytesSent() > 0
+                && metrics.getCompressedWireBytesSent() < body.length, "wire " + metrics.getCompressedWireBytesSent());
+        assertEquals((long) body.length, metrics.getCompressedLogicalBytesReceived());
+        assertTrue(metrics.getCompressedWireBytesReceived() > 0
+                && metrics.getCompressedWireBytesReceived() < body.length, "wire " + metrics.getCompressedWireBytesReceived());
+    }
+
+    public void testSmallRequestBodyIsSentAsIs() throws Exception {
+        byte[] body = text(100);
+        HttpPost post = new HttpPost(server.url("/echo"));
+        post.setEntity(new ByteArrayEntity(body));
+        try (CloseableHttpResponse response = client.getClient().execute(post)) {
+            assertEquals("null", response.getFirstHeader("X-Request-Encoding").getValue());
+            assertEquals(body, EntityUtils.toByteArray(response.getEntity()));
+        }
+        assertEquals(0L, routeMetrics().getCompressedLogicalBytesSent());
+    }
+
+    public void testCallerAcceptEncodingIsLeftAlone() throws Exception {
+        HttpGet get = new HttpGet(server.url("/echo"));
+        get.setHeader(HttpHeaders.ACCEPT_ENCODING, "identity");
+        try (CloseableHttpResponse response = client.getClient().execute(get)) {
+            assertNull(response.getFirstHeader(HttpHeaders.CONTENT_ENCODING));
+            assertEquals("0", response.getFirstHeader("X-Request-Length").getValue());
+            EntityUtils.consume(response.getEntity());
+        }
+        assertEquals(0L, routeMetrics().getCompressedWireBytesReceived());
+    }
+}
@@ -0,0 +1,88 @@
+package com.springboot.httpclient;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertFalse;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 自适应并发限制测试：加性增长、乘性下降
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 15:30
+ **/
+public class ConcurrencyLimiterTest {
+
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private ConcurrencyLimiter limiter;
+
+    public void setUp() {
+        limiter = new ConcurrencyLimiter(ConcurrencyLimitPolicy.custom()
+                .setLimit(4, 1, 6)
+                .setBackoffRatio(0.5)
+                .setSlowCallThreshold(100)
+                .build());
+    }
+
+    /**
+     * 占满许可后全部成功释放
+     */
+    private void saturate() {
+        int acquired = 0;
+        while (limiter.tryAcquire()) {
+            acquired++;
+        }
+        assertEquals(limiter.getLimit(), acquired);
+        for (int i = 0; i < acquired; i++) {
+            limiter.release(0, false);
+        }
+    }
+
+    public void testRejectsAboveLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire(), "permit " + i + " rejected");
+        }
+        assertFalse(limiter.tryAcquire(), "permit beyond limit");
+        assertEquals(4, limiter.getInflight());
+        limiter.release(0, false);
+        assertEquals(3, limiter.getInflight());
+        assertTrue(limiter.tryAcquire(), "released permit not reusable");
+    }
+
+    public void testLimitGrowsUnderLoadUpToMax() {
+        // 每轮在接近限制的并发下成功，限制约增加1
+        saturate();
+        assertEquals(4, limiter.getLimit());
+        saturate();
+        assertEquals(5, limiter.getLimit());
+        for (int i = 0; i < 20; i++) {
+            saturate();
+        }
+        assertEquals(6, limiter.getLimit());
+    }
+
+    public void testIdleDoesNotGrowLimit() {
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.tryAcquire(), "permit rejected");
+            limiter.release(0, false);
+        }
+        assertEquals(4, limiter.getLimit());
+    }
+
+    public void testDropsAndSlowCallsShrinkLimit() {
+        assertTrue(limiter.tryAcquire(), "permit rejected");
+        limiter.release(0, true);
+        assertEquals(2, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(), "permit rejected");
+        limiter.release(SLOW, false);
+        assertEquals(1, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(), "permit rejected");
+        limiter.release(0, true);
+        // 不低于最小限制
+        assertEquals(1, limiter.getLimit());
+        assertEquals(0, limiter.getInflight());
+    }
+}
@@ -0,0 +1,947 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHost;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 测试用的h2c服务端（RFC 7540，以先验知识直接使用HTTP/2）
+ * <p>
+ * 监听回环地址的随机端口，请求完整收到后在线程池中交给{@link Handler}处理。
+ * 响应头用独立实现的HPACK编码器以增量索引方式编码，动态表大小可调，用于验证客户端的动态表淘汰；
+ * 发送数据遵守客户端的流量控制窗口，接收窗口的补充可以暂停，用于验证客户端在发送窗口耗尽时等待
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-09 14:00
+ **/
+final class H2cServer implements Closeable {
+
+    static final int DATA = 0x0;
+
+    static final int HEADERS = 0x1;
+
+    static final int RST_STREAM = 0x3;
+
+    static final int SETTINGS = 0x4;
+
+    static final int PING = 0x6;
+
+    static final int GOAWAY = 0x7;
+
+    static final int WINDOW_UPDATE = 0x8;
+
+    static final int CONTINUATION = 0x9;
+
+    static final int FLAG_END_STREAM = 0x1;
+
+    static final int FLAG_ACK = 0x1;
+
+    static final int FLAG_END_HEADERS = 0x4;
+
+    static final int FLAG_PADDED = 0x8;
+
+    static final int FLAG_PRIORITY = 0x20;
+
+    static final int NO_ERROR = 0x0;
+
+    static final int INTERNAL_ERROR = 0x2;
+
+    static final int REFUSED_STREAM = 0x7;
+
+    static final int CANCEL = 0x8;
+
+    private static final byte[] PREFACE = "PRI * HTTP/2.0\r\n\r\nSM\r\n\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private static final int DEFAULT_WINDOW_SIZE = 65535;
+
+    private static final int MAX_FRAME_SIZE = 16384;
+
+    /**
+     * 等待客户端补充窗口的上限，避免测试失败时一直挂起
+     */
+    private static final long WINDOW_WAIT_MILLIS = 10000;
+
+    /**
+     * 处理一个请求，返回前需要发出响应或重置流
+     */
+    interface Handler {
+        void handle(Exchange exchange) throws Exception;
+    }
+
+    private final ServerSocket serverSocket;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    private final List<Connection> connections = new CopyOnWriteArrayList<Connection>();
+
+    private final AtomicInteger streams = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final AtomicInteger peakActive = new AtomicInteger();
+
+    private final AtomicInteger refused = new AtomicInteger();
+
+    private final AtomicInteger continuations = new AtomicInteger();
+
+    private final AtomicLong received = new AtomicLong();
+
+    private final AtomicLong sent = new AtomicLong();
+
+    private final Queue<int[]> resets = new ConcurrentLinkedQueue<int[]>();
+
+    private volatile Handler handler = exchange -> exchange.respond(200, "ok");
+
+    private volatile int maxConcurrentStreams;
+
+    private volatile int initialWindowSize = DEFAULT_WINDOW_SIZE;
+
+    private volatile int headerTableSize = Hpack.DEFAULT_TABLE_SIZE;
+
+    private volatile int headerFragment = MAX_FRAME_SIZE;
+
+    private volatile boolean credit = true;
+
+    private H2cServer() throws IOException {
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+    }
+
+    static H2cServer start() throws IOException {
+        final H2cServer server = new H2cServer();
+        server.executor.execute(server::accept);
+        return server;
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                return;
+            }
+            try {
+                final Connection connection = new Connection(socket, connections.size() + 1);
+                connections.add(connection);
+                executor.execute(connection::run);
+            } catch (IOException e) {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    H2cServer handler(Handler handler) {
+        this.handler = handler;
+        return this;
+    }
+
+    /**
+     * 通告SETTINGS_MAX_CONCURRENT_STREAMS，超出的流以REFUSED_STREAM拒绝；0表示不限制
+     */
+    H2cServer maxConcurrentStreams(int maxConcurrentStreams) {
+        this.maxConcurrentStreams = maxConcurrentStreams;
+        return this;
+    }
+
+    /**
+     * 通告SETTINGS_INITIAL_WINDOW_SIZE，即客户端每个流的发送窗口
+     */
+    H2cServer initialWindowSize(int initialWindowSize) {
+        this.initialWindowSize = initialWindowSize;
+        return this;
+    }
+
+    /**
+     * 响应头编码器的动态表大小，小于4096时在第一个头部块开头发出表大小更新
+     */
+    H2cServer headerTableSize(int headerTableSize) {
+        this.headerTableSize = headerTableSize;
+        return this;
+    }
+
+    /**
+     * 响应头每个HEADERS/CONTINUATION帧携带的最大字节数
+     */
+    H2cServer headerFragment(int headerFragment) {
+        this.headerFragment = headerFragment;
+        return this;
+    }
+
+    /**
+     * 是否在收到数据后补充接收窗口，从暂停恢复时补上暂停期间收到的字节
+     */
+    void credit(boolean credit) throws IOException {
+        this.credit = credit;
+        if (credit) {
+            for (Connection connection : connections) {
+                connection.flushCredit();
+            }
+        }
+    }
+
+    HttpHost host() {
+        return new HttpHost("127.0.0.1", serverSocket.getLocalPort(), "http");
+    }
+
+    String url(String path) {
+        return host().toURI() + path;
+    }
+
+    /**
+     * 已接受的连接数
+     */
+    int connections() {
+        return connections.size();
+    }
+
+    Connection connection(int index) {
+        return connections.get(index - 1);
+    }
+
+    /**
+     * 收到的流数，含被拒绝的流
+     */
+    int streams() {
+        return streams.get();
+    }
+
+    /**
+     * 所有连接上同时打开的流数峰值
+     */
+    int peakActive() {
+        return peakActive.get();
+    }
+
+    /**
+     * 因超出并发流上限而拒绝的流数
+     */
+    int refused() {
+        return refused.get();
+    }
+
+    /**
+     * 收到的CONTINUATION帧数
+     */
+    int continuations() {
+        return continuations.get();
+    }
+
+    /**
+     * 收到的请求体字节数
+     */
+    long received() {
+        return received.get();
+    }
+
+    /**
+     * 发出的响应体字节数
+     */
+    long sent() {
+        return sent.get();
+    }
+
+    /**
+     * 客户端发来的RST_STREAM，{流编号, 错误码}
+     */
+    List<int[]> resets() {
+        return new ArrayList<int[]>(resets);
+    }
+
+    @Override
+    public void close() {
+        closeQuietly(serverSocket);
+        for (Connection connection : connections) {
+            closeQuietly(connection.socket);
+        }
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static byte[] intBytes(int value) {
+        return new byte[]{(byte) (value >>> 24), (byte) (value >>> 16), (byte) (value >>> 8), (byte) value};
+    }
+
+    private static int readInt(byte[] buf, int offset) {
+        return (buf[offset] & 0xff) << 24 | (buf[offset + 1] & 0xff) << 16 | (buf[offset + 2] & 0xff) << 8 | (buf[offset + 3] & 0xff);
+    }
+
+    /**
+     * 一个客户端连接，读线程解析帧，写帧时持有writeLock，发送窗口由this保护
+     */
+    final class Connection {
+
+        private final Socket socket;
+
+        private final int index;
+
+        private final DataInputStream in;
+
+        private final OutputStream out;
+
+        private final Object writeLock = new Object();
+
+        private final Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+
+        private final Encoder encoder = new Encoder(headerTableSize);
+
+        private final Map<Integer, Exchange> exchanges = new ConcurrentHashMap<Integer, Exchange>();
+
+        private long sendWindow = DEFAULT_WINDOW_SIZE;
+
+        private int peerInitialWindowSize = DEFAULT_WINDOW_SIZE;
+
+        private int open;
+
+        private long uncredited;
+
+        private boolean closed;
+
+        private ByteArrayOutputStream headerBlock;
+
+        private int headerStreamId;
+
+        private boolean headerEndStream;
+
+        Connection(Socket socket, int index) throws IOException {
+            this.socket = socket;
+            this.index = index;
+            socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            this.out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        Hpack.Decoder decoder() {
+            return decoder;
+        }
+
+        Encoder encoder() {
+            return encoder;
+        }
+
+        private void run() {
+            try {
+                byte[] preface = new byte[PREFACE.length];
+                in.readFully(preface);
+                if (!Arrays.equals(preface, PREFACE)) {
+                    throw new IOException("invalid connection preface");
+                }
+                ByteArrayOutputStream settings = new ByteArrayOutputStream();
+                if (maxConcurrentStreams > 0) {
+                    setting(settings, 0x3, maxConcurrentStreams);
+                }
+                if (initialWindowSize != DEFAULT_WINDOW_SIZE) {
+                    setting(settings, 0x4, initialWindowSize);
+                }
+                byte[] payload = settings.toByteArray();
+                writeFrame(SETTINGS, 0, 0, payload, 0, payload.length);
+                while (true) {
+                    readFrame();
+                }
+            } catch (IOException e) {
+                // 客户端关闭连接
+            } finally {
+                synchronized (this) {
+                    closed = true;
+                    notifyAll();
+                }
+                closeQuietly(socket);
+            }
+        }
+
+        private void setting(ByteArrayOutputStream out, int id, int value) {
+            out.write(id >>> 8);
+            out.write(id);
+            out.write(intBytes(value), 0, 4);
+        }
+
+        private void readFrame() throws IOException {
+            int length = in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+            int type = in.readUnsignedByte();
+            int flags = in.readUnsignedByte();
+            int streamId = in.readInt() & 0x7fffffff;
+            if (length > MAX_FRAME_SIZE) {
+                throw new IOException("frame of " + length + " bytes exceeds max frame size");
+            }
+            byte[] payload = new byte[length];
+            in.readFully(payload);
+            if (headerBlock != null && type != CONTINUATION) {
+                throw new IOException("expected CONTINUATION frame");
+            }
+            switch (type) {
+                case DATA:
+                    onData(flags, streamId, payload);
+                    break;
+                case HEADERS:
+                    onHeaders(flags, streamId, payload);
+                    break;
+                case CONTINUATION:
+                    if (headerBlock == null || streamId != headerStreamId) {
+                        throw new IOException("unexpected CONTINUATION frame");
+                    }
+                    continuations.incrementAndGet();
+                    headerBlock.write(payload, 0, length);
+                    if ((flags & FLAG_END_HEADERS) != 0) {
+                        byte[] block = headerBlock.toByteArray();
+                        headerBlock = null;
+                        onHeaderBlock(headerStreamId, block, 0, block.length, headerEndStream);
+                    }
+                    break;
+                case RST_STREAM:
+                    int code = readInt(payload, 0);
+                    resets.add(new int[]{streamId, code});
+                    Exchange reset = exchanges.get(streamId);
+                    if (reset != null) {
+                        synchronized (this) {
+                            reset.resetCode = code;
+                            notifyAll();
+                        }
+                        reset.finish();
+                    }
+                    break;
+                case SETTINGS:
+                    if ((flags & FLAG_ACK) == 0) {
+                        onSettings(payload);
+                        writeFrame(SETTINGS, FLAG_ACK, 0, new byte[0], 0, 0);
+                    }
+                    break;
+                case PING:
+                    if ((flags & FLAG_ACK) == 0) {
+                        writeFrame(PING, FLAG_ACK, 0, payload, 0, payload.length);
+                    }
+                    break;
+                case GOAWAY:
+                    throw new EOFException("client sent GOAWAY");
+                case WINDOW_UPDATE:
+                    int increment = readInt(payload, 0) & 0x7fffffff;
+                    synchronized (this) {
+                        if (streamId == 0) {
+                            sendWindow += increment;
+                        } else {
+                            Exchange exchange = exchanges.get(streamId);
+                            if (exchange != null) {
+                                exchange.sendWindow += increment;
+                            }
+                        }
+                        notifyAll();
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private void onSettings(byte[] payload) {
+            for (int i = 0; i + 6 <= payload.length; i += 6) {
+                int id = (payload[i] & 0xff) << 8 | (payload[i + 1] & 0xff);
+                int value = readInt(payload, i + 2);
+                if (id == 0x4) {
+                    synchronized (this) {
+                        int delta = value - peerInitialWindowSize;
+                        peerInitialWindowSize = value;
+                        for (Exchange exchange : exchanges.values()) {
+                            exchange.sendWindow += delta;
+                        }
+                        notifyAll();
+                    }
+                }
+            }
+        }
+
+        private void onHeaders(int flags, int streamId, byte[] payload) throws IOException {
+            int offset = 0;
+            int padding = 0;
+            if ((flags & FLAG_PADDED) != 0) {
+                padding = payload[0] & 0xff;
+                offset = 1;
+            }
+            if ((flags & FLAG_PRIORITY) != 0) {
+                offset += 5;
+            }
+            int length = payload.length - offset - padding;
+            boolean endStream = (flags & FLAG_END_STREAM) != 0;
+            if ((flags & FLAG_END_HEADERS) != 0) {
+                onHeaderBlock(streamId, payload, offset, length, endStream);
+            } else {
+                headerBlock = new ByteArrayOutputStream();
+                headerBlock.write(payload, offset, length);
+                headerStreamId = streamId;
+                headerEndStream = endStream;
+            }
+        }
+
+        private void onHeaderBlock(int streamId, byte[] block, int offset, int length, boolean endStream) throws IOException {
+            List<Header> headers = decoder.decode(block, offset, length);
+            if (exchanges.containsKey(streamId)) {
+                // 请求的trailers
+                if (endStream) {
+                    dispatch(exchanges.get(streamId));
+                }
+                return;
+            }
+            streams.incrementAndGet();
+            synchronized (this) {
+                if (maxConcurrentStreams > 0 && open >= maxConcurrentStreams) {
+                    refused.incrementAndGet();
+                    writeFrame(RST_STREAM, 0, streamId, intBytes(REFUSED_STREAM), 0, 4);
+                    return;
+                }
+                open++;
+                peakActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+            }
+            Exchange exchange = new Exchange(this, streamId, headers);
+            synchronized (this) {
+                exchange.sendWindow = peerInitialWindowSize;
+            }
+            exchanges.put(streamId, exchange);
+            if (endStream) {
+                dispatch(exchange);
+            }
+        }
+
+        private void onData(int flags, int streamId, byte[] payload) throws IOException {
+            int offset = 0;
+            int padding = 0;
+            if ((flags & FLAG_PADDED) != 0) {
+                padding = payload[0] & 0xff;
+                offset = 1;
+            }
+            int length = payload.length - offset - padding;
+            boolean endStream = (flags & FLAG_END_STREAM) != 0;
+            Exchange exchange = exchanges.get(streamId);
+            if (exchange != null) {
+                exchange.body.write(payload, offset, length);
+            }
+            received.addAndGet(length);
+            if (payload.length > 0) {
+                if (credit) {
+                    writeWindowUpdate(0, payload.length);
+                    if (exchange != null && !endStream) {
+                        writeWindowUpdate(streamId, payload.length);
+                    }
+                } else {
+                    synchronized (this) {
+                        uncredited += payload.length;
+                        if (exchange != null) {
+                            exchange.uncredited += payload.length;
+                        }
+                    }
+                }
+            }
+            if (exchange != null && endStream) {
+                dispatch(exchange);
+            }
+        }
+
+        private void flushCredit() throws IOException {
+            List<int[]> updates = new ArrayList<int[]>();
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (uncredited > 0) {
+                    updates.add(new int[]{0, (int) uncredited});
+                    uncredited = 0;
+                }
+                for (Exchange exchange : exchanges.values()) {
+                    if (exchange.uncredited > 0) {
+                        updates.add(new int[]{exchange.id, (int) exchange.uncredited});
+                        exchange.uncredited = 0;
+                    }
+                }
+            }
+            for (int[] update : updates) {
+                writeWindowUpdate(update[0], update[1]);
+            }
+        }
+
+        private void dispatch(final Exchange exchange) {
+            executor.execute(() -> {
+                try {
+                    handler.handle(exchange);
+                } catch (Exception e) {
+                    if (exchange.resetCode < 0) {
+                        try {
+                            exchange.reset(INTERNAL_ERROR);
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            });
+        }
+
+        private void writeWindowUpdate(int streamId, int increment) throws IOException {
+            writeFrame(WINDOW_UPDATE, 0, streamId, intBytes(increment), 0, 4);
+        }
+
+        void writeFrame(int type, int flags, int streamId, byte[] payload, int offset, int length) throws IOException {
+            synchronized (writeLock) {
+                writeFrameHeader(length, type, flags, streamId);
+                out.write(payload, offset, length);
+                out.flush();
+            }
+        }
+
+        private void writeFrameHeader(int length, int type, int flags, int streamId) throws IOException {
+            out.write(length >>> 16);
+            out.write(length >>> 8);
+            out.write(length);
+            out.write(type);
+            out.write(flags);
+            out.write(intBytes(streamId));
+        }
+
+        /**
+         * 编码并写出头部块，编码和写出在同一把锁内完成，保证对端按编码顺序解码
+         */
+        private void writeHeaders(int streamId, List<String[]> headers, boolean endStream) throws IOException {
+            synchronized (writeLock) {
+                byte[] block = encoder.encode(headers);
+                int fragment = Math.min(headerFragment, MAX_FRAME_SIZE);
+                int length = Math.min(block.length, fragment);
+                int flags = (endStream ? FLAG_END_STREAM : 0) | (length == block.length ? FLAG_END_HEADERS : 0);
+                writeFrameHeader(length, HEADERS, flags, streamId);
+                out.write(block, 0, length);
+                for (int offset = length; offset < block.length; offset += length) {
+                    length = Math.min(block.length - offset, fragment);
+                    writeFrameHeader(length, CONTINUATION, offset + length == block.length ? FLAG_END_HEADERS : 0, streamId);
+                    out.write(block, offset, length);
+                }
+                out.flush();
+            }
+        }
+
+        /**
+         * 发送GOAWAY，编号大于lastStreamId的流不会被处理
+         */
+        void goAway(int lastStreamId, int errorCode) throws IOException {
+            byte[] payload = new byte[8];
+            System.arraycopy(intBytes(lastStreamId), 0, payload, 0, 4);
+            System.arraycopy(intBytes(errorCode), 0, payload, 4, 4);
+            writeFrame(GOAWAY, 0, 0, payload, 0, payload.length);
+        }
+    }
+
+    /**
+     * 一个请求流
+     */
+    final class Exchange {
+
+        private final Connection connection;
+
+        private final int id;
+
+        private final List<Header> headers;
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+        /**
+         * 以下字段由connection保护
+         */
+        private long sendWindow;
+
+        private long uncredited;
+
+        private int resetCode = -1;
+
+        private boolean finished;
+
+        Exchange(Connection connection, int id, List<Header> headers) {
+            this.connection = connection;
+            this.id = id;
+            this.headers = headers;
+        }
+
+        int id() {
+            return id;
+        }
+
+        /**
+         * 所在连接的序号，从1开始
+         */
+        int connectionIndex() {
+            return connection.index;
+        }
+
+        Connection connection() {
+            return connection;
+        }
+
+        List<Header> headers() {
+            return headers;
+        }
+
+        String header(String name) {
+            for (Header header : headers) {
+                if (header.getName().equals(name)) {
+                    return header.getValue();
+                }
+            }
+            return null;
+        }
+
+        byte[] body() {
+            return body.toByteArray();
+        }
+
+        void respond(int status, String body) throws IOException {
+            respond(status, body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * 发出响应头和响应体
+         *
+         * @param headers 名称、值交替排列
+         */
+        void respond(int status, byte[] body, String... headers) throws IOException {
+            sendHeaders(status, body.length == 0, headers);
+            if (body.length > 0) {
+                sendData(body, true);
+            }
+        }
+
+        void sendHeaders(int status, boolean endStream, String... headers) throws IOException {
+            List<String[]> fields = new ArrayList<String[]>();
+            fields.add(new String[]{":status", Integer.toString(status)});
+            for (int i = 0; i < headers.length; i += 2) {
+                fields.add(new String[]{headers[i], headers[i + 1]});
+            }
+            // 发出END_STREAM即关闭流，先释放并发名额，客户端随后新开的流才不会被误拒
+            if (endStream) {
+                finish();
+            }
+            connection.writeHeaders(id, fields, endStream);
+        }
+
+        /**
+         * 按客户端的连接和流窗口分帧发送，窗口耗尽时等待WINDOW_UPDATE
+         */
+        void sendData(byte[] data, boolean endStream) throws IOException {
+            int offset = 0;
+            do {
+                int n;
+                synchronized (connection) {
+                    long deadline = System.currentTimeMillis() + WINDOW_WAIT_MILLIS;
+                    while (true) {
+                        if (connection.closed) {
+                            throw new EOFException("connection closed");
+                        }
+                        if (resetCode >= 0) {
+                            throw new IOException("stream " + id + " reset by client, error code " + resetCode);
+                        }
+                        long window = Math.min(connection.sendWindow, sendWindow);
+                        if (offset == data.length) {
+                            n = 0;
+                            break;
+                        }
+                        if (window > 0) {
+                            n = (int) Math.min(Math.min(window, data.length - offset), MAX_FRAME_SIZE);
+                            connection.sendWindow -= n;
+                            sendWindow -= n;
+                            break;
+                        }
+                        long wait = deadline - System.currentTimeMillis();
+                        if (wait <= 0) {
+                            throw new IOException("timed out waiting for flow control window");
+                        }
+                        try {
+                            connection.wait(wait);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException("interrupted");
+                        }
+                    }
+                }
+                boolean last = endStream && offset + n == data.length;
+                if (last) {
+                    finish();
+                }
+                sent.addAndGet(n);
+                connection.writeFrame(DATA, last ? FLAG_END_STREAM : 0, id, data, offset, n);
+                offset += n;
+            } while (offset < data.length);
+        }
+
+        void reset(int errorCode) throws IOException {
+            finish();
+            connection.writeFrame(RST_STREAM, 0, id, intBytes(errorCode), 0, 4);
+        }
+
+        void goAway(int lastStreamId, int errorCode) throws IOException {
+            connection.goAway(lastStreamId, errorCode);
+        }
+
+        /**
+         * 等待客户端重置流
+         *
+         * @return 错误码，超时未重置时为-1
+         */
+        int awaitReset(long millis) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + millis;
+            synchronized (connection) {
+                while (resetCode < 0) {
+                    long wait = deadline - System.currentTimeMillis();
+                    if (wait <= 0) {
+                        break;
+                    }
+                    connection.wait(wait);
+                }
+                return resetCode;
+            }
+        }
+
+        private void finish() {
+            synchronized (connection) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                connection.open--;
+                active.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * 独立实现的HPACK编码器（RFC 7541）：只用字面量名称，每个头部以增量索引加入动态表，
+     * 再次出现时以索引引用，表满时淘汰最早的条目
+     */
+    static final class Encoder {
+
+        private static final int STATIC_TABLE_LENGTH = 61;
+
+        private final int maxSize;
+
+        /**
+         * 最新的条目在前
+         */
+        private final ArrayDeque<String[]> table = new ArrayDeque<String[]>();
+
+        private int size;
+
+        private boolean sizeUpdatePending;
+
+        private int indexed;
+
+        private int evicted;
+
+        Encoder(int maxSize) {
+            this.maxSize = maxSize;
+            this.sizeUpdatePending = maxSize != Hpack.DEFAULT_TABLE_SIZE;
+        }
+
+        byte[] encode(List<String[]> headers) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            if (sizeUpdatePending) {
+                sizeUpdatePending = false;
+                writeInt(out, 0x20, 5, maxSize);
+            }
+            for (String[] header : headers) {
+                int index = indexOf(header[0], header[1]);
+                if (index > 0) {
+                    writeInt(out, 0x80, 7, index);
+                    indexed++;
+                    continue;
+                }
+                int entrySize = 32 + header[0].length() + header[1].length();
+                out.write(entrySize > maxSize ? 0x00 : 0x40);
+                writeString(out, header[0]);
+                writeString(out, header[1]);
+                if (entrySize <= maxSize) {
+                    while (size + entrySize > maxSize) {
+                        String[] eldest = table.removeLast();
+                        size -= 32 + eldest[0].length() + eldest[1].length();
+                        evicted++;
+                    }
+                    table.addFirst(header);
+                    size += entrySize;
+                }
+            }
+            return out.toByteArray();
+        }
+
+        private int indexOf(String name, String value) {
+            int index = STATIC_TABLE_LENGTH + 1;
+            for (Iterator<String[]> it = table.iterator(); it.hasNext(); index++) {
+                String[] entry = it.next();
+                if (entry[0].equals(name) && entry[1].equals(value)) {
+                    return index;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * 以索引方式引用动态表条目的次数
+         */
+        int indexed() {
+            return indexed;
+        }
+
+        /**
+         * 被淘汰的条目数
+         */
+        int evicted() {
+            return evicted;
+        }
+
+        private static void writeInt(ByteArrayOutputStream out, int flags, int prefix, int value) {
+            int max = (1 << prefix) - 1;
+            if (value < max) {
+                out.write(flags | value);
+                return;
+            }
+            out.write(flags | max);
+            value -= max;
+            while (value >= 0x80) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            out.write(value);
+        }
+
+        private static void writeString(ByteArrayOutputStream out, String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.ISO_8859_1);
+            writeInt(out, 0x00, 7, bytes.length);
+            out.write(bytes, 0, bytes.length);
+        }
+    }
+}
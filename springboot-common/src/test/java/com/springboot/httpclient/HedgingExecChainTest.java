@@ -0,0 +1,174 @@
+package com.springboot.httpclient;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 对冲请求测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-08 17:00
+ **/
+public class HedgingExecChainTest {
+
+    private static final long DELAY = 100;
+
+    private LocalServer server;
+
+    private ManagedHttpClient client;
+
+    private ExecutorService executor;
+
+    /**
+     * 放行服务端挂起的请求
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    public void setUp() throws Exception {
+        server = LocalServer.start();
+        client = new ManagedHttpClient(HttpClientConfig.custom()
+                .setHedgingPolicy(HedgingPolicy.custom().setDelay(DELAY).build())
+                .build());
+        executor = Executors.newCachedThreadPool();
+        // 首个请求要加载类和建立连接，用不参与对冲的POST预热，避免计时受影响
+        server.handle("/warm", exchange -> LocalServer.respond(exchange, 200, "ok"));
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpPost(server.url("/warm")))) {
+            EntityUtils.consume(response.getEntity());
+        }
+    }
+
+    public void tearDown() throws Exception {
+        release.countDown();
+        executor.shutdownNow();
+        client.close();
+        server.close();
+    }
+
+    /**
+     * 按到达顺序决定每个请求的处理：小于0表示挂起直到放行，否则等待相应毫秒后返回自己的序号
+     */
+    private void race(String path, final long... waits) {
+        final AtomicInteger arrivals = new AtomicInteger();
+        server.handle(path, exchange -> {
+            int n = arrivals.incrementAndGet();
+            long wait = waits[Math.min(n, waits.length) - 1];
+            if (wait < 0) {
+                release.await(10, TimeUnit.SECONDS);
+            } else if (wait > 0) {
+                Thread.sleep(wait);
+            }
+            LocalServer.respond(exchange, 200, "#" + n);
+        });
+    }
+
+    private String get(HttpGet get) throws IOException {
+        try (CloseableHttpResponse response = client.getClient().execute(get)) {
+            return EntityUtils.toString(response.getEntity());
+        }
+    }
+
+    private InMemoryHttpClientMetrics.RouteMetrics routeMetrics() {
+        return ((InMemoryHttpClientMetrics) client.getMetrics()).getRoutes().get(server.host().toURI());
+    }
+
+    /**
+     * 落败或中止的请求关闭连接后释放回连接池
+     */
+    private void assertNoLeasedConnections() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (client.getManager().getTotalStats().getLeased() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, client.getManager().getTotalStats().getLeased());
+    }
+
+    public void testFastPrimaryIsNotHedged() throws Exception {
+        race("/fast", 0);
+        assertEquals("#1", get(new HttpGet(server.url("/fast"))));
+        Thread.sleep(DELAY * 2);
+        assertEquals(1, server.count("/fast"));
+        assertEquals(0L, routeMetrics().getHedges());
+        assertNoLeasedConnections();
+    }
+
+    public void testHedgeWinsOverStalledPrimary() throws Exception {
+        race("/stalled", -1, 0);
+        long start = System.nanoTime();
+        assertEquals("#2", get(new HttpGet(server.url("/stalled"))));
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed >= DELAY && elapsed < 2000, "took " + elapsed + "ms");
+        assertEquals(2, server.count("/stalled"));
+        assertEquals(1L, routeMetrics().getHedges());
+        assertEquals(1L, routeMetrics().getHedgeWins());
+        // 原请求被中止，未等服务端放行就归还了连接
+        assertNoLeasedConnections();
+    }
+
+    /**
+     * 对冲请求不向重试预算存入额度：比例为1时，对冲过的请求和一个503请求只能换来两次重试
+     */
+    public void testHedgeDoesNotFundRetries() throws Exception {
+        ManagedHttpClient budgeted = new ManagedHttpClient(HttpClientConfig.custom()
+                .setHedgingPolicy(HedgingPolicy.custom().setDelay(DELAY).build())
+                .setRetryPolicy(RetryPolicy.custom().setMaxAttempts(5).setBackoff(0, 0, 1).setBudget(1, 0).build())
+                .build());
+        try {
+            race("/hedged", -1, 0);
+            try (CloseableHttpResponse response = budgeted.getClient().execute(new HttpGet(server.url("/hedged")))) {
+                assertEquals("#2", EntityUtils.toString(response.getEntity()));
+            }
+            server.handle("/unavailable", exchange -> LocalServer.respond(exchange, 503, "down"));
+            try (CloseableHttpResponse response = budgeted.getClient().execute(new HttpGet(server.url("/unavailable")))) {
+                assertEquals(503, response.getStatusLine().getStatusCode());
+            }
+            assertEquals(3, server.count("/unavailable"));
+        } finally {
+            budgeted.close();
+        }
+    }
+
+    public void testPrimaryWinsOverStalledHedge() throws Exception {
+        race("/slow", DELAY * 3, -1);
+        assertEquals("#1", get(new HttpGet(server.url("/slow"))));
+        assertEquals(2, server.count("/slow"));
+        assertEquals(1L, routeMetrics().getHedges());
+        assertEquals(0L, routeMetrics().getHedgeWins());
+        assertNoLeasedConnections();
+    }
+
+    public void testCallerAbortStopsBothAttempts() throws Exception {
+        race("/stuck", -1, -1);
+        final HttpGet get = new HttpGet(server.url("/stuck"));
+        Future<String> result = executor.submit(() -> get(get));
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.count("/stuck") < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(2, server.count("/stuck"));
+        get.abort();
+        try {
+            result.get(2, TimeUnit.SECONDS);
+            throw new AssertionError("aborted request returned a response");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RequestAbortedException, "unexpected " + e.getCause());
+        }
+        assertEquals(0L, routeMetrics().getHedgeWins());
+        assertNoLeasedConnections();
+    }
+}
@@ -0,0 +1,140 @@
+package com.springboot.httpclient;
+
+import org.apache.http.Header;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+
+/**
+ * HPACK解码测试，用例取自RFC 7541附录C
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-09 15:00
+ **/
+public class HpackTest {
+
+    private static final String DATE_21 = "Mon, 21 Oct 2013 20:13:21 GMT";
+
+    private static final String DATE_22 = "Mon, 21 Oct 2013 20:13:22 GMT";
+
+    private static final String LOCATION = "https://www.example.com";
+
+    private static final String COOKIE = "foo=ASDJKHQKBZXOQWEOPIUAXQWEOIU; max-age=3600; version=1";
+
+    /**
+     * 拼接头部块：Integer写出一个字节，String写出7位长度前缀（不用哈夫曼编码）和内容
+     */
+    private static byte[] block(Object... parts) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (Object part : parts) {
+            if (part instanceof Integer) {
+                out.write((Integer) part);
+            } else {
+                byte[] bytes = ((String) part).getBytes(StandardCharsets.ISO_8859_1);
+                out.write(bytes.length);
+                out.write(bytes, 0, bytes.length);
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+        }
+        return bytes;
+    }
+
+    private static List<String> decode(Hpack.Decoder decoder, byte[] block) throws IOException {
+        List<String> fields = new ArrayList<String>();
+        for (Header header : decoder.decode(block, 0, block.length)) {
+            fields.add(header.getName() + ": " + header.getValue());
+        }
+        return fields;
+    }
+
+    /**
+     * C.5：动态表大小为256时连续解码三个响应，第二、三个响应各淘汰最早的条目
+     */
+    public void testResponsesEvictOldestEntries() throws Exception {
+        Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+        // 把表大小调为256，与RFC示例的编码器一致
+        assertEquals(Arrays.asList(
+                ":status: 302", "cache-control: private", "date: " + DATE_21, "location: " + LOCATION),
+                decode(decoder, block(0x3f, 0xe1, 0x01, 0x48, "302", 0x58, "private", 0x61, DATE_21, 0x6e, LOCATION)));
+        // :status: 307加入后淘汰:status: 302，其余三项以索引引用
+        assertEquals(Arrays.asList(
+                ":status: 307", "cache-control: private", "date: " + DATE_21, "location: " + LOCATION),
+                decode(decoder, block(0x48, "307", 0xc1, 0xc0, 0xbf)));
+        // 新的date淘汰cache-control，随后的0xc0引用被挤到64的location；content-encoding和set-cookie再淘汰三项
+        assertEquals(Arrays.asList(
+                ":status: 200", "cache-control: private", "date: " + DATE_22, "location: " + LOCATION,
+                "content-encoding: gzip", "set-cookie: " + COOKIE),
+                decode(decoder, block(0x88, 0xc1, 0x61, DATE_22, 0xc0, 0x5a, "gzip", 0x77, COOKIE)));
+        // 最终表中只剩set-cookie、content-encoding和date三项
+        assertEquals(Arrays.asList("set-cookie: " + COOKIE, "content-encoding: gzip", "date: " + DATE_22),
+                decode(decoder, block(0xbe, 0xbf, 0xc0)));
+        assertThrows(IOException.class, () -> decode(decoder, block(0xc1)));
+    }
+
+    /**
+     * C.4：哈夫曼编码的字符串
+     */
+    public void testHuffmanStrings() throws Exception {
+        byte[] host = hex("f1e3c2e5f23a6ba0ab90f4ff");
+        assertEquals("www.example.com", Hpack.huffmanDecode(host, 0, host.length));
+        byte[] noCache = hex("a8eb10649cbf");
+        assertEquals("no-cache", Hpack.huffmanDecode(noCache, 0, noCache.length));
+        byte[] key = hex("25a849e95ba97d7f");
+        assertEquals("custom-key", Hpack.huffmanDecode(key, 0, key.length));
+        byte[] value = hex("25a849e95bb8e8b4bf");
+        assertEquals("custom-value", Hpack.huffmanDecode(value, 0, value.length));
+        // 超过7位或不全为1的填充都不合法
+        assertThrows(IOException.class, () -> Hpack.huffmanDecode(hex("a8eb10649cbfff"), 0, 7));
+        assertThrows(IOException.class, () -> Hpack.huffmanDecode(hex("a8eb10649cbe"), 0, 6));
+    }
+
+    public void testHuffmanEncodedLiteral() throws Exception {
+        Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+        byte[] first = hex("828684418cf1e3c2e5f23a6ba0ab90f4ff");
+        assertEquals(Arrays.asList(":method: GET", ":scheme: http", ":path: /", ":authority: www.example.com"),
+                decode(decoder, first));
+        // C.4.2：:authority以索引62引用，cache-control以哈夫曼编码加入动态表
+        byte[] second = hex("828684be5886a8eb10649cbf");
+        assertEquals(Arrays.asList(":method: GET", ":scheme: http", ":path: /", ":authority: www.example.com",
+                "cache-control: no-cache"), decode(decoder, second));
+    }
+
+    public void testEntryLargerThanTableEmptiesIt() throws Exception {
+        Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+        decode(decoder, block(0x3f, 0x21, 0x40, "a", "b"));
+        assertEquals(Arrays.asList("a: b"), decode(decoder, block(0xbe)));
+        StringBuilder large = new StringBuilder();
+        while (large.length() < 64) {
+            large.append('x');
+        }
+        assertEquals(Arrays.asList("a: " + large), decode(decoder, block(0x40, "a", large.toString())));
+        assertThrows(IOException.class, () -> decode(decoder, block(0xbe)));
+    }
+
+    public void testTableSizeUpdateAboveSettingIsRejected() throws Exception {
+        Hpack.Decoder decoder = new Hpack.Decoder(256);
+        assertThrows(IOException.class, () -> decode(decoder, block(0x3f, 0xe2, 0x01)));
+    }
+
+    public void testTruncatedBlocksAreRejected() throws Exception {
+        Hpack.Decoder decoder = new Hpack.Decoder(Hpack.DEFAULT_TABLE_SIZE);
+        assertThrows(IOException.class, () -> decode(decoder, new byte[]{0x40, 0x05, 'a'}));
+        assertThrows(IOException.class, () -> decode(decoder, new byte[]{(byte) 0xff}));
+        assertThrows(IOException.class, () -> decode(decoder, new byte[]{(byte) 0x80}));
+    }
+}
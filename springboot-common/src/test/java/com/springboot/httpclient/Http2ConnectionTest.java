@@ -0,0 +1,216 @@
+package com.springboot.httpclient;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * HTTP/2连接测试：流量控制、流重置、CONTINUATION和HPACK动态表
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-09 16:00
+ **/
+public class Http2ConnectionTest {
+
+    private H2cServer server;
+
+    private ManagedHttpClient client;
+
+    private ExecutorService executor;
+
+    public void setUp() throws Exception {
+        server = H2cServer.start();
+        executor = Executors.newCachedThreadPool();
+    }
+
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private ManagedHttpClient client(Http2Transport transport) throws Exception {
+        client = new ManagedHttpClient(HttpClientConfig.custom().setRetryCount(0).setTransport(transport).build());
+        return client;
+    }
+
+    private String get(String path) throws IOException {
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url(path)))) {
+            return EntityUtils.toString(response.getEntity());
+        }
+    }
+
+    private static byte[] payload(int length) {
+        byte[] payload = new byte[length];
+        for (int i = 0; i < length; i++) {
+            payload[i] = (byte) (i * 31 + i / 251);
+        }
+        return payload;
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder builder = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            builder.append(c);
+        }
+        return builder.toString();
+    }
+
+    public void testResponseStallsUntilCallerReads() throws Exception {
+        final byte[] body = payload(256 * 1024);
+        server.handler(exchange -> exchange.respond(200, body));
+        client(Http2Transport.custom().setInitialWindowSize(16384).setConnectionWindowSize(65535).build());
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url("/large")))) {
+            Thread.sleep(300);
+            // 调用方未读取，服务端只能发出一个流窗口的数据
+            assertEquals(16384L, server.sent());
+            assertEquals(body, EntityUtils.toByteArray(response.getEntity()));
+        }
+        assertEquals((long) body.length, server.sent());
+    }
+
+    public void testRequestBodyWaitsForWindowUpdate() throws Exception {
+        server.initialWindowSize(1024)
+                .handler(exchange -> exchange.respond(200, Integer.toString(exchange.body().length)));
+        client(Http2Transport.DEFAULT);
+        // 先完成一次请求，确保客户端已应用服务端的SETTINGS
+        assertEquals("0", get("/warm"));
+        server.credit(false);
+        final HttpPost post = new HttpPost(server.url("/upload"));
+        post.setEntity(new ByteArrayEntity(payload(100 * 1024)));
+        Future<String> result = executor.submit(() -> {
+            try (CloseableHttpResponse response = client.getClient().execute(post)) {
+                return EntityUtils.toString(response.getEntity());
+            }
+        });
+        Thread.sleep(300);
+        assertEquals(1024L, server.received());
+        assertTrue(!result.isDone(), "request finished without window updates");
+        server.credit(true);
+        assertEquals(Integer.toString(100 * 1024), result.get(5, TimeUnit.SECONDS));
+        assertEquals(1, server.connections());
+    }
+
+    public void testStreamResetByPeerFailsOnlyThatRequest() throws Exception {
+        server.handler(exchange -> {
+            if ("/reset".equals(exchange.header(":path"))) {
+                exchange.reset(H2cServer.INTERNAL_ERROR);
+            } else {
+                exchange.respond(200, "ok");
+            }
+        });
+        client(Http2Transport.DEFAULT);
+        IOException e = assertThrows(IOException.class, () -> get("/reset"));
+        assertTrue(e.getMessage().contains("reset by peer, error code 2"), e.getMessage());
+        assertEquals("ok", get("/next"));
+        assertEquals(1, server.connections());
+    }
+
+    public void testClosingUnreadResponseCancelsStreamAndReturnsWindow() throws Exception {
+        final byte[] body = payload(60000);
+        server.handler(exchange -> {
+            if ("/partial".equals(exchange.header(":path"))) {
+                exchange.sendHeaders(200, false);
+                exchange.sendData(body, false);
+                exchange.awaitReset(5000);
+            } else {
+                exchange.respond(200, body);
+            }
+        });
+        client(Http2Transport.custom().setConnectionWindowSize(65535).build());
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url("/partial")))) {
+            InputStream in = response.getEntity().getContent();
+            for (int i = 0; i < 10; i++) {
+                assertEquals(body[i] & 0xff, in.read());
+            }
+            Thread.sleep(100);
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.resets().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, server.resets().size());
+        assertEquals(1, server.resets().get(0)[0]);
+        assertEquals(H2cServer.CANCEL, server.resets().get(0)[1]);
+        // 被丢弃的数据归还了连接窗口，否则下一个流只能收到剩余的5535字节
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url("/full")))) {
+            assertEquals(body, EntityUtils.toByteArray(response.getEntity()));
+        }
+        assertEquals(1, server.connections());
+    }
+
+    public void testResponseHeadersSpanContinuationFrames() throws Exception {
+        final String longValue = repeat('v', 3000);
+        server.headerFragment(16)
+                .handler(exchange -> exchange.respond(200, "ok".getBytes(), "x-long", longValue, "x-short", "s"));
+        client(Http2Transport.DEFAULT);
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url("/")))) {
+            assertEquals(longValue, response.getFirstHeader("x-long").getValue());
+            assertEquals("s", response.getFirstHeader("x-short").getValue());
+            assertEquals("ok", EntityUtils.toString(response.getEntity()));
+        }
+    }
+
+    public void testLargeRequestHeadersAreSentWithContinuation() throws Exception {
+        String big = repeat('b', 40000);
+        server.handler(exchange -> exchange.respond(200, exchange.header("x-big")));
+        client(Http2Transport.DEFAULT);
+        HttpGet get = new HttpGet(server.url("/"));
+        get.setHeader("X-Big", big);
+        try (CloseableHttpResponse response = client.getClient().execute(get)) {
+            assertEquals(big, EntityUtils.toString(response.getEntity()));
+        }
+        assertTrue(server.continuations() >= 2, "continuations " + server.continuations());
+    }
+
+    public void testDynamicTableEvictionAcrossResponses() throws Exception {
+        final String a = "a-" + repeat('1', 28);
+        final String b = "b-" + repeat('2', 28);
+        final String c = "c-" + repeat('3', 28);
+        // 表大小200：:status(42)加两个65字节的条目后，每加入一个新条目都要淘汰最早的条目
+        server.headerTableSize(200).handler(exchange -> {
+            String path = exchange.header(":path");
+            if ("/1".equals(path)) {
+                exchange.respond(200, path.getBytes(), "x-a", a, "x-b", b);
+            } else if ("/2".equals(path)) {
+                exchange.respond(200, path.getBytes(), "x-a", a, "x-c", c);
+            } else if ("/3".equals(path)) {
+                exchange.respond(404, path.getBytes(), "x-b", b, "x-c", c, "x-a", a);
+            } else {
+                exchange.respond(200, path.getBytes(), "x-c", c, "x-a", a, "x-b", b);
+            }
+        });
+        client(Http2Transport.DEFAULT);
+        String[][] expected = {{"x-a", a, "x-b", b}, {"x-a", a, "x-c", c}, {"x-b", b, "x-c", c, "x-a", a},
+                {"x-c", c, "x-a", a, "x-b", b}};
+        for (int i = 0; i < expected.length; i++) {
+            String path = "/" + (i + 1);
+            try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url(path)))) {
+                assertEquals(i == 2 ? 404 : 200, response.getStatusLine().getStatusCode());
+                for (int j = 0; j < expected[i].length; j += 2) {
+                    assertEquals(expected[i][j + 1], response.getFirstHeader(expected[i][j]).getValue());
+                }
+                assertEquals(path, EntityUtils.toString(response.getEntity()));
+            }
+        }
+        H2cServer.Encoder encoder = server.connection(1).encoder();
+        assertTrue(encoder.indexed() > 0, "no indexed references");
+        assertTrue(encoder.evicted() > 0, "no evictions");
+    }
+}
@@ -0,0 +1,177 @@
+package com.springboot.httpclient;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.execchain.RequestAbortedException;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * HTTP/2执行链测试：多路复用、并发流上限、REFUSED_STREAM和GOAWAY的重试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-09 17:00
+ **/
+public class Http2ExecChainTest {
+
+    private H2cServer server;
+
+    private ManagedHttpClient client;
+
+    private ExecutorService executor;
+
+    public void setUp() throws Exception {
+        server = H2cServer.start();
+        executor = Executors.newCachedThreadPool();
+        client = new ManagedHttpClient(HttpClientConfig.custom()
+                .setRetryCount(0)
+                .setTransport(Http2Transport.DEFAULT)
+                .build());
+    }
+
+    public void tearDown() throws Exception {
+        client.close();
+        executor.shutdownNow();
+        server.close();
+    }
+
+    private String get(String path) throws IOException {
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url(path)))) {
+            return EntityUtils.toString(response.getEntity());
+        }
+    }
+
+    private List<String> getAll(int count) throws Exception {
+        List<Future<String>> futures = new ArrayList<Future<String>>();
+        for (int i = 0; i < count; i++) {
+            final String path = "/" + i;
+            futures.add(executor.submit(() -> get(path)));
+        }
+        List<String> bodies = new ArrayList<String>();
+        for (Future<String> future : futures) {
+            bodies.add(future.get(10, TimeUnit.SECONDS));
+        }
+        return bodies;
+    }
+
+    public void testStreamsAreMultiplexedOnOneConnection() throws Exception {
+        final CountDownLatch allActive = new CountDownLatch(5);
+        server.handler(exchange -> {
+            // 五个请求同时在处理中才响应，证明它们共用一个连接并发进行
+            allActive.countDown();
+            allActive.await(5, TimeUnit.SECONDS);
+            exchange.respond(200, exchange.header(":path"));
+        });
+        List<String> bodies = getAll(5);
+        for (int i = 0; i < 5; i++) {
+            assertEquals("/" + i, bodies.get(i));
+        }
+        assertEquals(1, server.connections());
+        assertEquals(5, server.peakActive());
+    }
+
+    public void testPeerMaxConcurrentStreamsIsHonoured() throws Exception {
+        server.maxConcurrentStreams(2);
+        // 先完成一次请求，确保客户端已应用服务端的SETTINGS
+        assertEquals("ok", get("/warm"));
+        server.handler(exchange -> {
+            Thread.sleep(100);
+            exchange.respond(200, "ok");
+        });
+        for (String body : getAll(6)) {
+            assertEquals("ok", body);
+        }
+        assertEquals(2, server.peakActive());
+        assertEquals(0, server.refused());
+        assertEquals(1, server.connections());
+    }
+
+    public void testRefusedStreamIsRetried() throws Exception {
+        server.handler(exchange -> {
+            if (exchange.id() == 1) {
+                exchange.reset(H2cServer.REFUSED_STREAM);
+            } else {
+                exchange.respond(200, "retried on " + exchange.id());
+            }
+        });
+        assertEquals("retried on 3", get("/"));
+        assertEquals(2, server.streams());
+        assertEquals(1, server.connections());
+    }
+
+    public void testGoAwayRetriesUnprocessedStreamOnNewConnection() throws Exception {
+        server.handler(exchange -> {
+            if (exchange.connectionIndex() == 1) {
+                exchange.goAway(0, H2cServer.NO_ERROR);
+            } else {
+                exchange.respond(200, "connection " + exchange.connectionIndex());
+            }
+        });
+        assertEquals("connection 2", get("/"));
+        assertEquals(2, server.connections());
+    }
+
+    public void testGracefulGoAwayLetsInFlightStreamFinish() throws Exception {
+        server.handler(exchange -> {
+            if (exchange.connectionIndex() == 1) {
+                exchange.goAway(exchange.id(), H2cServer.NO_ERROR);
+            }
+            exchange.respond(200, "connection " + exchange.connectionIndex());
+        });
+        assertEquals("connection 1", get("/first"));
+        assertEquals("connection 2", get("/second"));
+        assertEquals(2, server.connections());
+    }
+
+    public void testAbortCancelsStream() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        server.handler(exchange -> {
+            started.countDown();
+            exchange.awaitReset(5000);
+        });
+        final HttpGet get = new HttpGet(server.url("/hang"));
+        Future<?> result = executor.submit(() -> {
+            client.getClient().execute(get).close();
+            return null;
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS), "request not received");
+        get.abort();
+        try {
+            result.get(5, TimeUnit.SECONDS);
+            throw new AssertionError("aborted request completed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RequestAbortedException, "unexpected " + e.getCause());
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.resets().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(1, server.resets().size());
+        assertEquals(H2cServer.CANCEL, server.resets().get(0)[1]);
+        // 连接不受影响，后续请求继续复用
+        server.handler(exchange -> exchange.respond(200, "ok"));
+        assertEquals("ok", get("/next"));
+        assertEquals(1, server.connections());
+    }
+
+    public void testTransportRejectsInvalidSettings() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> Http2Transport.custom().setInitialWindowSize(16383));
+        assertThrows(IllegalArgumentException.class, () -> Http2Transport.custom().setConnectionWindowSize(65534));
+        assertThrows(IllegalArgumentException.class, () -> Http2Transport.custom().setMaxConnectionsPerRoute(0));
+        assertThrows(IllegalArgumentException.class, () -> Http2Transport.custom().setMaxConcurrentStreams(0));
+    }
+}
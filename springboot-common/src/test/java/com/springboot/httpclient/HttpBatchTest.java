@@ -0,0 +1,133 @@
+package com.springboot.httpclient;
+
+import org.apache.http.client.ResponseHandler;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpUriRequest;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertFalse;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 批量执行测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-09 11:00
+ **/
+public class HttpBatchTest {
+
+    private static final String CLIENT_NAME = "http-batch-test";
+
+    static {
+        HttpClientRegistry.register(CLIENT_NAME, HttpClientConfig.custom().build());
+    }
+
+    private LocalServer slow;
+
+    private LocalServer fast;
+
+    /**
+     * 慢主机上同时处理的请求数及其峰值
+     */
+    private final AtomicInteger slowActive = new AtomicInteger();
+
+    private final AtomicInteger slowPeak = new AtomicInteger();
+
+    public void setUp() throws Exception {
+        slow = LocalServer.start();
+        slow.handle("/", exchange -> {
+            int active = slowActive.incrementAndGet();
+            slowPeak.accumulateAndGet(active, Math::max);
+            try {
+                Thread.sleep(200);
+            } finally {
+                slowActive.decrementAndGet();
+            }
+            LocalServer.respond(exchange, 200, "slow");
+        });
+        fast = LocalServer.start();
+        fast.handle("/", exchange -> LocalServer.respond(exchange, 200, "fast"));
+    }
+
+    public void tearDown() throws Exception {
+        slow.close();
+        fast.close();
+    }
+
+    private static <T> HttpBatch.ResultIterator<T> stream(Iterator<? extends HttpUriRequest> requests, BatchPolicy policy,
+                                                          ResponseHandler<T> handler) {
+        return HttpBatch.stream(CLIENT_NAME, requests, policy, handler, null);
+    }
+
+    public void testSlowRouteOnlyTakesItsShare() throws Exception {
+        List<HttpUriRequest> requests = new ArrayList<HttpUriRequest>();
+        for (int i = 0; i < 8; i++) {
+            requests.add(new HttpGet(slow.url("/" + i)));
+        }
+        for (int i = 0; i < 8; i++) {
+            requests.add(new HttpGet(fast.url("/" + i)));
+        }
+        BatchPolicy policy = BatchPolicy.custom().setConcurrency(4).setMaxPerRoute(2).setMaxQueued(32).build();
+        List<String> order = new ArrayList<String>();
+        try (HttpBatch.ResultIterator<HttpResult> results = stream(requests.iterator(), policy,
+                HttpBatch.resultHandler("UTF-8"))) {
+            while (results.hasNext()) {
+                HttpBatch.Result<HttpResult> result = results.next();
+                assertTrue(result.isSuccess(), "failed " + result);
+                order.add(result.getValue().getBody());
+            }
+        }
+        assertEquals(16, order.size());
+        // 慢主机排在输入前面，但只占两个工作线程，快主机的请求不必等它
+        assertEquals("fast", order.get(0));
+        assertFalse(order.subList(0, 8).contains("slow") && order.subList(8, 16).contains("fast"),
+                "fast requests queued behind slow ones: " + order);
+        assertEquals(2, slowPeak.get());
+        assertEquals(8, slow.count("/"));
+        assertEquals(8, fast.count("/"));
+    }
+
+    public void testUnconsumedResultsStopReadingInput() throws Exception {
+        final AtomicLong pulled = new AtomicLong();
+        Iterator<HttpUriRequest> endless = new Iterator<HttpUriRequest>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public HttpUriRequest next() {
+                return new HttpGet(fast.url("/" + pulled.incrementAndGet()));
+            }
+        };
+        int concurrency = 2;
+        int maxQueued = 4;
+        BatchPolicy policy = BatchPolicy.custom().setConcurrency(concurrency).setMaxQueued(maxQueued).build();
+        HttpBatch.ResultIterator<HttpResult> results = stream(endless, policy, HttpBatch.resultHandler("UTF-8"));
+        // 不消费结果，工作线程填满结果队列后停下
+        Thread.sleep(500);
+        long bound = maxQueued + concurrency + maxQueued;
+        long stalled = pulled.get();
+        assertTrue(stalled <= bound, "pulled " + stalled + " requests, bound " + bound);
+        Thread.sleep(200);
+        assertEquals(stalled, pulled.get());
+        assertTrue(results.hasNext(), "no result available");
+        assertTrue(results.next().isSuccess(), "first request failed");
+        long start = System.nanoTime();
+        results.close();
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsed < 2000, "close took " + elapsed + "ms");
+        assertFalse(results.hasNext(), "results after close");
+        long closed = pulled.get();
+        Thread.sleep(200);
+        assertEquals(closed, pulled.get());
+    }
+}
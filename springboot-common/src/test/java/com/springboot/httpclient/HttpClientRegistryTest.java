@@ -0,0 +1,230 @@
+package com.springboot.httpclient;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+import javax.management.ObjectName;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertNull;
+import static com.springboot.Asserts.assertSame;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 客户端注册中心测试：按配置共享客户端、名称冲突、并发首次构建、下载时响应的关闭以及关闭注册中心
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 18:00
+ **/
+public class HttpClientRegistryTest {
+
+    private static final byte[] FILE = random(200 * 1024);
+
+    private LocalServer server;
+
+    private ExecutorService executor;
+
+    private static byte[] random(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    public void setUp() throws Exception {
+        server = LocalServer.start();
+        server.handle("/file", exchange -> LocalServer.respond(exchange, 200, FILE));
+        server.handle("/missing", exchange -> LocalServer.respond(exchange, 404, "missing"));
+        server.handle("/ok", exchange -> LocalServer.respond(exchange, 200, "ok"));
+        executor = Executors.newCachedThreadPool();
+    }
+
+    public void tearDown() throws Exception {
+        executor.shutdownNow();
+        server.close();
+    }
+
+    /**
+     * 注册中心在进程内共享，每个测试使用各自的连接数区分配置
+     */
+    private static HttpClientConfig config(int maxRoute) {
+        return HttpClientConfig.custom().setMaxRoute(maxRoute).build();
+    }
+
+    private static int leased(String name) throws Exception {
+        return HttpClientRegistry.getManagedClient(name).getManager().getTotalStats().getLeased();
+    }
+
+    public void testEqualConfigsShareOneClient() throws Exception {
+        HttpClientRegistry.register("registry-first", config(31));
+        HttpClientRegistry.register("registry-second", config(31));
+        HttpClientRegistry.register("registry-other", config(32));
+        CloseableHttpClient first = HttpClientRegistry.getClient("registry-first");
+        assertSame(first, HttpClientRegistry.getClient("registry-second"));
+        assertSame(first, HttpClientRegistry.getClient(config(31)));
+        assertTrue(first != HttpClientRegistry.getClient("registry-other"), "different configs share a client");
+        assertSame(HttpClientRegistry.getManagedClient("registry-first").getMetrics(),
+                HttpClientRegistry.getMetrics("registry-second"));
+        ObjectName name = new ObjectName("com.springboot.httpclient:type=HttpClient,name=" + ObjectName.quote("registry-first"));
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name), "MBean not registered");
+    }
+
+    public void testNameConflicts() throws Exception {
+        assertThrows(IllegalArgumentException.class, () -> HttpClientRegistry.register(null, config(33)));
+        assertThrows(IllegalArgumentException.class, () -> HttpClientRegistry.register("registry-conflict", null));
+        assertThrows(IllegalArgumentException.class, () -> HttpClientRegistry.getClient("registry-unknown"));
+
+        // 构建前可以更换配置
+        HttpClientRegistry.register("registry-conflict", config(33));
+        HttpClientRegistry.register("registry-conflict", config(34));
+        CloseableHttpClient client = HttpClientRegistry.getClient("registry-conflict");
+        assertSame(HttpClientRegistry.getClient(config(34)), client);
+
+        // 构建后只允许相同配置
+        HttpClientRegistry.register("registry-conflict", config(34));
+        assertThrows(IllegalStateException.class, () -> HttpClientRegistry.register("registry-conflict", config(33)));
+        assertSame(client, HttpClientRegistry.getClient("registry-conflict"));
+    }
+
+    /**
+     * 多个线程同时首次获取同一配置和名称，只构建一个客户端
+     */
+    public void testConcurrentFirstAccessBuildsOnce() throws Exception {
+        final HttpClientConfig config = config(35);
+        HttpClientRegistry.register("registry-concurrent", config(35));
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Future<ManagedHttpClient>> futures = new ArrayList<Future<ManagedHttpClient>>();
+        for (int i = 0; i < 16; i++) {
+            final boolean byName = i % 2 == 0;
+            futures.add(executor.submit(new Callable<ManagedHttpClient>() {
+                @Override
+                public ManagedHttpClient call() throws Exception {
+                    start.await();
+                    return byName
+                            ? HttpClientRegistry.getManagedClient("registry-concurrent")
+                            : HttpClientRegistry.getManagedClient(config);
+                }
+            }));
+        }
+        start.countDown();
+        ManagedHttpClient client = futures.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<ManagedHttpClient> future : futures) {
+            assertSame(client, future.get(10, TimeUnit.SECONDS));
+        }
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url("/ok")))) {
+            assertEquals("ok", EntityUtils.toString(response.getEntity()));
+        }
+    }
+
+    public void testDownloadStreamsToChannel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        Long written = HttpClientUtil.download(new HttpGet(server.url("/file")), null, Channels.newChannel(out));
+        assertEquals((long) FILE.length, written);
+        assertEquals(FILE, out.toByteArray());
+        assertEquals(0, leased(HttpClientRegistry.DEFAULT_NAME));
+
+        Path path = File.createTempFile("download", ".bin").toPath();
+        try {
+            assertEquals((long) FILE.length, HttpClientUtil.download(new HttpGet(server.url("/file")), null, path));
+            assertEquals(FILE, Files.readAllBytes(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    /**
+     * 错误状态和写入失败时响应同样被关闭，连接不会泄漏；次数超过路由连接数，泄漏会导致后续请求等待连接超时
+     */
+    public void testFailedDownloadsReleaseConnections() throws Exception {
+        int attempts = HttpClientRegistry.getManagedClient(HttpClientRegistry.DEFAULT_NAME).getConfig().getMaxRoute() + 2;
+        WritableByteChannel failing = new WritableByteChannel() {
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                throw new IOException("disk full");
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        for (int i = 0; i < attempts; i++) {
+            assertNull(HttpClientUtil.download(new HttpGet(server.url("/missing")), null, Channels.newChannel(new ByteArrayOutputStream())));
+            assertNull(HttpClientUtil.download(new HttpGet(server.url("/file")), null, failing));
+        }
+        assertEquals(0, leased(HttpClientRegistry.DEFAULT_NAME));
+        assertEquals(attempts, server.count("/missing"));
+        assertEquals(attempts, server.count("/file"));
+        assertEquals("ok", HttpClientUtil.get(server.url("/ok"), null));
+    }
+
+    /**
+     * 关闭对进程不可逆，在独立的JVM中执行{@link #main}
+     */
+    public void testCloseShutsDownClients() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                HttpClientRegistryTest.class.getName(), server.url("/ok"))
+                .redirectErrorStream(true)
+                .start();
+        String output;
+        try (InputStream in = process.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int n;
+            while ((n = in.read(buffer)) != -1) {
+                out.write(buffer, 0, n);
+            }
+            output = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+        assertTrue(process.waitFor(30, TimeUnit.SECONDS), "child JVM did not exit");
+        assertEquals(0, process.exitValue());
+        assertTrue(output.contains("registry closed"), output);
+        assertEquals(1, server.count("/ok"));
+    }
+
+    public static void main(String[] args) throws Exception {
+        HttpClientRegistry.register("registry-close", config(36));
+        ManagedHttpClient client = HttpClientRegistry.getManagedClient("registry-close");
+        assertEquals("ok", HttpClientUtil.execute("registry-close", new HttpGet(args[0]), null, "UTF-8"));
+        ObjectName name = new ObjectName("com.springboot.httpclient:type=HttpClient,name=" + ObjectName.quote("registry-close"));
+        assertTrue(ManagementFactory.getPlatformMBeanServer().isRegistered(name), "MBean not registered");
+
+        HttpClientRegistry.close();
+        // 重复关闭无影响
+        HttpClientRegistry.close();
+        assertTrue(!ManagementFactory.getPlatformMBeanServer().isRegistered(name), "MBean still registered");
+        assertThrows(IllegalStateException.class, () -> HttpClientRegistry.getClient("registry-close"));
+        assertThrows(IllegalStateException.class, () -> HttpClientRegistry.getClient(config(36)));
+        // 已取得的客户端连接池已关闭
+        assertThrows(IllegalStateException.class, () -> client.getClient().execute(new HttpGet(args[0])));
+        System.out.println("registry closed");
+    }
+}
@@ -0,0 +1,145 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpHost;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.routing.HttpRoute;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertFalse;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 重试判断、退避时间和按请求计入的重试预算测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 14:00
+ **/
+public class HttpClientRetryHandlerTest {
+
+    /**
+     * 不等待的策略，只验证是否重试
+     */
+    private static final RetryPolicy NO_BACKOFF = RetryPolicy.custom().setBackoff(0, 0, 1).build();
+
+    private static HttpClientContext contextOf(HttpUriRequest request) {
+        HttpClientContext context = HttpClientContext.create();
+        context.setAttribute(HttpClientContext.HTTP_REQUEST, request);
+        context.setAttribute(HttpClientContext.HTTP_ROUTE, new HttpRoute(new HttpHost("127.0.0.1", 80)));
+        return context;
+    }
+
+    /**
+     * 构造参数曾被赋值给自身，配置的次数不生效
+     */
+    public void testMaxCountIsHonoured() {
+        HttpClientRetryHandler handler = new HttpClientRetryHandler(5);
+        HttpClientContext context = contextOf(new HttpGet("http://127.0.0.1/"));
+        IOException dropped = new NoHttpResponseException("dropped");
+        for (int count = 1; count < 5; count++) {
+            assertTrue(handler.retryRequest(dropped, count, context), "attempt " + count + " not retried");
+        }
+        assertFalse(handler.retryRequest(dropped, 5, context), "retried past max attempts");
+
+        HttpClientRetryHandler none = new HttpClientRetryHandler(1);
+        assertFalse(none.retryRequest(dropped, 1, context), "retried with a single attempt");
+    }
+
+    public void testExceptionClassification() {
+        HttpClientRetryHandler handler = new HttpClientRetryHandler(NO_BACKOFF, RetryBudget.UNLIMITED, HttpClientMetrics.NOOP);
+        HttpClientContext get = contextOf(new HttpGet("http://127.0.0.1/"));
+        HttpClientContext post = contextOf(new HttpPost("http://127.0.0.1/"));
+        // 连接被丢弃时总是重试，未配置的异常按请求是否幂等
+        assertTrue(handler.retryRequest(new NoHttpResponseException("dropped"), 1, post), "dropped POST not retried");
+        assertTrue(handler.retryRequest(new SocketException("reset"), 1, get), "reset GET not retried");
+        assertFalse(handler.retryRequest(new SocketException("reset"), 1, post), "reset POST retried");
+        assertFalse(handler.retryRequest(new SocketTimeoutException("timeout"), 1, get), "timeout retried");
+        assertFalse(handler.retryRequest(new ConnectException("refused"), 1, get), "refused retried");
+        assertFalse(handler.retryRequest(new SSLException("handshake"), 1, get), "SSL failure retried");
+
+        // 配置为可重试的异常先于不可重试的异常判断，非幂等请求也重试
+        RetryPolicy policy = RetryPolicy.custom().setBackoff(0, 0, 1)
+                .addRetryableException(SocketException.class)
+                .addRetryableException(SocketTimeoutException.class)
+                .build();
+        assertEquals(Boolean.TRUE, policy.isRetryable(new SocketTimeoutException("timeout")));
+        assertEquals(Boolean.FALSE, policy.isRetryable(new SSLException("handshake")));
+        assertEquals(null, policy.isRetryable(new IOException("other")));
+        handler = new HttpClientRetryHandler(policy, RetryBudget.UNLIMITED, HttpClientMetrics.NOOP);
+        assertTrue(handler.retryRequest(new SocketException("reset"), 1, post), "configured exception not retried");
+    }
+
+    public void testBackoffGrowsUpToMax() {
+        RetryPolicy policy = RetryPolicy.custom().setBackoff(100, 1000, 2).setJitter(0).build();
+        assertEquals(100L, policy.backoff(1));
+        assertEquals(200L, policy.backoff(2));
+        assertEquals(400L, policy.backoff(3));
+        assertEquals(800L, policy.backoff(4));
+        assertEquals(1000L, policy.backoff(5));
+        assertEquals(1000L, policy.backoff(30));
+        assertEquals(0L, NO_BACKOFF.backoff(3));
+    }
+
+    public void testJitterStaysWithinRange() {
+        RetryPolicy policy = RetryPolicy.custom().setBackoff(100, 1000, 2).setJitter(0.5).build();
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < 1000; i++) {
+            long backoff = policy.backoff(3);
+            assertTrue(backoff >= 200 && backoff <= 400, "backoff " + backoff + " outside [200, 400]");
+            min = Math.min(min, backoff);
+            max = Math.max(max, backoff);
+        }
+        assertTrue(max - min > 100, "jitter not applied: " + min + "-" + max);
+    }
+
+    public void testExhaustedBudgetStopsRetries() {
+        RetryBudget budget = new RetryBudget(0.5, 0);
+        HttpClientRetryHandler handler = new HttpClientRetryHandler(NO_BACKOFF, budget, HttpClientMetrics.NOOP);
+        HttpClientContext context = contextOf(new HttpGet("http://127.0.0.1/"));
+        IOException dropped = new NoHttpResponseException("dropped");
+        assertFalse(handler.retryRequest(dropped, 1, context), "retried without budget");
+        budget.deposit("http://127.0.0.1:80");
+        budget.deposit("http://127.0.0.1:80");
+        assertTrue(handler.retryRequest(dropped, 1, context), "retried not funded by deposits");
+        assertFalse(handler.retryRequest(dropped, 2, context), "budget overdrawn");
+    }
+
+    public void testRejectsNullPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> HttpClientConfig.custom().setRetryPolicy(null));
+    }
+
+    /**
+     * 同一请求的多次重试只存入一次预算：比例为1时每个请求恰好得到一次重试
+     */
+    public void testRetriesOfOneRequestDepositOnce() throws Exception {
+        LocalServer server = LocalServer.start();
+        server.handle("/unavailable", exchange -> LocalServer.respond(exchange, 503, "down"));
+        ManagedHttpClient client = new ManagedHttpClient(HttpClientConfig.custom()
+                .setRetryPolicy(RetryPolicy.custom().setMaxAttempts(5).setBackoff(0, 0, 1).setBudget(1, 0).build())
+                .build());
+        try {
+            for (int i = 1; i <= 3; i++) {
+                try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url("/unavailable")))) {
+                    assertEquals(503, response.getStatusLine().getStatusCode());
+                }
+                assertEquals(2 * i, server.count("/unavailable"));
+            }
+        } finally {
+            client.close();
+            server.close();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.springboot.httpclient;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpHost;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 测试用的本地HTTP/1.1服务端，监听回环地址的随机端口，按路径前缀分发并统计请求数
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-08 14:00
+ **/
+final class LocalServer implements Closeable {
+
+    /**
+     * 请求处理，返回后交换自动关闭
+     */
+    interface Handler {
+        void handle(HttpExchange exchange) throws Exception;
+    }
+
+    static {
+        // 默认未开启TCP_NODELAY，小响应分头部和正文两次写出时会因延迟确认每次多等约40毫秒
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private final HttpServer server;
+
+    private final ExecutorService executor;
+
+    private final ConcurrentMap<String, AtomicInteger> counts = new ConcurrentHashMap<String, AtomicInteger>();
+
+    private LocalServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        this.executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+    }
+
+    static LocalServer start() throws IOException {
+        LocalServer server = new LocalServer();
+        server.server.start();
+        return server;
+    }
+
+    LocalServer handle(final String path, final Handler handler) {
+        counts.put(path, new AtomicInteger());
+        server.createContext(path, exchange -> {
+            counts.get(path).incrementAndGet();
+            try {
+                handler.handle(exchange);
+            } catch (Exception e) {
+                // 客户端中止请求时写响应失败
+            } finally {
+                exchange.close();
+            }
+        });
+        return this;
+    }
+
+    /**
+     * 路径收到的请求数
+     */
+    int count(String path) {
+        return counts.get(path).get();
+    }
+
+    HttpHost host() {
+        return new HttpHost("127.0.0.1", server.getAddress().getPort(), "http");
+    }
+
+    String url(String path) {
+        return host().toURI() + path;
+    }
+
+    static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        respond(exchange, status, body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if (body.length == 0) {
+            if (status == 304) {
+                // JDK的HttpServer发出304后会关闭连接，声明出来避免客户端复用后重试
+                exchange.getResponseHeaders().set("Connection", "close");
+            }
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    static byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int n;
+        while ((n = in.read(buffer)) != -1) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.springboot.httpclient;
+
+import org.apache.http.HttpHost;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+
+/**
+ * 客户端预热测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 17:30
+ **/
+public class ManagedHttpClientTest {
+
+    private LocalServer server;
+
+    private ManagedHttpClient client;
+
+    public void setUp() throws Exception {
+        server = LocalServer.start();
+        server.handle("/", exchange -> LocalServer.respond(exchange, 200, "ok"));
+    }
+
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        server.close();
+    }
+
+    private PoolStats stats(HttpHost host) {
+        return client.getManager().getStats(HttpClientConfigHandler.createRoute(host));
+    }
+
+    public void testWarmUpOpensPooledConnections() throws Exception {
+        client = new ManagedHttpClient(HttpClientConfig.custom().setMaxRoute(10).build());
+        assertEquals(3, client.warmUp(Collections.singleton(server.host()), 3));
+        assertEquals(3, stats(server.host()).getAvailable());
+        assertEquals(0, stats(server.host()).getLeased());
+
+        // 已有的连接计入预热数量
+        assertEquals(1, client.warmUp(Collections.singleton(server.host()), 4));
+        assertEquals(4, stats(server.host()).getAvailable());
+
+        // 请求复用预热的连接，不再新建
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(server.url("/")))) {
+            assertEquals("ok", EntityUtils.toString(response.getEntity()));
+        }
+        assertEquals(4, stats(server.host()).getAvailable());
+        assertEquals(1, server.count("/"));
+    }
+
+    public void testWarmUpRespectsMaxPerRoute() throws Exception {
+        HttpHost other = new HttpHost("localhost", server.host().getPort(), "http");
+        client = new ManagedHttpClient(HttpClientConfig.custom()
+                .setMaxRoute(2)
+                .setMaxPerRoute(other, 1)
+                .build());
+        assertEquals(3, client.warmUp(Arrays.asList(server.host(), other), 5));
+        assertEquals(2, stats(server.host()).getAvailable());
+        assertEquals(1, stats(other).getAvailable());
+    }
+
+    public void testWarmUpFailureReleasesConnections() throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        HttpHost closed = new HttpHost("127.0.0.1", port, "http");
+        client = new ManagedHttpClient(HttpClientConfig.custom().setMaxRoute(2).build());
+        assertThrows(IOException.class, () -> client.warmUp(Arrays.asList(closed, server.host()), 2));
+        // 失败的连接不留在连接池，其他路由已建立的连接保留
+        assertEquals(0, client.getManager().getTotalStats().getLeased());
+        assertEquals(0, stats(closed).getAvailable());
+        assertEquals(2, stats(server.host()).getAvailable());
+    }
+
+    public void testWarmUpSkipsConnectionsForHttp2() throws Exception {
+        client = new ManagedHttpClient(HttpClientConfig.custom().setTransport(Http2Transport.DEFAULT).build());
+        assertEquals(0, client.warmUp(Collections.singleton(server.host()), 3));
+        assertEquals(0, client.getManager().getTotalStats().getAvailable());
+    }
+
+    public void testWarmUpAfterCloseIsRejected() throws Exception {
+        client = new ManagedHttpClient(HttpClientConfig.custom().build());
+        client.close();
+        assertThrows(IllegalStateException.class, () -> client.warmUp(Collections.singleton(server.host()), 1));
+        client = null;
+    }
+}
@@ -0,0 +1,74 @@
+package com.springboot.httpclient;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertFalse;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 重试预算的令牌计算测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 14:30
+ **/
+public class RetryBudgetTest {
+
+    private static final String ROUTE = "http://127.0.0.1:80";
+
+    private static int drain(RetryBudget budget, String route) {
+        int acquired = 0;
+        while (budget.tryAcquire(route)) {
+            acquired++;
+        }
+        return acquired;
+    }
+
+    public void testDepositsFundRetriesAtRatio() {
+        RetryBudget budget = new RetryBudget(0.2, 0);
+        assertFalse(budget.tryAcquire(ROUTE), "retry without deposits");
+        for (int i = 0; i < 4; i++) {
+            budget.deposit(ROUTE);
+        }
+        // 0.8个令牌不足一次重试
+        assertFalse(budget.tryAcquire(ROUTE), "retry with 0.8 tokens");
+        budget.deposit(ROUTE);
+        assertTrue(budget.tryAcquire(ROUTE), "retry with 1 token rejected");
+        assertFalse(budget.tryAcquire(ROUTE), "budget overdrawn");
+
+        for (int i = 0; i < 50; i++) {
+            budget.deposit(ROUTE);
+        }
+        assertEquals(10, drain(budget, ROUTE));
+    }
+
+    public void testMinPerSecondRefills() throws Exception {
+        RetryBudget budget = new RetryBudget(0, 10);
+        // 新路由先得到一秒的保底令牌
+        assertEquals(10, drain(budget, ROUTE));
+        Thread.sleep(250);
+        int refilled = drain(budget, ROUTE);
+        assertTrue(refilled >= 2 && refilled <= 4, "refilled " + refilled + " tokens in 250ms");
+    }
+
+    public void testTokensAreCapped() {
+        RetryBudget budget = new RetryBudget(1, 0);
+        for (int i = 0; i < 500; i++) {
+            budget.deposit(ROUTE);
+        }
+        assertEquals(100, drain(budget, ROUTE));
+    }
+
+    public void testRoutesAreIndependent() {
+        RetryBudget budget = new RetryBudget(1, 0);
+        budget.deposit(ROUTE);
+        assertFalse(budget.tryAcquire("http://127.0.0.2:80"), "route used another route's tokens");
+        assertTrue(budget.tryAcquire(ROUTE), "deposit lost");
+    }
+
+    public void testUnlimitedNeverRejects() {
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(RetryBudget.UNLIMITED.tryAcquire(ROUTE), "unlimited budget rejected");
+        }
+        assertTrue(new RetryBudget(-1, 0).tryAcquire(ROUTE), "negative ratio limited");
+    }
+}
@@ -0,0 +1,138 @@
+package com.springboot.httpclient;
+
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 按路由熔断和限制并发的执行链测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 16:00
+ **/
+public class RouteGuardExecChainTest {
+
+    private LocalServer server;
+
+    private ManagedHttpClient client;
+
+    private ExecutorService executor;
+
+    /**
+     * 放行服务端挂起的请求
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    public void setUp() throws Exception {
+        server = LocalServer.start();
+        server.handle("/fail", exchange -> LocalServer.respond(exchange, 500, "fail"));
+        server.handle("/ok", exchange -> LocalServer.respond(exchange, 200, "ok"));
+        server.handle("/hang", exchange -> {
+            release.await(10, TimeUnit.SECONDS);
+            LocalServer.respond(exchange, 200, "released");
+        });
+        executor = Executors.newCachedThreadPool();
+    }
+
+    public void tearDown() throws Exception {
+        release.countDown();
+        executor.shutdownNow();
+        if (client != null) {
+            client.close();
+        }
+        server.close();
+    }
+
+    /**
+     * 关闭重试，被拒绝的请求直接抛给调用方
+     */
+    private void start(CircuitBreakerPolicy breakerPolicy, ConcurrencyLimitPolicy limitPolicy) throws Exception {
+        client = new ManagedHttpClient(HttpClientConfig.custom()
+                .setCircuitBreakerPolicy(breakerPolicy)
+                .setConcurrencyLimitPolicy(limitPolicy)
+                .setRetryCount(0)
+                .build());
+    }
+
+    private String get(String url) throws IOException {
+        try (CloseableHttpResponse response = client.getClient().execute(new HttpGet(url))) {
+            return EntityUtils.toString(response.getEntity());
+        }
+    }
+
+    private Future<String> submit(final String url) {
+        return executor.submit(() -> get(url));
+    }
+
+    private void awaitCount(String path, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (server.count(path) < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, server.count(path));
+    }
+
+    public void testOpenCircuitRejectsWithoutCallingServer() throws Exception {
+        start(CircuitBreakerPolicy.custom().setWindow(4, 4).setOpenDuration(60000).build(), null);
+        for (int i = 0; i < 4; i++) {
+            assertEquals("fail", get(server.url("/fail")));
+        }
+        RequestRejectedException e = assertThrows(RequestRejectedException.class, () -> get(server.url("/ok")));
+        assertEquals(server.host().toURI(), e.getRoute());
+        assertEquals(0, server.count("/ok"));
+        // 熔断只针对路由，同一服务的另一个主机名不受影响
+        String other = "http://localhost:" + server.host().getPort() + "/ok";
+        assertEquals("ok", get(other));
+    }
+
+    public void testConcurrencyLimitRejectsExcess() throws Exception {
+        start(null, ConcurrencyLimitPolicy.custom().setLimit(2, 1, 2).build());
+        Future<String> first = submit(server.url("/hang"));
+        Future<String> second = submit(server.url("/hang"));
+        awaitCount("/hang", 2);
+        assertThrows(RequestRejectedException.class, () -> get(server.url("/ok")));
+        assertEquals(0, server.count("/ok"));
+        release.countDown();
+        assertEquals("released", first.get(5, TimeUnit.SECONDS));
+        assertEquals("released", second.get(5, TimeUnit.SECONDS));
+        assertEquals("ok", get(server.url("/ok")));
+    }
+
+    /**
+     * 半开时被并发限制拒绝的请求归还熔断许可，否则许可耗尽后熔断器一直停在半开
+     */
+    public void testLimitRejectionReturnsHalfOpenPermit() throws Exception {
+        start(CircuitBreakerPolicy.custom().setWindow(2, 2).setOpenDuration(100).setHalfOpenCalls(2).build(),
+                ConcurrencyLimitPolicy.custom().setLimit(1, 1, 1).build());
+        assertEquals("fail", get(server.url("/fail")));
+        assertEquals("fail", get(server.url("/fail")));
+        assertThrows(RequestRejectedException.class, () -> get(server.url("/ok")));
+        Thread.sleep(200);
+
+        // 第一个试探占用唯一的并发许可，第二个试探被并发限制拒绝
+        Future<String> probe = submit(server.url("/hang"));
+        awaitCount("/hang", 1);
+        RequestRejectedException e = assertThrows(RequestRejectedException.class, () -> get(server.url("/ok")));
+        assertTrue(e.getMessage().startsWith("concurrency limit"), e.getMessage());
+        release.countDown();
+        assertEquals("released", probe.get(5, TimeUnit.SECONDS));
+
+        // 归还的许可用于第二个试探，成功后熔断器关闭
+        assertEquals("ok", get(server.url("/ok")));
+        for (int i = 0; i < 5; i++) {
+            assertEquals("ok", get(server.url("/ok")));
+        }
+    }
+}
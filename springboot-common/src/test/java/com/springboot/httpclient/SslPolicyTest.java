@@ -0,0 +1,99 @@
+package com.springboot.httpclient;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSessionContext;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.KeyStore;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertFalse;
+import static com.springboot.Asserts.assertNull;
+import static com.springboot.Asserts.assertSame;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * TLS配置测试：按值比较、共享SSLContext、会话缓存设置及信任库加载
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 17:00
+ **/
+public class SslPolicyTest {
+
+    private File store;
+
+    public void setUp() throws Exception {
+        store = File.createTempFile("trust", ".p12");
+        KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        try (OutputStream out = new FileOutputStream(store)) {
+            keyStore.store(out, "secret".toCharArray());
+        }
+    }
+
+    public void tearDown() {
+        store.delete();
+    }
+
+    public void testEqualPoliciesShareSslContext() throws Exception {
+        SslPolicy first = SslPolicy.custom().setProtocols("TLSv1.2").setSessionCacheSize(7).build();
+        SslPolicy second = SslPolicy.custom().setProtocols("TLSv1.2").setSessionCacheSize(7).build();
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+        assertSame(HttpClientConfigHandler.sslContext(first), HttpClientConfigHandler.sslContext(second));
+
+        SslPolicy other = SslPolicy.custom().setProtocols("TLSv1.2").setSessionCacheSize(8).build();
+        assertFalse(first.equals(other), "different cache size compared equal");
+        assertTrue(HttpClientConfigHandler.sslContext(first) != HttpClientConfigHandler.sslContext(other),
+                "different policies share an SSLContext");
+        assertSame(HttpClientConfigHandler.sslContext(SslPolicy.DEFAULT),
+                HttpClientConfigHandler.sslContext(SslPolicy.custom().build()));
+    }
+
+    public void testSessionCacheSettingsApplied() throws Exception {
+        SSLContext context = HttpClientConfigHandler.sslContext(SslPolicy.custom()
+                .setSessionCacheSize(11)
+                .setSessionTimeout(321)
+                .build());
+        SSLSessionContext sessions = context.getClientSessionContext();
+        assertEquals(11, sessions.getSessionCacheSize());
+        assertEquals(321, sessions.getSessionTimeout());
+    }
+
+    public void testPasswordsAreCopiedAndHidden() {
+        char[] password = "secret".toCharArray();
+        SslPolicy policy = SslPolicy.custom().setTrustStore(store.getPath(), "PKCS12", password).build();
+        password[0] = 'X';
+        assertEquals("secret".toCharArray(), policy.getTrustStorePassword());
+        assertEquals(policy, SslPolicy.custom().setTrustStore(store.getPath(), "PKCS12", "secret".toCharArray()).build());
+        assertFalse(policy.toString().contains("secret"), "password in toString: " + policy);
+
+        // 私钥密码未设置时与密钥库密码相同
+        SslPolicy keyed = SslPolicy.custom().setKeyStore(store.getPath(), null, "secret".toCharArray(), null).build();
+        assertEquals("secret".toCharArray(), keyed.getKeyPassword());
+
+        assertNull(policy.getProtocols());
+        SslPolicy tls = SslPolicy.custom().setProtocols("TLSv1.2").build();
+        tls.getProtocols()[0] = "SSLv3";
+        assertEquals(new String[]{"TLSv1.2"}, tls.getProtocols());
+    }
+
+    public void testTrustStoreIsLoaded() throws Exception {
+        SSLContext context = HttpClientConfigHandler.sslContext(SslPolicy.custom()
+                .setTrustStore(store.getPath(), "PKCS12", "secret".toCharArray())
+                .setTrustSelfSigned(false)
+                .build());
+        assertTrue(context != null, "no SSLContext");
+        assertThrows(IOException.class, () -> HttpClientConfigHandler.sslContext(SslPolicy.custom()
+                .setTrustStore(store.getPath(), "PKCS12", "wrong".toCharArray())
+                .build()));
+    }
+
+    public void testConfigRejectsNullPolicy() {
+        assertThrows(IllegalArgumentException.class, () -> HttpClientConfig.custom().setSslPolicy(null));
+    }
+}
@@ -0,0 +1,144 @@
+package com.springboot.signature;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Random;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+
+/**
+ * Base64编解码测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-08 11:00
+ **/
+public class Base64CodecTest {
+
+    public void testRoundTripMatchesJdk() {
+        Random random = new Random(3);
+        for (int length = 0; length < 300; length++) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            String basic = Base64.getEncoder().encodeToString(data);
+            assertEquals(basic, Base64Codec.BASIC.encodeToString(data));
+            assertEquals(data, Base64Codec.BASIC.decode(basic));
+            assertEquals(data, decodeBytes(Base64Codec.BASIC, basic));
+            assertEquals(data, decodeDirect(Base64Codec.BASIC, basic));
+            String url = Base64.getUrlEncoder().encodeToString(data);
+            assertEquals(data, Base64Codec.URL_SAFE.decode(url));
+            String mime = Base64.getMimeEncoder().encodeToString(data);
+            assertEquals(data, Base64Codec.MIME.decode(mime));
+        }
+    }
+
+    public void testWhitespaceAndMissingPadding() {
+        byte[] data = "hello world".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(data, Base64Codec.BASIC.decode("aGVs bG8g\r\nd29y bGQ=\r\n"));
+        assertEquals(data, Base64Codec.BASIC.decode("aGVsbG8gd29ybGQ"));
+        assertEquals(data, decodeDirect(Base64Codec.BASIC, "aGVsbG8gd29ybGQ= \n"));
+    }
+
+    public void testRejectsDataAfterPadding() {
+        assertRejected("aGk=aGk=");
+        assertRejected("aGk= QQ==");
+        assertRejected("aGk=A");
+    }
+
+    public void testRejectsIncompletePadding() {
+        assertRejected("aA=");
+        assertRejected("aGk==");
+        assertRejected("aGlk=");
+        assertRejected("=");
+    }
+
+    public void testRejectsNonCanonicalTrailingBits() {
+        // "aB=="与"aA=="解码结果相同
+        assertEquals(new byte[]{0x68}, Base64Codec.BASIC.decode("aA=="));
+        assertRejected("aB==");
+        assertRejected("aGl=");
+        assertRejected("aB");
+    }
+
+    public void testMimeIgnoresIllegalCharactersButNotTrailingData() {
+        assertEquals(new byte[]{0x68, 0x69}, Base64Codec.MIME.decode("a*Gk=!\r\n"));
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.MIME.decode("aGk=aGk="));
+    }
+
+    public void testExactSizeDestinationIsEnough() {
+        byte[] src = "aGVsbG8gd29ybGQ=".getBytes(StandardCharsets.US_ASCII);
+        // 精确长度11小于maxDecodedLength的12
+        byte[] dst = new byte[11];
+        assertEquals(11, Base64Codec.BASIC.decode(src, 0, src.length, dst, 0));
+        assertEquals("hello world".getBytes(StandardCharsets.US_ASCII), dst);
+        ByteBuffer out = ByteBuffer.allocate(11);
+        assertEquals(11, Base64Codec.BASIC.decode(ByteBuffer.wrap(src), out));
+        assertEquals(0, out.remaining());
+    }
+
+    public void testSmallArrayDestinationIsRejectedBeforeWriting() {
+        byte[] src = "aGVsbG8gd29ybGQ=".getBytes(StandardCharsets.US_ASCII);
+        byte[] dst = new byte[12];
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.BASIC.decode(src, 0, src.length, dst, 2));
+        assertEquals(new byte[12], dst);
+    }
+
+    public void testSmallHeapBufferIsRejectedBeforeWriting() {
+        ByteBuffer src = ByteBuffer.wrap("aGVsbG8gd29ybGQ=".getBytes(StandardCharsets.US_ASCII));
+        byte[] shared = new byte[16];
+        // 切片只允许写入前4个字节，其后是共享数组中相邻的数据
+        ByteBuffer slice = ByteBuffer.wrap(shared, 2, 4).slice();
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.BASIC.decode(src, slice));
+        assertEquals(new byte[16], shared);
+        assertEquals(0, src.position());
+        assertEquals(0, slice.position());
+        ByteBuffer limited = ByteBuffer.allocate(16);
+        limited.limit(10);
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.BASIC.decode(src, limited));
+        assertEquals(new byte[16], limited.array());
+        assertEquals(0, src.position());
+    }
+
+    public void testSmallDirectBufferIsRejectedBeforeWriting() {
+        byte[] bytes = "aGVsbG8gd29ybGQ=".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer src = ByteBuffer.allocateDirect(bytes.length);
+        src.put(bytes);
+        src.flip();
+        ByteBuffer dst = ByteBuffer.allocateDirect(10);
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.BASIC.decode(src, dst));
+        assertEquals(0, src.position());
+        assertEquals(0, dst.position());
+    }
+
+    private static void assertRejected(String src) {
+        assertThrows(IllegalArgumentException.class, () -> Base64Codec.BASIC.decode(src));
+        assertThrows(IllegalArgumentException.class, () -> decodeBytes(Base64Codec.BASIC, src));
+        assertThrows(IllegalArgumentException.class, () -> decodeDirect(Base64Codec.BASIC, src));
+    }
+
+    private static byte[] decodeBytes(Base64Codec codec, String src) {
+        byte[] bytes = src.getBytes(StandardCharsets.US_ASCII);
+        byte[] dst = new byte[codec.maxDecodedLength(bytes.length)];
+        int length = codec.decode(bytes, 0, bytes.length, dst, 0);
+        byte[] result = new byte[length];
+        System.arraycopy(dst, 0, result, 0, length);
+        return result;
+    }
+
+    /**
+     * 直接缓冲区走逐字节的解码路径
+     */
+    private static byte[] decodeDirect(Base64Codec codec, String src) {
+        byte[] bytes = src.getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer in = ByteBuffer.allocateDirect(bytes.length);
+        in.put(bytes).flip();
+        ByteBuffer out = ByteBuffer.allocateDirect(codec.maxDecodedLength(bytes.length));
+        codec.decode(in, out);
+        out.flip();
+        byte[] result = new byte[out.remaining()];
+        out.get(result);
+        return result;
+    }
+}
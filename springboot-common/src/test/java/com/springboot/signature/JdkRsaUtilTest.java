@@ -0,0 +1,152 @@
+package com.springboot.signature;
+
+import javax.crypto.Cipher;
+import javax.crypto.ShortBufferException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Random;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+
+/**
+ * RSA分块加解密测试，覆盖1024、2048和4096位密钥
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 09:00
+ **/
+public class JdkRsaUtilTest {
+
+    private static final KeyPair[] KEYS = {generate(1024), generate(2048), generate(4096)};
+
+    private static KeyPair generate(int bits) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(bits);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static byte[] random(int length) {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    /**
+     * 空输入、不足一块、恰好一块、多一个字节以及多块的长度
+     */
+    private static int[] lengths(int block) {
+        return new int[]{0, 1, block - 1, block, block + 1, 3 * block + 5};
+    }
+
+    private static ByteBuffer buffer(byte[] data, boolean direct) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(data.length) : ByteBuffer.allocate(data.length);
+        buffer.put(data);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        buffer.flip();
+        byte[] data = new byte[buffer.remaining()];
+        buffer.get(data);
+        return data;
+    }
+
+    public void testByteArrayRoundTrip() throws Exception {
+        for (KeyPair keys : KEYS) {
+            int keySize = JdkRsaUtil.keySize(keys.getPublic());
+            int block = keySize - 11;
+            for (int length : lengths(block)) {
+                byte[] content = random(length);
+                int blocks = (length + block - 1) / block;
+                byte[] sealed = JdkRsaUtil.encryptByPublicKey(content, keys.getPublic());
+                assertEquals(blocks * keySize, sealed.length);
+                assertEquals(sealed.length, JdkRsaUtil.getOutputSize(length, Cipher.ENCRYPT_MODE, keys.getPublic()));
+                assertEquals(content, JdkRsaUtil.decryptByPrivateKey(sealed, keys.getPrivate()));
+                sealed = JdkRsaUtil.encryptByPrivateKey(content, keys.getPrivate());
+                assertEquals(blocks * keySize, sealed.length);
+                assertEquals(content, JdkRsaUtil.decryptByPublicKey(sealed, keys.getPublic()));
+            }
+        }
+    }
+
+    public void testByteBufferRoundTrip() throws Exception {
+        for (KeyPair keys : KEYS) {
+            int block = JdkRsaUtil.keySize(keys.getPublic()) - 11;
+            for (int length : lengths(block)) {
+                byte[] content = random(length);
+                for (boolean direct : new boolean[]{false, true}) {
+                    ByteBuffer in = buffer(content, direct);
+                    ByteBuffer sealed = ByteBuffer.allocate(
+                            JdkRsaUtil.getOutputSize(length, Cipher.ENCRYPT_MODE, keys.getPublic()));
+                    int written = JdkRsaUtil.encryptByPublicKey(in, sealed, keys.getPublic());
+                    assertEquals(sealed.capacity(), written);
+                    assertEquals(0, in.remaining());
+                    assertEquals(length, in.limit());
+                    byte[] cipherText = toBytes(sealed);
+                    assertEquals(content, JdkRsaUtil.decryptByPrivateKey(cipherText, keys.getPrivate()));
+
+                    in = buffer(cipherText, direct);
+                    ByteBuffer opened = direct
+                            ? ByteBuffer.allocateDirect(JdkRsaUtil.getOutputSize(written, Cipher.DECRYPT_MODE, keys.getPrivate()))
+                            : ByteBuffer.allocate(JdkRsaUtil.getOutputSize(written, Cipher.DECRYPT_MODE, keys.getPrivate()));
+                    assertEquals(length, JdkRsaUtil.decryptByPrivateKey(in, opened, keys.getPrivate()));
+                    assertEquals(content, toBytes(opened));
+
+                    in = buffer(content, direct);
+                    sealed = ByteBuffer.allocate(JdkRsaUtil.getOutputSize(length, Cipher.ENCRYPT_MODE, keys.getPrivate()));
+                    JdkRsaUtil.encryptByPrivateKey(in, sealed, keys.getPrivate());
+                    cipherText = toBytes(sealed);
+                    opened = ByteBuffer.allocate(JdkRsaUtil.getOutputSize(cipherText.length, Cipher.DECRYPT_MODE, keys.getPublic()));
+                    JdkRsaUtil.decryptByPublicKey(buffer(cipherText, direct), opened, keys.getPublic());
+                    assertEquals(content, toBytes(opened));
+                }
+            }
+        }
+    }
+
+    public void testStringKeysRoundTrip() throws Exception {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 1500) {
+            text.append("block-").append(text.length()).append(' ');
+        }
+        for (KeyPair keys : KEYS) {
+            String publicKey = Base64Codec.BASIC.encodeToString(keys.getPublic().getEncoded());
+            String privateKey = Base64Codec.BASIC.encodeToString(keys.getPrivate().getEncoded());
+            assertEquals(text.toString(), JdkRsaUtil.decryptByPrivateKey(
+                    JdkRsaUtil.encryptByPublicKey(text.toString(), publicKey), privateKey));
+            assertEquals(text.toString(), JdkRsaUtil.decryptByPublicKey(
+                    JdkRsaUtil.encryptByPrivateKey(text.toString(), privateKey), publicKey));
+        }
+    }
+
+    public void testShortOutputBufferIsRejected() throws Exception {
+        for (KeyPair keys : KEYS) {
+            int keySize = JdkRsaUtil.keySize(keys.getPublic());
+            byte[] content = random(2 * (keySize - 11) + 1);
+            final ByteBuffer in = ByteBuffer.wrap(content);
+            final ByteBuffer out = ByteBuffer.allocate(3 * keySize - 1);
+            assertThrows(ShortBufferException.class, () -> JdkRsaUtil.encryptByPublicKey(in, out, keys.getPublic()));
+            // 校验在处理前完成，输入和输出都未移动
+            assertEquals(0, in.position());
+            assertEquals(0, out.position());
+
+            final ByteBuffer sealed = ByteBuffer.wrap(JdkRsaUtil.encryptByPublicKey(content, keys.getPublic()));
+            final ByteBuffer opened = ByteBuffer.allocate(content.length);
+            assertThrows(ShortBufferException.class, () -> JdkRsaUtil.decryptByPrivateKey(sealed, opened, keys.getPrivate()));
+            assertEquals(0, sealed.position());
+        }
+        // 异常后线程内复用的Cipher仍然可用
+        KeyPair keys = KEYS[0];
+        byte[] content = "after failure".getBytes(StandardCharsets.UTF_8);
+        assertEquals(content, JdkRsaUtil.decryptByPrivateKey(
+                JdkRsaUtil.encryptByPublicKey(content, keys.getPublic()), keys.getPrivate()));
+    }
+}
@@ -0,0 +1,98 @@
+package com.springboot.signature;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 批量签名、验签测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-08 10:30
+ **/
+public class RsaBatchTest {
+
+    private static final KeyPair KEYS = generate();
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<byte[]> contents(int size) {
+        List<byte[]> contents = new ArrayList<byte[]>();
+        for (int i = 0; i < size; i++) {
+            contents.add(("content-" + i).getBytes());
+        }
+        return contents;
+    }
+
+    public void testLinkedListInput() throws Exception {
+        List<byte[]> contents = new LinkedList<byte[]>(contents(100));
+        List<String> signs = new LinkedList<String>(Arrays.asList(RsaBatch.signAll(contents, KEYS.getPrivate())));
+        signs.set(7, signs.get(8));
+        boolean[] results = RsaBatch.verifyAll(contents, KEYS.getPublic(), signs);
+        for (int i = 0; i < results.length; i++) {
+            assertEquals(i != 7, results[i]);
+        }
+    }
+
+    /**
+     * 调用线程的段失败时，已提交的段结束后才抛出
+     */
+    public void testCallerFailureAwaitsWorkers() throws Exception {
+        AtomicInteger submitted = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<byte[]> contents = contents(64);
+            // 最后一段由调用线程执行，立即失败
+            contents.set(63, null);
+            long start = System.nanoTime();
+            assertThrows(NullPointerException.class, () -> RsaBatch.signAll(contents, KEYS.getPrivate(), command -> {
+                submitted.incrementAndGet();
+                pool.execute(() -> {
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    command.run();
+                });
+            }));
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(submitted.get() > 0, "no segment was submitted");
+            assertTrue(elapsed >= 190, "returned after " + elapsed + "ms while segments were still running");
+        } finally {
+            pool.shutdownNow();
+            pool.awaitTermination(5, TimeUnit.SECONDS);
+        }
+    }
+
+    public void testWorkerFailureIsRethrown() throws Exception {
+        List<byte[]> contents = contents(64);
+        contents.set(0, null);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            assertThrows(NullPointerException.class, () -> RsaBatch.signAll(contents, KEYS.getPrivate(), pool));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
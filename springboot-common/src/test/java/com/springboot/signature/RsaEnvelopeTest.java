@@ -0,0 +1,90 @@
+package com.springboot.signature;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Random;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertThrows;
+
+/**
+ * 数字信封加解密测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-08 10:00
+ **/
+public class RsaEnvelopeTest {
+
+    private static final KeyPair KEYS = generate();
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void testRoundTrip() throws Exception {
+        byte[] content = new byte[200 * 1024 + 7];
+        new Random(1).nextBytes(content);
+        assertEquals(content, RsaEnvelope.decrypt(RsaEnvelope.encrypt(content, KEYS.getPublic()), KEYS.getPrivate()));
+        assertEquals(new byte[0], RsaEnvelope.decrypt(RsaEnvelope.encrypt(new byte[0], KEYS.getPublic()), KEYS.getPrivate()));
+    }
+
+    public void testRoundTripWithSmallChunks() throws Exception {
+        byte[] content = new byte[1000];
+        new Random(2).nextBytes(content);
+        ByteArrayOutputStream sealed = new ByteArrayOutputStream();
+        RsaEnvelope.encrypt(Channels.newChannel(new ByteArrayInputStream(content)), Channels.newChannel(sealed), KEYS.getPublic(), 100);
+        assertEquals(content, RsaEnvelope.decrypt(sealed.toByteArray(), KEYS.getPrivate()));
+    }
+
+    public void testEncryptRejectsOversizedChunk() {
+        assertThrows(IllegalArgumentException.class, () -> RsaEnvelope.encrypt(Channels.newChannel(new ByteArrayInputStream(new byte[1])),
+                Channels.newChannel(new ByteArrayOutputStream()), KEYS.getPublic(), RsaEnvelope.Constants.MAX_CHUNK_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> RsaEnvelope.encrypt(Channels.newChannel(new ByteArrayInputStream(new byte[1])),
+                Channels.newChannel(new ByteArrayOutputStream()), KEYS.getPublic(), 0));
+    }
+
+    /**
+     * 消息头中的块大小未经认证，超过上限时在分配缓冲区前拒绝
+     */
+    public void testDecryptRejectsOversizedChunkHeader() throws Exception {
+        byte[] sealed = RsaEnvelope.encrypt(new byte[]{1, 2, 3}, KEYS.getPublic());
+        int wrappedLength = ByteBuffer.wrap(sealed, 3, 2).getShort() & 0xFFFF;
+        int chunkSizeOffset = 5 + wrappedLength + RsaEnvelope.Constants.NONCE_PREFIX_LENGTH;
+        ByteBuffer.wrap(sealed).putInt(chunkSizeOffset, Integer.MAX_VALUE - 100);
+        GeneralSecurityException e = assertThrows(GeneralSecurityException.class, () -> RsaEnvelope.decrypt(sealed, KEYS.getPrivate()));
+        assertEquals("invalid chunk size " + (Integer.MAX_VALUE - 100), e.getMessage());
+    }
+
+    /**
+     * 块长度超过声明的块大小时拒绝
+     */
+    public void testDecryptRejectsChunkLongerThanHeader() throws Exception {
+        byte[] sealed = RsaEnvelope.encrypt(new byte[]{1, 2, 3}, KEYS.getPublic());
+        int wrappedLength = ByteBuffer.wrap(sealed, 3, 2).getShort() & 0xFFFF;
+        int chunkSizeOffset = 5 + wrappedLength + RsaEnvelope.Constants.NONCE_PREFIX_LENGTH;
+        ByteBuffer.wrap(sealed).putInt(chunkSizeOffset, 1);
+        assertThrows(GeneralSecurityException.class, () -> RsaEnvelope.decrypt(sealed, KEYS.getPrivate()));
+    }
+
+    public void testDecryptRejectsWrongContentKeyLength() throws Exception {
+        byte[] sealed = RsaEnvelope.encrypt(new byte[]{1, 2, 3}, KEYS.getPublic());
+        int wrappedLength = ByteBuffer.wrap(sealed, 3, 2).getShort() & 0xFFFF;
+        byte[] forged = JdkRsaUtil.encryptByPublicKey(new byte[32], KEYS.getPublic());
+        assertEquals(wrappedLength, forged.length);
+        System.arraycopy(forged, 0, sealed, 5, forged.length);
+        GeneralSecurityException e = assertThrows(GeneralSecurityException.class, () -> RsaEnvelope.decrypt(sealed, KEYS.getPrivate()));
+        assertEquals("invalid content key length 32", e.getMessage());
+    }
+}
@@ -0,0 +1,115 @@
+package com.springboot.signature;
+
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertSame;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 密钥缓存测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 13:00
+ **/
+public class RsaKeyCacheTest {
+
+    private static final PublicKey KEY = generate();
+
+    private static PublicKey generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+            return generator.generateKeyPair().getPublic();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 统计解析次数的loader
+     */
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final RsaKeyCache.Loader<PublicKey> loader = new RsaKeyCache.Loader<PublicKey>() {
+        @Override
+        public PublicKey load(String encoded) {
+            loads.incrementAndGet();
+            return KEY;
+        }
+    };
+
+    public void testCachedKeyIsParsedOnce() throws Exception {
+        RsaKeyCache<PublicKey> cache = new RsaKeyCache<PublicKey>(16, 0);
+        assertSame(KEY, cache.get("a", loader));
+        assertSame(KEY, cache.get("a", loader));
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    public void testSegmentsStayLargeEnoughForHotKeys() throws Exception {
+        // 32核时原来会分成128段、每段2个，现在最多16段、每段至少16个
+        assertEquals(16, StripedLruCache.segmentCount(JdkRsaUtil.Constants.KEY_CACHE_SIZE, 32));
+        assertEquals(4, StripedLruCache.segmentCount(JdkRsaUtil.Constants.KEY_CACHE_SIZE, 1));
+        assertEquals(4, StripedLruCache.segmentCount(64, 32));
+        assertEquals(1, StripedLruCache.segmentCount(31, 32));
+        assertEquals(1, StripedLruCache.segmentCount(1, 32));
+        // 三个哈希值相同、必然落在同一段的热点键轮流访问，也只各解析一次
+        RsaKeyCache<PublicKey> cache = new RsaKeyCache<PublicKey>(JdkRsaUtil.Constants.KEY_CACHE_SIZE, 0);
+        String[] hot = {"AaAa", "AaBB", "BBAa"};
+        assertTrue(hot[0].hashCode() == hot[1].hashCode() && hot[1].hashCode() == hot[2].hashCode(),
+                "keys do not collide");
+        for (int round = 0; round < 10; round++) {
+            for (String key : hot) {
+                cache.get(key, loader);
+            }
+        }
+        assertEquals(3, loads.get());
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        RsaKeyCache<PublicKey> cache = new RsaKeyCache<PublicKey>(2, 0);
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.get("a", loader);
+        cache.get("c", loader);
+        assertEquals(3, loads.get());
+        cache.get("a", loader);
+        assertEquals(3, loads.get());
+        cache.get("b", loader);
+        assertEquals(4, loads.get());
+    }
+
+    public void testEntriesExpireAfterWrite() throws Exception {
+        RsaKeyCache<PublicKey> cache = new RsaKeyCache<PublicKey>(16, 100);
+        cache.get("a", loader);
+        cache.get("a", loader);
+        assertEquals(1, loads.get());
+        Thread.sleep(200);
+        cache.get("a", loader);
+        assertEquals(2, loads.get());
+    }
+
+    public void testInvalidateAndClear() throws Exception {
+        RsaKeyCache<PublicKey> cache = new RsaKeyCache<PublicKey>(16, 0);
+        cache.get("a", loader);
+        cache.get("b", loader);
+        cache.invalidate("a");
+        assertEquals(1, cache.size());
+        cache.get("a", loader);
+        assertEquals(3, loads.get());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    public void testDisabledCacheAlwaysLoads() throws Exception {
+        RsaKeyCache<PublicKey> cache = new RsaKeyCache<PublicKey>(0, 0);
+        cache.get("a", loader);
+        cache.get("a", loader);
+        assertEquals(2, loads.get());
+        assertEquals(0, cache.size());
+    }
+}
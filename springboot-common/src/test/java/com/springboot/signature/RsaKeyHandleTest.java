@@ -0,0 +1,68 @@
+package com.springboot.signature;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertFalse;
+import static com.springboot.Asserts.assertThrows;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 预先解析密钥句柄测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 13:30
+ **/
+public class RsaKeyHandleTest {
+
+    private static final KeyPair KEYS = generate();
+
+    private static final String PUBLIC_KEY = Base64Codec.BASIC.encodeToString(KEYS.getPublic().getEncoded());
+
+    private static final String PRIVATE_KEY = Base64Codec.BASIC.encodeToString(KEYS.getPrivate().getEncoded());
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(2048);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public void testHandlesMatchStringKeys() throws Exception {
+        RsaKeyHandle publicKey = RsaKeyHandle.publicKey("partner", PUBLIC_KEY);
+        RsaKeyHandle privateKey = RsaKeyHandle.privateKey("self", PRIVATE_KEY);
+        assertTrue(publicKey.isPublic(), "public handle reported private");
+        assertFalse(privateKey.isPublic(), "private handle reported public");
+        assertEquals(KEYS.getPublic(), publicKey.getPublicKey());
+        assertEquals(KEYS.getPrivate(), privateKey.getPrivateKey());
+
+        String content = "order=1001&amount=100";
+        String sign = JdkRsaUtil.sign(content, privateKey);
+        assertEquals(JdkRsaUtil.sign(content, PRIVATE_KEY), sign);
+        assertTrue(JdkRsaUtil.verify(content, publicKey, sign), "handle verify failed");
+        assertTrue(JdkRsaUtil.verify(content, PUBLIC_KEY, sign), "string verify failed");
+        assertEquals(content, JdkRsaUtil.decrypt(JdkRsaUtil.encrypt(content, publicKey), privateKey));
+        assertEquals(content, JdkRsaUtil.decrypt(JdkRsaUtil.encrypt(content, privateKey), publicKey));
+        assertEquals(content, JdkRsaUtil.decryptByPrivateKey(JdkRsaUtil.encrypt(content, publicKey), PRIVATE_KEY));
+    }
+
+    public void testWrongKeyTypeIsRejected() {
+        final RsaKeyHandle publicKey = RsaKeyHandle.of("partner", KEYS.getPublic());
+        final RsaKeyHandle privateKey = RsaKeyHandle.of("self", KEYS.getPrivate());
+        assertThrows(IllegalStateException.class, () -> publicKey.getPrivateKey());
+        assertThrows(IllegalStateException.class, () -> privateKey.getPublicKey());
+        assertThrows(IllegalArgumentException.class, () -> RsaKeyHandle.of("aes", new SecretKeySpec(new byte[16], "AES")));
+        assertEquals("RsaKeyHandle{name=partner, type=public}", publicKey.toString());
+    }
+
+    public void testInvalidKeyStringFailsAtRegistration() {
+        assertThrows(Exception.class, () -> RsaKeyHandle.publicKey("broken", "bm90IGEga2V5"));
+        assertThrows(Exception.class, () -> RsaKeyHandle.privateKey("broken", PUBLIC_KEY));
+    }
+}
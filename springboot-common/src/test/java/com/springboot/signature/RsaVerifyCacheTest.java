@@ -0,0 +1,127 @@
+package com.springboot.signature;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+
+import static com.springboot.Asserts.assertEquals;
+import static com.springboot.Asserts.assertFalse;
+import static com.springboot.Asserts.assertTrue;
+
+/**
+ * 验签结果缓存测试
+ *
+ * @author 林锋
+ * @email 904303298@qq.com
+ * @create 2018-05-10 11:00
+ **/
+public class RsaVerifyCacheTest {
+
+    private static final KeyPair KEYS = generate();
+
+    private static final KeyPair OTHER_KEYS = generate();
+
+    private static final byte[] CONTENT = "order=1001&amount=100".getBytes(StandardCharsets.UTF_8);
+
+    private static KeyPair generate() {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(1024);
+            return generator.generateKeyPair();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private RsaVerifyCache cache;
+
+    public void setUp() {
+        JdkRsaUtil.configureVerifyCache(64, 0);
+        cache = JdkRsaUtil.getVerifyCache();
+    }
+
+    public void tearDown() {
+        JdkRsaUtil.configureVerifyCache(0, 0);
+    }
+
+    private void assertCounts(long hits, long misses) {
+        assertEquals(hits, cache.getHitCount());
+        assertEquals(misses, cache.getMissCount());
+    }
+
+    public void testFailedVerifyIsNeverCached() throws Exception {
+        String sign = JdkRsaUtil.sign(CONTENT, KEYS.getPrivate());
+        byte[] tampered = Base64Codec.BASIC.decode(sign);
+        tampered[tampered.length - 1] ^= 1;
+        String bad = Base64Codec.BASIC.encodeToString(tampered);
+        assertFalse(JdkRsaUtil.verify(CONTENT, KEYS.getPublic(), bad), "tampered signature verified");
+        assertEquals(0, cache.size());
+        // 再次验证仍然未命中，走完整的RSA运算
+        assertFalse(JdkRsaUtil.verify(CONTENT, KEYS.getPublic(), bad), "tampered signature verified");
+        assertEquals(0, cache.size());
+        assertCounts(0, 2);
+        assertTrue(JdkRsaUtil.verify(CONTENT, KEYS.getPublic(), sign), "valid signature rejected");
+        assertEquals(1, cache.size());
+    }
+
+    public void testChangingKeySignatureOrContentMisses() throws Exception {
+        String sign = JdkRsaUtil.sign(CONTENT, KEYS.getPrivate());
+        assertTrue(JdkRsaUtil.verify(CONTENT, KEYS.getPublic(), sign), "valid signature rejected");
+        assertTrue(JdkRsaUtil.verify(CONTENT, KEYS.getPublic(), sign), "valid signature rejected");
+        assertCounts(1, 1);
+
+        byte[] changed = "order=1001&amount=900".getBytes(StandardCharsets.UTF_8);
+        assertFalse(JdkRsaUtil.verify(changed, KEYS.getPublic(), sign), "changed content verified");
+        assertCounts(1, 2);
+        assertFalse(JdkRsaUtil.verify(CONTENT, OTHER_KEYS.getPublic(), sign), "other key verified");
+        assertCounts(1, 3);
+        String otherSign = JdkRsaUtil.sign(changed, KEYS.getPrivate());
+        assertFalse(JdkRsaUtil.verify(CONTENT, KEYS.getPublic(), otherSign), "other signature verified");
+        assertCounts(1, 4);
+        assertEquals(1, cache.size());
+
+        // 另一把密钥的有效签名各自缓存
+        String signByOther = JdkRsaUtil.sign(CONTENT, OTHER_KEYS.getPrivate());
+        assertTrue(JdkRsaUtil.verify(CONTENT, OTHER_KEYS.getPublic(), signByOther), "valid signature rejected");
+        assertTrue(JdkRsaUtil.verify(CONTENT, OTHER_KEYS.getPublic(), signByOther), "valid signature rejected");
+        assertCounts(2, 5);
+        assertEquals(2, cache.size());
+        assertEquals(2.0 / 7, cache.getHitRate());
+    }
+
+    /**
+     * 各部分带长度前缀，签名和内容的边界移动不会得到相同的键
+     */
+    public void testFingerprintSeparatesSignatureFromContent() {
+        byte[] joined = "abcdef".getBytes(StandardCharsets.UTF_8);
+        RsaVerifyCache.Fingerprint first = cache.fingerprint(KEYS.getPublic(),
+                "def".getBytes(StandardCharsets.UTF_8), joined, 0, 3);
+        RsaVerifyCache.Fingerprint second = cache.fingerprint(KEYS.getPublic(),
+                "ef".getBytes(StandardCharsets.UTF_8), joined, 0, 4);
+        assertFalse(first.equals(second), "boundary shift produced the same fingerprint");
+        assertEquals(first, cache.fingerprint(KEYS.getPublic(), "def".getBytes(StandardCharsets.UTF_8), joined, 0, 3));
+    }
+
+    public void testEntriesExpireAfterWrite() throws Exception {
+        RsaVerifyCache expiring = new RsaVerifyCache(16, 100);
+        RsaVerifyCache.Fingerprint fingerprint = expiring.fingerprint(KEYS.getPublic(), CONTENT, new byte[]{1}, 0, 1);
+        expiring.put(fingerprint);
+        assertTrue(expiring.contains(fingerprint), "fresh entry missed");
+        Thread.sleep(200);
+        assertFalse(expiring.contains(fingerprint), "expired entry hit");
+        assertEquals(0, expiring.size());
+        assertEquals(1L, expiring.getHitCount());
+        assertEquals(1L, expiring.getMissCount());
+    }
+
+    public void testLeastRecentlyUsedIsEvicted() {
+        RsaVerifyCache small = new RsaVerifyCache(1, 0);
+        RsaVerifyCache.Fingerprint first = small.fingerprint(KEYS.getPublic(), CONTENT, new byte[]{1}, 0, 1);
+        RsaVerifyCache.Fingerprint second = small.fingerprint(KEYS.getPublic(), CONTENT, new byte[]{2}, 0, 1);
+        small.put(first);
+        small.put(second);
+        assertEquals(1, small.size());
+        assertFalse(small.contains(first), "evicted entry hit");
+        assertTrue(small.contains(second), "latest entry missed");
+    }
+}